@@ -0,0 +1,82 @@
+package co.g3a.high_throughput_poc;
+
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceUtils;
+import org.springframework.jdbc.datasource.init.ScriptUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+
+/**
+ * Aplicación completa para los benchmarks: sin servidor web, con una H2 en memoria cargada
+ * desde data_.sql y replicada hasta el número de filas pedido (las copias llevan un sufijo
+ * en el nombre y precio y stock ligeramente distintos, así las búsquedas y rangos devuelven
+ * resultados proporcionales al tamaño de la tabla).
+ */
+public final class SeededContext implements AutoCloseable {
+
+    private final ConfigurableApplicationContext context;
+
+    private SeededContext(ConfigurableApplicationContext context) {
+        this.context = context;
+    }
+
+    public static SeededContext start(int rows, String... properties) {
+        ConfigurableApplicationContext context = new SpringApplicationBuilder(HighThroughputPocApplication.class)
+                .web(WebApplicationType.NONE)
+                .properties(
+                        "spring.main.banner-mode=off",
+                        "logging.level.root=ERROR",
+                        "spring.datasource.url=jdbc:h2:mem:bench-" + System.nanoTime() + ";DB_CLOSE_DELAY=-1",
+                        "spring.jpa.hibernate.ddl-auto=create",
+                        // El stream JFR y el journal no forman parte de lo que se mide
+                        "worker.virtual-threads.monitor-enabled=false",
+                        "worker.journal.enabled=false")
+                .properties(properties)
+                .run();
+        seed(context, rows);
+        return new SeededContext(context);
+    }
+
+    /**
+     * El pool tiene auto-commit desactivado, así que el script se ejecuta dentro de una
+     * transacción (spring.sql.init lo ejecutaría sin confirmarlo)
+     */
+    private static void seed(ConfigurableApplicationContext context, int rows) {
+        JdbcTemplate jdbc = context.getBean(JdbcTemplate.class);
+        DataSource dataSource = context.getBean(DataSource.class);
+        TransactionTemplate transaction = new TransactionTemplate(context.getBean(PlatformTransactionManager.class));
+        transaction.executeWithoutResult(status -> ScriptUtils.executeSqlScript(
+                DataSourceUtils.getConnection(dataSource), new ClassPathResource("data_.sql")));
+
+        int pass = 1;
+        int count;
+        while ((count = transaction.execute(status -> jdbc.queryForObject("SELECT COUNT(*) FROM products", Integer.class)))
+                < rows) {
+            String suffix = " " + pass++;
+            int missing = rows - count;
+            Integer inserted = transaction.execute(status -> jdbc.update(
+                    "INSERT INTO products (name, price, category, stock) "
+                            + "SELECT name || ?, ROUND(price * 1.013, 2), category, MOD(stock + 37, 500) "
+                            + "FROM products ORDER BY id LIMIT ?",
+                    suffix, missing));
+            if (inserted == null || inserted == 0) {
+                throw new IllegalStateException("data_.sql did not load any product");
+            }
+        }
+    }
+
+    public <T> T getBean(Class<T> type) {
+        return context.getBean(type);
+    }
+
+    @Override
+    public void close() {
+        context.close();
+    }
+}
@@ -0,0 +1,185 @@
+package co.g3a.high_throughput_poc.products.processors;
+
+import co.g3a.high_throughput_poc.SeededContext;
+import co.g3a.high_throughput_poc.products.query.CategoryPageQuery;
+import co.g3a.high_throughput_poc.products.query.KeywordPageQuery;
+import co.g3a.high_throughput_poc.products.query.MinStockPageQuery;
+import co.g3a.high_throughput_poc.products.query.PageQuery;
+import co.g3a.high_throughput_poc.products.query.PriceRangePageQuery;
+import co.g3a.high_throughput_poc.products.query.PriceRangeQuery;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cada procesador de productos llamado directamente (sin cola, caché ni compartimentos) contra
+ * una H2 en memoria cargada desde data_.sql y replicada hasta {@code rows} filas. Mide el
+ * procesador con su acceso a datos; la sobrecarga del worker está en WorkQueueServiceBenchmark.
+ *
+ * Los parámetros (id, categoría, palabra, página...) cambian en cada llamada para no medir
+ * siempre la misma fila. Las variantes *Contended usan 8 hilos sobre el mismo pool de
+ * conexiones. Con -prof gc se ven además los bytes por operación.
+ *
+ * getById pasa por el micro-batching de ProductByIdLoader (worker.micro-batch.*): con un hilo
+ * mide sobre todo la ventana de espera; la variante con 8 hilos muestra lo que se gana agrupando.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ProductProcessorsBenchmark {
+
+    private static final String[] CATEGORIES = {"Electronics", "Outdoors", "Nutrition", "Garden", "Pet Supplies"};
+    private static final String[] KEYWORDS = {"Basic", "Ultra", "Oil", "Tent", "Router", "Z7"};
+    private static final int PAGE_SIZE = 20;
+
+    @Param({"10000"})
+    public int rows;
+
+    private SeededContext context;
+    private GetAllProductsProcessor getAll;
+    private GetPagedProductsProcessor getPaged;
+    private GetProductByIdProcessor getById;
+    private GetProductsByCategoryProcessor byCategory;
+    private GetProductsByCategoryPagedProcessor byCategoryPaged;
+    private GetProductsByPriceRangeProcessor byPriceRange;
+    private GetProductsByPriceRangePagedProcessor byPriceRangePaged;
+    private GetProductsByMinStockProcessor byMinStock;
+    private GetProductsByMinStockPagedProcessor byMinStockPaged;
+    private SearchProductsProcessor search;
+    private SearchProductsPagedProcessor searchPaged;
+    private GetCategoryStatsProcessor categoryStats;
+
+    @State(Scope.Thread)
+    public static class Inputs {
+        private final SplittableRandom random = new SplittableRandom();
+
+        String category() {
+            return CATEGORIES[random.nextInt(CATEGORIES.length)];
+        }
+
+        String keyword() {
+            return KEYWORDS[random.nextInt(KEYWORDS.length)];
+        }
+
+        int page(int rows) {
+            return random.nextInt(Math.max(1, rows / PAGE_SIZE));
+        }
+
+        double minPrice() {
+            return random.nextInt(1000);
+        }
+    }
+
+    @Setup(Level.Trial)
+    public void start() {
+        context = SeededContext.start(rows);
+        getAll = context.getBean(GetAllProductsProcessor.class);
+        getPaged = context.getBean(GetPagedProductsProcessor.class);
+        getById = context.getBean(GetProductByIdProcessor.class);
+        byCategory = context.getBean(GetProductsByCategoryProcessor.class);
+        byCategoryPaged = context.getBean(GetProductsByCategoryPagedProcessor.class);
+        byPriceRange = context.getBean(GetProductsByPriceRangeProcessor.class);
+        byPriceRangePaged = context.getBean(GetProductsByPriceRangePagedProcessor.class);
+        byMinStock = context.getBean(GetProductsByMinStockProcessor.class);
+        byMinStockPaged = context.getBean(GetProductsByMinStockPagedProcessor.class);
+        search = context.getBean(SearchProductsProcessor.class);
+        searchPaged = context.getBean(SearchProductsPagedProcessor.class);
+        categoryStats = context.getBean(GetCategoryStatsProcessor.class);
+    }
+
+    @TearDown(Level.Trial)
+    public void stop() {
+        context.close();
+    }
+
+    @Benchmark
+    public Object getAll() {
+        return getAll.processTask(null);
+    }
+
+    @Benchmark
+    public Object getPaged(Inputs in) {
+        return getPaged.processTask(new PageQuery(in.page(rows), PAGE_SIZE));
+    }
+
+    @Benchmark
+    public Object getById(Inputs in) {
+        return getById.processTask(1L + in.random.nextInt(rows));
+    }
+
+    @Benchmark
+    public Object byCategory(Inputs in) {
+        return byCategory.processTask(in.category());
+    }
+
+    @Benchmark
+    public Object byCategoryPaged(Inputs in) {
+        return byCategoryPaged.processTask(new CategoryPageQuery(in.category(), 0, PAGE_SIZE));
+    }
+
+    @Benchmark
+    public Object byPriceRange(Inputs in) {
+        double min = in.minPrice();
+        return byPriceRange.processTask(new PriceRangeQuery(min, min + 50));
+    }
+
+    @Benchmark
+    public Object byPriceRangePaged(Inputs in) {
+        double min = in.minPrice();
+        return byPriceRangePaged.processTask(new PriceRangePageQuery(min, min + 50, 0, PAGE_SIZE));
+    }
+
+    @Benchmark
+    public Object byMinStock(Inputs in) {
+        return byMinStock.processTask(400 + in.random.nextInt(100));
+    }
+
+    @Benchmark
+    public Object byMinStockPaged(Inputs in) {
+        return byMinStockPaged.processTask(new MinStockPageQuery(in.random.nextInt(500), 0, PAGE_SIZE));
+    }
+
+    @Benchmark
+    public Object search(Inputs in) {
+        return search.processTask(in.keyword());
+    }
+
+    @Benchmark
+    public Object searchPaged(Inputs in) {
+        return searchPaged.processTask(new KeywordPageQuery(in.keyword(), 0, PAGE_SIZE));
+    }
+
+    @Benchmark
+    public Object categoryStats() {
+        return categoryStats.processTask(null);
+    }
+
+    @Benchmark
+    @Threads(8)
+    public Object getByIdContended(Inputs in) {
+        return getById(in);
+    }
+
+    @Benchmark
+    @Threads(8)
+    public Object searchPagedContended(Inputs in) {
+        return searchPaged(in);
+    }
+}
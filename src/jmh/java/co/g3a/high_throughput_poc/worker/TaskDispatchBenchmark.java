@@ -0,0 +1,109 @@
+package co.g3a.high_throughput_poc.worker;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Coste por tarea de la ruta síncrona con un payload de paginación: como mapa
+ * (Map.of("page", ..., "size", ...), lo que hacían los controladores) o como record, por
+ * nombre de tipo o con un {@link TaskHandle} resuelto de antemano como hacen ahora.
+ * Conviene correrlo con -prof gc para ver los bytes reservados por tarea.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class TaskDispatchBenchmark {
+
+    private static final String MAP_TYPE = "PAGED_MAP";
+    private static final String RECORD_TYPE = "PAGED_RECORD";
+
+    private WorkQueueService service;
+    private TaskHandle<Page, Integer> recordHandle;
+    private final AtomicInteger sequence = new AtomicInteger();
+
+    @Setup(Level.Trial)
+    public void start() {
+        WorkerProperties properties = new WorkerProperties();
+        properties.getClients().setEnabled(false);
+        properties.getVirtualThreads().setMonitorEnabled(false);
+        ObjectMapper objectMapper = Jackson2ObjectMapperBuilder.json().build();
+        service = new WorkQueueService(List.of(new MapPageProcessor(), new RecordPageProcessor()), properties,
+                new SimpleMeterRegistry(), objectMapper);
+        service.start();
+        recordHandle = service.handle(RECORD_TYPE);
+    }
+
+    @TearDown(Level.Trial)
+    public void stop() {
+        service.shutdown();
+    }
+
+    @Benchmark
+    public Object mapPayload() {
+        return service.processTaskAndWaitResult(MAP_TYPE, Map.of("page", nextPage(), "size", 20));
+    }
+
+    @Benchmark
+    public Object recordPayload() {
+        return service.processTaskAndWaitResult(RECORD_TYPE, new Page(nextPage(), 20));
+    }
+
+    @Benchmark
+    public Object recordPayloadWithHandle() {
+        return service.processTaskAndWaitResult(recordHandle, new Page(nextPage(), 20));
+    }
+
+    // Payloads distintos en cada llamada para que no haya coalescencia
+    private int nextPage() {
+        return sequence.incrementAndGet() & 0xFFFF;
+    }
+
+    public record Page(int page, int size) {
+    }
+
+    static final class MapPageProcessor implements TaskProcessor<Map<String, Object>, Integer> {
+        @Override
+        public String getTaskType() {
+            return MAP_TYPE;
+        }
+
+        @Override
+        public Integer processTask(Map<String, Object> request) {
+            return (int) request.get("page") * (int) request.get("size");
+        }
+    }
+
+    static final class RecordPageProcessor implements TaskProcessor<Page, Integer> {
+        @Override
+        public String getTaskType() {
+            return RECORD_TYPE;
+        }
+
+        @Override
+        public Integer processTask(Page request) {
+            return request.page() * request.size();
+        }
+    }
+}
@@ -0,0 +1,146 @@
+package co.g3a.high_throughput_poc.worker;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Sobrecarga del worker con un procesador que no hace E/S: lo que cuesta una tarea aparte del
+ * procesador. Cubre la ruta asíncrona completa (enqueueTask, dispatch, processTaskImmediately,
+ * codificación y notifyClient), la síncrona (processTaskAndWaitResult), getStatistics (que lee
+ * la foto publicada) y refreshStatistics (que la rehace).
+ *
+ * En la ruta asíncrona cada operación encola una tarea y consulta su estado hasta que termina,
+ * como haría un cliente que hace polling; con emitter se suscribe además por SSE, así que
+ * notifyClient tiene a quién enviar. Los payloads son distintos en cada llamada para que no
+ * haya coalescencia. Las cuotas por cliente están desactivadas.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class WorkQueueServiceBenchmark {
+
+    private static final String TASK_TYPE = "ECHO";
+
+    // Elementos del resultado, para que la codificación tenga un peso parecido al de una página
+    @Param({"0", "20"})
+    public int resultItems;
+
+    private WorkQueueService service;
+    private final AtomicLong sequence = new AtomicLong();
+
+    @Setup(Level.Trial)
+    public void start() {
+        WorkerProperties properties = new WorkerProperties();
+        properties.getClients().setEnabled(false);
+        properties.getVirtualThreads().setMonitorEnabled(false);
+        properties.getResults().setRetention(Duration.ofSeconds(1));
+        ObjectMapper objectMapper = Jackson2ObjectMapperBuilder.json().build();
+        service = new WorkQueueService(List.of(new EchoProcessor(resultItems)), properties,
+                new SimpleMeterRegistry(), objectMapper);
+        service.start();
+    }
+
+    @TearDown(Level.Trial)
+    public void stop() {
+        service.shutdown();
+    }
+
+    @Benchmark
+    public Object enqueueAndAwait() {
+        return await(service.enqueueTask(TASK_TYPE, sequence.incrementAndGet()));
+    }
+
+    @Benchmark
+    @Threads(8)
+    public Object enqueueAndAwaitContended() {
+        return enqueueAndAwait();
+    }
+
+    @Benchmark
+    public Object enqueueWithEmitter() {
+        UUID taskId = service.enqueueTask(TASK_TYPE, sequence.incrementAndGet());
+        service.createEmitterForTask(taskId);
+        return await(taskId);
+    }
+
+    @Benchmark
+    public Object processSync() {
+        return service.processTaskAndWaitResult(TASK_TYPE, sequence.incrementAndGet());
+    }
+
+    @Benchmark
+    @Threads(8)
+    public Object processSyncContended() {
+        return processSync();
+    }
+
+    @Benchmark
+    public Object getStatistics() {
+        return service.getStatistics();
+    }
+
+    // Lo que antes costaba cada getStatistics; ahora lo paga el refresco periódico
+    @Benchmark
+    public Object refreshStatistics() {
+        service.refreshStatistics();
+        return service.getStatistics();
+    }
+
+    private Map<String, Object> await(UUID taskId) {
+        while (true) {
+            Map<String, Object> status = service.getTaskStatus(taskId);
+            if (!"PENDING".equals(status.get("status"))) {
+                return status;
+            }
+            // Ceder en lugar de girar: con pocos núcleos el sondeo quitaría CPU al dispatcher
+            Thread.yield();
+        }
+    }
+
+    static final class EchoProcessor implements TaskProcessor<Long, Map<String, Object>> {
+        private final List<Map<String, Object>> items = new ArrayList<>();
+
+        EchoProcessor(int resultItems) {
+            for (int i = 0; i < resultItems; i++) {
+                items.add(Map.of("id", (long) i, "name", "Product " + i, "price", 10.0 + i,
+                        "category", "Electronics", "stock", i * 3));
+            }
+        }
+
+        @Override
+        public String getTaskType() {
+            return TASK_TYPE;
+        }
+
+        @Override
+        public Map<String, Object> processTask(Long request) {
+            return Map.of("request", request, "items", items);
+        }
+    }
+}
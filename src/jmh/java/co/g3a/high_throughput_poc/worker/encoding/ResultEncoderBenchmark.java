@@ -0,0 +1,89 @@
+package co.g3a.high_throughput_poc.worker.encoding;
+
+import co.g3a.high_throughput_poc.products.Product;
+import co.g3a.high_throughput_poc.worker.WorkerProperties;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Serialización de resultados: encode (el resultado de la tarea, una vez al terminar) y
+ * encodeDocument (el documento de estado final, que en GZIP lleva además su variante
+ * comprimida), con resultados del tamaño de una consulta por id, una página y un listado.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ResultEncoderBenchmark {
+
+    @Param({"JSON", "GZIP"})
+    public WorkerProperties.Results.Encoding encoding;
+
+    @Param({"1", "20", "500"})
+    public int products;
+
+    private ResultEncoder encoder;
+    private Map<String, Object> result;
+    private Map<String, Object> statusDocument;
+
+    @Setup
+    public void setUp() {
+        ObjectMapper objectMapper = Jackson2ObjectMapperBuilder.json().build();
+        encoder = new ResultEncoder(objectMapper, encoding);
+
+        List<Product> page = new ArrayList<>();
+        for (int i = 0; i < products; i++) {
+            Product product = new Product("SmartChoice Ultra Grill " + i, 649.44 + i, "Outdoors", 368 + i);
+            product.setId((long) i + 1);
+            page.add(product);
+        }
+        result = new HashMap<>();
+        result.put("products", page);
+        result.put("totalElements", products);
+        result.put("currentPage", 0);
+
+        statusDocument = new HashMap<>();
+        statusDocument.put("idTask", UUID.randomUUID());
+        statusDocument.put("taskType", "GET_PAGED_PRODUCTS");
+        statusDocument.put("status", "PROCESSED");
+        statusDocument.put("result", encoder.encode(result));
+        statusDocument.put("processingTimeMs", 12L);
+    }
+
+    @Benchmark
+    public Object encode() {
+        return encoder.encode(result);
+    }
+
+    @Benchmark
+    public Object encodeDocument() {
+        return encoder.encodeDocument(statusDocument);
+    }
+
+    @Benchmark
+    @Threads(8)
+    public Object encodeContended() {
+        return encoder.encode(result);
+    }
+}
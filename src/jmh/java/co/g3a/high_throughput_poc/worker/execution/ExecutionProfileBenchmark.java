@@ -0,0 +1,112 @@
+package co.g3a.high_throughput_poc.worker.execution;
+
+import co.g3a.high_throughput_poc.worker.ExecutionProfile;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Latencia de una tarea de E/S (hilo virtual que espera 1 ms, como una consulta corta)
+ * mientras otras tareas ordenan arrays sin parar, con las tareas de CPU en hilos virtuales
+ * (IO_BOUND, lo que hacía el worker para todo) o en el pool de CPU (CPU_BOUND).
+ *
+ * En hilos virtuales las tareas de CPU no ceden el carrier, así que la de E/S espera a que
+ * termine una entera para volver a correr; en el pool de CPU el sistema operativo reparte los
+ * núcleos entre sus hilos y los carriers. Conviene correrlo con pocos núcleos (p.ej. taskset
+ * -c 0) para que se note. La métrica cpuJob da el coste de cada ordenación como referencia.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ExecutionProfileBenchmark {
+
+    @Param({"IO_BOUND", "CPU_BOUND"})
+    public ExecutionProfile cpuTasksProfile;
+
+    // Tareas de CPU en marcha a la vez durante la medida
+    @Param({"4"})
+    public int cpuTasks;
+
+    @Param({"50000"})
+    public int arraySize;
+
+    private ProcessingPools pools;
+    private final List<Thread> loadDrivers = new ArrayList<>();
+    private volatile boolean running;
+
+    @Setup(Level.Trial)
+    public void startLoad() {
+        pools = new ProcessingPools(0, new SimpleMeterRegistry());
+        running = true;
+        for (int i = 0; i < cpuTasks; i++) {
+            long seed = i;
+            // Cada driver (hilo de plataforma, no ocupa carrier) mantiene una tarea de CPU en el pool
+            loadDrivers.add(Thread.ofPlatform().daemon(true).name("cpu-load-" + i).start(() -> {
+                SplittableRandom random = new SplittableRandom(seed);
+                while (running) {
+                    try {
+                        pools.submit(cpuTasksProfile, () -> sortRandom(random.split(), arraySize)).get();
+                    } catch (InterruptedException e) {
+                        return;
+                    } catch (ExecutionException e) {
+                        throw new IllegalStateException(e);
+                    }
+                }
+            }));
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void stopLoad() throws InterruptedException {
+        running = false;
+        for (Thread driver : loadDrivers) {
+            driver.join();
+        }
+        loadDrivers.clear();
+        pools.close();
+    }
+
+    @Benchmark
+    public Object ioTaskLatency() throws Exception {
+        return pools.submit(ExecutionProfile.IO_BOUND, () -> {
+            Thread.sleep(1);
+            return Boolean.TRUE;
+        }).get();
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.AverageTime)
+    public double cpuJob() {
+        return sortRandom(new SplittableRandom(42), arraySize);
+    }
+
+    private static double sortRandom(SplittableRandom random, int size) {
+        double[] values = new double[size];
+        for (int i = 0; i < size; i++) {
+            values[i] = random.nextDouble();
+        }
+        Arrays.sort(values);
+        return values[size / 2];
+    }
+}
@@ -0,0 +1,64 @@
+package co.g3a.high_throughput_poc.worker.id;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Coste de generar ids de tarea con un hilo y con 16 hilos compitiendo
+ * (equivalente a muchos hilos virtuales encolando a la vez).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TaskIdGeneratorBenchmark {
+
+    private final TaskIdGenerator timeOrdered = new TimeOrderedIdGenerator();
+    private final TaskIdGenerator secure = new SecureTaskIdGenerator();
+
+    @Benchmark
+    public UUID randomUuid() {
+        return UUID.randomUUID();
+    }
+
+    @Benchmark
+    public UUID timeOrdered() {
+        return timeOrdered.nextId();
+    }
+
+    @Benchmark
+    public UUID secure() {
+        return secure.nextId();
+    }
+
+    @Benchmark
+    @Threads(16)
+    public UUID randomUuidContended() {
+        return UUID.randomUUID();
+    }
+
+    @Benchmark
+    @Threads(16)
+    public UUID timeOrderedContended() {
+        return timeOrdered.nextId();
+    }
+
+    @Benchmark
+    @Threads(16)
+    public UUID secureContended() {
+        return secure.nextId();
+    }
+}
@@ -0,0 +1,101 @@
+package co.g3a.high_throughput_poc.worker.journal;
+
+import co.g3a.high_throughput_poc.worker.WorkTask;
+import co.g3a.high_throughput_poc.worker.WorkerProperties;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Comparator;
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Coste de registrar una tarea en el journal (ACCEPTED + COMPLETED) con cada política de
+ * fsync, frente a no tener journal. Con 16 hilos se ve cuánto agrupa el group commit.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TaskJournalBenchmark {
+
+    @Param({"DISABLED", "NEVER", "INTERVAL", "ALWAYS"})
+    public String fsync;
+
+    private Path directory;
+    private TaskJournal journal;
+
+    @Setup(Level.Trial)
+    public void open() throws IOException {
+        if ("DISABLED".equals(fsync)) {
+            journal = TaskJournal.DISABLED;
+            return;
+        }
+        directory = Files.createTempDirectory("task-journal-bench");
+        WorkerProperties.Journal config = new WorkerProperties.Journal();
+        config.setEnabled(true);
+        config.setDirectory(directory.toString());
+        config.setFsync(WorkerProperties.Journal.FsyncPolicy.valueOf(fsync));
+        config.setFlushInterval(Duration.ofMillis(1));
+        // Retención cero: la compactación entre iteraciones borra todos los segmentos sellados
+        journal = new MappedTaskJournal(config, Duration.ZERO, new ObjectMapper());
+    }
+
+    @Setup(Level.Iteration)
+    public void compact() {
+        journal.compact();
+    }
+
+    @TearDown(Level.Trial)
+    public void close() throws IOException {
+        journal.close();
+        if (directory != null) {
+            try (Stream<Path> files = Files.walk(directory)) {
+                files.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+            }
+        }
+    }
+
+    @Benchmark
+    public WorkTask<Long, String> acceptAndComplete() {
+        return lifecycle();
+    }
+
+    @Benchmark
+    @Threads(16)
+    public WorkTask<Long, String> acceptAndCompleteContended() {
+        return lifecycle();
+    }
+
+    private WorkTask<Long, String> lifecycle() {
+        // UUID.randomUUID() usa SecureRandom y con 16 hilos dominaría la medida
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        WorkTask<Long, String> task = new WorkTask<>(new UUID(random.nextLong(), random.nextLong()), "GET_PRODUCT_BY_ID", 42L, Duration.ofSeconds(5));
+        journal.appendAccepted(task);
+        task.setResult("{\"id\":42,\"name\":\"Product 42\"}");
+        task.setStatus(WorkTask.TaskStatus.PROCESSED);
+        journal.appendCompleted(task);
+        return task;
+    }
+}
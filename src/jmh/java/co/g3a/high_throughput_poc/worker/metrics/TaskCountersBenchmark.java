@@ -0,0 +1,91 @@
+package co.g3a.high_throughput_poc.worker.metrics;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Lo que cuesta contar una tarea terminada con muchos hilos a la vez: los AtomicLong
+ * compartidos que usaba el worker (total, correctas y un mapa por tipo) frente a
+ * {@link TaskCounters}. Cada hilo cuenta tareas de un tipo distinto, como varios procesadores
+ * terminando a la vez; con un solo núcleo apenas hay diferencia, se nota con varios.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@Threads(8)
+public class TaskCountersBenchmark {
+
+    private static final List<String> TYPES = List.of("GET_ALL_PRODUCTS", "GET_PRODUCT_BY_ID",
+            "GET_PRODUCTS_BY_CATEGORY", "GET_PRODUCTS_BY_PRICE_RANGE", "GET_PRODUCTS_IN_STOCK",
+            "SEARCH_PRODUCTS", "GET_PAGED_PRODUCTS", "GET_CATEGORY_STATS");
+
+    // Contadores como estaban en WorkQueueService
+    private final AtomicLong totalTasksProcessed = new AtomicLong();
+    private final AtomicLong tasksSuccessful = new AtomicLong();
+    private final ConcurrentMap<String, AtomicLong> taskCountByType = new ConcurrentHashMap<>();
+
+    private final TaskCounters taskCounters = new TaskCounters(TYPES);
+
+    @State(Scope.Thread)
+    public static class ThreadType {
+        private static final AtomicLong NEXT = new AtomicLong();
+        String type;
+        int typeId;
+
+        @Setup
+        public void pick(TaskCountersBenchmark benchmark) {
+            type = TYPES.get((int) (NEXT.getAndIncrement() % TYPES.size()));
+            typeId = benchmark.taskCounters.typeId(type);
+        }
+    }
+
+    @Setup
+    public void setUp() {
+        TYPES.forEach(type -> taskCountByType.put(type, new AtomicLong()));
+    }
+
+    @Benchmark
+    public void atomicLongs(ThreadType thread) {
+        totalTasksProcessed.incrementAndGet();
+        taskCountByType.get(thread.type).incrementAndGet();
+        tasksSuccessful.incrementAndGet();
+    }
+
+    @Benchmark
+    public void stripedCounters(ThreadType thread) {
+        taskCounters.increment(thread.typeId, TaskCounters.Kind.PROCESSED);
+        taskCounters.increment(thread.typeId, TaskCounters.Kind.SUCCESSFUL);
+    }
+
+    // Ruta síncrona, que solo tiene el nombre del tipo
+    @Benchmark
+    public void stripedCountersByName(ThreadType thread) {
+        int typeId = taskCounters.typeId(thread.type);
+        taskCounters.increment(typeId, TaskCounters.Kind.PROCESSED);
+        taskCounters.increment(typeId, TaskCounters.Kind.SUCCESSFUL);
+    }
+
+    @Benchmark
+    @Threads(1)
+    public long readTotals() {
+        return taskCounters.total(TaskCounters.Kind.PROCESSED) + taskCounters.total(TaskCounters.Kind.SUCCESSFUL);
+    }
+}
@@ -0,0 +1,60 @@
+package co.g3a.high_throughput_poc.load;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Datos del plan de JMeter (keywords.csv, keywords_async.csv, product_ids.csv,
+ * categories.csv): primera columna de cada línea no vacía. Se leen del directorio indicado o,
+ * si no hay, del classpath (src/main/resources).
+ */
+public record Fixtures(List<String> keywords, List<String> asyncKeywords, List<Long> productIds,
+                       List<String> categories) {
+
+    public static Fixtures load(Path directory) {
+        List<String> keywords = read(directory, "keywords.csv");
+        List<String> asyncKeywords = read(directory, "keywords_async.csv");
+        List<Long> productIds = read(directory, "product_ids.csv").stream().map(Long::valueOf).toList();
+        List<String> categories = read(directory, "categories.csv");
+        return new Fixtures(keywords, asyncKeywords.isEmpty() ? keywords : asyncKeywords, productIds, categories);
+    }
+
+    private static List<String> read(Path directory, String name) {
+        try (InputStream in = open(directory, name);
+             BufferedReader reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8))) {
+            List<String> values = new ArrayList<>();
+            String line;
+            while ((line = reader.readLine()) != null) {
+                String value = line.split(",", 2)[0].trim();
+                if (!value.isEmpty()) {
+                    values.add(value);
+                }
+            }
+            if (values.isEmpty()) {
+                throw new IllegalStateException("Fixture " + name + " is empty");
+            }
+            return values;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot read fixture " + name, e);
+        }
+    }
+
+    private static InputStream open(Path directory, String name) throws IOException {
+        if (directory != null) {
+            return Files.newInputStream(directory.resolve(name));
+        }
+        InputStream in = Fixtures.class.getClassLoader().getResourceAsStream(name);
+        if (in == null) {
+            throw new IOException("Fixture not found on the classpath: " + name);
+        }
+        return in;
+    }
+}
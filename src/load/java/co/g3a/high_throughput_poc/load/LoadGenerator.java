@@ -0,0 +1,159 @@
+package co.g3a.high_throughput_poc.load;
+
+import java.io.PrintStream;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Generador de carga de modelo abierto contra una instancia arrancada: lanza peticiones al
+ * ritmo configurado, respondan o no las anteriores, cada una en su hilo virtual. Reproduce los
+ * ficheros CSV del plan de JMeter (palabras, ids, categorías) contra la API síncrona y la
+ * asíncrona, con polling del estado o suscripción SSE, repartiendo las llegadas por turnos
+ * entre las combinaciones de modo y escenario.
+ *
+ * Cada petición tiene un instante previsto (inicio + i / ritmo) y su latencia se mide desde
+ * ahí (ver {@link LoadReport}). Termina con estado 1 si no se cumple algún presupuesto.
+ *
+ * <pre>./mvnw -Pload-test compile exec:exec -Dload.args="--rate=300 --duration=30s --max-p99=250ms"</pre>
+ */
+public class LoadGenerator {
+
+    private static final long PROGRESS_INTERVAL_NANOS = TimeUnit.SECONDS.toNanos(5);
+
+    private final LoadOptions options;
+    private final Fixtures fixtures;
+    private final PrintStream out;
+
+    public LoadGenerator(LoadOptions options, Fixtures fixtures, PrintStream out) {
+        this.options = options;
+        this.fixtures = fixtures;
+        this.out = out;
+    }
+
+    public static void main(String[] args) throws InterruptedException {
+        LoadOptions options;
+        try {
+            options = LoadOptions.parse(args);
+        } catch (IllegalArgumentException e) {
+            // Mensaje vacío: se pidió la ayuda
+            boolean help = e.getMessage().isEmpty();
+            if (!help) {
+                System.err.println(e.getMessage());
+            }
+            System.err.print(LoadOptions.USAGE);
+            System.exit(help ? 0 : 2);
+            return;
+        }
+        boolean passed = new LoadGenerator(options, Fixtures.load(options.fixtures()), System.out).run();
+        System.exit(passed ? 0 : 1);
+    }
+
+    /**
+     * Ejecuta la carga, imprime el informe y devuelve si se cumplieron los presupuestos
+     */
+    public boolean run() throws InterruptedException {
+        List<Target> targets = new ArrayList<>();
+        for (RequestMode mode : options.modes()) {
+            for (Scenario scenario : options.scenarios()) {
+                targets.add(new Target(mode, scenario));
+            }
+        }
+        LoadReport report = new LoadReport(options.modes(), options.scenarios());
+        SplittableRandom random = new SplittableRandom(options.seed());
+        AtomicInteger inFlight = new AtomicInteger();
+        double intervalNanos = TimeUnit.SECONDS.toNanos(1) / options.rate();
+        long timeoutNanos = options.requestTimeout().toNanos();
+
+        out.printf("Load: %.0f req/s for %s after %s warmup against %s, %d targets, seed %d%n", options.rate(),
+                options.duration(), options.warmup(), options.baseUrl(), targets.size(), options.seed());
+
+        // El HttpClient tiene su propio executor: al cerrar el de las peticiones (que espera a que
+        // terminen todas) el cliente tiene que seguir atendiendo las respuestas pendientes
+        try (ExecutorService clientExecutor = Executors.newVirtualThreadPerTaskExecutor();
+             ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            ProductApiClient client = new ProductApiClient(options.baseUrl(), options.pollInterval(), clientExecutor);
+            long start = System.nanoTime();
+            long measureStart = start + options.warmup().toNanos();
+            long end = measureStart + options.duration().toNanos();
+            long nextProgress = start + PROGRESS_INTERVAL_NANOS;
+
+            for (long i = 0; ; i++) {
+                long intended = start + (long) (i * intervalNanos);
+                if (intended >= end) {
+                    break;
+                }
+                // Si el generador va con retraso no espera: lanza ya y el retraso cuenta en la latencia
+                long wait;
+                while ((wait = intended - System.nanoTime()) > 0) {
+                    LockSupport.parkNanos(wait);
+                }
+                if (intended >= nextProgress) {
+                    out.printf("  %3ds sent=%d in-flight=%d%n", TimeUnit.NANOSECONDS.toSeconds(intended - start),
+                            i, inFlight.get());
+                    nextProgress += PROGRESS_INTERVAL_NANOS;
+                }
+
+                Target target = targets.get((int) (i % targets.size()));
+                boolean measured = intended >= measureStart;
+                if (inFlight.get() >= options.maxInFlight()) {
+                    if (measured) {
+                        report.dropped(target.mode, target.scenario);
+                    }
+                    continue;
+                }
+                String path = target.scenario.path(fixtures, target.mode, random);
+                String clientKey = "load-" + (i % options.clients());
+                inFlight.incrementAndGet();
+                executor.execute(() -> {
+                    try {
+                        long sent = System.nanoTime();
+                        String outcome = client.execute(target.mode, path, clientKey, intended + timeoutNanos);
+                        if (measured) {
+                            report.record(target.mode, target.scenario, outcome, intended, sent, System.nanoTime());
+                        }
+                    } finally {
+                        inFlight.decrementAndGet();
+                    }
+                });
+            }
+            out.printf("Waiting for %d open requests%n", inFlight.get());
+        }
+
+        LoadReport.Totals totals = report.finish(options.duration(), out, options.histogramDir());
+        return checkBudgets(totals);
+    }
+
+    private boolean checkBudgets(LoadReport.Totals totals) {
+        boolean passed = true;
+        if (options.minThroughput() > 0 && totals.throughput() < options.minThroughput()) {
+            out.printf("FAILED: throughput %.1f req/s below %.1f%n", totals.throughput(), options.minThroughput());
+            passed = false;
+        }
+        if (options.maxP99() != null && totals.p99().compareTo(options.maxP99()) > 0) {
+            out.printf("FAILED: p99 %s above %s%n", format(totals.p99()), format(options.maxP99()));
+            passed = false;
+        }
+        if (options.maxErrorRate() != null && totals.errorRate() > options.maxErrorRate()) {
+            out.printf("FAILED: error rate %.4f above %.4f%n", totals.errorRate(), options.maxErrorRate());
+            passed = false;
+        }
+        if (passed) {
+            out.println("All budgets met");
+        }
+        return passed;
+    }
+
+    private static String format(Duration duration) {
+        return String.format("%.2fms", duration.toNanos() / 1_000_000.0);
+    }
+
+    private record Target(RequestMode mode, Scenario scenario) {
+    }
+}
@@ -0,0 +1,104 @@
+package co.g3a.high_throughput_poc.load;
+
+import org.springframework.boot.convert.DurationStyle;
+
+import java.net.URI;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Opciones de la línea de comandos (--clave=valor). Las duraciones admiten el formato de las
+ * propiedades de Spring (500ms, 30s, 2m).
+ *
+ * @param rate           peticiones por segundo que se lanzan, respondan o no (modelo abierto)
+ * @param clients        claves de cliente (X-Api-Key) entre las que se reparten las peticiones
+ * @param maxInFlight    peticiones abiertas a partir de las cuales el generador deja de lanzar
+ *                       (se cuentan como descartadas, no se retrasan)
+ * @param minThroughput  peticiones correctas por segundo exigidas (0: sin comprobar)
+ * @param maxP99         p99 corregido máximo (null: sin comprobar)
+ * @param maxErrorRate   fracción de errores permitida (null: sin comprobar)
+ */
+public record LoadOptions(URI baseUrl, double rate, Duration duration, Duration warmup,
+                          Set<RequestMode> modes, List<Scenario> scenarios, int clients, int maxInFlight,
+                          Duration requestTimeout, Duration pollInterval, Path fixtures, Path histogramDir,
+                          double minThroughput, Duration maxP99, Double maxErrorRate, long seed) {
+
+    static final String USAGE = """
+            Usage: LoadGenerator [--option=value ...]
+              --url=http://localhost:8080     base URL of a running instance
+              --rate=500                      requests started per second (open model)
+              --duration=60s --warmup=10s     measured time, and time before it that is not recorded
+              --modes=sync,poll,sse           sync API, async + status polling, async + SSE subscription
+              --scenarios=all                 comma list of %s
+              --clients=100                   distinct X-Api-Key values
+              --max-in-flight=10000           open requests before new arrivals are dropped
+              --timeout=10s                   per operation, including polling or waiting on SSE
+              --poll-interval=50ms
+              --fixtures=<dir>                directory with the CSV fixtures (default: classpath)
+              --histograms=<dir>              write an .hgrm percentile file per mode and scenario
+              --min-throughput=<req/s>        budgets: exit with status 1 when any is missed
+              --max-p99=<duration>
+              --max-error-rate=<fraction>
+              --seed=<long>
+            """.formatted(Arrays.stream(Scenario.values()).map(Scenario::label).toList());
+
+    public static LoadOptions parse(String[] args) {
+        Map<String, String> values = new HashMap<>();
+        for (String arg : args) {
+            if (arg.equals("-h") || arg.equals("--help")) {
+                throw new IllegalArgumentException("");
+            }
+            if (!arg.startsWith("--") || !arg.contains("=")) {
+                throw new IllegalArgumentException("Unexpected argument: " + arg);
+            }
+            int separator = arg.indexOf('=');
+            values.put(arg.substring(2, separator), arg.substring(separator + 1));
+        }
+
+        Set<RequestMode> modes = EnumSet.noneOf(RequestMode.class);
+        for (String mode : values.getOrDefault("modes", "sync,poll,sse").split(",")) {
+            modes.add(RequestMode.fromLabel(mode.trim()));
+        }
+        String scenarioList = values.getOrDefault("scenarios", "all");
+        List<Scenario> scenarios = scenarioList.equalsIgnoreCase("all")
+                ? List.of(Scenario.values())
+                : Arrays.stream(scenarioList.split(",")).map(Scenario::fromLabel).toList();
+
+        LoadOptions options = new LoadOptions(
+                URI.create(stripSlash(values.getOrDefault("url", "http://localhost:8080"))),
+                Double.parseDouble(values.getOrDefault("rate", "500")),
+                duration(values, "duration", "60s"),
+                duration(values, "warmup", "10s"),
+                modes,
+                scenarios,
+                Integer.parseInt(values.getOrDefault("clients", "100")),
+                Integer.parseInt(values.getOrDefault("max-in-flight", "10000")),
+                duration(values, "timeout", "10s"),
+                duration(values, "poll-interval", "50ms"),
+                values.containsKey("fixtures") ? Path.of(values.get("fixtures")) : null,
+                values.containsKey("histograms") ? Path.of(values.get("histograms")) : null,
+                Double.parseDouble(values.getOrDefault("min-throughput", "0")),
+                values.containsKey("max-p99") ? DurationStyle.detectAndParse(values.get("max-p99")) : null,
+                values.containsKey("max-error-rate") ? Double.valueOf(values.get("max-error-rate")) : null,
+                Long.parseLong(values.getOrDefault("seed", String.valueOf(System.nanoTime()))));
+
+        if (options.rate <= 0 || options.clients <= 0 || options.maxInFlight <= 0) {
+            throw new IllegalArgumentException("rate, clients and max-in-flight must be positive");
+        }
+        return options;
+    }
+
+    private static Duration duration(Map<String, String> values, String key, String defaultValue) {
+        return DurationStyle.detectAndParse(values.getOrDefault(key, defaultValue));
+    }
+
+    private static String stripSlash(String url) {
+        return url.endsWith("/") ? url.substring(0, url.length() - 1) : url;
+    }
+}
@@ -0,0 +1,155 @@
+package co.g3a.high_throughput_poc.load;
+
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.Recorder;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Latencias y resultados por modo y escenario.
+ *
+ * La latencia se cuenta desde el instante en que la petición tocaba según el ritmo configurado,
+ * no desde que salió: si el generador o el servidor se atascan, las peticiones que debían salir
+ * durante el atasco suman su espera (corrección de coordinated omission). El tiempo de servicio
+ * (desde el envío real) se guarda aparte para comparar. Las peticiones fallidas también cuentan
+ * en las latencias; las descartadas por exceso de peticiones abiertas solo en sus contadores.
+ */
+class LoadReport {
+
+    private static final long HIGHEST_TRACKABLE_NANOS = TimeUnit.MINUTES.toNanos(10);
+    private static final double NANOS_PER_MS = 1_000_000.0;
+
+    private final Map<String, Series> series = new LinkedHashMap<>();
+
+    LoadReport(Iterable<RequestMode> modes, Iterable<Scenario> scenarios) {
+        for (RequestMode mode : modes) {
+            for (Scenario scenario : scenarios) {
+                series.put(key(mode, scenario), new Series());
+            }
+        }
+    }
+
+    void record(RequestMode mode, Scenario scenario, String outcome, long intendedNanos, long sentNanos, long endNanos) {
+        Series target = series.get(key(mode, scenario));
+        target.corrected.recordValue(Math.min(HIGHEST_TRACKABLE_NANOS, Math.max(0, endNanos - intendedNanos)));
+        target.service.recordValue(Math.min(HIGHEST_TRACKABLE_NANOS, Math.max(0, endNanos - sentNanos)));
+        target.outcomes.computeIfAbsent(outcome, ignored -> new LongAdder()).increment();
+    }
+
+    void dropped(RequestMode mode, Scenario scenario) {
+        series.get(key(mode, scenario)).dropped.increment();
+    }
+
+    /**
+     * Cierra las series, imprime la tabla y, si se indica, escribe un .hgrm por serie
+     */
+    Totals finish(Duration measured, PrintStream out, Path histogramDir) {
+        Histogram total = new Histogram(HIGHEST_TRACKABLE_NANOS, 3);
+        Map<String, Long> outcomes = new TreeMap<>();
+        long dropped = 0;
+        double seconds = measured.toNanos() / 1e9;
+
+        out.printf("%-28s %9s %9s %8s %8s %9s %9s %9s %9s %9s %9s %12s%n", "mode/scenario", "requests", "ok",
+                "errors", "dropped", "ok/s", "p50 ms", "p90 ms", "p99 ms", "p99.9 ms", "max ms", "p99 svc ms");
+        StringBuilder errors = new StringBuilder();
+        for (Map.Entry<String, Series> entry : series.entrySet()) {
+            Series current = entry.getValue();
+            Histogram corrected = current.corrected.getIntervalHistogram();
+            Histogram service = current.service.getIntervalHistogram();
+            long ok = current.count(ProductApiClient.OK);
+            long failed = corrected.getTotalCount() - ok;
+            long seriesDropped = current.dropped.sum();
+            if (corrected.getTotalCount() == 0 && seriesDropped == 0) {
+                continue;
+            }
+            out.printf("%-28s %9d %9d %8d %8d %9.1f %9.2f %9.2f %9.2f %9.2f %9.2f %12.2f%n", entry.getKey(),
+                    corrected.getTotalCount(), ok, failed, seriesDropped, ok / seconds,
+                    ms(corrected, 50), ms(corrected, 90), ms(corrected, 99), ms(corrected, 99.9),
+                    corrected.getMaxValue() / NANOS_PER_MS, ms(service, 99));
+
+            total.add(corrected);
+            dropped += seriesDropped;
+            current.outcomes.forEach((outcome, count) -> outcomes.merge(outcome, count.sum(), Long::sum));
+            if (failed > 0) {
+                errors.append("  ").append(entry.getKey()).append(':');
+                current.outcomes.forEach((outcome, count) -> {
+                    if (!ProductApiClient.OK.equals(outcome)) {
+                        errors.append(' ').append(outcome).append('=').append(count.sum());
+                    }
+                });
+                errors.append(System.lineSeparator());
+            }
+            if (histogramDir != null) {
+                write(histogramDir.resolve(entry.getKey().replace('/', '-') + ".hgrm"), corrected);
+            }
+        }
+
+        long ok = outcomes.getOrDefault(ProductApiClient.OK, 0L);
+        long requests = total.getTotalCount();
+        out.printf("%-28s %9d %9d %8d %8d %9.1f %9.2f %9.2f %9.2f %9.2f %9.2f%n", "TOTAL", requests, ok,
+                requests - ok, dropped, ok / seconds, ms(total, 50), ms(total, 90), ms(total, 99), ms(total, 99.9),
+                total.getMaxValue() / NANOS_PER_MS);
+        if (!errors.isEmpty()) {
+            out.println("Errors:");
+            out.print(errors);
+        }
+        if (histogramDir != null) {
+            write(histogramDir.resolve("total.hgrm"), total);
+        }
+        return new Totals(requests, ok, dropped, ok / seconds, Duration.ofNanos(total.getValueAtPercentile(99)));
+    }
+
+    private static double ms(Histogram histogram, double percentile) {
+        return histogram.getValueAtPercentile(percentile) / NANOS_PER_MS;
+    }
+
+    private static void write(Path file, Histogram histogram) {
+        try {
+            Files.createDirectories(file.getParent());
+            try (PrintStream out = new PrintStream(Files.newOutputStream(file))) {
+                histogram.outputPercentileDistribution(out, NANOS_PER_MS);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot write histogram " + file, e);
+        }
+    }
+
+    private static String key(RequestMode mode, Scenario scenario) {
+        return mode.label() + "/" + scenario.label();
+    }
+
+    /**
+     * @param p99 p99 corregido de todas las series juntas
+     */
+    record Totals(long requests, long ok, long dropped, double throughput, Duration p99) {
+
+        double errorRate() {
+            long attempted = requests + dropped;
+            return attempted == 0 ? 0 : (double) (attempted - ok) / attempted;
+        }
+    }
+
+    private static final class Series {
+        private final Recorder corrected = new Recorder(HIGHEST_TRACKABLE_NANOS, 3);
+        private final Recorder service = new Recorder(HIGHEST_TRACKABLE_NANOS, 3);
+        private final ConcurrentMap<String, LongAdder> outcomes = new ConcurrentHashMap<>();
+        private final LongAdder dropped = new LongAdder();
+
+        long count(String outcome) {
+            LongAdder count = outcomes.get(outcome);
+            return count != null ? count.sum() : 0;
+        }
+    }
+}
@@ -0,0 +1,146 @@
+package co.g3a.high_throughput_poc.load;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.net.http.HttpTimeoutException;
+import java.time.Duration;
+import java.util.Iterator;
+import java.util.concurrent.Executor;
+import java.util.stream.Stream;
+
+/**
+ * Cliente de la API de productos con el HttpClient del JDK. Cada llamada bloquea su hilo
+ * (virtual) hasta tener el resultado final: en la API asíncrona eso incluye la consulta del
+ * estado o la espera del evento SSE.
+ */
+class ProductApiClient {
+
+    static final String OK = "OK";
+    static final String TIMEOUT = "TIMEOUT";
+    static final String IO_ERROR = "IO_ERROR";
+
+    private static final String SYNC_PREFIX = "/api/products";
+    private static final String ASYNC_PREFIX = "/api/products/async";
+    private static final String CLIENT_KEY_HEADER = "X-Api-Key";
+
+    private final HttpClient httpClient;
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final String baseUrl;
+    private final Duration pollInterval;
+
+    ProductApiClient(URI baseUrl, Duration pollInterval, Executor executor) {
+        this.baseUrl = baseUrl.toString();
+        this.pollInterval = pollInterval;
+        this.httpClient = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(Duration.ofSeconds(5))
+                .executor(executor)
+                .build();
+    }
+
+    /**
+     * Ejecuta la petición y devuelve OK o el motivo del fallo (HTTP_503, REJECTED, TIMEOUT...)
+     *
+     * @param deadlineNanos límite para toda la operación, polling o espera SSE incluidos
+     */
+    String execute(RequestMode mode, String path, String clientKey, long deadlineNanos) {
+        try {
+            if (mode == RequestMode.SYNC) {
+                HttpResponse<Void> response = httpClient.send(request(SYNC_PREFIX + path, clientKey, deadlineNanos),
+                        HttpResponse.BodyHandlers.discarding());
+                return response.statusCode() == 200 ? OK : "HTTP_" + response.statusCode();
+            }
+
+            HttpResponse<String> accepted = httpClient.send(request(ASYNC_PREFIX + path, clientKey, deadlineNanos),
+                    HttpResponse.BodyHandlers.ofString());
+            if (accepted.statusCode() != 202) {
+                return "HTTP_" + accepted.statusCode();
+            }
+            String taskId = objectMapper.readTree(accepted.body()).path("idTask").asText();
+            return mode == RequestMode.ASYNC_SSE
+                    ? awaitEvent(taskId, clientKey, deadlineNanos)
+                    : poll(taskId, clientKey, deadlineNanos);
+        } catch (HttpTimeoutException e) {
+            return TIMEOUT;
+        } catch (IOException e) {
+            return IO_ERROR;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return IO_ERROR;
+        }
+    }
+
+    private String poll(String taskId, String clientKey, long deadlineNanos) throws IOException, InterruptedException {
+        while (true) {
+            HttpResponse<String> response = httpClient.send(
+                    request(ASYNC_PREFIX + "/task/" + taskId, clientKey, deadlineNanos),
+                    HttpResponse.BodyHandlers.ofString());
+            if (response.statusCode() != 200) {
+                return "HTTP_" + response.statusCode();
+            }
+            String status = objectMapper.readTree(response.body()).path("status").asText();
+            if (!"PENDING".equals(status)) {
+                return outcome(status);
+            }
+            if (System.nanoTime() + pollInterval.toNanos() - deadlineNanos > 0) {
+                return TIMEOUT;
+            }
+            Thread.sleep(pollInterval);
+        }
+    }
+
+    private String awaitEvent(String taskId, String clientKey, long deadlineNanos)
+            throws IOException, InterruptedException {
+        HttpRequest request = HttpRequest.newBuilder(URI.create(baseUrl + ASYNC_PREFIX + "/subscribe/" + taskId))
+                .header(CLIENT_KEY_HEADER, clientKey)
+                .header("Accept", "text/event-stream")
+                .timeout(remaining(deadlineNanos))
+                .GET()
+                .build();
+        HttpResponse<Stream<String>> response = httpClient.send(request, HttpResponse.BodyHandlers.ofLines());
+        try (Stream<String> lines = response.body()) {
+            if (response.statusCode() != 200) {
+                return "HTTP_" + response.statusCode();
+            }
+            Iterator<String> iterator = lines.iterator();
+            while (iterator.hasNext()) {
+                String line = iterator.next();
+                if (!line.startsWith("data:")) {
+                    continue;
+                }
+                JsonNode event = objectMapper.readTree(line.substring(5));
+                String status = event.path("status").asText();
+                if (!"PENDING".equals(status)) {
+                    return outcome(status);
+                }
+            }
+            return "SSE_CLOSED";
+        }
+    }
+
+    private HttpRequest request(String path, String clientKey, long deadlineNanos) throws HttpTimeoutException {
+        return HttpRequest.newBuilder(URI.create(baseUrl + path))
+                .header(CLIENT_KEY_HEADER, clientKey)
+                .timeout(remaining(deadlineNanos))
+                .GET()
+                .build();
+    }
+
+    private static Duration remaining(long deadlineNanos) throws HttpTimeoutException {
+        long remaining = deadlineNanos - System.nanoTime();
+        if (remaining <= 0) {
+            throw new HttpTimeoutException("Operation deadline exceeded");
+        }
+        return Duration.ofNanos(remaining);
+    }
+
+    private static String outcome(String status) {
+        return "PROCESSED".equals(status) ? OK : status;
+    }
+}
@@ -0,0 +1,30 @@
+package co.g3a.high_throughput_poc.load;
+
+/**
+ * Cómo se hace cada petición: contra la API síncrona, o encolando en la asíncrona y esperando
+ * el resultado consultando el estado o suscribiéndose por SSE
+ */
+public enum RequestMode {
+    SYNC("sync"),
+    ASYNC_POLL("poll"),
+    ASYNC_SSE("sse");
+
+    private final String label;
+
+    RequestMode(String label) {
+        this.label = label;
+    }
+
+    public String label() {
+        return label;
+    }
+
+    public static RequestMode fromLabel(String label) {
+        for (RequestMode mode : values()) {
+            if (mode.label.equalsIgnoreCase(label) || mode.name().equalsIgnoreCase(label)) {
+                return mode;
+            }
+        }
+        throw new IllegalArgumentException("Unknown mode: " + label + " (sync, poll, sse)");
+    }
+}
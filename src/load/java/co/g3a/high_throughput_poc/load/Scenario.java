@@ -0,0 +1,104 @@
+package co.g3a.high_throughput_poc.load;
+
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.SplittableRandom;
+
+/**
+ * Endpoints del plan de JMeter. La ruta es relativa a /api/products (síncrona) o
+ * /api/products/async, que comparten rutas y parámetros.
+ */
+public enum Scenario {
+    LIST {
+        @Override
+        String path(Fixtures fixtures, RequestMode mode, SplittableRandom random) {
+            return "";
+        }
+    },
+    PAGED {
+        @Override
+        String path(Fixtures fixtures, RequestMode mode, SplittableRandom random) {
+            return "/paged?page=" + random.nextInt(5) + "&size=20";
+        }
+    },
+    BY_ID {
+        @Override
+        String path(Fixtures fixtures, RequestMode mode, SplittableRandom random) {
+            return "/" + pick(fixtures.productIds(), random);
+        }
+    },
+    CATEGORY {
+        @Override
+        String path(Fixtures fixtures, RequestMode mode, SplittableRandom random) {
+            return "/category/" + encode(pick(fixtures.categories(), random));
+        }
+    },
+    CATEGORY_PAGED {
+        @Override
+        String path(Fixtures fixtures, RequestMode mode, SplittableRandom random) {
+            return "/category/" + encode(pick(fixtures.categories(), random)) + "/paged?page=0&size=20";
+        }
+    },
+    PRICE {
+        @Override
+        String path(Fixtures fixtures, RequestMode mode, SplittableRandom random) {
+            int min = random.nextInt(500);
+            return "/price?min=" + min + "&max=" + (min + 200);
+        }
+    },
+    PRICE_PAGED {
+        @Override
+        String path(Fixtures fixtures, RequestMode mode, SplittableRandom random) {
+            int min = random.nextInt(500);
+            return "/price/paged?min=" + min + "&max=" + (min + 200) + "&page=0&size=20";
+        }
+    },
+    STOCK {
+        @Override
+        String path(Fixtures fixtures, RequestMode mode, SplittableRandom random) {
+            return "/stock?min=" + random.nextInt(400);
+        }
+    },
+    STOCK_PAGED {
+        @Override
+        String path(Fixtures fixtures, RequestMode mode, SplittableRandom random) {
+            return "/stock/paged?min=" + random.nextInt(400) + "&page=0&size=20";
+        }
+    },
+    SEARCH {
+        @Override
+        String path(Fixtures fixtures, RequestMode mode, SplittableRandom random) {
+            return "/search?keyword=" + encode(keyword(fixtures, mode, random));
+        }
+    },
+    SEARCH_PAGED {
+        @Override
+        String path(Fixtures fixtures, RequestMode mode, SplittableRandom random) {
+            return "/search/paged?keyword=" + encode(keyword(fixtures, mode, random)) + "&page=0&size=20";
+        }
+    };
+
+    abstract String path(Fixtures fixtures, RequestMode mode, SplittableRandom random);
+
+    public String label() {
+        return name().toLowerCase().replace('_', '-');
+    }
+
+    public static Scenario fromLabel(String label) {
+        return valueOf(label.trim().toUpperCase().replace('-', '_'));
+    }
+
+    private static String keyword(Fixtures fixtures, RequestMode mode, SplittableRandom random) {
+        // El plan usaba una lista de palabras propia para las peticiones asíncronas
+        return pick(mode == RequestMode.SYNC ? fixtures.keywords() : fixtures.asyncKeywords(), random);
+    }
+
+    private static <T> T pick(List<T> values, SplittableRandom random) {
+        return values.get(random.nextInt(values.size()));
+    }
+
+    private static String encode(String value) {
+        return URLEncoder.encode(value, StandardCharsets.UTF_8).replace("+", "%20");
+    }
+}
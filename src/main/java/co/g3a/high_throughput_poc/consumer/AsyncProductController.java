@@ -1,13 +1,28 @@
 package co.g3a.high_throughput_poc.consumer;
 
+import co.g3a.high_throughput_poc.products.query.CategoryPageQuery;
+import co.g3a.high_throughput_poc.products.query.KeywordPageQuery;
+import co.g3a.high_throughput_poc.products.query.MinStockPageQuery;
+import co.g3a.high_throughput_poc.products.query.PageQuery;
+import co.g3a.high_throughput_poc.products.query.PriceRangePageQuery;
+import co.g3a.high_throughput_poc.products.query.PriceRangeQuery;
+import co.g3a.high_throughput_poc.worker.BatchTaskRequest;
 import co.g3a.high_throughput_poc.worker.WorkQueueService;
 import co.g3a.high_throughput_poc.worker.WorkerEnabledController;
+import co.g3a.high_throughput_poc.worker.composite.CompositePart;
+import co.g3a.high_throughput_poc.worker.composite.CompositePolicy;
+import co.g3a.high_throughput_poc.worker.composite.CompositeRequest;
+import co.g3a.high_throughput_poc.worker.composite.CompositeTaskProcessor;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyEmitter;
 import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Map;
 import java.util.UUID;
 
@@ -15,14 +30,17 @@ import java.util.UUID;
 @RequestMapping("/api/products/async")
 public class AsyncProductController extends WorkerEnabledController {
 
+    private final ProductTasks tasks;
+
     @Autowired
     public AsyncProductController(WorkQueueService workQueueService) {
         super(workQueueService);
+        this.tasks = new ProductTasks(workQueueService);
     }
 
     @GetMapping
     public ResponseEntity<Map<String, Object>> getAllProducts() {
-        return enqueueTaskAndReturnId("GET_ALL_PRODUCTS", null);
+        return enqueueTaskAndReturnId(tasks.all, null);
     }
 
     @GetMapping("/paged")
@@ -30,17 +48,22 @@ public class AsyncProductController extends WorkerEnabledController {
             @RequestParam(defaultValue = "0") int page,
             @RequestParam(defaultValue = "20") int size) {
         
-        return enqueueTaskAndReturnId("GET_PAGED_PRODUCTS", Map.of("page", page, "size", size));
+        return enqueueTaskAndReturnId(tasks.paged, new PageQuery(page, size));
+    }
+
+    @GetMapping("/stats/categories")
+    public ResponseEntity<Map<String, Object>> getCategoryStats() {
+        return enqueueTaskAndReturnId(tasks.categoryStats, null);
     }
 
     @GetMapping("/{id}")
     public ResponseEntity<Map<String, Object>> getProductById(@PathVariable Long id) {
-        return enqueueTaskAndReturnId("GET_PRODUCT_BY_ID", id);
+        return enqueueTaskAndReturnId(tasks.byId, id);
     }
 
     @GetMapping("/category/{category}")
     public ResponseEntity<Map<String, Object>> getProductsByCategory(@PathVariable String category) {
-        return enqueueTaskAndReturnId("GET_PRODUCTS_BY_CATEGORY", category);
+        return enqueueTaskAndReturnId(tasks.byCategory, category);
     }
 
     @GetMapping("/category/{category}/paged")
@@ -49,8 +72,8 @@ public class AsyncProductController extends WorkerEnabledController {
             @RequestParam(defaultValue = "0") int page,
             @RequestParam(defaultValue = "20") int size) {
         
-        return enqueueTaskAndReturnId("GET_PRODUCTS_BY_CATEGORY_PAGED", 
-                Map.of("category", category, "page", page, "size", size));
+        return enqueueTaskAndReturnId(tasks.byCategoryPaged,
+                new CategoryPageQuery(category, page, size));
     }
 
     @GetMapping("/price")
@@ -58,8 +81,7 @@ public class AsyncProductController extends WorkerEnabledController {
             @RequestParam Double min,
             @RequestParam Double max) {
         
-        return enqueueTaskAndReturnId("GET_PRODUCTS_BY_PRICE_RANGE", 
-                Map.of("min", min, "max", max));
+        return enqueueTaskAndReturnId(tasks.byPriceRange, new PriceRangeQuery(min, max));
     }
 
     @GetMapping("/price/paged")
@@ -69,13 +91,13 @@ public class AsyncProductController extends WorkerEnabledController {
             @RequestParam(defaultValue = "0") int page,
             @RequestParam(defaultValue = "20") int size) {
         
-        return enqueueTaskAndReturnId("GET_PRODUCTS_BY_PRICE_RANGE_PAGED", 
-                Map.of("min", min, "max", max, "page", page, "size", size));
+        return enqueueTaskAndReturnId(tasks.byPriceRangePaged,
+                new PriceRangePageQuery(min, max, page, size));
     }
 
     @GetMapping("/stock")
     public ResponseEntity<Map<String, Object>> getProductsByMinStock(@RequestParam Integer min) {
-        return enqueueTaskAndReturnId("GET_PRODUCTS_BY_MIN_STOCK", min);
+        return enqueueTaskAndReturnId(tasks.byMinStock, min);
     }
 
     @GetMapping("/stock/paged")
@@ -84,13 +106,13 @@ public class AsyncProductController extends WorkerEnabledController {
             @RequestParam(defaultValue = "0") int page,
             @RequestParam(defaultValue = "20") int size) {
         
-        return enqueueTaskAndReturnId("GET_PRODUCTS_BY_MIN_STOCK_PAGED", 
-                Map.of("min", min, "page", page, "size", size));
+        return enqueueTaskAndReturnId(tasks.byMinStockPaged,
+                new MinStockPageQuery(min, page, size));
     }
 
     @GetMapping("/search")
     public ResponseEntity<Map<String, Object>> searchProducts(@RequestParam String keyword) {
-        return enqueueTaskAndReturnId("SEARCH_PRODUCTS", keyword);
+        return enqueueTaskAndReturnId(tasks.search, keyword);
     }
 
     @GetMapping("/search/paged")
@@ -99,14 +121,79 @@ public class AsyncProductController extends WorkerEnabledController {
             @RequestParam(defaultValue = "0") int page,
             @RequestParam(defaultValue = "20") int size) {
         
-        return enqueueTaskAndReturnId("SEARCH_PRODUCTS_PAGED", 
-                Map.of("keyword", keyword, "page", page, "size", size));
+        return enqueueTaskAndReturnId(tasks.searchPaged,
+                new KeywordPageQuery(keyword, page, size));
     }
     
+    /**
+     * Datos de la página de producto en una sola tarea compuesta: el producto y, según los
+     * parámetros que lleguen, su categoría, la banda de precio, el stock y una búsqueda. Las
+     * consultas corren en paralelo y la respuesta trae lo que haya llegado dentro del deadline.
+     */
+    @GetMapping("/page/{id}")
+    public ResponseEntity<Map<String, Object>> getProductPage(
+            @PathVariable Long id,
+            @RequestParam(required = false) String category,
+            @RequestParam(required = false) Double minPrice,
+            @RequestParam(required = false) Double maxPrice,
+            @RequestParam(required = false) Integer minStock,
+            @RequestParam(required = false) String keyword,
+            @RequestParam(defaultValue = "10") int size) {
+
+        List<CompositePart> parts = new ArrayList<>();
+        parts.add(new CompositePart("product", "GET_PRODUCT_BY_ID", id));
+        if (category != null) {
+            parts.add(new CompositePart("sameCategory", "GET_PRODUCTS_BY_CATEGORY_PAGED",
+                    new CategoryPageQuery(category, 0, size)));
+        }
+        if (minPrice != null && maxPrice != null) {
+            parts.add(new CompositePart("priceBand", "GET_PRODUCTS_BY_PRICE_RANGE_PAGED",
+                    new PriceRangePageQuery(minPrice, maxPrice, 0, size)));
+        }
+        if (minStock != null) {
+            parts.add(new CompositePart("inStock", "GET_PRODUCTS_BY_MIN_STOCK_PAGED",
+                    new MinStockPageQuery(minStock, 0, size)));
+        }
+        if (keyword != null) {
+            parts.add(new CompositePart("related", "SEARCH_PRODUCTS_PAGED",
+                    new KeywordPageQuery(keyword, 0, size)));
+        }
+        return enqueueTaskAndReturnId(CompositeTaskProcessor.TASK_TYPE,
+                new CompositeRequest(parts, CompositePolicy.PARTIAL));
+    }
+
+    /**
+     * Tarea compuesta libre: {"parts": [{"name": "...", "taskType": "...", "payload": ...}], "policy": "PARTIAL"}
+     */
+    @PostMapping("/composite")
+    public ResponseEntity<Map<String, Object>> submitComposite(@RequestBody CompositeRequest request) {
+        return enqueueTaskAndReturnId(CompositeTaskProcessor.TASK_TYPE, request);
+    }
+
+    /**
+     * Lote de consultas en una sola petición: [{"taskType": "...", "payload": ...}, ...].
+     * Devuelve los IDs de las tareas en el mismo orden que las entradas.
+     */
+    @PostMapping(value = "/batch", produces = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<Map<String, Object>> submitBatch(@RequestBody List<BatchTaskRequest> entries) {
+        return enqueueBatchAndReturnIds(entries);
+    }
+
+    /**
+     * Mismo lote, pero la respuesta emite cada resultado según termina (NDJSON o SSE según Accept)
+     */
+    @PostMapping(value = "/batch", produces = {MediaType.APPLICATION_NDJSON_VALUE, MediaType.TEXT_EVENT_STREAM_VALUE})
+    public ResponseEntity<ResponseBodyEmitter> submitBatchStreaming(
+            @RequestBody List<BatchTaskRequest> entries,
+            @RequestHeader(HttpHeaders.ACCEPT) String accept) {
+
+        return enqueueBatchAndStream(entries, accept.contains(MediaType.TEXT_EVENT_STREAM_VALUE));
+    }
+
     // Nuevo endpoint para verificar el estado de una tarea
     @GetMapping("/task/{taskId}")
-    public ResponseEntity<Map<String, Object>> getTaskStatus(@PathVariable UUID taskId) {
-        return ResponseEntity.ok(workQueueService.getTaskStatus(taskId));
+    public ResponseEntity<?> getTaskStatus(@PathVariable UUID taskId) {
+        return super.getTaskStatus(taskId);
     }
 
     @GetMapping("/subscribe/{taskId}")
@@ -1,5 +1,11 @@
 package co.g3a.high_throughput_poc.consumer;
 
+import co.g3a.high_throughput_poc.products.query.CategoryPageQuery;
+import co.g3a.high_throughput_poc.products.query.KeywordPageQuery;
+import co.g3a.high_throughput_poc.products.query.MinStockPageQuery;
+import co.g3a.high_throughput_poc.products.query.PageQuery;
+import co.g3a.high_throughput_poc.products.query.PriceRangePageQuery;
+import co.g3a.high_throughput_poc.products.query.PriceRangeQuery;
 import co.g3a.high_throughput_poc.worker.WorkQueueService;
 import co.g3a.high_throughput_poc.worker.WorkerEnabledController;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -12,14 +18,17 @@ import java.util.Map;
 @RequestMapping("/api/products")
 public class ProductController extends WorkerEnabledController {
 
+    private final ProductTasks tasks;
+
     @Autowired
     public ProductController(WorkQueueService workQueueService) {
         super(workQueueService);
+        this.tasks = new ProductTasks(workQueueService);
     }
 
     @GetMapping
     public ResponseEntity<Map<String, Object>> getAllProducts() {
-        return enqueueTask("GET_ALL_PRODUCTS", null);
+        return enqueueTask(tasks.all, null);
     }
 
     @GetMapping("/paged")
@@ -27,17 +36,22 @@ public class ProductController extends WorkerEnabledController {
             @RequestParam(defaultValue = "0") int page,
             @RequestParam(defaultValue = "20") int size) {
         
-        return enqueueTask("GET_PAGED_PRODUCTS", Map.of("page", page, "size", size));
+        return enqueueTask(tasks.paged, new PageQuery(page, size));
+    }
+
+    @GetMapping("/stats/categories")
+    public ResponseEntity<Map<String, Object>> getCategoryStats() {
+        return enqueueTask(tasks.categoryStats, null);
     }
 
     @GetMapping("/{id}")
     public ResponseEntity<Map<String, Object>> getProductById(@PathVariable Long id) {
-        return enqueueTask("GET_PRODUCT_BY_ID", id);
+        return enqueueTask(tasks.byId, id);
     }
 
     @GetMapping("/category/{category}")
     public ResponseEntity<Map<String, Object>> getProductsByCategory(@PathVariable String category) {
-        return enqueueTask("GET_PRODUCTS_BY_CATEGORY", category);
+        return enqueueTask(tasks.byCategory, category);
     }
 
     @GetMapping("/category/{category}/paged")
@@ -46,8 +60,8 @@ public class ProductController extends WorkerEnabledController {
             @RequestParam(defaultValue = "0") int page,
             @RequestParam(defaultValue = "20") int size) {
         
-        return enqueueTask("GET_PRODUCTS_BY_CATEGORY_PAGED", 
-                Map.of("category", category, "page", page, "size", size));
+        return enqueueTask(tasks.byCategoryPaged,
+                new CategoryPageQuery(category, page, size));
     }
 
     @GetMapping("/price")
@@ -55,8 +69,7 @@ public class ProductController extends WorkerEnabledController {
             @RequestParam Double min,
             @RequestParam Double max) {
         
-        return enqueueTask("GET_PRODUCTS_BY_PRICE_RANGE", 
-                Map.of("min", min, "max", max));
+        return enqueueTask(tasks.byPriceRange, new PriceRangeQuery(min, max));
     }
 
     @GetMapping("/price/paged")
@@ -66,13 +79,13 @@ public class ProductController extends WorkerEnabledController {
             @RequestParam(defaultValue = "0") int page,
             @RequestParam(defaultValue = "20") int size) {
         
-        return enqueueTask("GET_PRODUCTS_BY_PRICE_RANGE_PAGED", 
-                Map.of("min", min, "max", max, "page", page, "size", size));
+        return enqueueTask(tasks.byPriceRangePaged,
+                new PriceRangePageQuery(min, max, page, size));
     }
 
     @GetMapping("/stock")
     public ResponseEntity<Map<String, Object>> getProductsByMinStock(@RequestParam Integer min) {
-        return enqueueTask("GET_PRODUCTS_BY_MIN_STOCK", min);
+        return enqueueTask(tasks.byMinStock, min);
     }
 
     @GetMapping("/stock/paged")
@@ -81,13 +94,13 @@ public class ProductController extends WorkerEnabledController {
             @RequestParam(defaultValue = "0") int page,
             @RequestParam(defaultValue = "20") int size) {
         
-        return enqueueTask("GET_PRODUCTS_BY_MIN_STOCK_PAGED", 
-                Map.of("min", min, "page", page, "size", size));
+        return enqueueTask(tasks.byMinStockPaged,
+                new MinStockPageQuery(min, page, size));
     }
 
     @GetMapping("/search")
     public ResponseEntity<Map<String, Object>> searchProducts(@RequestParam String keyword) {
-        return enqueueTask("SEARCH_PRODUCTS", keyword);
+        return enqueueTask(tasks.search, keyword);
     }
 
     @GetMapping("/search/paged")
@@ -96,7 +109,7 @@ public class ProductController extends WorkerEnabledController {
             @RequestParam(defaultValue = "0") int page,
             @RequestParam(defaultValue = "20") int size) {
         
-        return enqueueTask("SEARCH_PRODUCTS_PAGED", 
-                Map.of("keyword", keyword, "page", page, "size", size));
+        return enqueueTask(tasks.searchPaged,
+                new KeywordPageQuery(keyword, page, size));
     }
 }
\ No newline at end of file
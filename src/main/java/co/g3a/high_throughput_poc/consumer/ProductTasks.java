@@ -0,0 +1,46 @@
+package co.g3a.high_throughput_poc.consumer;
+
+import co.g3a.high_throughput_poc.products.query.CategoryPageQuery;
+import co.g3a.high_throughput_poc.products.query.KeywordPageQuery;
+import co.g3a.high_throughput_poc.products.query.MinStockPageQuery;
+import co.g3a.high_throughput_poc.products.query.PageQuery;
+import co.g3a.high_throughput_poc.products.query.PriceRangePageQuery;
+import co.g3a.high_throughput_poc.products.query.PriceRangeQuery;
+import co.g3a.high_throughput_poc.worker.TaskHandle;
+import co.g3a.high_throughput_poc.worker.WorkQueueService;
+
+import java.util.Map;
+
+/**
+ * Tipos de tarea de productos resueltos una vez al crear los controladores
+ */
+final class ProductTasks {
+
+    final TaskHandle<Void, Map<String, Object>> all;
+    final TaskHandle<PageQuery, Map<String, Object>> paged;
+    final TaskHandle<Void, Map<String, Object>> categoryStats;
+    final TaskHandle<Long, Map<String, Object>> byId;
+    final TaskHandle<String, Map<String, Object>> byCategory;
+    final TaskHandle<CategoryPageQuery, Map<String, Object>> byCategoryPaged;
+    final TaskHandle<PriceRangeQuery, Map<String, Object>> byPriceRange;
+    final TaskHandle<PriceRangePageQuery, Map<String, Object>> byPriceRangePaged;
+    final TaskHandle<Integer, Map<String, Object>> byMinStock;
+    final TaskHandle<MinStockPageQuery, Map<String, Object>> byMinStockPaged;
+    final TaskHandle<String, Map<String, Object>> search;
+    final TaskHandle<KeywordPageQuery, Map<String, Object>> searchPaged;
+
+    ProductTasks(WorkQueueService workQueueService) {
+        this.all = workQueueService.handle("GET_ALL_PRODUCTS");
+        this.paged = workQueueService.handle("GET_PAGED_PRODUCTS");
+        this.categoryStats = workQueueService.handle("GET_CATEGORY_STATS");
+        this.byId = workQueueService.handle("GET_PRODUCT_BY_ID");
+        this.byCategory = workQueueService.handle("GET_PRODUCTS_BY_CATEGORY");
+        this.byCategoryPaged = workQueueService.handle("GET_PRODUCTS_BY_CATEGORY_PAGED");
+        this.byPriceRange = workQueueService.handle("GET_PRODUCTS_BY_PRICE_RANGE");
+        this.byPriceRangePaged = workQueueService.handle("GET_PRODUCTS_BY_PRICE_RANGE_PAGED");
+        this.byMinStock = workQueueService.handle("GET_PRODUCTS_BY_MIN_STOCK");
+        this.byMinStockPaged = workQueueService.handle("GET_PRODUCTS_BY_MIN_STOCK_PAGED");
+        this.search = workQueueService.handle("SEARCH_PRODUCTS");
+        this.searchPaged = workQueueService.handle("SEARCH_PRODUCTS_PAGED");
+    }
+}
@@ -6,10 +6,12 @@ import jakarta.persistence.Table;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Column;
+import jakarta.persistence.EntityListeners;
 import java.io.Serializable;
 
 @Entity
 @Table(name = "products")
+@EntityListeners(ProductEntityListener.class)
 public class Product implements Serializable {
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
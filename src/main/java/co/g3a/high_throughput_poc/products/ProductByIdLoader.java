@@ -0,0 +1,72 @@
+package co.g3a.high_throughput_poc.products;
+
+import co.g3a.high_throughput_poc.worker.WorkerProperties;
+import co.g3a.high_throughput_poc.worker.microbatch.MicroBatcher;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import org.springframework.stereotype.Component;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ExecutionException;
+
+/**
+ * Carga productos por id agrupando las peticiones concurrentes en una sola consulta
+ * {@code WHERE id IN (...)}. Con in_clause_parameter_padding la lista se rellena hasta la
+ * siguiente potencia de 2, así que los lotes de distinto tamaño reutilizan pocos planes.
+ */
+@Component
+public class ProductByIdLoader {
+
+    private final ProductService productService;
+    private final MicroBatcher<Long, Product> batcher;
+
+    public ProductByIdLoader(ProductService productService, WorkerProperties properties, MeterRegistry meterRegistry) {
+        this.productService = productService;
+        WorkerProperties.MicroBatch config = properties.getMicroBatch();
+        this.batcher = config.isEnabled()
+                ? new MicroBatcher<>("GET_PRODUCT_BY_ID", config.getWindow(), config.getMaxSize(),
+                        this::loadAll, meterRegistry)
+                : null;
+    }
+
+    /**
+     * Busca un producto; espera a que se cargue el lote en el que entra su id.
+     * Si el micro-batching está desactivado hace la consulta individual.
+     */
+    public Optional<Product> findById(Long id) {
+        if (id == null) {
+            throw new IllegalArgumentException("Product id must not be null");
+        }
+        if (batcher == null) {
+            return productService.getProductById(id);
+        }
+        try {
+            return Optional.ofNullable(batcher.load(id).get());
+        } catch (InterruptedException e) {
+            // La tarea agotó su deadline mientras esperaba al lote
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for product " + id, e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw new IllegalStateException("Error loading product " + id, e.getCause());
+        }
+    }
+
+    private Map<Long, Product> loadAll(Collection<Long> ids) {
+        Map<Long, Product> products = new HashMap<>(ids.size() * 2);
+        productService.getProductsByIds(ids).forEach(product -> products.put(product.getId(), product));
+        return products;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (batcher != null) {
+            batcher.close();
+        }
+    }
+}
@@ -0,0 +1,43 @@
+package co.g3a.high_throughput_poc.products;
+
+import co.g3a.high_throughput_poc.products.processors.GetProductByIdProcessor;
+import co.g3a.high_throughput_poc.worker.TaskProcessor;
+import co.g3a.high_throughput_poc.worker.WorkQueueService;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.List;
+
+/**
+ * Invalida los resultados cacheados del worker cuando cambia un producto.
+ * Se ejecuta tras el commit para que una lectura concurrente no vuelva a cachear el dato antiguo.
+ *
+ * Los tipos a invalidar salen de los procesadores registrados que declaran caché (todos leen
+ * productos), así un procesador cacheable nuevo se invalida sin tocar esta clase.
+ */
+@Component
+public class ProductCacheInvalidator {
+
+    private final WorkQueueService workQueueService;
+    private final String productByIdType;
+    // Cualquier escritura puede cambiar el contenido o la paginación de los listados
+    private final List<String> listingTypes;
+
+    public ProductCacheInvalidator(WorkQueueService workQueueService, List<TaskProcessor<?, ?>> processors,
+                                   GetProductByIdProcessor productById) {
+        this.workQueueService = workQueueService;
+        // La consulta por id se invalida solo para el producto que cambió
+        this.productByIdType = productById.getTaskType();
+        this.listingTypes = processors.stream()
+                .filter(processor -> processor.getCachePolicy().isEnabled())
+                .map(TaskProcessor::getTaskType)
+                .filter(type -> !type.equals(productByIdType))
+                .toList();
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onProductChanged(ProductChangedEvent event) {
+        workQueueService.invalidateCachedResult(productByIdType, event.productId());
+        listingTypes.forEach(workQueueService::invalidateCachedResults);
+    }
+}
@@ -0,0 +1,7 @@
+package co.g3a.high_throughput_poc.products;
+
+/**
+ * Un producto se creó, modificó o eliminó
+ */
+public record ProductChangedEvent(Long productId) {
+}
@@ -0,0 +1,28 @@
+package co.g3a.high_throughput_poc.products;
+
+import jakarta.persistence.PostPersist;
+import jakarta.persistence.PostRemove;
+import jakarta.persistence.PostUpdate;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Component;
+
+/**
+ * Listener JPA de {@link Product}: publica un evento por cada escritura.
+ * Hibernate lo obtiene del contexto de Spring, por eso puede inyectar dependencias.
+ */
+@Component
+public class ProductEntityListener {
+
+    private final ApplicationEventPublisher eventPublisher;
+
+    public ProductEntityListener(ApplicationEventPublisher eventPublisher) {
+        this.eventPublisher = eventPublisher;
+    }
+
+    @PostPersist
+    @PostUpdate
+    @PostRemove
+    public void onProductChanged(Product product) {
+        eventPublisher.publishEvent(new ProductChangedEvent(product.getId()));
+    }
+}
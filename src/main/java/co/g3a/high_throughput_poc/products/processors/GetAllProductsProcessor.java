@@ -2,7 +2,9 @@ package co.g3a.high_throughput_poc.products.processors;
 
 import co.g3a.high_throughput_poc.products.Product;
 import co.g3a.high_throughput_poc.products.ProductService;
+import co.g3a.high_throughput_poc.worker.TaskPriority;
 import co.g3a.high_throughput_poc.worker.TaskProcessor;
+import co.g3a.high_throughput_poc.worker.bulkhead.BulkheadPolicy;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 
@@ -25,6 +27,22 @@ public class GetAllProductsProcessor implements TaskProcessor<Void, Map<String,
         return "GET_ALL_PRODUCTS";
     }
 
+    @Override
+    public TaskPriority getPriority() {
+        return TaskPriority.BULK;
+    }
+
+    @Override
+    public int getCost() {
+        // Lee la tabla entera
+        return 10;
+    }
+
+    @Override
+    public BulkheadPolicy getBulkheadPolicy() {
+        return ProductBulkheads.FULL_TABLE;
+    }
+
     @Override
     public Map<String, Object> processTask(Void payload) {
         List<Product> products = productService.getAllProducts();
@@ -0,0 +1,123 @@
+package co.g3a.high_throughput_poc.products.processors;
+
+import co.g3a.high_throughput_poc.products.Product;
+import co.g3a.high_throughput_poc.products.ProductService;
+import co.g3a.high_throughput_poc.worker.LoadingTaskProcessor;
+import co.g3a.high_throughput_poc.worker.TaskPriority;
+import co.g3a.high_throughput_poc.worker.bulkhead.BulkheadPolicy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+
+/**
+ * Resumen por categoría (unidades, valor del inventario, distribución de precios y productos
+ * de más valor). Lee la tabla una vez en el hilo virtual de la tarea y el resto es cálculo en
+ * memoria, que se ejecuta en el pool de CPU.
+ */
+@Component
+public class GetCategoryStatsProcessor implements LoadingTaskProcessor<Void, Map<String, Object>> {
+
+    private static final int TOP_PRODUCTS = 5;
+
+    private final ProductService productService;
+
+    @Autowired
+    public GetCategoryStatsProcessor(ProductService productService) {
+        this.productService = productService;
+    }
+
+    @Override
+    public String getTaskType() {
+        return "GET_CATEGORY_STATS";
+    }
+
+    @Override
+    public TaskPriority getPriority() {
+        return TaskPriority.BULK;
+    }
+
+    @Override
+    public int getCost() {
+        // Lee la tabla entera
+        return 10;
+    }
+
+    @Override
+    public BulkheadPolicy getBulkheadPolicy() {
+        return ProductBulkheads.FULL_TABLE;
+    }
+
+    @Override
+    public Supplier<Map<String, Object>> load(Void payload) {
+        List<Product> products = productService.getAllProducts();
+        return () -> summarizeByCategory(products);
+    }
+
+    private static Map<String, Object> summarizeByCategory(List<Product> allProducts) {
+        Map<String, List<Product>> byCategory = allProducts.stream()
+                .collect(Collectors.groupingBy(
+                        product -> product.getCategory() != null ? product.getCategory() : "",
+                        TreeMap::new, Collectors.toList()));
+
+        Map<String, Object> categories = new TreeMap<>();
+        byCategory.forEach((category, products) -> categories.put(category, summarize(products)));
+
+        Map<String, Object> result = new HashMap<>();
+        result.put("categories", categories);
+        result.put("categoryCount", categories.size());
+        return result;
+    }
+
+    private static Map<String, Object> summarize(List<Product> products) {
+        double[] prices = products.stream()
+                .map(Product::getPrice)
+                .filter(price -> price != null)
+                .mapToDouble(Double::doubleValue)
+                .toArray();
+        Arrays.sort(prices);
+
+        long units = 0;
+        double inventoryValue = 0;
+        for (Product product : products) {
+            int stock = product.getStock() != null ? product.getStock() : 0;
+            units += stock;
+            inventoryValue += value(product);
+        }
+
+        List<Product> top = new ArrayList<>(products);
+        top.sort(Comparator.comparingDouble(GetCategoryStatsProcessor::value).reversed());
+
+        Map<String, Object> summary = new HashMap<>();
+        summary.put("products", products.size());
+        summary.put("units", units);
+        summary.put("inventoryValue", inventoryValue);
+        if (prices.length > 0) {
+            summary.put("minPrice", prices[0]);
+            summary.put("medianPrice", percentile(prices, 0.5));
+            summary.put("p90Price", percentile(prices, 0.9));
+            summary.put("maxPrice", prices[prices.length - 1]);
+            summary.put("meanPrice", Arrays.stream(prices).average().orElse(0));
+        }
+        summary.put("topByValue", top.subList(0, Math.min(TOP_PRODUCTS, top.size())));
+        return summary;
+    }
+
+    private static double value(Product product) {
+        double price = product.getPrice() != null ? product.getPrice() : 0;
+        int stock = product.getStock() != null ? product.getStock() : 0;
+        return price * stock;
+    }
+
+    private static double percentile(double[] sorted, double fraction) {
+        return sorted[(int) Math.min(sorted.length - 1, Math.floor(fraction * sorted.length))];
+    }
+}
@@ -1,7 +1,9 @@
 package co.g3a.high_throughput_poc.products.processors;
 
 import co.g3a.high_throughput_poc.products.ProductService;
+import co.g3a.high_throughput_poc.products.query.PageQuery;
 import co.g3a.high_throughput_poc.worker.TaskProcessor;
+import co.g3a.high_throughput_poc.worker.cache.CachePolicy;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.domain.Page;
 import org.springframework.stereotype.Component;
@@ -10,7 +12,7 @@ import java.util.HashMap;
 import java.util.Map;
 
 @Component
-public class GetPagedProductsProcessor implements TaskProcessor<Map<String, Object>, Map<String, Object>> {
+public class GetPagedProductsProcessor implements TaskProcessor<PageQuery, Map<String, Object>> {
 
     private final ProductService productService;
 
@@ -25,11 +27,13 @@ public class GetPagedProductsProcessor implements TaskProcessor<Map<String, Obje
     }
 
     @Override
-    public Map<String, Object> processTask(Map<String, Object> params) {
-        int page = (int) params.get("page");
-        int size = (int) params.get("size");
-        
-        Page<?> products = productService.getAllProductsAsync(page, size).join();
+    public CachePolicy getCachePolicy() {
+        return ProductCachePolicies.LISTING;
+    }
+
+    @Override
+    public Map<String, Object> processTask(PageQuery query) {
+        Page<?> products = productService.getAllProductsAsync(query.page(), query.size()).join();
         
         Map<String, Object> result = new HashMap<>();
         result.put("products", products.getContent());
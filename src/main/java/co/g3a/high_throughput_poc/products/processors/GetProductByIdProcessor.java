@@ -1,8 +1,10 @@
 package co.g3a.high_throughput_poc.products.processors;
 
 import co.g3a.high_throughput_poc.products.Product;
-import co.g3a.high_throughput_poc.products.ProductService;
+import co.g3a.high_throughput_poc.products.ProductByIdLoader;
+import co.g3a.high_throughput_poc.worker.TaskPriority;
 import co.g3a.high_throughput_poc.worker.TaskProcessor;
+import co.g3a.high_throughput_poc.worker.cache.CachePolicy;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 
@@ -13,11 +15,11 @@ import java.util.Optional;
 @Component
 public class GetProductByIdProcessor implements TaskProcessor<Long, Map<String, Object>> {
 
-    private final ProductService productService;
+    private final ProductByIdLoader productLoader;
 
     @Autowired
-    public GetProductByIdProcessor(ProductService productService) {
-        this.productService = productService;
+    public GetProductByIdProcessor(ProductByIdLoader productLoader) {
+        this.productLoader = productLoader;
     }
     
     @Override
@@ -25,9 +27,19 @@ public class GetProductByIdProcessor implements TaskProcessor<Long, Map<String,
         return "GET_PRODUCT_BY_ID";
     }
 
+    @Override
+    public CachePolicy getCachePolicy() {
+        return ProductCachePolicies.BY_ID;
+    }
+
+    @Override
+    public TaskPriority getPriority() {
+        return TaskPriority.INTERACTIVE;
+    }
+
     @Override
     public Map<String, Object> processTask(Long id) {
-        Optional<Product> productOpt = productService.getProductByIdAsync(id).join();
+        Optional<Product> productOpt = productLoader.findById(id);
         
         Map<String, Object> result = new HashMap<>();
         if (productOpt.isPresent()) {
@@ -2,6 +2,7 @@ package co.g3a.high_throughput_poc.products.processors;
 
 import co.g3a.high_throughput_poc.products.ProductService;
 import co.g3a.high_throughput_poc.worker.TaskProcessor;
+import co.g3a.high_throughput_poc.worker.cache.CachePolicy;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.domain.Page;
 import org.springframework.stereotype.Component;
@@ -24,6 +25,11 @@ public class GetProductsByCategoryProcessor implements TaskProcessor<String, Map
         return "GET_PRODUCTS_BY_CATEGORY";
     }
 
+    @Override
+    public CachePolicy getCachePolicy() {
+        return ProductCachePolicies.LISTING;
+    }
+
     @Override
     public Map<String, Object> processTask(String category) {
         Page<?> products = productService.getProductsByCategoryAsync(category).join();
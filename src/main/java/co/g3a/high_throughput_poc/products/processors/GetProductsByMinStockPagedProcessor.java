@@ -1,7 +1,9 @@
 package co.g3a.high_throughput_poc.products.processors;
 
 import co.g3a.high_throughput_poc.products.ProductService;
+import co.g3a.high_throughput_poc.products.query.MinStockPageQuery;
 import co.g3a.high_throughput_poc.worker.TaskProcessor;
+import co.g3a.high_throughput_poc.worker.cache.CachePolicy;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.domain.Page;
 import org.springframework.stereotype.Component;
@@ -10,7 +12,7 @@ import java.util.HashMap;
 import java.util.Map;
 
 @Component
-public class GetProductsByMinStockPagedProcessor implements TaskProcessor<Map<String, Object>, Map<String, Object>> {
+public class GetProductsByMinStockPagedProcessor implements TaskProcessor<MinStockPageQuery, Map<String, Object>> {
     private final ProductService productService;
 
     @Autowired
@@ -24,12 +26,14 @@ public class GetProductsByMinStockPagedProcessor implements TaskProcessor<Map<St
     }
 
     @Override
-    public Map<String, Object> processTask(Map<String, Object> request) {
-        Integer min = (Integer) request.get("min");
-        int page = (Integer) request.get("page");
-        int size = (Integer) request.get("size");
-        
-        Page<?> products = productService.getProductsByStockGreaterThanAsync(min, page, size).join();
+    public CachePolicy getCachePolicy() {
+        return ProductCachePolicies.LISTING;
+    }
+
+    @Override
+    public Map<String, Object> processTask(MinStockPageQuery query) {
+        Integer min = query.min();
+        Page<?> products = productService.getProductsByStockGreaterThanAsync(min, query.page(), query.size()).join();
         
         Map<String, Object> result = new HashMap<>();
         result.put("minStock", min);
@@ -2,6 +2,7 @@ package co.g3a.high_throughput_poc.products.processors;
 
 import co.g3a.high_throughput_poc.products.Product;
 import co.g3a.high_throughput_poc.products.ProductService;
+import co.g3a.high_throughput_poc.worker.TaskPriority;
 import co.g3a.high_throughput_poc.worker.TaskProcessor;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
@@ -24,6 +25,11 @@ public class GetProductsByMinStockProcessor implements TaskProcessor<Integer, Ma
         return "GET_PRODUCTS_BY_MIN_STOCK";
     }
 
+    @Override
+    public TaskPriority getPriority() {
+        return TaskPriority.BULK;
+    }
+
     @Override
     public Map<String, Object> processTask(Integer min) {
         List<Product> products = productService.getProductsByStockGreaterThan(min);
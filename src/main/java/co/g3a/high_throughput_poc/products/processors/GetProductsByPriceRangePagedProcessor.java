@@ -1,7 +1,9 @@
 package co.g3a.high_throughput_poc.products.processors;
 
 import co.g3a.high_throughput_poc.products.ProductService;
+import co.g3a.high_throughput_poc.products.query.PriceRangePageQuery;
 import co.g3a.high_throughput_poc.worker.TaskProcessor;
+import co.g3a.high_throughput_poc.worker.cache.CachePolicy;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.domain.Page;
 import org.springframework.stereotype.Component;
@@ -10,7 +12,7 @@ import java.util.HashMap;
 import java.util.Map;
 
 @Component
-public class GetProductsByPriceRangePagedProcessor implements TaskProcessor<Map<String, Object>, Map<String, Object>> {
+public class GetProductsByPriceRangePagedProcessor implements TaskProcessor<PriceRangePageQuery, Map<String, Object>> {
     private final ProductService productService;
 
     @Autowired
@@ -24,13 +26,15 @@ public class GetProductsByPriceRangePagedProcessor implements TaskProcessor<Map<
     }
 
     @Override
-    public Map<String, Object> processTask(Map<String, Object> request) {
-        Double min = (Double) request.get("min");
-        Double max = (Double) request.get("max");
-        int page = (Integer) request.get("page");
-        int size = (Integer) request.get("size");
-        
-        Page<?> products = productService.getProductsByPriceRangeAsync(min, max, page, size).join();
+    public CachePolicy getCachePolicy() {
+        return ProductCachePolicies.LISTING;
+    }
+
+    @Override
+    public Map<String, Object> processTask(PriceRangePageQuery query) {
+        Double min = query.min();
+        Double max = query.max();
+        Page<?> products = productService.getProductsByPriceRangeAsync(min, max, query.page(), query.size()).join();
         
         Map<String, Object> result = new HashMap<>();
         result.put("minPrice", min);
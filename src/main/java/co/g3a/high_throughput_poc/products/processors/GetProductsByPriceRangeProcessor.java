@@ -2,6 +2,8 @@ package co.g3a.high_throughput_poc.products.processors;
 
 import co.g3a.high_throughput_poc.products.Product;
 import co.g3a.high_throughput_poc.products.ProductService;
+import co.g3a.high_throughput_poc.products.query.PriceRangeQuery;
+import co.g3a.high_throughput_poc.worker.TaskPriority;
 import co.g3a.high_throughput_poc.worker.TaskProcessor;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
@@ -11,7 +13,7 @@ import java.util.List;
 import java.util.Map;
 
 @Component
-public class GetProductsByPriceRangeProcessor implements TaskProcessor<Map<String, Double>, Map<String, Object>> {
+public class GetProductsByPriceRangeProcessor implements TaskProcessor<PriceRangeQuery, Map<String, Object>> {
     private final ProductService productService;
 
     @Autowired
@@ -25,9 +27,14 @@ public class GetProductsByPriceRangeProcessor implements TaskProcessor<Map<Strin
     }
 
     @Override
-    public Map<String, Object> processTask(Map<String, Double> request) {
-        Double min = request.get("min");
-        Double max = request.get("max");
+    public TaskPriority getPriority() {
+        return TaskPriority.BULK;
+    }
+
+    @Override
+    public Map<String, Object> processTask(PriceRangeQuery query) {
+        Double min = query.min();
+        Double max = query.max();
         List<Product> products = productService.getProductsByPriceRange(min, max);
         
         Map<String, Object> result = new HashMap<>();
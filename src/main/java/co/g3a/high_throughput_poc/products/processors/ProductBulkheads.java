@@ -0,0 +1,22 @@
+package co.g3a.high_throughput_poc.products.processors;
+
+import co.g3a.high_throughput_poc.worker.bulkhead.BulkheadPolicy;
+
+/**
+ * Compartimentos compartidos por los procesadores de productos
+ */
+final class ProductBulkheads {
+    /**
+     * Búsquedas LIKE '%kw%': recorren la tabla entera y retienen la conexión mientras tanto.
+     * Con el pool por defecto (50) cada tipo puede ocupar 10 conexiones.
+     */
+    static final BulkheadPolicy FULL_SCAN = BulkheadPolicy.of(16, 500).withConnectionShare(0.2);
+
+    /**
+     * Listado completo sin paginar: pocas ejecuciones a la vez, el resto espera su turno
+     */
+    static final BulkheadPolicy FULL_TABLE = BulkheadPolicy.of(4, 200).withConnectionShare(0.1);
+
+    private ProductBulkheads() {
+    }
+}
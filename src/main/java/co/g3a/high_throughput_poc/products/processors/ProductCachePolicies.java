@@ -0,0 +1,23 @@
+package co.g3a.high_throughput_poc.products.processors;
+
+import co.g3a.high_throughput_poc.worker.cache.CachePolicy;
+
+import java.time.Duration;
+
+/**
+ * Políticas de caché compartidas por los procesadores de productos
+ */
+final class ProductCachePolicies {
+    /**
+     * Consultas por id: resultados pequeños y muy repetidos
+     */
+    static final CachePolicy BY_ID = CachePolicy.of(Duration.ofSeconds(60), 10_000, 16L * 1024 * 1024);
+
+    /**
+     * Listados paginados: pocas claves calientes (categoría/rango + página) con resultados más grandes
+     */
+    static final CachePolicy LISTING = CachePolicy.of(Duration.ofSeconds(30), 2_000, 32L * 1024 * 1024);
+
+    private ProductCachePolicies() {
+    }
+}
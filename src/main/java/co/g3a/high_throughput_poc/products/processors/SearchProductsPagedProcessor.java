@@ -1,7 +1,10 @@
 package co.g3a.high_throughput_poc.products.processors;
 
 import co.g3a.high_throughput_poc.products.ProductService;
+import co.g3a.high_throughput_poc.products.query.KeywordPageQuery;
 import co.g3a.high_throughput_poc.worker.TaskProcessor;
+import co.g3a.high_throughput_poc.worker.bulkhead.BulkheadPolicy;
+import co.g3a.high_throughput_poc.worker.cache.CachePolicy;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.domain.Page;
 import org.springframework.stereotype.Component;
@@ -10,7 +13,7 @@ import java.util.HashMap;
 import java.util.Map;
 
 @Component
-public class SearchProductsPagedProcessor implements TaskProcessor<Map<String, Object>, Map<String, Object>> {
+public class SearchProductsPagedProcessor implements TaskProcessor<KeywordPageQuery, Map<String, Object>> {
     private final ProductService productService;
 
     @Autowired
@@ -24,12 +27,19 @@ public class SearchProductsPagedProcessor implements TaskProcessor<Map<String, O
     }
 
     @Override
-    public Map<String, Object> processTask(Map<String, Object> request) {
-        String keyword = (String) request.get("keyword");
-        int page = (Integer) request.get("page");
-        int size = (Integer) request.get("size");
-        
-        Page<?> products = productService.searchProductsPaginatedAsync(keyword, page, size).join();
+    public CachePolicy getCachePolicy() {
+        return ProductCachePolicies.LISTING;
+    }
+
+    @Override
+    public BulkheadPolicy getBulkheadPolicy() {
+        return ProductBulkheads.FULL_SCAN;
+    }
+
+    @Override
+    public Map<String, Object> processTask(KeywordPageQuery query) {
+        String keyword = query.keyword();
+        Page<?> products = productService.searchProductsPaginatedAsync(keyword, query.page(), query.size()).join();
         
         Map<String, Object> result = new HashMap<>();
         result.put("keyword", keyword);
@@ -2,7 +2,9 @@ package co.g3a.high_throughput_poc.products.processors;
 
 import co.g3a.high_throughput_poc.products.Product;
 import co.g3a.high_throughput_poc.products.ProductService;
+import co.g3a.high_throughput_poc.worker.TaskPriority;
 import co.g3a.high_throughput_poc.worker.TaskProcessor;
+import co.g3a.high_throughput_poc.worker.bulkhead.BulkheadPolicy;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 
@@ -24,6 +26,16 @@ public class SearchProductsProcessor implements TaskProcessor<String, Map<String
         return "SEARCH_PRODUCTS";
     }
 
+    @Override
+    public TaskPriority getPriority() {
+        return TaskPriority.BULK;
+    }
+
+    @Override
+    public BulkheadPolicy getBulkheadPolicy() {
+        return ProductBulkheads.FULL_SCAN;
+    }
+
     @Override
     public Map<String, Object> processTask(String keyword) {
         List<Product> products = productService.searchProducts(keyword);
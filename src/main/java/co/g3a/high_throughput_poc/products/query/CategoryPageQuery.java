@@ -0,0 +1,7 @@
+package co.g3a.high_throughput_poc.products.query;
+
+/**
+ * Página de los productos de una categoría
+ */
+public record CategoryPageQuery(String category, int page, int size) {
+}
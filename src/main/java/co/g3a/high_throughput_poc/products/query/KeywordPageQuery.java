@@ -0,0 +1,7 @@
+package co.g3a.high_throughput_poc.products.query;
+
+/**
+ * Página de la búsqueda por palabra clave
+ */
+public record KeywordPageQuery(String keyword, int page, int size) {
+}
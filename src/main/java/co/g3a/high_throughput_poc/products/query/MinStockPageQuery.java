@@ -0,0 +1,7 @@
+package co.g3a.high_throughput_poc.products.query;
+
+/**
+ * Página de los productos con stock mayor que min
+ */
+public record MinStockPageQuery(Integer min, int page, int size) {
+}
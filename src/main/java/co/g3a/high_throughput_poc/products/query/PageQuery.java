@@ -0,0 +1,7 @@
+package co.g3a.high_throughput_poc.products.query;
+
+/**
+ * Página del listado de productos
+ */
+public record PageQuery(int page, int size) {
+}
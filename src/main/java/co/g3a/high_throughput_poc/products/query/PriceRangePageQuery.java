@@ -0,0 +1,7 @@
+package co.g3a.high_throughput_poc.products.query;
+
+/**
+ * Página de los productos con precio entre min y max
+ */
+public record PriceRangePageQuery(Double min, Double max, int page, int size) {
+}
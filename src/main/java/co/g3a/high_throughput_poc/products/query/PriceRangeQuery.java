@@ -0,0 +1,7 @@
+package co.g3a.high_throughput_poc.products.query;
+
+/**
+ * Productos con precio entre min y max
+ */
+public record PriceRangeQuery(Double min, Double max) {
+}
@@ -0,0 +1,8 @@
+package co.g3a.high_throughput_poc.worker;
+
+/**
+ * Entrada de un lote de tareas: el tipo de tarea y su payload tal como llega en el JSON.
+ * El payload se convierte al tipo que espera el procesador antes de encolar.
+ */
+public record BatchTaskRequest(String taskType, Object payload) {
+}
@@ -0,0 +1,11 @@
+package co.g3a.high_throughput_poc.worker;
+
+/**
+ * Dónde se ejecutan las tareas de un procesador
+ */
+public enum ExecutionProfile {
+    /** Bloquea sobre todo en JDBC o red: un hilo virtual por tarea */
+    IO_BOUND,
+    /** Gasta CPU (ordenar, agregar, codificar resultados grandes): pool acotado a los núcleos */
+    CPU_BOUND
+}
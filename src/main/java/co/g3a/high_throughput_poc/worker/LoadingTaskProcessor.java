@@ -0,0 +1,34 @@
+package co.g3a.high_throughput_poc.worker;
+
+import java.util.function.Supplier;
+
+/**
+ * Procesador CPU_BOUND que tiene que leer datos antes de calcular.
+ *
+ * La lectura ({@link #load}) corre en el hilo virtual de la tarea, con su deadline, y solo el
+ * cálculo que devuelve pasa al pool de CPU: así una espera de JDBC no ocupa uno de los pocos
+ * hilos de ese pool.
+ *
+ * @param <T> Tipo del objeto de entrada (payload)
+ * @param <R> Tipo del resultado
+ */
+public interface LoadingTaskProcessor<T, R> extends TaskProcessor<T, R> {
+
+    /**
+     * Lee lo que necesita la tarea (E/S) y devuelve el cálculo sobre esos datos, que no debe bloquear
+     */
+    Supplier<R> load(T request);
+
+    /**
+     * Lectura y cálculo en el hilo actual, para quien no separa las fases
+     */
+    @Override
+    default R processTask(T request) {
+        return load(request).get();
+    }
+
+    @Override
+    default ExecutionProfile getExecutionProfile() {
+        return ExecutionProfile.CPU_BOUND;
+    }
+}
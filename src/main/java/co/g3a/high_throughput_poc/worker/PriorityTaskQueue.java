@@ -0,0 +1,272 @@
+package co.g3a.high_throughput_poc.worker;
+
+import java.util.ArrayDeque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Cola acotada con una sub-cola por {@link TaskPriority}.
+ * Los dispatchers sacan tareas por turno ponderado: en cada ronda una clase puede despachar
+ * hasta "weight" tareas antes de ceder el turno, de modo que las consultas interactivas
+ * pasan delante de las masivas sin dejarlas sin servicio.
+ *
+ * Dentro de cada clase las tareas se reparten entre clientes por deficit round robin: cada
+ * cliente con tareas en cola recibe "quantum" de crédito por turno y gasta el coste de cada
+ * tarea que despacha. Un cliente con muchas tareas (o tareas caras) no retrasa a los demás
+ * más que un turno, y no puede ocupar más de "maxQueueShare" de la capacidad de la clase.
+ */
+public class PriorityTaskQueue {
+
+    /**
+     * Resultado de intentar encolar
+     */
+    public enum Admission {
+        ACCEPTED,
+        // La clase de prioridad no tiene hueco
+        CLASS_FULL,
+        // El cliente ya ocupa toda la parte de la clase que le corresponde
+        CLIENT_FULL
+    }
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition notEmpty = lock.newCondition();
+    private final ClassQueue[] queues;
+    private final int[] capacities;
+    private final int[] clientCapacities;
+    private final int[] weights;
+    private final int[] credits;
+    private final int quantum;
+    private int count;
+
+    /**
+     * Tareas de un cliente en una clase; solo existe mientras tiene alguna
+     */
+    private static final class ClientQueue {
+        final String clientId;
+        final ArrayDeque<WorkTask<?, ?>> tasks = new ArrayDeque<>();
+        int deficit;
+
+        ClientQueue(String clientId, int deficit) {
+            this.clientId = clientId;
+            this.deficit = deficit;
+        }
+    }
+
+    private final class ClassQueue {
+        final Map<String, ClientQueue> clients = new HashMap<>();
+        // Turno de los clientes con tareas; el primero es el que está despachando
+        final ArrayDeque<ClientQueue> active = new ArrayDeque<>();
+        int size;
+
+        int queuedBy(String clientId) {
+            ClientQueue queue = clients.get(clientId);
+            return queue != null ? queue.tasks.size() : 0;
+        }
+
+        void add(WorkTask<?, ?> task) {
+            ClientQueue queue = clients.get(task.getClientId());
+            if (queue == null) {
+                queue = new ClientQueue(task.getClientId(), quantum);
+                clients.put(queue.clientId, queue);
+                active.addLast(queue);
+            }
+            queue.tasks.addLast(task);
+            size++;
+        }
+
+        WorkTask<?, ?> poll() {
+            while (true) {
+                ClientQueue queue = active.peekFirst();
+                WorkTask<?, ?> head = queue.tasks.peekFirst();
+                if (queue.deficit >= head.getCost()) {
+                    queue.deficit -= head.getCost();
+                    queue.tasks.pollFirst();
+                    size--;
+                    if (queue.tasks.isEmpty()) {
+                        // Un cliente sin tareas no acumula crédito
+                        active.pollFirst();
+                        clients.remove(queue.clientId);
+                    }
+                    return head;
+                }
+                // Sin crédito para su siguiente tarea: pasa al final con el crédito del próximo turno
+                active.pollFirst();
+                queue.deficit += quantum;
+                active.addLast(queue);
+            }
+        }
+    }
+
+    public PriorityTaskQueue(WorkerProperties.Queue config, WorkerProperties.Clients clients) {
+        TaskPriority[] priorities = TaskPriority.values();
+        this.queues = new ClassQueue[priorities.length];
+        this.capacities = new int[priorities.length];
+        this.clientCapacities = new int[priorities.length];
+        this.weights = new int[priorities.length];
+        this.credits = new int[priorities.length];
+        this.quantum = Math.max(1, clients.getQuantum());
+        double share = clients.isEnabled() ? Math.min(1.0, Math.max(0.0, clients.getMaxQueueShare())) : 1.0;
+
+        for (TaskPriority priority : priorities) {
+            WorkerProperties.PriorityClass limits = config.forPriority(priority);
+            int i = priority.ordinal();
+            queues[i] = new ClassQueue();
+            capacities[i] = limits.getCapacity();
+            clientCapacities[i] = Math.max(1, (int) Math.ceil(limits.getCapacity() * share));
+            weights[i] = Math.max(1, limits.getWeight());
+            credits[i] = weights[i];
+        }
+    }
+
+    /**
+     * Encola la tarea en la clase indicada por su prioridad, en la sub-cola de su cliente
+     */
+    public Admission offer(WorkTask<?, ?> task) {
+        int i = task.getPriority().ordinal();
+        lock.lock();
+        try {
+            if (queues[i].size >= capacities[i]) {
+                return Admission.CLASS_FULL;
+            }
+            if (queues[i].queuedBy(task.getClientId()) >= clientCapacities[i]) {
+                return Admission.CLIENT_FULL;
+            }
+            queues[i].add(task);
+            count++;
+            notEmpty.signal();
+            return Admission.ACCEPTED;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Encola todas las tareas o ninguna: si alguna clase (o la parte de algún cliente en
+     * ella) no tiene hueco para las suyas, no se encola nada.
+     */
+    public Admission offerAll(List<? extends WorkTask<?, ?>> tasks) {
+        int[] needed = new int[queues.length];
+        Map<String, int[]> neededByClient = new HashMap<>();
+        for (WorkTask<?, ?> task : tasks) {
+            int i = task.getPriority().ordinal();
+            needed[i]++;
+            neededByClient.computeIfAbsent(task.getClientId(), id -> new int[queues.length])[i]++;
+        }
+        lock.lock();
+        try {
+            for (int i = 0; i < queues.length; i++) {
+                if (queues[i].size + needed[i] > capacities[i]) {
+                    return Admission.CLASS_FULL;
+                }
+            }
+            for (Map.Entry<String, int[]> entry : neededByClient.entrySet()) {
+                for (int i = 0; i < queues.length; i++) {
+                    if (entry.getValue()[i] > 0
+                            && queues[i].queuedBy(entry.getKey()) + entry.getValue()[i] > clientCapacities[i]) {
+                        return Admission.CLIENT_FULL;
+                    }
+                }
+            }
+            for (WorkTask<?, ?> task : tasks) {
+                queues[task.getPriority().ordinal()].add(task);
+            }
+            count += tasks.size();
+            notEmpty.signalAll();
+            return Admission.ACCEPTED;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Bloquea hasta que haya una tarea disponible y la devuelve
+     */
+    public WorkTask<?, ?> take() throws InterruptedException {
+        lock.lockInterruptibly();
+        try {
+            while (count == 0) {
+                notEmpty.await();
+            }
+            count--;
+            return queues[nextClass()].poll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private int nextClass() {
+        for (int i = 0; i < queues.length; i++) {
+            if (queues[i].size > 0 && credits[i] > 0) {
+                credits[i]--;
+                return i;
+            }
+        }
+
+        // Las clases con trabajo agotaron su crédito: empieza una nueva ronda
+        for (int i = 0; i < queues.length; i++) {
+            credits[i] = weights[i];
+        }
+        for (int i = 0; i < queues.length; i++) {
+            if (queues[i].size > 0) {
+                credits[i]--;
+                return i;
+            }
+        }
+        throw new IllegalStateException("Queue count is positive but all priority classes are empty");
+    }
+
+    public int size() {
+        lock.lock();
+        try {
+            return count;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public int size(TaskPriority priority) {
+        lock.lock();
+        try {
+            return queues[priority.ordinal()].size;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public int capacity(TaskPriority priority) {
+        return capacities[priority.ordinal()];
+    }
+
+    /**
+     * Tareas en cola por cliente (todas las clases)
+     */
+    public Map<String, Integer> queuedByClient() {
+        Map<String, Integer> queued = new HashMap<>();
+        lock.lock();
+        try {
+            for (ClassQueue queue : queues) {
+                for (ClientQueue client : queue.clients.values()) {
+                    queued.merge(client.clientId, client.tasks.size(), Integer::sum);
+                }
+            }
+        } finally {
+            lock.unlock();
+        }
+        return queued;
+    }
+
+    /**
+     * Clientes con tareas en cola en la clase indicada
+     */
+    public int activeClients(TaskPriority priority) {
+        lock.lock();
+        try {
+            return queues[priority.ordinal()].active.size();
+        } finally {
+            lock.unlock();
+        }
+    }
+}
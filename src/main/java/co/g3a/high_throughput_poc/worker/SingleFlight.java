@@ -0,0 +1,90 @@
+package co.g3a.high_throughput_poc.worker;
+
+import co.g3a.high_throughput_poc.worker.metrics.TaskOutcome;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Coalescencia de tareas idénticas en vuelo ("single flight").
+ * La primera tarea con una {@link TaskKey} se convierte en líder y se ejecuta; las que llegan
+ * mientras tanto se unen a su vuelo y reciben el mismo resultado cuando el líder aterriza.
+ */
+public class SingleFlight {
+
+    /**
+     * Resultado con el que aterriza un vuelo
+     */
+    public record Outcome(WorkTask.TaskStatus status, Object result, TaskOutcome outcome) {
+    }
+
+    private final ConcurrentMap<TaskKey, CompletableFuture<Outcome>> flights = new ConcurrentHashMap<>();
+    private final Map<String, AtomicLong> leadersByType = new HashMap<>();
+    private final Map<String, AtomicLong> followersByType = new HashMap<>();
+
+    public SingleFlight(Collection<String> taskTypes) {
+        for (String type : taskTypes) {
+            leadersByType.put(type, new AtomicLong(0));
+            followersByType.put(type, new AtomicLong(0));
+        }
+    }
+
+    /**
+     * Intenta despegar un vuelo nuevo para la clave.
+     * @return null si el llamante es el líder, o el vuelo en curso al que debe unirse
+     */
+    public CompletableFuture<Outcome> join(TaskKey key, CompletableFuture<Outcome> flight) {
+        CompletableFuture<Outcome> leader = flights.putIfAbsent(key, flight);
+        if (leader == null) {
+            leadersByType.get(key.type()).incrementAndGet();
+        } else {
+            followersByType.get(key.type()).incrementAndGet();
+        }
+        return leader;
+    }
+
+    /**
+     * Cierra el vuelo y entrega el resultado a todos los seguidores
+     */
+    public void land(TaskKey key, CompletableFuture<Outcome> flight, Outcome outcome) {
+        // Primero se retira para que las tareas nuevas no se unan a un resultado ya entregado
+        flights.remove(key, flight);
+        flight.complete(outcome);
+    }
+
+    public Map<String, Object> getStatistics() {
+        long totalLeaders = 0;
+        long totalFollowers = 0;
+        Map<String, Object> byType = new HashMap<>();
+        for (Map.Entry<String, AtomicLong> entry : leadersByType.entrySet()) {
+            long leaders = entry.getValue().get();
+            long followers = followersByType.get(entry.getKey()).get();
+            totalLeaders += leaders;
+            totalFollowers += followers;
+
+            Map<String, Object> typeStats = new HashMap<>();
+            typeStats.put("executions", leaders);
+            typeStats.put("coalesced", followers);
+            typeStats.put("hitRate", hitRate(leaders, followers));
+            byType.put(entry.getKey(), typeStats);
+        }
+
+        Map<String, Object> stats = new HashMap<>();
+        stats.put("inFlight", flights.size());
+        stats.put("executions", totalLeaders);
+        stats.put("coalesced", totalFollowers);
+        stats.put("hitRate", hitRate(totalLeaders, totalFollowers));
+        stats.put("byType", byType);
+        return stats;
+    }
+
+    private static double hitRate(long leaders, long followers) {
+        long total = leaders + followers;
+        return total == 0 ? 0.0 : (double) followers / total;
+    }
+}
@@ -0,0 +1,33 @@
+package co.g3a.high_throughput_poc.worker;
+
+/**
+ * Tipo de tarea ya resuelto por {@link WorkQueueService#handle(String)}. Lleva el id denso del
+ * tipo, con el que el servicio encuentra procesador, compartimento y caché por índice en lugar
+ * de buscarlos por nombre en cada tarea. Solo vale para el servicio que lo creó.
+ *
+ * @param <T> Tipo del payload
+ * @param <R> Tipo del resultado
+ */
+public final class TaskHandle<T, R> {
+
+    private final int id;
+    private final String type;
+
+    TaskHandle(int id, String type) {
+        this.id = id;
+        this.type = type;
+    }
+
+    public int id() {
+        return id;
+    }
+
+    public String type() {
+        return type;
+    }
+
+    @Override
+    public String toString() {
+        return type + "#" + id;
+    }
+}
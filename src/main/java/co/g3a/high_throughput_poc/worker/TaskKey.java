@@ -0,0 +1,9 @@
+package co.g3a.high_throughput_poc.worker;
+
+/**
+ * Identidad de una tarea a efectos de coalescencia: tipo más payload.
+ * Los payloads de los controladores son valores (String, Long, Map.of, records), cuya
+ * igualdad es por contenido; en los Map el orden de inserción no afecta a equals/hashCode.
+ */
+public record TaskKey(String type, Object payload) {
+}
@@ -0,0 +1,14 @@
+package co.g3a.high_throughput_poc.worker;
+
+/**
+ * Clases de prioridad de la cola de trabajo.
+ * El orden de declaración es el orden de preferencia de los dispatchers.
+ */
+public enum TaskPriority {
+    /** Consultas puntuales y baratas (p.ej. producto por id) */
+    INTERACTIVE,
+    /** Consultas paginadas */
+    STANDARD,
+    /** Recorridos completos de tabla o resultados grandes */
+    BULK
+}
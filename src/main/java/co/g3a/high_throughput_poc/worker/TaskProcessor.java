@@ -1,5 +1,8 @@
 package co.g3a.high_throughput_poc.worker;
 
+import co.g3a.high_throughput_poc.worker.bulkhead.BulkheadPolicy;
+import co.g3a.high_throughput_poc.worker.cache.CachePolicy;
+
 /**
  * Interfaz para procesadores de tareas
  * @param <T> Tipo del objeto de entrada (payload)
@@ -15,4 +18,60 @@ public interface TaskProcessor<T, R> {
      * Procesa una tarea y devuelve un resultado
      */
     R processTask(T request);
-}
\ No newline at end of file
+
+    /**
+     * Clase de prioridad con la que se encolan las tareas de este procesador
+     */
+    default TaskPriority getPriority() {
+        return TaskPriority.STANDARD;
+    }
+
+    /**
+     * Coste relativo de una tarea frente a una consulta simple (1). Se cobra de la cuota del
+     * cliente y del turno que le da la cola, así un cliente con tareas caras obtiene menos.
+     */
+    default int getCost() {
+        return 1;
+    }
+
+    /**
+     * Coste de una tarea concreta, para procesadores cuyo coste depende del payload
+     */
+    default int getCost(T request) {
+        return getCost();
+    }
+
+    /**
+     * Perfil de ejecución. Los procesadores que dedican la mayor parte del tiempo a calcular
+     * deben declarar CPU_BOUND: en hilos virtuales no ceden el carrier y retrasan a los de E/S.
+     * Si además leen de la base de datos deben implementar {@link LoadingTaskProcessor}, para
+     * no bloquear un hilo del pool de CPU esperando a JDBC.
+     */
+    default ExecutionProfile getExecutionProfile() {
+        return ExecutionProfile.IO_BOUND;
+    }
+
+    /**
+     * Indica si tareas idénticas en vuelo pueden compartir una sola ejecución.
+     * Los procesadores con efectos secundarios deben devolver false.
+     */
+    default boolean isCoalescable() {
+        return true;
+    }
+
+    /**
+     * Política de caché de resultados. Por defecto no se cachea; solo deben activarla
+     * procesadores de lectura cuyo resultado dependa únicamente del payload.
+     */
+    default CachePolicy getCachePolicy() {
+        return CachePolicy.none();
+    }
+
+    /**
+     * Compartimento del procesador: cuántas tareas suyas pueden ejecutarse y esperar a la vez,
+     * y qué parte del pool de conexiones pueden ocupar. Por defecto no tiene límite propio.
+     */
+    default BulkheadPolicy getBulkheadPolicy() {
+        return BulkheadPolicy.none();
+    }
+}
@@ -1,148 +1,1040 @@
 package co.g3a.high_throughput_poc.worker;
 
+import co.g3a.high_throughput_poc.worker.cache.CachePolicy;
+import co.g3a.high_throughput_poc.worker.cache.ObjectSizeEstimator;
+import co.g3a.high_throughput_poc.worker.bulkhead.Bulkhead;
+import co.g3a.high_throughput_poc.worker.bulkhead.BulkheadPolicy;
+import co.g3a.high_throughput_poc.worker.cache.ResultCache;
+import co.g3a.high_throughput_poc.worker.client.ClientRegistry;
+import co.g3a.high_throughput_poc.worker.composite.CompositeTaskProcessor;
+import co.g3a.high_throughput_poc.worker.deadline.TaskDeadline;
+import co.g3a.high_throughput_poc.worker.encoding.EncodedResult;
+import co.g3a.high_throughput_poc.worker.encoding.ResultEncoder;
 import co.g3a.high_throughput_poc.worker.exception.*;
+import co.g3a.high_throughput_poc.worker.execution.ProcessingPools;
+import co.g3a.high_throughput_poc.worker.expiry.TimerWheel;
+import co.g3a.high_throughput_poc.worker.id.SecureTaskIdGenerator;
+import co.g3a.high_throughput_poc.worker.id.TaskIdGenerator;
+import co.g3a.high_throughput_poc.worker.id.TimeOrderedIdGenerator;
+import co.g3a.high_throughput_poc.worker.jfr.TaskDeliveredEvent;
+import co.g3a.high_throughput_poc.worker.jfr.TaskEncodedEvent;
+import co.g3a.high_throughput_poc.worker.jfr.TaskEvents;
+import co.g3a.high_throughput_poc.worker.jfr.TaskExecutionEvent;
+import co.g3a.high_throughput_poc.worker.jfr.VirtualThreadMonitor;
+import co.g3a.high_throughput_poc.worker.journal.JournalRecord;
+import co.g3a.high_throughput_poc.worker.journal.MappedTaskJournal;
+import co.g3a.high_throughput_poc.worker.journal.TaskJournal;
+import co.g3a.high_throughput_poc.worker.limiter.AimdLimiter;
+import co.g3a.high_throughput_poc.worker.limiter.ConcurrencyLimiter;
+import co.g3a.high_throughput_poc.worker.limiter.GradientLimiter;
+import co.g3a.high_throughput_poc.worker.metrics.DrainRateEstimator;
+import co.g3a.high_throughput_poc.worker.metrics.LatencyPhase;
+import co.g3a.high_throughput_poc.worker.metrics.RollingLatencyHistogram;
+import co.g3a.high_throughput_poc.worker.metrics.StatisticsSnapshot;
+import co.g3a.high_throughput_poc.worker.metrics.TaskCounters;
+import co.g3a.high_throughput_poc.worker.metrics.TaskCounters.Kind;
+import co.g3a.high_throughput_poc.worker.metrics.TaskLatencyMetrics;
+import co.g3a.high_throughput_poc.worker.metrics.TaskOutcome;
+import co.g3a.high_throughput_poc.worker.metrics.WorkerMetrics;
+import co.g3a.high_throughput_poc.worker.stream.TaskStreamRegistry;
+import com.fasterxml.jackson.databind.JavaType;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.springframework.core.ResolvableType;
 import org.springframework.stereotype.Service;
+import org.springframework.util.ClassUtils;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyEmitter;
 import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
 import java.io.IOException;
+import java.lang.reflect.Type;
 import java.time.Duration;
 import java.time.Instant;
+import java.util.Collection;
+import java.util.EnumMap;
 import java.util.Map;
 import java.util.UUID;
 import java.util.concurrent.*;
 import java.util.List;
 import java.util.HashMap;
 import java.util.ArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
 
 @Service
 public class WorkQueueService {
     private final ConcurrentMap<String, TaskProcessor<?, ?>> processors = new ConcurrentHashMap<>();
     private final ConcurrentMap<UUID, SseEmitter> emitters = new ConcurrentHashMap<>();
+    private final TaskStreamRegistry taskStreams;
     private final ConcurrentMap<UUID, WorkTask<?, ?>> taskResults = new ConcurrentHashMap<>();
-    private final ExecutorService processingExecutor = Executors.newVirtualThreadPerTaskExecutor();
+    // Hilos virtuales para las tareas de E/S y pool acotado para las de CPU
+    private final ProcessingPools processingPools;
+    // Pinning de hilos virtuales y ocupación de carriers (DISABLED si no está activo)
+    private final VirtualThreadMonitor virtualThreads;
     private final Duration defaultMaxProcessingTime = Duration.ofMinutes(1);
-    private final Duration taskResultsRetention = Duration.ofSeconds(10);
+    private final Duration taskResultsRetention;
+    private final ScheduledExecutorService cleanupExecutor = Executors.newSingleThreadScheduledExecutor();
+    private final Map<String, LongAdder> maintenanceFailures = new ConcurrentHashMap<>();
+    private final TaskIdGenerator idGenerator;
 
-    // Control de carga
-    private final Semaphore requestThrottle;
-    private static final int MAX_CONCURRENT_REQUESTS = 2000;
+    // Cola acotada por clase de prioridad y dispatchers que la consumen
+    private final WorkerProperties properties;
+    private final PriorityTaskQueue taskQueue;
+    private final ClientRegistry clientRegistry;
+
+    // Compartimento de cada tipo de tarea; sin límite salvo que el procesador lo declare
+    private final Map<String, Bulkhead> bulkheads = new HashMap<>();
+
+    // Tareas de cada tipo en la cola general y ritmo al que se terminan, para estimar esperas
+    private final Map<String, AtomicInteger> queuedByType = new HashMap<>();
+    private final DrainRateEstimator drainRate;
+    private final List<Thread> dispatchers = new ArrayList<>();
+    private final Map<TaskPriority, LongAdder> queueFullRejections = new EnumMap<>(TaskPriority.class);
+    private final Map<TaskPriority, LongAdder> queueWaitExpirations = new EnumMap<>(TaskPriority.class);
+
+    // Control de carga: límites de concurrencia adaptativos para la ruta asíncrona y la síncrona
+    private final ConcurrencyLimiter asyncLimiter;
+    private final ConcurrencyLimiter syncLimiter;
 
     // Métricas
-    private final AtomicLong totalTasksProcessed = new AtomicLong(0);
-    private final AtomicLong tasksRejected = new AtomicLong(0);
-    private final AtomicLong tasksSuccessful = new AtomicLong(0);
-    private final ConcurrentMap<String, AtomicLong> taskCountByType = new ConcurrentHashMap<>();
-    private final ConcurrentLinkedQueue<Long> processingTimes = new ConcurrentLinkedQueue<>();
-    private final int maxProcessingTimeSamples = 300;
+    private final TaskCounters taskCounters;
+    // Última foto inmutable de getStatistics, que se rehace periódicamente
+    private volatile Map<String, Object> statistics = Map.of();
+    private final TaskLatencyMetrics latencyMetrics;
+    private final WorkerMetrics workerMetrics;
+
+    // Coalescencia de tareas idénticas en vuelo
+    private final SingleFlight singleFlight;
+
+    // Caché de resultados por tipo de tarea (solo procesadores con política activa)
+    private final Map<String, ResultCache> resultCaches = new HashMap<>();
+
+    // Expiración de taskResults: retención de terminadas y deadline de pendientes
+    private final TimerWheel<UUID> resultExpiry;
+    private final AtomicLong retainedBytes = new AtomicLong(0);
     private final Instant startTime = Instant.now();
 
-    public WorkQueueService(List<TaskProcessor<?, ?>> taskProcessors) {
-        this.requestThrottle = new Semaphore(MAX_CONCURRENT_REQUESTS);
+    // Tipo de payload de cada procesador, para convertir los payloads genéricos de los lotes
+    private final Map<String, JavaType> payloadTypes = new HashMap<>();
+
+    // Estado de cada tipo indexado por el id de su TaskHandle (el mismo de taskCounters); los
+    // mapas por nombre quedan para la API por nombre y la administración
+    private final TypeSlot[] typeSlots;
+    private final ObjectMapper objectMapper;
+    private final ResultEncoder resultEncoder;
 
-        taskProcessors.forEach(processor -> {
+    // Registro en disco de tareas aceptadas y terminadas (TaskJournal.DISABLED si no está activo)
+    private final TaskJournal journal;
+    private Map<String, Object> journalRecovery = Map.of();
+
+    private final MeterRegistry meterRegistry;
+    // Se conecta con processSubTask en start(); null si las compuestas están desactivadas
+    private final CompositeTaskProcessor compositeProcessor;
+
+    public WorkQueueService(List<TaskProcessor<?, ?>> taskProcessors, WorkerProperties properties,
+                            MeterRegistry meterRegistry, ObjectMapper objectMapper) {
+        this.properties = properties;
+        this.meterRegistry = meterRegistry;
+        this.objectMapper = objectMapper;
+        this.resultEncoder = new ResultEncoder(objectMapper, properties.getResults().getEncoding());
+        this.idGenerator = createIdGenerator(properties.getTaskId().getMode());
+        this.taskStreams = new TaskStreamRegistry(properties.getStream(), idGenerator::nextId);
+        this.taskResultsRetention = properties.getResults().getRetention();
+        this.journal = properties.getJournal().isEnabled()
+                ? new MappedTaskJournal(properties.getJournal(), taskResultsRetention, objectMapper)
+                : TaskJournal.DISABLED;
+        this.resultExpiry = new TimerWheel<>(properties.getResults().getExpiryTick(), this::expireTask);
+        this.asyncLimiter = createLimiter("async", properties.getLimiter());
+        this.syncLimiter = createLimiter("sync", properties.getLimiter());
+        this.taskQueue = new PriorityTaskQueue(properties.getQueue(), properties.getClients());
+        this.clientRegistry = new ClientRegistry(properties.getClients());
+
+        for (TaskPriority priority : TaskPriority.values()) {
+            queueFullRejections.put(priority, new LongAdder());
+            queueWaitExpirations.put(priority, new LongAdder());
+        }
+
+        List<TaskProcessor<?, ?>> allProcessors = new ArrayList<>(taskProcessors);
+        this.compositeProcessor = properties.getComposite().isEnabled()
+                ? new CompositeTaskProcessor(properties.getComposite())
+                : null;
+        if (compositeProcessor != null) {
+            allProcessors.add(compositeProcessor);
+        }
+        allProcessors.forEach(processor -> {
             processors.put(processor.getTaskType(), processor);
-            taskCountByType.put(processor.getTaskType(), new AtomicLong(0));
+            queuedByType.put(processor.getTaskType(), new AtomicInteger(0));
+            payloadTypes.put(processor.getTaskType(), resolvePayloadType(processor));
+            BulkheadPolicy bulkheadPolicy = properties.getBulkhead().isEnabled()
+                    ? processor.getBulkheadPolicy() : BulkheadPolicy.none();
+            bulkheads.put(processor.getTaskType(), new Bulkhead(processor.getTaskType(), bulkheadPolicy,
+                    properties.getBulkhead().getConnectionPoolSize()));
         });
 
-        ScheduledExecutorService cleanupExecutor = Executors.newSingleThreadScheduledExecutor();
-        cleanupExecutor.scheduleAtFixedRate(this::cleanupOldResults, 5, 5, TimeUnit.MINUTES);
-    }
+        if (properties.getCache().isEnabled()) {
+            processors.forEach((type, processor) -> {
+                CachePolicy policy = processor.getCachePolicy();
+                if (policy.isEnabled()) {
+                    resultCaches.put(type, new ResultCache(type, policy));
+                }
+            });
+        }
 
-    private void cleanupOldResults() {
-        Instant now = Instant.now();
-        taskResults.entrySet().removeIf(entry -> {
-            WorkTask<?, ?> task = entry.getValue();
-            return task.getProcessedAt() != null &&
-                    Duration.between(task.getProcessedAt(), now).compareTo(taskResultsRetention) > 0;
+        this.taskCounters = new TaskCounters(processors.keySet());
+        this.typeSlots = new TypeSlot[processors.size()];
+        processors.forEach((type, processor) -> {
+            int id = taskCounters.typeId(type);
+            typeSlots[id] = new TypeSlot(new TaskHandle<>(id, type), processor, payloadTypes.get(type),
+                    bulkheads.get(type), resultCaches.get(type), queuedByType.get(type));
         });
+        WorkerProperties.Metrics metricsConfig = properties.getMetrics();
+        this.latencyMetrics = new TaskLatencyMetrics(
+                processors.keySet(), metricsConfig.getLatencyWindow(), metricsConfig.getLatencyIntervals());
+        this.workerMetrics = new WorkerMetrics(meterRegistry, processors.keySet());
+        this.singleFlight = new SingleFlight(processors.keySet());
+        this.processingPools = new ProcessingPools(properties.getExecution().getCpuParallelism(), meterRegistry);
+        this.drainRate = new DrainRateEstimator(processors.keySet(), properties.getRetryHint().getRateSmoothing());
+        WorkerProperties.VirtualThreads virtualThreadsConfig = properties.getVirtualThreads();
+        this.virtualThreads = virtualThreadsConfig.isMonitorEnabled()
+                ? new VirtualThreadMonitor(virtualThreadsConfig.getPinnedThreshold(),
+                        virtualThreadsConfig.getCarrierSampleInterval(), virtualThreadsConfig.getMaxSites(),
+                        virtualThreadsConfig.getStackDepth(), processors.keySet(), meterRegistry)
+                : VirtualThreadMonitor.DISABLED;
+    }
+
+    /**
+     * Arranca el worker una vez construido: conecta la tarea compuesta, registra métricas,
+     * recupera el journal, programa el mantenimiento y lanza los dispatchers. Va aparte del
+     * constructor para no entregar el servicio a medio construir a hilos y callbacks.
+     */
+    @PostConstruct
+    public void start() {
+        if (compositeProcessor != null) {
+            compositeProcessor.bind(this::processSubTask, this::partCost);
+        }
+        virtualThreads.start();
+        registerGauges(meterRegistry);
+
+        long tickMs = Math.max(1, properties.getResults().getExpiryTick().toMillis());
+        scheduleMaintenance(meterRegistry, "expiry", () -> resultExpiry.advance(System.nanoTime()), tickMs);
+        scheduleMaintenance(meterRegistry, "latency-rotation", latencyMetrics::rotate,
+                latencyMetrics.getRotationInterval().toMillis());
+        scheduleMaintenance(meterRegistry, "drain-rate", drainRate::sample,
+                Math.max(1, properties.getRetryHint().getSampleInterval().toMillis()));
+        scheduleMaintenance(meterRegistry, "pool-sampling", processingPools::sample,
+                Math.max(1, properties.getExecution().getSampleInterval().toMillis()));
+        scheduleMaintenance(meterRegistry, "stream-heartbeat", taskStreams::maintain,
+                properties.getStream().getHeartbeatInterval().toMillis());
+        if (!resultCaches.isEmpty()) {
+            scheduleMaintenance(meterRegistry, "cache-cleanup", () -> resultCaches.values().forEach(ResultCache::cleanUp),
+                    properties.getCache().getCleanupInterval().toMillis());
+        }
+
+        if (journal.isEnabled()) {
+            recoverFromJournal();
+            scheduleMaintenance(meterRegistry, "journal-compaction", journal::compact,
+                    properties.getJournal().getCompactionInterval().toMillis());
+        }
+
+        for (int i = 0; i < Math.max(1, properties.getDispatchers()); i++) {
+            Thread dispatcher = Thread.ofPlatform()
+                    .name("worker-dispatcher-" + i)
+                    .daemon(true)
+                    .start(this::dispatchLoop);
+            dispatchers.add(dispatcher);
+        }
+
+        refreshStatistics();
+        scheduleMaintenance(meterRegistry, "statistics", this::refreshStatistics,
+                Math.max(1, properties.getMetrics().getSnapshotInterval().toMillis()));
+    }
+
+    /**
+     * Programa un trabajo periódico en cleanupExecutor. Con scheduleAtFixedRate una excepción
+     * cancelaría las siguientes ejecuciones, así que se cuenta y el trabajo sigue en el próximo periodo.
+     */
+    private void scheduleMaintenance(MeterRegistry registry, String job, Runnable action, long periodMs) {
+        LongAdder failures = new LongAdder();
+        maintenanceFailures.put(job, failures);
+        FunctionCounter.builder("worker.maintenance.failures", failures, LongAdder::sum)
+                .description("Periodic maintenance runs that ended with an exception")
+                .tag("job", job)
+                .register(registry);
+        cleanupExecutor.scheduleAtFixedRate(() -> {
+            try {
+                action.run();
+            } catch (RuntimeException e) {
+                failures.increment();
+            }
+        }, periodMs, periodMs, TimeUnit.MILLISECONDS);
+    }
+
+    private static ConcurrencyLimiter createLimiter(String name, WorkerProperties.Limiter config) {
+        return switch (config.getAlgorithm()) {
+            case AIMD -> new AimdLimiter(name, config.getInitialLimit(), config.getMinLimit(), config.getMaxLimit(),
+                    config.getLatencyThreshold().toNanos(), config.getBackoffRatio());
+            case GRADIENT -> new GradientLimiter(name, config.getInitialLimit(), config.getMinLimit(), config.getMaxLimit());
+        };
     }
 
     @SuppressWarnings("unchecked")
-    private <T, R> void processTaskImmediately(WorkTask<T, R> task) {
-        boolean permitAcquired = false;
-        Instant startTime = Instant.now();
+    private static int costOf(TaskProcessor<?, ?> processor, Object request) {
+        return Math.max(1, ((TaskProcessor<Object, ?>) processor).getCost(request));
+    }
+
+    private int partCost(String type) {
+        TaskProcessor<?, ?> processor = processors.get(type);
+        return processor != null ? Math.max(1, processor.getCost()) : 1;
+    }
 
+    private JavaType resolvePayloadType(TaskProcessor<?, ?> processor) {
+        ResolvableType payloadType = ResolvableType.forClass(ClassUtils.getUserClass(processor))
+                .as(TaskProcessor.class)
+                .getGeneric(0);
+        Type type = payloadType.resolve() != null ? payloadType.getType() : Object.class;
+        return objectMapper.getTypeFactory().constructType(type);
+    }
+
+    private static TaskIdGenerator createIdGenerator(WorkerProperties.TaskId.Mode mode) {
+        return switch (mode) {
+            case SECURE -> new SecureTaskIdGenerator();
+            case TIME_ORDERED -> new TimeOrderedIdGenerator();
+            case RANDOM -> UUID::randomUUID;
+        };
+    }
+
+    /**
+     * Gauges y contadores que leen el estado actual del servicio solo cuando se consultan (scrape)
+     */
+    private void registerGauges(MeterRegistry registry) {
+        FunctionCounter.builder("worker.tasks.processed", taskCounters, counters -> counters.total(Kind.PROCESSED))
+                .register(registry);
+        FunctionCounter.builder("worker.tasks.successful", taskCounters, counters -> counters.total(Kind.SUCCESSFUL))
+                .register(registry);
+        FunctionCounter.builder("worker.tasks.rejected", taskCounters, counters -> counters.total(Kind.REJECTED))
+                .register(registry);
+        FunctionCounter.builder("worker.tasks.timedout", taskCounters, counters -> counters.total(Kind.TIMED_OUT))
+                .register(registry);
+        FunctionCounter.builder("worker.clients.throttled", clientRegistry, ClientRegistry::throttledCount)
+                .description("Requests rejected because the client exceeded its rate or queue share")
+                .register(registry);
+        Gauge.builder("worker.clients.tracked", clientRegistry, ClientRegistry::size)
+                .description("Clients with their own token bucket")
+                .register(registry);
+
+        bulkheads.forEach((type, bulkhead) -> {
+            Gauge.builder("worker.bulkhead.active", bulkhead, Bulkhead::getActive)
+                    .tag("type", type)
+                    .register(registry);
+            Gauge.builder("worker.bulkhead.parked", bulkhead, Bulkhead::getParked)
+                    .description("Tasks waiting for a slot in their bulkhead")
+                    .tag("type", type)
+                    .register(registry);
+            Gauge.builder("worker.bulkhead.limit", bulkhead, Bulkhead::getLimit)
+                    .description("Effective concurrency limit, 0 when unbounded")
+                    .tag("type", type)
+                    .register(registry);
+            Gauge.builder("worker.bulkhead.saturation", bulkhead, Bulkhead::getSaturation)
+                    .description("Fraction of the bulkhead limit in use")
+                    .tag("type", type)
+                    .register(registry);
+            FunctionCounter.builder("worker.bulkhead.rejected", bulkhead, Bulkhead::getRejectedCount)
+                    .tag("type", type)
+                    .register(registry);
+        });
+
+        if (journal instanceof MappedTaskJournal mappedJournal) {
+            Gauge.builder("worker.journal.pending", mappedJournal, MappedTaskJournal::pendingCount)
+                    .description("Accepted tasks whose completion is not yet journaled")
+                    .register(registry);
+            FunctionCounter.builder("worker.journal.fsyncs", mappedJournal, MappedTaskJournal::fsyncCount)
+                    .register(registry);
+            FunctionCounter.builder("worker.journal.bytes", mappedJournal, MappedTaskJournal::bytesWritten)
+                    .baseUnit("bytes")
+                    .register(registry);
+        }
+
+        Gauge.builder("worker.sse.emitters", emitters, Map::size)
+                .description("Active per-task SSE emitters")
+                .register(registry);
+        Gauge.builder("worker.stream.sessions", taskStreams, TaskStreamRegistry::sessionCount)
+                .description("Multiplexed SSE sessions")
+                .register(registry);
+        Gauge.builder("worker.stream.subscriptions", taskStreams, TaskStreamRegistry::subscriptionCount)
+                .description("Tasks registered on SSE sessions and not yet delivered")
+                .register(registry);
+        FunctionCounter.builder("worker.stream.events.dropped", taskStreams, TaskStreamRegistry::droppedEventCount)
+                .description("Events discarded because a session buffer was full")
+                .register(registry);
+        Gauge.builder("worker.results.stored", taskResults, Map::size)
+                .description("Tasks retained in taskResults")
+                .register(registry);
+        Gauge.builder("worker.results.bytes", retainedBytes, AtomicLong::get)
+                .description("Estimated heap size of results retained in taskResults")
+                .register(registry);
+        FunctionCounter.builder("worker.results.expiry.failures", resultExpiry, TimerWheel::callbackFailures)
+                .description("Expiry callbacks that ended with an exception")
+                .register(registry);
+
+        for (TaskPriority priority : TaskPriority.values()) {
+            Gauge.builder("worker.queue.size", taskQueue, queue -> queue.size(priority))
+                    .tag("priority", priority.name())
+                    .register(registry);
+            FunctionCounter.builder("worker.queue.rejected", queueFullRejections.get(priority), LongAdder::sum)
+                    .tag("priority", priority.name())
+                    .tag("reason", "queue_full")
+                    .register(registry);
+            FunctionCounter.builder("worker.queue.rejected", queueWaitExpirations.get(priority), LongAdder::sum)
+                    .tag("priority", priority.name())
+                    .tag("reason", "max_wait")
+                    .register(registry);
+        }
+
+        for (ConcurrencyLimiter limiter : List.of(asyncLimiter, syncLimiter)) {
+            Gauge.builder("worker.limiter.limit", limiter, ConcurrencyLimiter::getLimit)
+                    .tag("limiter", limiter.getName())
+                    .register(registry);
+            Gauge.builder("worker.limiter.inflight", limiter, ConcurrencyLimiter::getInFlight)
+                    .tag("limiter", limiter.getName())
+                    .register(registry);
+            FunctionCounter.builder("worker.limiter.rejected", limiter, ConcurrencyLimiter::getRejected)
+                    .tag("limiter", limiter.getName())
+                    .register(registry);
+        }
+
+        resultCaches.forEach((type, cache) -> {
+            FunctionCounter.builder("worker.cache.requests", cache, ResultCache::hitCount)
+                    .tag("type", type)
+                    .tag("result", "hit")
+                    .register(registry);
+            FunctionCounter.builder("worker.cache.requests", cache, ResultCache::missCount)
+                    .tag("type", type)
+                    .tag("result", "miss")
+                    .register(registry);
+            FunctionCounter.builder("worker.cache.evictions", cache, ResultCache::evictionCount)
+                    .tag("type", type)
+                    .tag("cause", "size")
+                    .register(registry);
+            FunctionCounter.builder("worker.cache.evictions", cache, ResultCache::expirationCount)
+                    .tag("type", type)
+                    .tag("cause", "expired")
+                    .register(registry);
+            Gauge.builder("worker.cache.entries", cache, ResultCache::size)
+                    .tag("type", type)
+                    .register(registry);
+            Gauge.builder("worker.cache.bytes", cache, ResultCache::weightedSize)
+                    .tag("type", type)
+                    .description("Estimated heap size of cached results")
+                    .register(registry);
+        });
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        dispatchers.forEach(Thread::interrupt);
+        cleanupExecutor.shutdownNow();
+        processingPools.close();
+        virtualThreads.close();
+        taskStreams.shutdown();
+        // Las tareas que quedan pendientes siguen en el journal y se reencolan al arrancar
+        journal.close();
+    }
+
+    /**
+     * Bucle de cada dispatcher: saca la siguiente tarea de la cola según prioridad,
+     * espera un permiso del limitador y la entrega al pool de su perfil de ejecución.
+     */
+    private void dispatchLoop() {
+        while (!Thread.currentThread().isInterrupted()) {
+            WorkTask<?, ?> task;
+            try {
+                task = taskQueue.take();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+            slotOf(task).queued.decrementAndGet();
+            dispatch(task);
+        }
+    }
+
+    private void dispatch(WorkTask<?, ?> task) {
+        long dequeuedAt = System.nanoTime();
+        task.setDispatchedAtNanos(dequeuedAt);
+        latencyMetrics.record(task.getType(), LatencyPhase.QUEUE_WAIT, dequeuedAt - task.getEnqueuedAtNanos());
+
+        if (task.getStatus() != WorkTask.TaskStatus.PENDING) {
+            // Venció su deadline mientras esperaba en cola
+            return;
+        }
+        if (task.getDeadlineNanos() - dequeuedAt <= 0) {
+            timeOutTask(task);
+            return;
+        }
+
+        switch (slotOf(task).bulkhead.tryEnter(task)) {
+            case ADMITTED -> acquirePermitAndExecute(task);
+            case PARKED -> {
+                // La despachará la tarea de su tipo que libere un hueco
+            }
+            case FULL -> rejectTask(task, TaskOutcome.HIGH_LOAD);
+        }
+    }
+
+    /**
+     * Espera un permiso del limitador y entrega la tarea al executor. La tarea ya ocupa un
+     * hueco de su compartimento, que se libera en todas las salidas.
+     */
+    private void acquirePermitAndExecute(WorkTask<?, ?> task) {
+        long now = System.nanoTime();
+        if (task.getStatus() != WorkTask.TaskStatus.PENDING) {
+            // Venció mientras esperaba hueco en su compartimento
+            releaseBulkhead(slotOf(task).bulkhead);
+            return;
+        }
+        long remainingBudget = task.getDeadlineNanos() - now;
+        if (remainingBudget <= 0) {
+            timeOutTask(task);
+            releaseBulkhead(slotOf(task).bulkhead);
+            return;
+        }
+
+        Duration maxWait = properties.getQueue().forPriority(task.getPriority()).getMaxWait();
+        long remainingWait = Math.min(remainingBudget,
+                maxWait.toNanos() - (now - task.getEnqueuedAtNanos()));
+        if (remainingWait <= 0) {
+            // La tarea esperó en cola más de lo permitido para su clase
+            queueWaitExpirations.get(task.getPriority()).increment();
+            rejectTask(task, TaskOutcome.HIGH_LOAD);
+            releaseBulkhead(slotOf(task).bulkhead);
+            return;
+        }
+
+        boolean permitAcquired;
         try {
-            permitAcquired = requestThrottle.tryAcquire(5, TimeUnit.SECONDS);
-            if (!permitAcquired) {
-                task.setStatus(WorkTask.TaskStatus.REJECTED);
-                task.setProcessedAt(Instant.now());
-                tasksRejected.incrementAndGet();
-                taskResults.put(task.getId(), task);
-                notifyClient(task);
-                throw new ServerHighLoadException(requestThrottle.availablePermits());
+            // Solo se espera el permiso durante lo que le queda de espera máxima a la tarea
+            permitAcquired = asyncLimiter.acquire(remainingWait, TimeUnit.NANOSECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            rejectTask(task, TaskOutcome.REJECTED);
+            releaseBulkhead(slotOf(task).bulkhead);
+            return;
+        }
+        if (!permitAcquired) {
+            queueWaitExpirations.get(task.getPriority()).increment();
+            rejectTask(task, TaskOutcome.HIGH_LOAD);
+            releaseBulkhead(slotOf(task).bulkhead);
+            return;
+        }
+        long permitWait = System.nanoTime() - task.getDispatchedAtNanos();
+        latencyMetrics.record(task.getType(), LatencyPhase.PERMIT_WAIT, permitWait);
+        TaskEvents.admitted(task, task.getDispatchedAtNanos() - task.getEnqueuedAtNanos(), permitWait);
+
+        try {
+            processingPools.execute(dispatchProfile(slotOf(task).processor), () -> {
+                try {
+                    processTaskImmediately(task);
+                } catch (WorkQueueException e) {
+                    // Las excepciones ya fueron manejadas en processTaskImmediately
+                    // Solo capturamos aquí para evitar que el executor falle
+                } finally {
+                    releaseBulkhead(slotOf(task).bulkhead);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            asyncLimiter.onIgnore();
+            rejectTask(task, TaskOutcome.REJECTED);
+            releaseBulkhead(slotOf(task).bulkhead);
+        }
+    }
+
+    /**
+     * Pool en el que arranca una tarea asíncrona. Un {@link LoadingTaskProcessor} arranca en un
+     * hilo virtual para leer y pasa solo el cálculo al pool de CPU.
+     */
+    private static ExecutionProfile dispatchProfile(TaskProcessor<?, ?> processor) {
+        return processor instanceof LoadingTaskProcessor<?, ?>
+                ? ExecutionProfile.IO_BOUND
+                : processor.getExecutionProfile();
+    }
+
+    /**
+     * Libera un hueco del compartimento; si hereda el hueco una tarea aparcada se continúa en
+     * otro hilo virtual, porque esperar el permiso bloquea
+     */
+    private void releaseBulkhead(Bulkhead bulkhead) {
+        WorkTask<?, ?> next = bulkhead.exit();
+        if (next != null) {
+            resumeParked(List.of(next));
+        }
+    }
+
+    private void resumeParked(List<WorkTask<?, ?>> tasks) {
+        for (WorkTask<?, ?> task : tasks) {
+            try {
+                processingPools.execute(ExecutionProfile.IO_BOUND, () -> acquirePermitAndExecute(task));
+            } catch (RejectedExecutionException e) {
+                // Apagando: la tarea no llega a ejecutarse
+                rejectTask(task, TaskOutcome.REJECTED);
+                releaseBulkhead(slotOf(task).bulkhead);
             }
+        }
+    }
 
-            TaskProcessor<T, R> processor = (TaskProcessor<T, R>) processors.get(task.getType());
-            if (processor == null) {
-                throw new ProcessorNotFoundException(task.getType());
+    private void rejectTask(WorkTask<?, ?> task, TaskOutcome outcome) {
+        if (!task.compareAndSetStatus(WorkTask.TaskStatus.PENDING, WorkTask.TaskStatus.REJECTED)) {
+            return;
+        }
+        taskCounters.increment(task.getTypeId(), Kind.REJECTED);
+        workerMetrics.recordOutcome(task.getType(), outcome);
+        TaskEvents.rejected(task, "dispatch", outcome);
+        retainResult(task);
+        landFlight(task, outcome);
+        notifyClient(task);
+    }
+
+    /**
+     * Si la tarea lidera un vuelo, entrega su resultado a las tareas que se unieron
+     */
+    private void landFlight(WorkTask<?, ?> task, TaskOutcome outcome) {
+        if (task.getCoalescingFlight() != null) {
+            singleFlight.land(task.getCoalescingKey(), task.getCoalescingFlight(),
+                    new SingleFlight.Outcome(task.getStatus(), task.getResult(), outcome));
+        }
+    }
+
+    /**
+     * Completa una tarea asíncrona que se unió al vuelo de otra idéntica
+     */
+    @SuppressWarnings("unchecked")
+    private void completeFollower(WorkTask<?, ?> follower, SingleFlight.Outcome outcome) {
+        WorkTask<Object, Object> task = (WorkTask<Object, Object>) follower;
+        boolean completed = outcome.status() == WorkTask.TaskStatus.PROCESSED
+                ? task.complete(outcome.result())
+                : task.compareAndSetStatus(WorkTask.TaskStatus.PENDING, outcome.status());
+        if (!completed) {
+            // Su propio deadline venció antes que el vuelo
+            return;
+        }
+        countTerminated(task.getTypeId(), outcome.status());
+        workerMetrics.recordOutcome(task.getType(), outcome.outcome());
+        retainResult(task);
+        notifyClient(task);
+    }
+
+    /**
+     * Cuenta en taskCounters una tarea terminada sin ejecutarse (caché o vuelo de otra tarea),
+     * para que /statistics y worker.tasks cuenten las mismas tareas
+     */
+    private void countTerminated(int typeId, WorkTask.TaskStatus status) {
+        switch (status) {
+            case PROCESSED -> {
+                taskCounters.increment(typeId, Kind.PROCESSED);
+                taskCounters.increment(typeId, Kind.SUCCESSFUL);
             }
+            case REJECTED -> taskCounters.increment(typeId, Kind.REJECTED);
+            case TIMED_OUT -> taskCounters.increment(typeId, Kind.TIMED_OUT);
+            case PENDING -> {
+            }
+        }
+    }
 
-            R result = processor.processTask(task.getRequest());
-            task.setResult(result);
+    /**
+     * Guarda el estado terminal de la tarea y programa su expiración al acabar la retención.
+     * Todas las rutas que terminan una tarea pasan por aquí.
+     */
+    private void retainResult(WorkTask<?, ?> task) {
+        if (resultEncoder.isGzip()) {
+            task.setEncodedStatus(resultEncoder.encodeDocument(buildTaskStatus(task)));
+        }
+        Object result = task.getResult();
+        EncodedResult journalResult = null;
+        if (journal.isEnabled() && task.getStatus() == WorkTask.TaskStatus.PROCESSED
+                && result != null && !(result instanceof EncodedResult)) {
+            // Modo OBJECT: se serializa una vez aquí; el journal reutiliza los bytes y su longitud sirve de tamaño
+            journalResult = resultEncoder.encodeJson(result);
+        }
+        // Sin bytes a mano, el estimador mide por muestreo de las colecciones
+        long bytes = result instanceof EncodedResult encoded ? encoded.retainedSize()
+                : journalResult != null ? journalResult.retainedSize()
+                : ObjectSizeEstimator.estimate(result);
+        if (task.getEncodedStatus() != null) {
+            bytes += task.getEncodedStatus().retainedSize();
+        }
+        retainedBytes.addAndGet(bytes - task.getRetainedBytes());
+        task.setRetainedBytes(bytes);
+        taskResults.put(task.getId(), task);
 
-            Duration processingDuration = Duration.between(startTime, Instant.now());
+        resultExpiry.cancel(task.getExpiryTimer());
+        task.setExpiryTimer(resultExpiry.schedule(task.getId(), System.nanoTime() + taskResultsRetention.toNanos()));
+        journal.appendCompleted(task, journalResult);
+    }
+
+    /**
+     * Lee el journal al arrancar: vuelve a publicar los resultados que siguen dentro de la
+     * retención y reencola las tareas aceptadas que no llegaron a terminar, con el deadline
+     * que les quedaba. Las que ya lo agotaron quedan TIMED_OUT.
+     */
+    private void recoverFromJournal() {
+        TaskJournal.Recovery recovery = journal.recover();
+        long nowMillis = System.currentTimeMillis();
+        int restoredResults = 0;
+        int requeued = 0;
+        int expired = 0;
+        int rejected = 0;
 
-            totalTasksProcessed.incrementAndGet();
-            taskCountByType.get(task.getType()).incrementAndGet();
+        for (JournalRecord.Completed record : recovery.completed()) {
+            long remainingMillis = record.processedAtMillis() + taskResultsRetention.toMillis() - nowMillis;
+            if (remainingMillis <= 0) {
+                continue;
+            }
+            WorkTask<Object, Object> task = new WorkTask<>(record.taskId(), record.taskType(), null,
+                    defaultMaxProcessingTime, Instant.ofEpochMilli(record.createdAtMillis()));
+            if (record.result() != null) {
+                task.setResult(EncodedResult.ofJson(record.result()));
+            }
+            task.setProcessedAt(Instant.ofEpochMilli(record.processedAtMillis()));
+            task.setStatus(record.status());
+            long bytes = ObjectSizeEstimator.estimate(task.getResult());
+            retainedBytes.addAndGet(bytes);
+            task.setRetainedBytes(bytes);
+            taskResults.put(task.getId(), task);
+            task.setExpiryTimer(resultExpiry.schedule(task.getId(),
+                    System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(remainingMillis)));
+            restoredResults++;
+        }
 
-            synchronized (processingTimes) {
-                processingTimes.add(processingDuration.toMillis());
-                while (processingTimes.size() > maxProcessingTimeSamples) {
-                    processingTimes.poll();
+        for (JournalRecord.Accepted record : recovery.pending()) {
+            long remainingNanos = TimeUnit.MILLISECONDS.toNanos(record.deadlineEpochMillis() - nowMillis);
+            TaskProcessor<?, ?> processor = processors.get(record.taskType());
+            Object payload = null;
+            boolean readable = processor != null;
+            if (readable && record.payload() != null) {
+                try {
+                    payload = objectMapper.readValue(record.payload(), payloadTypes.get(record.taskType()));
+                } catch (IOException e) {
+                    readable = false;
                 }
             }
 
-            if (processingDuration.compareTo(task.getMaxProcessingTime()) > 0) {
-                task.setStatus(WorkTask.TaskStatus.REJECTED);
-                tasksRejected.incrementAndGet();
-                throw new ProcessingTimeoutException(task.getId(), processingDuration);
+            WorkTask<Object, Object> task = new WorkTask<>(record.taskId(), record.taskType(), payload,
+                    Duration.ofNanos(Math.max(0, remainingNanos)), Instant.ofEpochMilli(record.createdAtMillis()));
+            task.setTypeId(taskCounters.typeId(record.taskType()));
+            if (processor != null) {
+                task.setPriority(processor.getPriority());
+                task.setCost(costOf(processor, payload));
+            }
+            task.setEnqueuedAtNanos(System.nanoTime());
+            task.setDeadlineNanos(task.getEnqueuedAtNanos() + remainingNanos);
+            taskResults.put(task.getId(), task);
+
+            if (!readable) {
+                // Tipo ya no registrado o payload ilegible: se termina para que el cliente no espere
+                rejectTask(task, TaskOutcome.REJECTED);
+                rejected++;
+            } else if (remainingNanos <= 0) {
+                timeOutTask(task);
+                expired++;
             } else {
-                task.setStatus(WorkTask.TaskStatus.PROCESSED);
-                tasksSuccessful.incrementAndGet();
+                scheduleDeadline(task);
+                if (taskQueue.offer(task) == PriorityTaskQueue.Admission.ACCEPTED) {
+                    queuedByType.get(task.getType()).incrementAndGet();
+                    TaskEvents.enqueued(task);
+                    requeued++;
+                } else {
+                    rejectTask(task, TaskOutcome.HIGH_LOAD);
+                    rejected++;
+                }
             }
+        }
 
-            taskResults.put(task.getId(), task);
+        Map<String, Object> summary = new HashMap<>();
+        summary.put("restoredResults", restoredResults);
+        summary.put("requeuedTasks", requeued);
+        summary.put("timedOutTasks", expired);
+        summary.put("rejectedTasks", rejected);
+        journalRecovery = summary;
+    }
+
+    /**
+     * Programa el deadline de una tarea pendiente en la rueda de expiración
+     */
+    private void scheduleDeadline(WorkTask<?, ?> task) {
+        task.setExpiryTimer(resultExpiry.schedule(task.getId(), task.getDeadlineNanos()));
+    }
+
+    /**
+     * Vence un temporizador de la rueda: agota el deadline de la tarea si sigue pendiente
+     * o elimina su resultado al acabar la retención
+     */
+    private void expireTask(UUID taskId) {
+        WorkTask<?, ?> task = taskResults.get(taskId);
+        if (task == null) {
+            return;
+        }
+
+        if (task.getStatus() == WorkTask.TaskStatus.PENDING) {
+            timeOutTask(task);
+            return;
+        }
+
+        // Un plazo de pendiente que venció justo cuando la tarea terminaba: su retención sigue programada
+        Instant processedAt = task.getProcessedAt();
+        if (processedAt != null && Instant.now().isBefore(processedAt.plus(taskResultsRetention))) {
+            return;
+        }
+        if (taskResults.remove(taskId, task)) {
+            retainedBytes.addAndGet(-task.getRetainedBytes());
+            TaskEvents.expired(task, "retention", System.nanoTime() - task.getEnqueuedAtNanos());
+        }
+    }
+
+    /**
+     * Termina una tarea pendiente cuyo deadline venció, esté en cola o ejecutándose.
+     * Si se está ejecutando se interrumpe su hilo; las consultas en curso ya tienen el
+     * mismo deadline como query timeout.
+     */
+    private void timeOutTask(WorkTask<?, ?> task) {
+        if (!task.compareAndSetStatus(WorkTask.TaskStatus.PENDING, WorkTask.TaskStatus.TIMED_OUT)) {
+            return;
+        }
+        taskCounters.increment(task.getTypeId(), Kind.TIMED_OUT);
+        workerMetrics.recordOutcome(task.getType(), TaskOutcome.TIMEOUT);
+        TaskEvents.expired(task, "deadline", System.nanoTime() - task.getEnqueuedAtNanos());
+
+        task.interruptExecution();
+
+        retainResult(task);
+        landFlight(task, TaskOutcome.TIMEOUT);
+        notifyClient(task);
+    }
+
+    /**
+     * Ejecuta la tarea. El dispatcher ya adquirió el permiso, que se libera al terminar.
+     * El procesador corre con el deadline de la tarea; si vence, la rueda de expiración
+     * marca la tarea como TIMED_OUT e interrumpe este hilo. El resultado se cuenta en
+     * worker.tasks solo en la ruta que termina la tarea; aquí se registra la duración.
+     */
+    @SuppressWarnings("unchecked")
+    private <T, R> void processTaskImmediately(WorkTask<T, R> task) {
+        long executionStart = System.nanoTime();
+        TaskExecutionEvent executionEvent = TaskEvents.beginExecution();
+        virtualThreads.enter(task.getType());
+        task.claimExecution(Thread.currentThread());
+        if (task.getStatus() != WorkTask.TaskStatus.PENDING) {
+            // El deadline venció entre el dispatch y el arranque
+            task.releaseExecution();
+            virtualThreads.exit();
+            asyncLimiter.onIgnore();
+            return;
+        }
+
+        boolean dropped = true;
+        boolean completed = false;
+        TaskOutcome outcome = TaskOutcome.REJECTED;
+        TypeSlot slot = slotOf(task);
+        ResultCache cache = slot.cache;
+        long cacheGeneration = cache != null ? cache.generation() : 0;
+
+        try {
+            TaskProcessor<T, R> processor = (TaskProcessor<T, R>) slot.processor;
+            R result = runProcessor(processor, task.getRequest(), task.getDeadlineNanos());
+
+            taskCounters.increment(task.getTypeId(), Kind.PROCESSED);
+
+            if (System.nanoTime() - task.getDeadlineNanos() > 0) {
+                outcome = TaskOutcome.TIMEOUT;
+                timeOutTask(task);
+                throw new ProcessingTimeoutException(task.getId(), Duration.ofNanos(System.nanoTime() - executionStart));
+            }
+
+            // Se codifica una vez aquí; tarea, caché y tareas coalescidas comparten los bytes
+            TaskEncodedEvent encodedEvent = TaskEvents.beginEncoding();
+            Object encoded = resultEncoder.encode(result);
+            TaskEvents.endEncoding(encodedEvent, task.getId(), task.getType(), encoded);
+            if (completeWithResult(task, encoded)) {
+                completed = true;
+                taskCounters.increment(task.getTypeId(), Kind.SUCCESSFUL);
+                workerMetrics.recordOutcome(task.getType(), TaskOutcome.PROCESSED);
+                outcome = TaskOutcome.PROCESSED;
+                dropped = false;
+                if (cache != null && task.getRequest() != null) {
+                    cache.put(task.getRequest(), encoded, cacheGeneration);
+                }
+            } else {
+                outcome = TaskOutcome.TIMEOUT;
+            }
 
-        } catch (ProcessorNotFoundException | ServerHighLoadException | ProcessingTimeoutException e) {
-            // Estas excepciones ya están manejadas antes de lanzarse
+        } catch (ProcessingTimeoutException e) {
             throw e;
         } catch (Exception e) {
-            task.setStatus(WorkTask.TaskStatus.REJECTED);
-            task.setProcessedAt(Instant.now());
-            tasksRejected.incrementAndGet();
-            TaskProcessingException processingException = new TaskProcessingException(
-                    task.getId(), task.getType(), e.getMessage(), e
-            );
-            taskResults.put(task.getId(), task);
-            throw processingException;
+            if (System.nanoTime() - task.getDeadlineNanos() > 0 || Thread.currentThread().isInterrupted()) {
+                // Fallo provocado por el deadline (query timeout o interrupción)
+                outcome = TaskOutcome.TIMEOUT;
+                timeOutTask(task);
+                throw new ProcessingTimeoutException(task.getId(), Duration.ofNanos(System.nanoTime() - executionStart));
+            }
+            if (task.compareAndSetStatus(WorkTask.TaskStatus.PENDING, WorkTask.TaskStatus.REJECTED)) {
+                completed = true;
+                taskCounters.increment(task.getTypeId(), Kind.REJECTED);
+                workerMetrics.recordOutcome(task.getType(), TaskOutcome.REJECTED);
+            } else {
+                // La rueda de expiración la terminó antes por deadline
+                outcome = TaskOutcome.TIMEOUT;
+            }
+            throw new TaskProcessingException(task.getId(), task.getType(), e.getMessage(), e);
         } finally {
-            if (permitAcquired) {
-                requestThrottle.release();
+            task.releaseExecution();
+            virtualThreads.exit();
+
+            long latency = System.nanoTime() - executionStart;
+            TaskEvents.endExecution(executionEvent, task.getId(), task.getType(),
+                    slot.processor.getExecutionProfile(), outcome, false);
+            latencyMetrics.record(task.getType(), LatencyPhase.EXECUTION, latency);
+            workerMetrics.recordExecutionTime(task.getType(), outcome, latency);
+            drainRate.recordCompletion(task.getType());
+            if (dropped) {
+                asyncLimiter.onDropped(latency);
+            } else {
+                asyncLimiter.onSuccess(latency);
+            }
+            if (completed) {
+                retainResult(task);
+                landFlight(task, outcome);
+                notifyClient(task);
             }
-            notifyClient(task);
+        }
+    }
+
+    /**
+     * Ejecuta el procesador de una tarea asíncrona con su deadline. Un {@link LoadingTaskProcessor}
+     * lee en este hilo y espera su cálculo en el pool de CPU; la espera no tiene plazo porque
+     * al vencer el deadline la rueda de expiración interrumpe este hilo.
+     */
+    private <T, R> R runProcessor(TaskProcessor<T, R> processor, T request, long deadlineNanos) {
+        if (!(processor instanceof LoadingTaskProcessor<T, R> loading)) {
+            return TaskDeadline.callWithin(deadlineNanos, () -> processor.processTask(request));
+        }
+        Supplier<R> computation = TaskDeadline.callWithin(deadlineNanos, () -> loading.load(request));
+        Future<R> result = processingPools.submit(ExecutionProfile.CPU_BOUND,
+                () -> TaskDeadline.callWithin(deadlineNanos, computation));
+        try {
+            return result.get();
+        } catch (InterruptedException e) {
+            result.cancel(true);
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted waiting for " + processor.getTaskType(), e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw new IllegalStateException(e.getCause());
         }
     }
 
     private void notifyClient(WorkTask<?, ?> task) {
+        taskStreams.publish(task.getId(), task.getType(), () -> buildTaskEvent(task));
+
         SseEmitter emitter = emitters.remove(task.getId());
         if (emitter != null) {
+            TaskDeliveredEvent deliveredEvent = TaskEvents.beginDelivery();
             try {
-                Map<String, Object> response = new HashMap<>();
-                response.put("idTask", task.getId());
-                response.put("status", task.getStatus().toString());
-
-                if (task.getStatus() == WorkTask.TaskStatus.PROCESSED) {
-                    response.put("result", task.getResult() != null ? task.getResult() : "");
-                }
-
-                emitter.send(SseEmitter.event().data(response));
+                emitter.send(SseEmitter.event().data(buildTaskEvent(task)));
                 emitter.complete();
             } catch (IOException e) {
                 emitter.completeWithError(e);
+            } finally {
+                TaskEvents.endDelivery(deliveredEvent, task.getId(), task.getType(), "sse", 0);
+            }
+        }
+    }
+
+    private static Map<String, Object> buildTaskEvent(WorkTask<?, ?> task) {
+        Map<String, Object> response = new HashMap<>();
+        response.put("idTask", task.getId());
+        response.put("status", task.getStatus().toString());
+
+        if (task.getStatus() == WorkTask.TaskStatus.PROCESSED) {
+            response.put("result", task.getResult() != null ? task.getResult() : "");
+        }
+        return response;
+    }
+
+    /**
+     * Abre (o reanuda, si {@code sessionId} sigue viva) un stream SSE de sesión
+     */
+    public SseEmitter openTaskStream(String sessionId) {
+        return taskStreams.connect(sessionId);
+    }
+
+    /**
+     * Registra tareas en un stream de sesión. Las que ya terminaron se envían en el momento.
+     */
+    public Map<String, Object> subscribeToTaskStream(String sessionId, Collection<UUID> taskIds) {
+        if (!taskStreams.hasSession(sessionId)) {
+            throw new StreamSessionNotFoundException(sessionId);
+        }
+        List<UUID> subscribed = new ArrayList<>();
+        List<UUID> unknown = new ArrayList<>();
+        for (UUID taskId : taskIds) {
+            WorkTask<?, ?> task = taskResults.get(taskId);
+            if (task == null) {
+                unknown.add(taskId);
+                continue;
+            }
+            taskStreams.subscribe(sessionId, taskId);
+            subscribed.add(taskId);
+            if (task.getStatus() != WorkTask.TaskStatus.PENDING) {
+                taskStreams.publish(taskId, task.getType(), () -> buildTaskEvent(task));
             }
         }
+
+        Map<String, Object> response = new HashMap<>();
+        response.put("sessionId", sessionId);
+        response.put("subscribed", subscribed);
+        response.put("unknown", unknown);
+        return response;
+    }
+
+    public Duration getDefaultMaxProcessingTime() {
+        return defaultMaxProcessingTime;
+    }
+
+    /**
+     * Si la cabecera de clave de cliente identifica al cliente (solo cuando un gateway la valida)
+     */
+    public boolean isClientKeyTrusted() {
+        return properties.getClients().isTrustClientKey();
+    }
+
+    /**
+     * Resuelve el tipo de tarea una vez para encolar después por índice. Los tipos de payload y
+     * resultado los fija quien lo pide; el payload se comprueba (y convierte si hace falta) al encolar.
+     *
+     * @throws ProcessorNotFoundException si no hay procesador para el tipo
+     */
+    @SuppressWarnings("unchecked")
+    public <T, R> TaskHandle<T, R> handle(String type) {
+        TaskHandle<?, ?> handle = findHandle(type);
+        if (handle == null) {
+            throw new ProcessorNotFoundException(type);
+        }
+        return (TaskHandle<T, R>) handle;
+    }
+
+    /**
+     * Como {@link #handle(String)}, pero null si el tipo no existe
+     */
+    @SuppressWarnings("unchecked")
+    TaskHandle<Object, Object> findHandle(String type) {
+        int id = taskCounters.typeId(type);
+        return id < typeSlots.length ? (TaskHandle<Object, Object>) typeSlots[id].handle : null;
     }
 
     public <T, R> UUID enqueueTask(String type, T request) {
@@ -150,65 +1042,610 @@ public class WorkQueueService {
     }
 
     public <T, R> UUID enqueueTask(String type, T request, Duration maxProcessingTime) {
-        if (requestThrottle.availablePermits() < MAX_CONCURRENT_REQUESTS * 0.03 ) {
-            // El sistema solo rechazará nuevas tareas cuando queden menos de 90 permisos disponibles de los 3000 totales.
-            throw new ServerHighLoadException(requestThrottle.availablePermits());
+        return enqueueTask(type, request, maxProcessingTime, ClientRegistry.ANONYMOUS_CLIENT);
+    }
+
+    /**
+     * Encola la tarea a cuenta de {@code clientId}: se cobra su coste de la cuota del cliente
+     * y la cola la reparte por turnos con las de los demás clientes
+     */
+    public <T, R> UUID enqueueTask(String type, T request, Duration maxProcessingTime, String clientId) {
+        return enqueueTask(this.<T, R>handle(type), request, maxProcessingTime, clientId);
+    }
+
+    public <T, R> UUID enqueueTask(TaskHandle<T, R> handle, T request) {
+        return enqueueTask(handle, request, defaultMaxProcessingTime, ClientRegistry.ANONYMOUS_CLIENT);
+    }
+
+    /**
+     * Como {@link #enqueueTask(String, Object, Duration, String)} con el tipo ya resuelto
+     */
+    public <T, R> UUID enqueueTask(TaskHandle<T, R> handle, T payload, Duration maxProcessingTime, String clientId) {
+        TypeSlot slot = slotOf(handle);
+        String type = handle.type();
+        T request = adaptPayload(slot, payload);
+        TaskProcessor<?, ?> processor = slot.processor;
+        int cost = costOf(processor, request);
+        clientRegistry.acquire(clientId, cost);
+
+        WorkTask<T, R> task = new WorkTask<>(idGenerator.nextId(), type, request, maxProcessingTime);
+        task.setPriority(processor.getPriority());
+        task.setTypeId(handle.id());
+        task.setClientId(clientId);
+        task.setCost(cost);
+        task.setEnqueuedAtNanos(System.nanoTime());
+        task.setDeadlineNanos(task.getEnqueuedAtNanos() + maxProcessingTime.toNanos());
+
+        Object cached = getCachedResult(slot.cache, request);
+        if (cached != null) {
+            // Resultado vigente en caché: la tarea nace procesada y no pasa por la cola
+            completeFromCache(task, cached);
+            return task.getId();
         }
+        scheduleDeadline(task);
+        taskResults.put(task.getId(), task);
+        journal.appendAccepted(task);
 
-        if (!processors.containsKey(type)) {
-            throw new ProcessorNotFoundException(type);
+        if (isCoalescable(processor)) {
+            TaskKey key = new TaskKey(type, request);
+            CompletableFuture<SingleFlight.Outcome> flight = new CompletableFuture<>();
+            CompletableFuture<SingleFlight.Outcome> leader = singleFlight.join(key, flight);
+            if (leader != null) {
+                // Ya hay una tarea idéntica en vuelo: esta no se encola y recibe su resultado
+                leader.thenAccept(outcome -> completeFollower(task, outcome));
+                return task.getId();
+            }
+            task.setCoalescingFlight(key, flight);
         }
 
-        WorkTask<T, R> task = new WorkTask<>(type, request, maxProcessingTime);
-        taskResults.put(task.getId(), task);
-        processingExecutor.submit(() -> {
-            try {
-                processTaskImmediately(task);
-            } catch (WorkQueueException e) {
-                // Las excepciones ya fueron manejadas en processTaskImmediately
-                // Solo capturamos aquí para evitar que el executor falle
+        PriorityTaskQueue.Admission admission = taskQueue.offer(task);
+        if (admission != PriorityTaskQueue.Admission.ACCEPTED) {
+            // Cola de la clase (o parte del cliente) llena: se rechaza en la entrada en lugar de aparcar un hilo más
+            taskResults.remove(task.getId());
+            resultExpiry.cancel(task.getExpiryTimer());
+            taskCounters.increment(handle.id(), Kind.REJECTED);
+            workerMetrics.recordOutcome(type, TaskOutcome.HIGH_LOAD);
+            task.setStatus(WorkTask.TaskStatus.REJECTED);
+            journal.appendCompleted(task);
+            landFlight(task, TaskOutcome.HIGH_LOAD);
+            clientRegistry.refund(clientId, task.getCost());
+            if (admission == PriorityTaskQueue.Admission.CLASS_FULL) {
+                queueFullRejections.get(task.getPriority()).increment();
             }
-        });
+            TaskEvents.rejected(task, "enqueue", admission);
+            throw queueRejection(admission, clientId, suggestRetryAfter(type));
+        }
+        slot.queued.incrementAndGet();
+        TaskEvents.enqueued(task);
 
         return task.getId();
     }
 
+    /**
+     * Encola un lote de tareas como un grupo: se validan y convierten todos los payloads antes
+     * de crear ninguna tarea, y las que necesitan cola se admiten todas o ninguna.
+     * Las que tienen resultado en caché o se unen a un vuelo idéntico no ocupan hueco.
+     * @return los ids de las tareas, en el orden de las entradas
+     */
+    public List<UUID> enqueueBatch(List<BatchTaskRequest> entries, Duration maxProcessingTime) {
+        return enqueueBatch(entries, maxProcessingTime, ClientRegistry.ANONYMOUS_CLIENT);
+    }
+
+    /**
+     * Como {@link #enqueueBatch(List, Duration)}, cobrando el coste de todo el lote a {@code clientId}
+     */
+    public List<UUID> enqueueBatch(List<BatchTaskRequest> entries, Duration maxProcessingTime, String clientId) {
+        int maxSize = properties.getBatch().getMaxSize();
+        if (entries == null || entries.isEmpty()) {
+            throw new InvalidBatchException("Batch must contain at least one task");
+        }
+        if (entries.size() > maxSize) {
+            throw new InvalidBatchException("Batch of " + entries.size() + " tasks exceeds the maximum of " + maxSize);
+        }
+
+        List<WorkTask<Object, Object>> tasks = new ArrayList<>(entries.size());
+        long enqueuedAt = System.nanoTime();
+        for (int i = 0; i < entries.size(); i++) {
+            BatchTaskRequest entry = entries.get(i);
+            if (entry == null || entry.taskType() == null) {
+                throw new InvalidBatchException("Batch entry " + i + " has no task type", i);
+            }
+            TaskProcessor<?, ?> processor = processors.get(entry.taskType());
+            if (processor == null) {
+                throw new ProcessorNotFoundException(entry.taskType());
+            }
+            Object payload = convertPayload(entry, i);
+            WorkTask<Object, Object> task = new WorkTask<>(idGenerator.nextId(), entry.taskType(),
+                    payload, maxProcessingTime);
+            task.setPriority(processor.getPriority());
+            task.setTypeId(taskCounters.typeId(entry.taskType()));
+            task.setClientId(clientId);
+            task.setCost(costOf(processor, payload));
+            task.setEnqueuedAtNanos(enqueuedAt);
+            task.setDeadlineNanos(enqueuedAt + maxProcessingTime.toNanos());
+            tasks.add(task);
+        }
+        int batchCost = tasks.stream().mapToInt(WorkTask::getCost).sum();
+        clientRegistry.acquire(clientId, batchCost);
+
+        Map<WorkTask<?, ?>, Object> cachedResults = new HashMap<>();
+        List<WorkTask<?, ?>> pending = new ArrayList<>();
+        List<WorkTask<?, ?>> queued = new ArrayList<>();
+        for (WorkTask<Object, Object> task : tasks) {
+            Object cached = getCachedResult(resultCaches.get(task.getType()), task.getRequest());
+            if (cached != null) {
+                // Se completa solo si el lote entra
+                cachedResults.put(task, cached);
+                continue;
+            }
+            scheduleDeadline(task);
+            taskResults.put(task.getId(), task);
+            journal.appendAccepted(task);
+            pending.add(task);
+
+            if (isCoalescable(processors.get(task.getType()))) {
+                TaskKey key = new TaskKey(task.getType(), task.getRequest());
+                CompletableFuture<SingleFlight.Outcome> flight = new CompletableFuture<>();
+                CompletableFuture<SingleFlight.Outcome> leader = singleFlight.join(key, flight);
+                if (leader != null) {
+                    leader.thenAccept(outcome -> completeFollower(task, outcome));
+                    continue;
+                }
+                task.setCoalescingFlight(key, flight);
+            }
+            queued.add(task);
+        }
+
+        PriorityTaskQueue.Admission admission = taskQueue.offerAll(queued);
+        if (admission != PriorityTaskQueue.Admission.ACCEPTED) {
+            // No cabe el lote entero: se rechaza todo, incluidas las tareas que se unieron a otros vuelos
+            for (WorkTask<?, ?> task : pending) {
+                if (task.compareAndSetStatus(WorkTask.TaskStatus.PENDING, WorkTask.TaskStatus.REJECTED)) {
+                    taskResults.remove(task.getId());
+                    resultExpiry.cancel(task.getExpiryTimer());
+                    journal.appendCompleted(task);
+                    taskCounters.increment(task.getTypeId(), Kind.REJECTED);
+                    workerMetrics.recordOutcome(task.getType(), TaskOutcome.HIGH_LOAD);
+                }
+            }
+            for (WorkTask<?, ?> task : queued) {
+                if (admission == PriorityTaskQueue.Admission.CLASS_FULL) {
+                    queueFullRejections.get(task.getPriority()).increment();
+                }
+                landFlight(task, TaskOutcome.HIGH_LOAD);
+                TaskEvents.rejected(task, "enqueue", admission);
+            }
+            clientRegistry.refund(clientId, batchCost);
+            Duration retryAfter = queued.stream()
+                    .map(task -> suggestRetryAfter(task.getType()))
+                    .max(Duration::compareTo)
+                    .orElse(properties.getRetryHint().getMinimum());
+            throw queueRejection(admission, clientId, retryAfter);
+        }
+        queued.forEach(task -> {
+            queuedByType.get(task.getType()).incrementAndGet();
+            TaskEvents.enqueued(task);
+        });
+
+        cachedResults.forEach(this::completeFromCache);
+        List<UUID> taskIds = new ArrayList<>(tasks.size());
+        tasks.forEach(task -> taskIds.add(task.getId()));
+        return taskIds;
+    }
+
+    /**
+     * Convierte el payload de una entrada (tal como llegó en el JSON) al tipo que espera su procesador
+     */
+    private Object convertPayload(BatchTaskRequest entry, int index) {
+        if (entry.payload() == null) {
+            return null;
+        }
+        try {
+            return objectMapper.convertValue(entry.payload(), payloadTypes.get(entry.taskType()));
+        } catch (IllegalArgumentException e) {
+            throw new InvalidBatchException("Invalid payload for " + entry.taskType() + " at batch entry " + index, index);
+        }
+    }
+
+    /**
+     * Excepción para una tarea que no cupo en la cola: 503 si la clase está llena,
+     * 429 si es el cliente el que ya ocupa toda su parte
+     */
+    private WorkQueueException queueRejection(PriorityTaskQueue.Admission admission, String clientId,
+                                              Duration retryAfter) {
+        if (admission == PriorityTaskQueue.Admission.CLIENT_FULL) {
+            clientRegistry.recordThrottled(clientId);
+            return new ClientRateLimitedException(clientId, retryAfter);
+        }
+        return new ServerHighLoadException(availablePermits(asyncLimiter), retryAfter);
+    }
+
+    /**
+     * Abre la respuesta en streaming de un lote: SSE si {@code sse}, NDJSON si no.
+     * Se cierra cuando se ha enviado el evento de la última tarea.
+     */
+    public ResponseBodyEmitter streamBatchResults(List<UUID> taskIds, boolean sse) {
+        ResponseBodyEmitter emitter = sse ? taskStreams.openBatchEvents(taskIds) : taskStreams.openBatchNdjson(taskIds);
+        for (UUID taskId : taskIds) {
+            WorkTask<?, ?> task = taskResults.get(taskId);
+            if (task == null) {
+                // Expiró antes de abrir el stream; se informa igualmente para que el lote se cierre
+                taskStreams.publish(taskId, null, () -> {
+                    Map<String, Object> event = new HashMap<>();
+                    event.put("idTask", taskId);
+                    event.put("status", "UNKNOWN");
+                    return event;
+                });
+            } else if (task.getStatus() != WorkTask.TaskStatus.PENDING) {
+                taskStreams.publish(taskId, task.getType(), () -> buildTaskEvent(task));
+            }
+        }
+        return emitter;
+    }
+
+    private static Object getCachedResult(ResultCache cache, Object request) {
+        return cache != null && request != null ? cache.get(request) : null;
+    }
+
     @SuppressWarnings("unchecked")
+    private static boolean completeWithResult(WorkTask<?, ?> task, Object result) {
+        return ((WorkTask<Object, Object>) task).complete(result);
+    }
+
+    @SuppressWarnings("unchecked")
+    private void completeFromCache(WorkTask<?, ?> cachedTask, Object result) {
+        WorkTask<Object, Object> task = (WorkTask<Object, Object>) cachedTask;
+        task.setResult(result);
+        task.setStatus(WorkTask.TaskStatus.PROCESSED);
+        countTerminated(task.getTypeId(), WorkTask.TaskStatus.PROCESSED);
+        workerMetrics.recordOutcome(task.getType(), TaskOutcome.PROCESSED);
+        retainResult(task);
+    }
+
+    /**
+     * Invalida todos los resultados cacheados
+     */
+    public void invalidateCachedResults() {
+        resultCaches.values().forEach(ResultCache::invalidateAll);
+    }
+
+    /**
+     * Invalida los resultados cacheados de un tipo de tarea
+     */
+    public void invalidateCachedResults(String type) {
+        ResultCache cache = resultCaches.get(type);
+        if (cache != null) {
+            cache.invalidateAll();
+        }
+    }
+
+    /**
+     * Invalida el resultado cacheado de un payload concreto
+     */
+    public void invalidateCachedResult(String type, Object request) {
+        ResultCache cache = resultCaches.get(type);
+        if (cache != null && request != null) {
+            cache.invalidate(request);
+        }
+    }
+
+    private TypeSlot slotOf(TaskHandle<?, ?> handle) {
+        int id = handle.id();
+        if (id >= typeSlots.length || typeSlots[id].handle != handle) {
+            // Handle de otra instancia del servicio
+            throw new ProcessorNotFoundException(handle.type());
+        }
+        return typeSlots[id];
+    }
+
+    private TypeSlot slotOf(WorkTask<?, ?> task) {
+        return typeSlots[task.getTypeId()];
+    }
+
+    /**
+     * Deja el payload con el tipo que declara el procesador. Los que ya lo tienen pasan tal cual;
+     * el resto (p.ej. un mapa con los campos de un record, como llegaban antes) se convierte con Jackson.
+     */
+    @SuppressWarnings("unchecked")
+    private <T> T adaptPayload(TypeSlot slot, Object payload) {
+        if (payload == null || slot.payloadClass.isInstance(payload)) {
+            return (T) payload;
+        }
+        try {
+            return (T) objectMapper.convertValue(payload, slot.payloadType);
+        } catch (IllegalArgumentException e) {
+            throw new InvalidPayloadException(slot.handle.type(), e);
+        }
+    }
+
+    private boolean isCoalescable(TaskProcessor<?, ?> processor) {
+        return properties.getCoalescing().isEnabled() && processor.isCoalescable();
+    }
+
     public <T> Map<String, Object> processTaskAndWaitResult(String type, T request) {
+        return processTaskAndWaitResult(type, request, defaultMaxProcessingTime);
+    }
+
+    /**
+     * Procesa la tarea en el hilo de la petición con un presupuesto de tiempo total
+     * (espera de permiso incluida), que se aplica también como timeout de las consultas
+     */
+    public <T> Map<String, Object> processTaskAndWaitResult(String type, T request, Duration maxProcessingTime) {
+        return processTaskAndWaitResult(type, request, maxProcessingTime, ClientRegistry.ANONYMOUS_CLIENT);
+    }
+
+    /**
+     * Ruta síncrona a cuenta de {@code clientId}: no pasa por la cola, así que solo se aplica su cuota
+     */
+    public <T> Map<String, Object> processTaskAndWaitResult(String type, T request, Duration maxProcessingTime,
+                                                            String clientId) {
+        return processTaskAndWaitResult(this.<T, Object>handle(type), request, maxProcessingTime, clientId);
+    }
+
+    public <T> Map<String, Object> processTaskAndWaitResult(TaskHandle<T, ?> handle, T request) {
+        return processTaskAndWaitResult(handle, request, defaultMaxProcessingTime, ClientRegistry.ANONYMOUS_CLIENT);
+    }
+
+    /**
+     * Como {@link #processTaskAndWaitResult(String, Object, Duration, String)} con el tipo ya resuelto
+     */
+    public <T> Map<String, Object> processTaskAndWaitResult(TaskHandle<T, ?> handle, T payload,
+                                                            Duration maxProcessingTime, String clientId) {
         Instant taskStartTime = Instant.now();
+        long deadlineNanos = System.nanoTime() + maxProcessingTime.toNanos();
 
-        if (!processors.containsKey(type)) {
-            throw new ProcessorNotFoundException(type);
+        TypeSlot slot = slotOf(handle);
+        T request = adaptPayload(slot, payload);
+        clientRegistry.acquire(clientId, costOf(slot.processor, request));
+        return processWithinDeadline(slot, request, taskStartTime, deadlineNanos);
+    }
+
+    /**
+     * Sub-tarea de una tarea compuesta: misma ruta que la síncrona con el deadline de la
+     * compuesta, sin cobrar cuota al cliente porque la compuesta ya pagó el coste de sus partes
+     */
+    private Object processSubTask(String type, Object payload, long deadlineNanos) {
+        TypeSlot slot = slotOf(handle(type));
+        Object request = adaptPayload(slot, payload);
+        return processWithinDeadline(slot, request, Instant.now(), deadlineNanos).get("result");
+    }
+
+    private <T> Map<String, Object> processWithinDeadline(TypeSlot slot, T request, Instant taskStartTime,
+                                                          long deadlineNanos) {
+        String type = slot.handle.type();
+        Object cached = getCachedResult(slot.cache, request);
+        if (cached != null) {
+            countTerminated(slot.handle.id(), WorkTask.TaskStatus.PROCESSED);
+            workerMetrics.recordOutcome(type, TaskOutcome.PROCESSED);
+            Map<String, Object> response = new HashMap<>();
+            response.put("status", WorkTask.TaskStatus.PROCESSED.toString());
+            response.put("result", cached);
+            response.put("processingTimeMs", Duration.between(taskStartTime, Instant.now()).toMillis());
+            return response;
+        }
+
+        if (!isCoalescable(slot.processor)) {
+            return executeAndWaitResult(slot, request, taskStartTime, deadlineNanos);
+        }
+
+        TaskKey key = new TaskKey(type, request);
+        CompletableFuture<SingleFlight.Outcome> flight = new CompletableFuture<>();
+        CompletableFuture<SingleFlight.Outcome> leader = singleFlight.join(key, flight);
+        if (leader != null) {
+            return awaitFlight(type, leader, taskStartTime, deadlineNanos);
         }
 
         try {
-            TaskProcessor<T, ?> processor = (TaskProcessor<T, ?>) processors.get(type);
-            Object result = processor.processTask(request);
+            Map<String, Object> response = executeAndWaitResult(slot, request, taskStartTime, deadlineNanos);
+            singleFlight.land(key, flight, new SingleFlight.Outcome(
+                    WorkTask.TaskStatus.PROCESSED, response.get("result"), TaskOutcome.PROCESSED));
+            return response;
+        } catch (ServerHighLoadException e) {
+            singleFlight.land(key, flight, new SingleFlight.Outcome(
+                    WorkTask.TaskStatus.REJECTED, null, TaskOutcome.HIGH_LOAD));
+            throw e;
+        } catch (ProcessingTimeoutException e) {
+            singleFlight.land(key, flight, new SingleFlight.Outcome(
+                    WorkTask.TaskStatus.TIMED_OUT, null, TaskOutcome.TIMEOUT));
+            throw e;
+        } catch (RuntimeException e) {
+            singleFlight.land(key, flight, new SingleFlight.Outcome(
+                    WorkTask.TaskStatus.REJECTED, null, TaskOutcome.REJECTED));
+            throw e;
+        }
+    }
 
-            Duration processingDuration = Duration.between(taskStartTime, Instant.now());
-            totalTasksProcessed.incrementAndGet();
-            tasksSuccessful.incrementAndGet();
-            taskCountByType.get(type).incrementAndGet();
-
-            synchronized (processingTimes) {
-                processingTimes.add(processingDuration.toMillis());
-                while (processingTimes.size() > maxProcessingTimeSamples) {
-                    processingTimes.poll();
-                }
+    /**
+     * Espera el resultado de una tarea idéntica en vuelo (síncrona o asíncrona)
+     */
+    private Map<String, Object> awaitFlight(String type, CompletableFuture<SingleFlight.Outcome> leader,
+                                            Instant taskStartTime, long deadlineNanos) {
+        SingleFlight.Outcome outcome;
+        try {
+            outcome = leader.get(Math.max(0, deadlineNanos - System.nanoTime()), TimeUnit.NANOSECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new TaskProcessingException(idGenerator.nextId(), type, "Interrupted waiting for coalesced task", e);
+        } catch (TimeoutException e) {
+            taskCounters.increment(type, Kind.TIMED_OUT);
+            workerMetrics.recordOutcome(type, TaskOutcome.TIMEOUT);
+            throw new ProcessingTimeoutException(idGenerator.nextId(), Duration.between(taskStartTime, Instant.now()));
+        } catch (ExecutionException e) {
+            throw new TaskProcessingException(idGenerator.nextId(), type, "Coalesced task did not complete", e);
+        }
+
+        countTerminated(taskCounters.typeId(type), outcome.status());
+        workerMetrics.recordOutcome(type, outcome.outcome());
+        if (outcome.outcome() == TaskOutcome.HIGH_LOAD) {
+            throw new ServerHighLoadException(availablePermits(syncLimiter), suggestRetryAfter(type));
+        }
+        if (outcome.outcome() == TaskOutcome.TIMEOUT) {
+            throw new ProcessingTimeoutException(idGenerator.nextId(), Duration.between(taskStartTime, Instant.now()));
+        }
+        if (outcome.status() != WorkTask.TaskStatus.PROCESSED) {
+            throw new TaskProcessingException(idGenerator.nextId(), type, "Coalesced task was rejected", null);
+        }
+
+        Map<String, Object> response = new HashMap<>();
+        response.put("status", WorkTask.TaskStatus.PROCESSED.toString());
+        response.put("result", outcome.result());
+        response.put("processingTimeMs", Duration.between(taskStartTime, Instant.now()).toMillis());
+        return response;
+    }
+
+    /**
+     * Ejecuta en el hilo de la petición si el compartimento del tipo tiene hueco. La ruta
+     * síncrona no se aparca: con el compartimento lleno responde 503 al momento.
+     */
+    private <T> Map<String, Object> executeAndWaitResult(TypeSlot slot, T request, Instant taskStartTime,
+                                                         long deadlineNanos) {
+        String type = slot.handle.type();
+        if (!slot.bulkhead.tryEnter()) {
+            taskCounters.increment(slot.handle.id(), Kind.REJECTED);
+            workerMetrics.recordOutcome(type, TaskOutcome.HIGH_LOAD);
+            throw new ServerHighLoadException(availablePermits(syncLimiter), suggestRetryAfter(type));
+        }
+        try {
+            return executeWithPermit(slot, request, taskStartTime, deadlineNanos);
+        } finally {
+            releaseBulkhead(slot.bulkhead);
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private <T> Map<String, Object> executeWithPermit(TypeSlot slot, T request, Instant taskStartTime,
+                                                      long deadlineNanos) {
+        String type = slot.handle.type();
+        long permitWaitStart = System.nanoTime();
+        long remainingBudget = deadlineNanos - permitWaitStart;
+        if (remainingBudget <= 0) {
+            taskCounters.increment(slot.handle.id(), Kind.TIMED_OUT);
+            workerMetrics.recordOutcome(type, TaskOutcome.TIMEOUT);
+            throw new ProcessingTimeoutException(idGenerator.nextId(), Duration.between(taskStartTime, Instant.now()));
+        }
+        boolean permitAcquired;
+        try {
+            permitAcquired = syncLimiter.acquire(Math.min(remainingBudget,
+                    properties.getLimiter().getSyncAcquireTimeout().toNanos()), TimeUnit.NANOSECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            permitAcquired = false;
+        }
+        if (!permitAcquired) {
+            taskCounters.increment(slot.handle.id(), Kind.REJECTED);
+            workerMetrics.recordOutcome(type, TaskOutcome.HIGH_LOAD);
+            throw new ServerHighLoadException(availablePermits(syncLimiter), suggestRetryAfter(type));
+        }
+
+        long executionStart = System.nanoTime();
+        TaskExecutionEvent executionEvent = TaskEvents.beginExecution();
+        latencyMetrics.record(type, LatencyPhase.PERMIT_WAIT, executionStart - permitWaitStart);
+        boolean dropped = true;
+        TaskOutcome outcome = TaskOutcome.REJECTED;
+        ResultCache cache = slot.cache;
+        long cacheGeneration = cache != null ? cache.generation() : 0;
+        try {
+            TaskProcessor<T, ?> processor = (TaskProcessor<T, ?>) slot.processor;
+            Object processed = callOnProfile(processor, request, deadlineNanos, taskStartTime);
+            TaskEncodedEvent encodedEvent = TaskEvents.beginEncoding();
+            Object result = resultEncoder.encode(processed);
+            TaskEvents.endEncoding(encodedEvent, null, type, result);
+            if (System.nanoTime() - deadlineNanos > 0) {
+                throw new ProcessingTimeoutException(idGenerator.nextId(), Duration.between(taskStartTime, Instant.now()));
             }
+            if (cache != null && request != null) {
+                cache.put(request, result, cacheGeneration);
+            }
+
+            Duration processingDuration = Duration.between(taskStartTime, Instant.now());
+            taskCounters.increment(slot.handle.id(), Kind.PROCESSED);
+            taskCounters.increment(slot.handle.id(), Kind.SUCCESSFUL);
 
             Map<String, Object> response = new HashMap<>();
             response.put("status", WorkTask.TaskStatus.PROCESSED.toString());
             response.put("result", result);
             response.put("processingTimeMs", processingDuration.toMillis());
+            dropped = false;
+            outcome = TaskOutcome.PROCESSED;
             return response;
 
+        } catch (ProcessingTimeoutException e) {
+            taskCounters.increment(slot.handle.id(), Kind.TIMED_OUT);
+            outcome = TaskOutcome.TIMEOUT;
+            throw e;
         } catch (Exception e) {
-            tasksRejected.incrementAndGet();
-            throw new TaskProcessingException(UUID.randomUUID(), type, e.getMessage(), e);
+            if (System.nanoTime() - deadlineNanos > 0) {
+                // La consulta se canceló por el query timeout del deadline
+                taskCounters.increment(slot.handle.id(), Kind.TIMED_OUT);
+                outcome = TaskOutcome.TIMEOUT;
+                throw new ProcessingTimeoutException(idGenerator.nextId(), Duration.between(taskStartTime, Instant.now()));
+            }
+            taskCounters.increment(slot.handle.id(), Kind.REJECTED);
+            throw new TaskProcessingException(idGenerator.nextId(), type, e.getMessage(), e);
+        } finally {
+            long latency = System.nanoTime() - executionStart;
+            TaskEvents.endExecution(executionEvent, null, type, slot.processor.getExecutionProfile(), outcome, true);
+            latencyMetrics.record(type, LatencyPhase.EXECUTION, latency);
+            workerMetrics.recordExecution(type, outcome, latency);
+            drainRate.recordCompletion(type);
+            if (dropped) {
+                syncLimiter.onDropped(latency);
+            } else {
+                syncLimiter.onSuccess(latency);
+            }
         }
     }
 
+    /**
+     * Ejecuta el procesador en el hilo actual si es de E/S; si es de CPU lo ejecuta en el pool
+     * de CPU y espera el resultado como mucho hasta el deadline. De un {@link LoadingTaskProcessor}
+     * solo va al pool el cálculo.
+     */
+    private <T> Object callOnProfile(TaskProcessor<T, ?> processor, T request, long deadlineNanos,
+                                     Instant taskStartTime) {
+        if (processor.getExecutionProfile() != ExecutionProfile.CPU_BOUND) {
+            virtualThreads.enter(processor.getTaskType());
+            try {
+                return TaskDeadline.callWithin(deadlineNanos, () -> processor.processTask(request));
+            } finally {
+                virtualThreads.exit();
+            }
+        }
+        Supplier<?> computation;
+        if (processor instanceof LoadingTaskProcessor<T, ?> loading) {
+            // La lectura se queda en este hilo; al pool de CPU solo va el cálculo
+            virtualThreads.enter(processor.getTaskType());
+            try {
+                computation = TaskDeadline.callWithin(deadlineNanos, () -> loading.load(request));
+            } finally {
+                virtualThreads.exit();
+            }
+        } else {
+            computation = () -> processor.processTask(request);
+        }
+        Future<Object> result = processingPools.submit(ExecutionProfile.CPU_BOUND,
+                () -> TaskDeadline.callWithin(deadlineNanos, computation));
+        try {
+            return result.get(Math.max(0, deadlineNanos - System.nanoTime()), TimeUnit.NANOSECONDS);
+        } catch (TimeoutException e) {
+            result.cancel(true);
+            throw new ProcessingTimeoutException(idGenerator.nextId(), Duration.between(taskStartTime, Instant.now()));
+        } catch (InterruptedException e) {
+            result.cancel(true);
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted waiting for " + processor.getTaskType(), e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+
+    private static int availablePermits(ConcurrencyLimiter limiter) {
+        return Math.max(0, limiter.getLimit() - limiter.getInFlight());
+    }
+
     public Map<String, Object> getTaskStatus(UUID taskId) {
         WorkTask<?, ?> task = taskResults.get(taskId);
 
@@ -216,8 +1653,24 @@ public class WorkQueueService {
             throw new TaskNotFoundException(taskId);
         }
 
+        return buildTaskStatus(task);
+    }
+
+    /**
+     * Respuesta de estado final precodificada de una tarea terminada, o null si no hay
+     * (tarea pendiente o encoding distinto de GZIP)
+     */
+    public EncodedResult getEncodedTaskStatus(UUID taskId) {
+        WorkTask<?, ?> task = taskResults.get(taskId);
+        if (task == null) {
+            throw new TaskNotFoundException(taskId);
+        }
+        return task.getStatus() != WorkTask.TaskStatus.PENDING ? task.getEncodedStatus() : null;
+    }
+
+    private static Map<String, Object> buildTaskStatus(WorkTask<?, ?> task) {
         Map<String, Object> status = new HashMap<>();
-        status.put("idTask", taskId);
+        status.put("idTask", task.getId());
         status.put("taskType", task.getType());
         status.put("createdAt", task.getCreatedAt().toString());
         status.put("status", task.getStatus().toString());
@@ -232,6 +1685,7 @@ public class WorkQueueService {
                 status.put("processedAt", task.getProcessedAt().toString());
                 break;
             case REJECTED:
+            case TIMED_OUT:
                 status.put("processingTimeMs", task.getProcessingDuration().toMillis());
                 status.put("processedAt", task.getProcessedAt().toString());
                 break;
@@ -287,27 +1741,206 @@ public class WorkQueueService {
         return emitter;
     }
 
+    /**
+     * Tiempo estimado hasta que se vacíe lo que hay por delante de una tarea nueva del tipo:
+     * tareas en cola y aparcadas en su compartimento entre el ritmo de terminación medido.
+     * Sin ritmo medido todavía se supone que se ejecutan de una en una a la mediana de su
+     * tipo, y si tampoco hay latencias (recién arrancado), a una por intervalo mínimo.
+     */
+    private Duration estimateDrain(String type) {
+        WorkerProperties.RetryHint hint = properties.getRetryHint();
+        AtomicInteger queued = queuedByType.get(type);
+        Bulkhead bulkhead = bulkheads.get(type);
+        long ahead = Math.max(0, queued != null ? queued.get() : 0) + (bulkhead != null ? bulkhead.getParked() : 0);
+        double rate = drainRate.rate(type);
+        if (rate <= 0) {
+            Duration median = latencyMetrics.percentile(type, LatencyPhase.EXECUTION, 50);
+            return (median.isZero() ? hint.getMinimum() : median).multipliedBy(ahead);
+        }
+        return Duration.ofNanos((long) (ahead / rate * 1e9));
+    }
+
+    /**
+     * Retry-After para una petición rechazada: la espera estimada de la cola del tipo, dentro de
+     * los límites configurados, más un jitter aleatorio para que los reintentos no lleguen juntos
+     */
+    public Duration suggestRetryAfter(String type) {
+        WorkerProperties.RetryHint hint = properties.getRetryHint();
+        Duration base = estimateDrain(type);
+        if (base.compareTo(hint.getMinimum()) < 0) {
+            base = hint.getMinimum();
+        } else if (base.compareTo(hint.getMaximum()) > 0) {
+            base = hint.getMaximum();
+        }
+        double jitter = ThreadLocalRandom.current().nextDouble() * Math.max(0, hint.getJitter());
+        return Duration.ofMillis((long) (base.toMillis() * (1 + jitter)));
+    }
+
+    /**
+     * Tiempo estimado hasta que la tarea esté terminada: lo que tiene por delante en la cola
+     * más la mediana de ejecución de su tipo. Cero si ya terminó.
+     */
+    public Duration estimateCompletion(UUID taskId) {
+        WorkTask<?, ?> task = taskResults.get(taskId);
+        if (task == null || task.getStatus() != WorkTask.TaskStatus.PENDING) {
+            return Duration.ZERO;
+        }
+        return estimateDrain(task.getType())
+                .plus(latencyMetrics.percentile(task.getType(), LatencyPhase.EXECUTION, 50));
+    }
+
+    /**
+     * Cambia en caliente los límites del compartimento de un tipo de tarea; las tareas
+     * aparcadas que entran por el nuevo límite se despachan enseguida
+     * @return estado del compartimento tras el cambio
+     */
+    public Map<String, Object> updateBulkhead(String type, BulkheadPolicy policy) {
+        Bulkhead bulkhead = requireBulkhead(type);
+        resumeParked(bulkhead.update(policy));
+        return bulkhead.getStatistics();
+    }
+
+    public BulkheadPolicy getBulkheadPolicy(String type) {
+        return requireBulkhead(type).getPolicy();
+    }
+
+    public Map<String, Object> getBulkheadStatistics(String type) {
+        return requireBulkhead(type).getStatistics();
+    }
+
+    private Bulkhead requireBulkhead(String type) {
+        Bulkhead bulkhead = bulkheads.get(type);
+        if (bulkhead == null) {
+            throw new ProcessorNotFoundException(type);
+        }
+        return bulkhead;
+    }
+
+    public Map<String, Object> getBulkheadStatistics() {
+        Map<String, Object> stats = new HashMap<>();
+        bulkheads.forEach((type, bulkhead) -> stats.put(type, bulkhead.getStatistics()));
+        return stats;
+    }
+
+    /**
+     * Última foto de las estadísticas (como mucho worker.metrics.snapshot-interval de antigüedad).
+     * Es inmutable y la comparten todas las lecturas: consultarla no recorre el worker ni reserva memoria.
+     */
     public Map<String, Object> getStatistics() {
+        return statistics;
+    }
+
+    /**
+     * Rehace la foto de {@link #getStatistics()}; se llama periódicamente
+     */
+    public void refreshStatistics() {
+        Map<String, Object> stats = buildStatistics();
+        stats.put("snapshotAt", Instant.now().toString());
+        statistics = StatisticsSnapshot.freeze(stats);
+    }
+
+    private Map<String, Object> buildStatistics() {
         Map<String, Object> stats = new HashMap<>();
 
-        stats.put("totalTasksProcessed", totalTasksProcessed.get());
-        stats.put("tasksSuccessful", tasksSuccessful.get());
-        stats.put("tasksRejected", tasksRejected.get());
+        stats.put("totalTasksProcessed", taskCounters.total(Kind.PROCESSED));
+        stats.put("tasksSuccessful", taskCounters.total(Kind.SUCCESSFUL));
+        stats.put("tasksRejected", taskCounters.total(Kind.REJECTED));
+        stats.put("tasksTimedOut", taskCounters.total(Kind.TIMED_OUT));
         stats.put("activeEmitters", emitters.size());
+        stats.put("streams", taskStreams.getStatistics());
         stats.put("storedResults", taskResults.size());
+
+        Map<String, Object> retention = new HashMap<>();
+        retention.put("retainedResults", taskResults.size());
+        retention.put("estimatedBytes", retainedBytes.get());
+        retention.put("scheduledExpiries", resultExpiry.size());
+        retention.put("expiryCallbackFailures", resultExpiry.callbackFailures());
+        retention.put("retentionSeconds", taskResultsRetention.toSeconds());
+        stats.put("retention", retention);
+
+        Map<String, Object> journalStats = new HashMap<>(journal.getStatistics());
+        journalStats.put("recovery", journalRecovery);
+        stats.put("journal", journalStats);
         stats.put("uptime", Duration.between(startTime, Instant.now()).getSeconds());
 
-        stats.put("availablePermits", requestThrottle.availablePermits());
-        stats.put("queueLength", MAX_CONCURRENT_REQUESTS - requestThrottle.availablePermits());
-        stats.put("systemLoad", (double)(MAX_CONCURRENT_REQUESTS - requestThrottle.availablePermits()) / MAX_CONCURRENT_REQUESTS);
+        stats.put("availablePermits", availablePermits(asyncLimiter));
+        // queueLength son las tareas que esperan en la cola; las que ya tienen permiso van en inFlight
+        stats.put("queueLength", taskQueue.size());
+        stats.put("inFlight", asyncLimiter.getInFlight());
+        stats.put("systemLoad", (double) asyncLimiter.getInFlight() / asyncLimiter.getLimit());
 
-        Map<String, Long> tasksByType = new HashMap<>();
-        taskCountByType.forEach((type, count) -> tasksByType.put(type, count.get()));
-        stats.put("tasksByType", tasksByType);
+        Map<String, Object> limiters = new HashMap<>();
+        for (ConcurrencyLimiter limiter : List.of(asyncLimiter, syncLimiter)) {
+            Map<String, Object> limiterStats = new HashMap<>();
+            limiterStats.put("algorithm", limiter.getAlgorithm());
+            limiterStats.put("limit", limiter.getLimit());
+            limiterStats.put("inFlight", limiter.getInFlight());
+            limiterStats.put("rejected", limiter.getRejected());
+            limiters.put(limiter.getName(), limiterStats);
+        }
+        stats.put("limiters", limiters);
+
+        stats.put("coalescing", singleFlight.getStatistics());
+
+        Map<String, Object> cacheStats = new HashMap<>();
+        resultCaches.forEach((type, cache) -> cacheStats.put(type, cache.getStatistics()));
+        stats.put("cache", cacheStats);
+        stats.put("latency", latencyMetrics.snapshot());
+        Map<String, Object> execution = RollingLatencyHistogram.describe(latencyMetrics.aggregate(LatencyPhase.EXECUTION));
+        stats.put("avgProcessingTimeMs", (double) execution.get("meanUs") / 1000.0);
+
+        stats.put("tasksByType", taskCounters.byType(Kind.PROCESSED));
+
+        stats.put("queuedTasks", taskQueue.size());
+        stats.put("dispatchers", dispatchers.size());
+
+        Map<String, Object> queues = new HashMap<>();
+        for (TaskPriority priority : TaskPriority.values()) {
+            Map<String, Object> queueStats = new HashMap<>();
+            queueStats.put("queued", taskQueue.size(priority));
+            queueStats.put("capacity", taskQueue.capacity(priority));
+            queueStats.put("maxWaitMs", properties.getQueue().forPriority(priority).getMaxWait().toMillis());
+            queueStats.put("rejectedQueueFull", queueFullRejections.get(priority).sum());
+            queueStats.put("rejectedMaxWait", queueWaitExpirations.get(priority).sum());
+            queueStats.put("activeClients", taskQueue.activeClients(priority));
+            queues.put(priority.name(), queueStats);
+        }
+        stats.put("queues", queues);
+        stats.put("clients", clientRegistry.getStatistics(taskQueue.queuedByClient()));
+        stats.put("bulkheads", getBulkheadStatistics());
+        stats.put("drainRatePerSecond", drainRate.getStatistics());
+        stats.put("pools", processingPools.getStatistics());
+        stats.put("virtualThreads", virtualThreads.getStatistics());
+
+        Map<String, Long> failures = new HashMap<>();
+        maintenanceFailures.forEach((job, count) -> failures.put(job, count.sum()));
+        stats.put("maintenanceFailures", failures);
 
         List<String> registeredProcessors = new ArrayList<>(processors.keySet());
         stats.put("registeredProcessors", registeredProcessors);
 
         return stats;
     }
-}
\ No newline at end of file
+
+    private static final class TypeSlot {
+        private final TaskHandle<?, ?> handle;
+        private final TaskProcessor<?, ?> processor;
+        private final JavaType payloadType;
+        private final Class<?> payloadClass;
+        private final Bulkhead bulkhead;
+        // null si el tipo no cachea
+        private final ResultCache cache;
+        private final AtomicInteger queued;
+
+        TypeSlot(TaskHandle<?, ?> handle, TaskProcessor<?, ?> processor, JavaType payloadType, Bulkhead bulkhead,
+                 ResultCache cache, AtomicInteger queued) {
+            this.handle = handle;
+            this.processor = processor;
+            this.payloadType = payloadType;
+            this.payloadClass = ClassUtils.resolvePrimitiveIfNecessary(payloadType.getRawClass());
+            this.bulkhead = bulkhead;
+            this.cache = cache;
+            this.queued = queued;
+        }
+    }
+}
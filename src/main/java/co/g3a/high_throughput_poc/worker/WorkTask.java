@@ -1,16 +1,42 @@
 package co.g3a.high_throughput_poc.worker;
 
+import co.g3a.high_throughput_poc.worker.client.ClientRegistry;
+import co.g3a.high_throughput_poc.worker.encoding.EncodedResult;
+import co.g3a.high_throughput_poc.worker.expiry.TimerWheel;
+
 import java.time.Duration;
 import java.time.Instant;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
+import java.util.concurrent.atomic.AtomicReferenceFieldUpdater;
 
 public class WorkTask<T, R> {
     public enum TaskStatus {
         PENDING,
         PROCESSED,
-        REJECTED
+        REJECTED,
+        TIMED_OUT
     }
     
+    @SuppressWarnings("rawtypes")
+    private static final AtomicReferenceFieldUpdater<WorkTask, TaskStatus> STATUS =
+            AtomicReferenceFieldUpdater.newUpdater(WorkTask.class, TaskStatus.class, "status");
+
+    // Rutas que compiten por terminar la tarea: solo la que gana este flag escribe resultado y estado
+    @SuppressWarnings("rawtypes")
+    private static final AtomicIntegerFieldUpdater<WorkTask> TERMINATION =
+            AtomicIntegerFieldUpdater.newUpdater(WorkTask.class, "terminated");
+
+    // Propiedad del hilo de ejecución: solo se interrumpe mientras la tarea lo posee
+    @SuppressWarnings("rawtypes")
+    private static final AtomicIntegerFieldUpdater<WorkTask> EXECUTION =
+            AtomicIntegerFieldUpdater.newUpdater(WorkTask.class, "executionState");
+    private static final int EXECUTION_IDLE = 0;
+    private static final int EXECUTION_RUNNING = 1;
+    private static final int EXECUTION_INTERRUPTING = 2;
+    private static final int EXECUTION_INTERRUPTED = 3;
+    
     private final UUID id;
     private final String type;
     private final T request;
@@ -18,14 +44,40 @@ public class WorkTask<T, R> {
     private final Instant createdAt;
     private Instant processedAt;
     private R result;
-    private TaskStatus status;
+    private volatile TaskStatus status;
+    private volatile int terminated;
+    private TaskPriority priority = TaskPriority.STANDARD;
+    private String clientId = ClientRegistry.ANONYMOUS_CLIENT;
+    private int cost = 1;
+    private int typeId;
+    private long enqueuedAtNanos;
+    private long dispatchedAtNanos;
+    private TaskKey coalescingKey;
+    private CompletableFuture<SingleFlight.Outcome> coalescingFlight;
+    private TimerWheel.Timer<UUID> expiryTimer;
+    private long retainedBytes;
+    private volatile EncodedResult encodedStatus;
+    private long deadlineNanos = Long.MAX_VALUE;
+    private volatile Thread executingThread;
+    private volatile int executionState = EXECUTION_IDLE;
     
     public WorkTask(String type, T request, Duration maxProcessingTime) {
-        this.id = UUID.randomUUID();
+        this(UUID.randomUUID(), type, request, maxProcessingTime);
+    }
+    
+    public WorkTask(UUID id, String type, T request, Duration maxProcessingTime) {
+        this(id, type, request, maxProcessingTime, Instant.now());
+    }
+
+    /**
+     * Reconstruye una tarea con su instante de creación original (recuperación desde el journal)
+     */
+    public WorkTask(UUID id, String type, T request, Duration maxProcessingTime, Instant createdAt) {
+        this.id = id;
         this.type = type;
         this.request = request;
         this.maxProcessingTime = maxProcessingTime;
-        this.createdAt = Instant.now();
+        this.createdAt = createdAt;
         this.status = TaskStatus.PENDING;
     }
     
@@ -71,9 +123,194 @@ public class WorkTask<T, R> {
     }
     
     public void setStatus(TaskStatus status) {
+        this.terminated = status != TaskStatus.PENDING ? 1 : 0;
         this.status = status;
     }
     
+    /**
+     * Cambia el estado solo si sigue siendo {@code expected}. Lo usan las rutas que compiten
+     * por terminar la tarea (ejecución, rechazo y deadline) para que solo gane una. Al
+     * terminarla fija processedAt antes que el estado, como {@link #complete(Object)}.
+     */
+    public boolean compareAndSetStatus(TaskStatus expected, TaskStatus newStatus) {
+        if (expected != TaskStatus.PENDING) {
+            return STATUS.compareAndSet(this, expected, newStatus);
+        }
+        if (!TERMINATION.compareAndSet(this, 0, 1)) {
+            return false;
+        }
+        this.processedAt = Instant.now();
+        this.status = newStatus;
+        return true;
+    }
+
+    /**
+     * Termina la tarea como PROCESSED con su resultado si nadie la ha terminado antes. El
+     * resultado se escribe antes que el estado, así que quien ve PROCESSED ve el resultado,
+     * y una tarea que ya venció o se rechazó no se toca.
+     */
+    public boolean complete(R result) {
+        if (!TERMINATION.compareAndSet(this, 0, 1)) {
+            return false;
+        }
+        this.result = result;
+        this.processedAt = Instant.now();
+        this.status = TaskStatus.PROCESSED;
+        return true;
+    }
+    
+    public TaskPriority getPriority() {
+        return priority;
+    }
+    
+    public void setPriority(TaskPriority priority) {
+        this.priority = priority;
+    }
+
+    /**
+     * Cliente que envió la tarea; la cola reparte el turno entre clientes
+     */
+    public String getClientId() {
+        return clientId;
+    }
+
+    public void setClientId(String clientId) {
+        this.clientId = clientId;
+    }
+
+    /**
+     * Coste relativo de la tarea ({@link TaskProcessor#getCost()}) para la cuota y el reparto de la cola
+     */
+    public int getCost() {
+        return cost;
+    }
+
+    public void setCost(int cost) {
+        this.cost = cost;
+    }
+
+    /**
+     * Id denso del tipo en los contadores del worker ({@link co.g3a.high_throughput_poc.worker.metrics.TaskCounters})
+     */
+    public int getTypeId() {
+        return typeId;
+    }
+
+    public void setTypeId(int typeId) {
+        this.typeId = typeId;
+    }
+    
+    public long getEnqueuedAtNanos() {
+        return enqueuedAtNanos;
+    }
+    
+    public void setEnqueuedAtNanos(long enqueuedAtNanos) {
+        this.enqueuedAtNanos = enqueuedAtNanos;
+    }
+    
+    public long getDispatchedAtNanos() {
+        return dispatchedAtNanos;
+    }
+    
+    public void setDispatchedAtNanos(long dispatchedAtNanos) {
+        this.dispatchedAtNanos = dispatchedAtNanos;
+    }
+    
+    public TaskKey getCoalescingKey() {
+        return coalescingKey;
+    }
+    
+    public CompletableFuture<SingleFlight.Outcome> getCoalescingFlight() {
+        return coalescingFlight;
+    }
+    
+    /**
+     * Marca la tarea como líder del vuelo indicado
+     */
+    public void setCoalescingFlight(TaskKey key, CompletableFuture<SingleFlight.Outcome> flight) {
+        this.coalescingKey = key;
+        this.coalescingFlight = flight;
+    }
+    
+    /**
+     * Instante límite (System.nanoTime) para terminar la tarea, contando la espera en cola
+     */
+    public long getDeadlineNanos() {
+        return deadlineNanos;
+    }
+    
+    public void setDeadlineNanos(long deadlineNanos) {
+        this.deadlineNanos = deadlineNanos;
+    }
+    
+    /**
+     * Publica el hilo que va a ejecutar el procesador. Desde aquí hasta
+     * {@link #releaseExecution()} el deadline puede interrumpirlo.
+     */
+    public void claimExecution(Thread thread) {
+        this.executingThread = thread;
+        this.executionState = EXECUTION_RUNNING;
+    }
+
+    /**
+     * Interrumpe el hilo que ejecuta la tarea, solo si todavía la está ejecutando
+     */
+    public void interruptExecution() {
+        if (!EXECUTION.compareAndSet(this, EXECUTION_RUNNING, EXECUTION_INTERRUPTING)) {
+            return;
+        }
+        try {
+            executingThread.interrupt();
+        } finally {
+            executionState = EXECUTION_INTERRUPTED;
+        }
+    }
+
+    /**
+     * Lo llama el hilo que ejecutó la tarea al terminar, por cualquier salida. Suelta el hilo
+     * (esperando a una interrupción que ya estuviera en curso) y después limpia su flag de
+     * interrupción, para que no la herede la siguiente tarea que corra en ese hilo del pool.
+     */
+    public void releaseExecution() {
+        int state;
+        while ((state = executionState) == EXECUTION_INTERRUPTING
+                || !EXECUTION.compareAndSet(this, state, EXECUTION_IDLE)) {
+            Thread.onSpinWait();
+        }
+        executingThread = null;
+        Thread.interrupted();
+    }
+    
+    public TimerWheel.Timer<UUID> getExpiryTimer() {
+        return expiryTimer;
+    }
+    
+    public void setExpiryTimer(TimerWheel.Timer<UUID> expiryTimer) {
+        this.expiryTimer = expiryTimer;
+    }
+    
+    /**
+     * Tamaño estimado del resultado retenido en taskResults
+     */
+    public long getRetainedBytes() {
+        return retainedBytes;
+    }
+    
+    public void setRetainedBytes(long retainedBytes) {
+        this.retainedBytes = retainedBytes;
+    }
+
+    /**
+     * Respuesta de estado final ya codificada (solo con encoding GZIP)
+     */
+    public EncodedResult getEncodedStatus() {
+        return encodedStatus;
+    }
+
+    public void setEncodedStatus(EncodedResult encodedStatus) {
+        this.encodedStatus = encodedStatus;
+    }
+    
     public Duration getProcessingDuration() {
         if (processedAt == null) {
             return Duration.between(createdAt, Instant.now());
@@ -0,0 +1,10 @@
+package co.g3a.high_throughput_poc.worker;
+
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+@EnableConfigurationProperties(WorkerProperties.class)
+public class WorkerConfig {
+    // Registra las propiedades "worker.*" usadas por WorkQueueService
+}
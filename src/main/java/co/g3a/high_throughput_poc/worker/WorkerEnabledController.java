@@ -1,18 +1,47 @@
 package co.g3a.high_throughput_poc.worker;
 
+import co.g3a.high_throughput_poc.worker.client.ClientRegistry;
+import co.g3a.high_throughput_poc.worker.encoding.EncodedResult;
 import co.g3a.high_throughput_poc.worker.exception.*;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyEmitter;
 import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
+import java.io.IOException;
 import java.time.Duration;
+import java.time.Instant;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.UUID;
 
 public abstract class WorkerEnabledController {
 
+    /**
+     * Cabecera con el presupuesto de tiempo del cliente en milisegundos, contado desde que llega la petición
+     */
+    public static final String DEADLINE_HEADER = "X-Deadline-Ms";
+
+    /**
+     * Cabecera con el id de un stream de sesión en el que registrar la tarea encolada
+     */
+    public static final String STREAM_SESSION_HEADER = "X-Stream-Session";
+
+    /**
+     * Cabecera que identifica al cliente para su cuota y su turno en la cola. Solo se usa con
+     * worker.clients.trust-client-key (la clave no se valida aquí); si no, se usa la IP.
+     */
+    public static final String CLIENT_KEY_HEADER = "X-Api-Key";
+
+    // Las claves más largas se truncan para que no crezca la tabla de clientes
+    private static final int MAX_CLIENT_KEY_LENGTH = 128;
+
     protected final WorkQueueService workQueueService;
 
     public WorkerEnabledController(WorkQueueService workQueueService) {
@@ -23,9 +52,15 @@ public abstract class WorkerEnabledController {
      * Encola una tarea y configura un SSE emitter para recibir el resultado (asíncrono)
      */
     protected ResponseEntity<?> enqueueTaskAsync(String taskType, Object payload) {
+        TaskHandle<Object, Object> handle = workQueueService.findHandle(taskType);
+        return handle != null ? enqueueTaskAsync(handle, payload) : processorNotFound(taskType);
+    }
+
+    protected <T> ResponseEntity<?> enqueueTaskAsync(TaskHandle<T, ?> handle, T payload) {
         try {
             // Encolar la tarea para procesamiento inmediato
-            UUID taskId = workQueueService.enqueueTask(taskType, payload);
+            UUID taskId = workQueueService.enqueueTask(handle, payload,
+                    resolveDeadline(workQueueService.getDefaultMaxProcessingTime()), resolveClientId());
 
             // Crear un emitter para esta tarea
             SseEmitter emitter = workQueueService.createEmitterForTask(taskId);
@@ -33,6 +68,13 @@ public abstract class WorkerEnabledController {
             return ResponseEntity.ok()
                     .contentType(MediaType.TEXT_EVENT_STREAM)
                     .body(emitter);
+        } catch (ClientRateLimitedException e) {
+            return buildErrorResponse(
+                    HttpStatus.TOO_MANY_REQUESTS,
+                    "REJECTED",
+                    "Client request rate exceeded. Please slow down.",
+                    e
+            );
         } catch (ServerHighLoadException e) {
             return buildErrorResponse(
                     HttpStatus.SERVICE_UNAVAILABLE,
@@ -47,6 +89,8 @@ public abstract class WorkerEnabledController {
                     "No processor found for task type: " + e.getTaskType(),
                     e
             );
+        } catch (InvalidPayloadException e) {
+            return buildErrorResponse(HttpStatus.BAD_REQUEST, "REJECTED", e.getMessage(), e);
         } catch (Exception e) {
             return buildErrorResponse(
                     HttpStatus.INTERNAL_SERVER_ERROR,
@@ -61,10 +105,37 @@ public abstract class WorkerEnabledController {
      * Procesa una tarea y espera su resultado (síncrono)
      */
     protected ResponseEntity<Map<String, Object>> enqueueTask(String taskType, Object payload) {
+        TaskHandle<Object, Object> handle = workQueueService.findHandle(taskType);
+        return handle != null ? enqueueTask(handle, payload) : processorNotFound(taskType);
+    }
+
+    protected <T> ResponseEntity<Map<String, Object>> enqueueTask(TaskHandle<T, ?> handle, T payload) {
         try {
             // Procesar la tarea y obtener el resultado de forma síncrona
-            Map<String, Object> result = workQueueService.processTaskAndWaitResult(taskType, payload);
+            Map<String, Object> result = workQueueService.processTaskAndWaitResult(handle, payload,
+                    resolveDeadline(workQueueService.getDefaultMaxProcessingTime()), resolveClientId());
             return ResponseEntity.ok(result);
+        } catch (ProcessingTimeoutException e) {
+            return buildErrorResponse(
+                    HttpStatus.GATEWAY_TIMEOUT,
+                    "TIMED_OUT",
+                    "Task did not complete within its deadline",
+                    e
+            );
+        } catch (ClientRateLimitedException e) {
+            return buildErrorResponse(
+                    HttpStatus.TOO_MANY_REQUESTS,
+                    "REJECTED",
+                    "Client request rate exceeded. Please slow down.",
+                    e
+            );
+        } catch (ServerHighLoadException e) {
+            return buildErrorResponse(
+                    HttpStatus.SERVICE_UNAVAILABLE,
+                    "REJECTED",
+                    "Server is currently at high load. Please try again later.",
+                    e
+            );
         } catch (ProcessorNotFoundException e) {
             return buildErrorResponse(
                     HttpStatus.BAD_REQUEST,
@@ -72,6 +143,8 @@ public abstract class WorkerEnabledController {
                     "No processor found for task type: " + e.getTaskType(),
                     e
             );
+        } catch (InvalidPayloadException e) {
+            return buildErrorResponse(HttpStatus.BAD_REQUEST, "REJECTED", e.getMessage(), e);
         } catch (TaskProcessingException e) {
             return buildErrorResponse(
                     HttpStatus.INTERNAL_SERVER_ERROR,
@@ -93,16 +166,31 @@ public abstract class WorkerEnabledController {
      * Encola una tarea y devuelve inmediatamente el ID de la tarea (asíncrono sin SSE)
      */
     protected ResponseEntity<Map<String, Object>> enqueueTaskAndReturnId(String taskType, Object payload) {
+        TaskHandle<Object, Object> handle = workQueueService.findHandle(taskType);
+        return handle != null ? enqueueTaskAndReturnId(handle, payload) : processorNotFound(taskType);
+    }
+
+    protected <T> ResponseEntity<Map<String, Object>> enqueueTaskAndReturnId(TaskHandle<T, ?> handle, T payload) {
         try {
             // Encolar la tarea para procesamiento en segundo plano
-            UUID taskId = workQueueService.enqueueTask(taskType, payload);
+            UUID taskId = workQueueService.enqueueTask(handle, payload,
+                    resolveDeadline(workQueueService.getDefaultMaxProcessingTime()), resolveClientId());
 
             // Devolver inmediatamente el ID de la tarea y su estado inicial
             Map<String, Object> response = new HashMap<>();
             response.put("idTask", taskId);
             response.put("status", "ACCEPTED");
+            putCompletionEstimate(taskId, response);
+            subscribeToRequestStream(List.of(taskId), response);
 
             return ResponseEntity.accepted().body(response);
+        } catch (ClientRateLimitedException e) {
+            return buildErrorResponse(
+                    HttpStatus.TOO_MANY_REQUESTS,
+                    "REJECTED",
+                    "Client request rate exceeded. Please slow down.",
+                    e
+            );
         } catch (ServerHighLoadException e) {
             return buildErrorResponse(
                     HttpStatus.SERVICE_UNAVAILABLE,
@@ -117,6 +205,8 @@ public abstract class WorkerEnabledController {
                     "No processor found for task type: " + e.getTaskType(),
                     e
             );
+        } catch (InvalidPayloadException e) {
+            return buildErrorResponse(HttpStatus.BAD_REQUEST, "REJECTED", e.getMessage(), e);
         } catch (Exception e) {
             return buildErrorResponse(
                     HttpStatus.INTERNAL_SERVER_ERROR,
@@ -131,17 +221,33 @@ public abstract class WorkerEnabledController {
      * Encola una tarea con tiempo máximo de procesamiento personalizado
      */
     protected ResponseEntity<Map<String, Object>> enqueueTaskWithTimeout(String taskType, Object payload, Duration maxProcessingTime) {
+        TaskHandle<Object, Object> handle = workQueueService.findHandle(taskType);
+        return handle != null ? enqueueTaskWithTimeout(handle, payload, maxProcessingTime) : processorNotFound(taskType);
+    }
+
+    protected <T> ResponseEntity<Map<String, Object>> enqueueTaskWithTimeout(TaskHandle<T, ?> handle, T payload,
+                                                                             Duration maxProcessingTime) {
         try {
             // Encolar la tarea con tiempo de procesamiento personalizado
-            UUID taskId = workQueueService.enqueueTask(taskType, payload, maxProcessingTime);
+            Duration deadline = resolveDeadline(maxProcessingTime);
+            UUID taskId = workQueueService.enqueueTask(handle, payload, deadline, resolveClientId());
 
             // Devolver inmediatamente el ID de la tarea y su estado inicial
             Map<String, Object> response = new HashMap<>();
             response.put("idTask", taskId);
             response.put("status", "ACCEPTED");
-            response.put("maxProcessingTimeMs", maxProcessingTime.toMillis());
+            putCompletionEstimate(taskId, response);
+            subscribeToRequestStream(List.of(taskId), response);
+            response.put("maxProcessingTimeMs", deadline.toMillis());
 
             return ResponseEntity.accepted().body(response);
+        } catch (ClientRateLimitedException e) {
+            return buildErrorResponse(
+                    HttpStatus.TOO_MANY_REQUESTS,
+                    "REJECTED",
+                    "Client request rate exceeded. Please slow down.",
+                    e
+            );
         } catch (ServerHighLoadException e) {
             return buildErrorResponse(
                     HttpStatus.SERVICE_UNAVAILABLE,
@@ -156,6 +262,8 @@ public abstract class WorkerEnabledController {
                     "No processor found for task type: " + e.getTaskType(),
                     e
             );
+        } catch (InvalidPayloadException e) {
+            return buildErrorResponse(HttpStatus.BAD_REQUEST, "REJECTED", e.getMessage(), e);
         } catch (Exception e) {
             return buildErrorResponse(
                     HttpStatus.INTERNAL_SERVER_ERROR,
@@ -166,11 +274,106 @@ public abstract class WorkerEnabledController {
         }
     }
 
+    /**
+     * Encola un lote de tareas como grupo y devuelve sus IDs en el orden de las entradas
+     */
+    protected ResponseEntity<Map<String, Object>> enqueueBatchAndReturnIds(List<BatchTaskRequest> entries) {
+        try {
+            List<UUID> taskIds = workQueueService.enqueueBatch(entries,
+                    resolveDeadline(workQueueService.getDefaultMaxProcessingTime()), resolveClientId());
+
+            Map<String, Object> response = new HashMap<>();
+            response.put("taskIds", taskIds);
+            response.put("count", taskIds.size());
+            response.put("status", "ACCEPTED");
+            subscribeToRequestStream(taskIds, response);
+
+            return ResponseEntity.accepted().body(response);
+        } catch (Exception e) {
+            return buildBatchErrorResponse(e);
+        }
+    }
+
+    /**
+     * Encola un lote de tareas como grupo y responde con un stream (NDJSON o SSE) que emite
+     * cada resultado según termina y se cierra con el último. Si el lote no se admite, el
+     * stream lleva solo el error con el código HTTP correspondiente.
+     */
+    protected ResponseEntity<ResponseBodyEmitter> enqueueBatchAndStream(List<BatchTaskRequest> entries, boolean sse) {
+        List<UUID> taskIds;
+        try {
+            taskIds = workQueueService.enqueueBatch(entries,
+                    resolveDeadline(workQueueService.getDefaultMaxProcessingTime()), resolveClientId());
+        } catch (Exception e) {
+            ResponseEntity<Map<String, Object>> error = buildBatchErrorResponse(e);
+            return ResponseEntity.status(error.getStatusCode()).body(singleEventStream(error.getBody(), sse));
+        }
+        return ResponseEntity.ok(workQueueService.streamBatchResults(taskIds, sse));
+    }
+
+    private ResponseEntity<Map<String, Object>> buildBatchErrorResponse(Exception exception) {
+        if (exception instanceof InvalidBatchException || exception instanceof InvalidPayloadException) {
+            return buildErrorResponse(HttpStatus.BAD_REQUEST, "REJECTED", exception.getMessage(), exception);
+        } else if (exception instanceof ClientRateLimitedException) {
+            return buildErrorResponse(
+                    HttpStatus.TOO_MANY_REQUESTS,
+                    "REJECTED",
+                    "Client request rate exceeded. Please slow down.",
+                    exception
+            );
+        } else if (exception instanceof ServerHighLoadException) {
+            return buildErrorResponse(
+                    HttpStatus.SERVICE_UNAVAILABLE,
+                    "REJECTED",
+                    "Server is currently at high load. Please try again later.",
+                    exception
+            );
+        } else if (exception instanceof ProcessorNotFoundException e) {
+            return buildErrorResponse(
+                    HttpStatus.BAD_REQUEST,
+                    "REJECTED",
+                    "No processor found for task type: " + e.getTaskType(),
+                    exception
+            );
+        }
+        return buildErrorResponse(
+                HttpStatus.INTERNAL_SERVER_ERROR,
+                "REJECTED",
+                "Error enqueueing batch: " + exception.getMessage(),
+                exception
+        );
+    }
+
+    private static ResponseBodyEmitter singleEventStream(Map<String, Object> body, boolean sse) {
+        ResponseBodyEmitter emitter = sse ? new SseEmitter(0L) : new ResponseBodyEmitter(0L);
+        try {
+            if (sse) {
+                ((SseEmitter) emitter).send(SseEmitter.event().name("error").data(body));
+            } else {
+                emitter.send(body, MediaType.APPLICATION_JSON);
+                emitter.send("\n", MediaType.TEXT_PLAIN);
+            }
+            emitter.complete();
+        } catch (IOException e) {
+            emitter.completeWithError(e);
+        }
+        return emitter;
+    }
+
     /**
      * Obtiene el estado actual de una tarea
      */
-    protected ResponseEntity<Map<String, Object>> getTaskStatus(UUID taskId) {
+    protected ResponseEntity<?> getTaskStatus(UUID taskId) {
         try {
+            EncodedResult encoded = workQueueService.getEncodedTaskStatus(taskId);
+            if (encoded != null && encoded.hasGzip() && acceptsGzip()) {
+                // Estado final ya comprimido: se copia tal cual, sin serializar ni comprimir por petición
+                return ResponseEntity.ok()
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .header(HttpHeaders.CONTENT_ENCODING, "gzip")
+                        .header(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING)
+                        .body(encoded.gzipBytes());
+            }
             Map<String, Object> status = workQueueService.getTaskStatus(taskId);
             return ResponseEntity.ok(status);
         } catch (TaskNotFoundException e) {
@@ -191,6 +394,110 @@ public abstract class WorkerEnabledController {
     }
 
 
+    /**
+     * Presupuesto de tiempo de la tarea: el menor entre {@code limit} y el que envía el cliente
+     * en {@link #DEADLINE_HEADER}. Un valor no numérico se ignora.
+     */
+    protected Duration resolveDeadline(Duration limit) {
+        RequestAttributes attributes = RequestContextHolder.getRequestAttributes();
+        if (!(attributes instanceof ServletRequestAttributes servletAttributes)) {
+            return limit;
+        }
+        String header = servletAttributes.getRequest().getHeader(DEADLINE_HEADER);
+        if (header == null || header.isBlank()) {
+            return limit;
+        }
+        try {
+            Duration requested = Duration.ofMillis(Math.max(0, Long.parseLong(header.trim())));
+            return requested.compareTo(limit) < 0 ? requested : limit;
+        } catch (NumberFormatException e) {
+            return limit;
+        }
+    }
+
+    /**
+     * Cliente de la petición: "ip:" + dirección remota, o "key:" + {@link #CLIENT_KEY_HEADER} si la
+     * clave es de confianza. Una cabecera sin validar no puede sustituir a la IP: cambiándola en
+     * cada petición se obtendría una cuota nueva y se llenaría la tabla de clientes.
+     */
+    protected String resolveClientId() {
+        RequestAttributes attributes = RequestContextHolder.getRequestAttributes();
+        if (!(attributes instanceof ServletRequestAttributes servletAttributes)) {
+            return ClientRegistry.ANONYMOUS_CLIENT;
+        }
+        String key = workQueueService.isClientKeyTrusted()
+                ? servletAttributes.getRequest().getHeader(CLIENT_KEY_HEADER)
+                : null;
+        if (key != null && !key.isBlank()) {
+            key = key.trim();
+            return "key:" + (key.length() > MAX_CLIENT_KEY_LENGTH ? key.substring(0, MAX_CLIENT_KEY_LENGTH) : key);
+        }
+        return "ip:" + servletAttributes.getRequest().getRemoteAddr();
+    }
+
+    private static boolean acceptsGzip() {
+        RequestAttributes attributes = RequestContextHolder.getRequestAttributes();
+        if (!(attributes instanceof ServletRequestAttributes servletAttributes)) {
+            return false;
+        }
+        String acceptEncoding = servletAttributes.getRequest().getHeader(HttpHeaders.ACCEPT_ENCODING);
+        return acceptEncoding != null && acceptEncoding.toLowerCase().contains("gzip");
+    }
+
+    /**
+     * Registra las tareas en el stream de sesión indicado en {@link #STREAM_SESSION_HEADER}, si viene
+     */
+    protected void subscribeToRequestStream(List<UUID> taskIds, Map<String, Object> response) {
+        RequestAttributes attributes = RequestContextHolder.getRequestAttributes();
+        if (!(attributes instanceof ServletRequestAttributes servletAttributes)) {
+            return;
+        }
+        String sessionId = servletAttributes.getRequest().getHeader(STREAM_SESSION_HEADER);
+        if (sessionId == null || sessionId.isBlank()) {
+            return;
+        }
+        try {
+            workQueueService.subscribeToTaskStream(sessionId, taskIds);
+            response.put("streamSubscribed", true);
+        } catch (StreamSessionNotFoundException e) {
+            response.put("streamSubscribed", false);
+        }
+    }
+
+    /**
+     * Respuesta con cabecera Retry-After (segundos enteros, redondeando hacia arriba) y el
+     * valor exacto en milisegundos en el cuerpo
+     */
+    private ResponseEntity<Map<String, Object>> withRetryAfter(HttpStatus status, Map<String, Object> response,
+                                                               Duration retryAfter) {
+        response.put("retryAfterMs", retryAfter.toMillis());
+        return ResponseEntity.status(status)
+                .header(HttpHeaders.RETRY_AFTER, String.valueOf(retryAfterSeconds(retryAfter)))
+                .body(response);
+    }
+
+    private static long retryAfterSeconds(Duration retryAfter) {
+        return Math.max(1, (retryAfter.toMillis() + 999) / 1000);
+    }
+
+    /**
+     * Añade a la respuesta de una tarea aceptada cuánto se estima que tardará en terminar
+     */
+    private void putCompletionEstimate(UUID taskId, Map<String, Object> response) {
+        Duration estimate = workQueueService.estimateCompletion(taskId);
+        response.put("estimatedCompletionMs", estimate.toMillis());
+        response.put("estimatedCompletionAt", Instant.now().plus(estimate).toString());
+    }
+
+    private ResponseEntity<Map<String, Object>> processorNotFound(String taskType) {
+        return buildErrorResponse(
+                HttpStatus.BAD_REQUEST,
+                "REJECTED",
+                "No processor found for task type: " + taskType,
+                new ProcessorNotFoundException(taskType)
+        );
+    }
+
     /**
      * Construye una respuesta de error estándar
      */
@@ -209,7 +516,11 @@ public abstract class WorkerEnabledController {
             if (exception instanceof ServerHighLoadException) {
                 ServerHighLoadException e = (ServerHighLoadException) exception;
                 response.put("availablePermits", e.getAvailablePermits());
-                response.put("suggestedRetryAfterSeconds", 5);
+                response.put("suggestedRetryAfterSeconds", retryAfterSeconds(e.getRetryAfter()));
+                return withRetryAfter(status, response, e.getRetryAfter());
+            } else if (exception instanceof ClientRateLimitedException) {
+                ClientRateLimitedException e = (ClientRateLimitedException) exception;
+                return withRetryAfter(status, response, e.getRetryAfter());
             } else if (exception instanceof ProcessingTimeoutException) {
                 ProcessingTimeoutException e = (ProcessingTimeoutException) exception;
                 response.put("taskId", e.getTaskId());
@@ -217,6 +528,17 @@ public abstract class WorkerEnabledController {
             } else if (exception instanceof TaskNotFoundException) {
                 TaskNotFoundException e = (TaskNotFoundException) exception;
                 response.put("taskId", e.getTaskId());
+            } else if (exception instanceof InvalidBatchException) {
+                InvalidBatchException e = (InvalidBatchException) exception;
+                if (e.getEntryIndex() >= 0) {
+                    response.put("entryIndex", e.getEntryIndex());
+                }
+            } else if (exception instanceof InvalidPayloadException) {
+                InvalidPayloadException e = (InvalidPayloadException) exception;
+                response.put("taskType", e.getTaskType());
+            } else if (exception instanceof StreamSessionNotFoundException) {
+                StreamSessionNotFoundException e = (StreamSessionNotFoundException) exception;
+                response.put("sessionId", e.getSessionId());
             } else if (exception instanceof TaskProcessingException) {
                 TaskProcessingException e = (TaskProcessingException) exception;
                 response.put("taskId", e.getTaskId());
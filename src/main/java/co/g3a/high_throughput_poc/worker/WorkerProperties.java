@@ -0,0 +1,1007 @@
+package co.g3a.high_throughput_poc.worker;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.util.unit.DataSize;
+
+import java.time.Duration;
+
+/**
+ * Propiedades de configuración del worker ("worker.*")
+ */
+@ConfigurationProperties(prefix = "worker")
+public class WorkerProperties {
+
+    /**
+     * Número fijo de hilos que sacan tareas de la cola y las entregan al executor
+     */
+    private int dispatchers = 2;
+
+    private final Queue queue = new Queue();
+
+    private final Limiter limiter = new Limiter();
+
+    private final Metrics metrics = new Metrics();
+
+    private final Coalescing coalescing = new Coalescing();
+    private final Cache cache = new Cache();
+    private final Results results = new Results();
+    private final TaskId taskId = new TaskId();
+    private final Stream stream = new Stream();
+    private final Batch batch = new Batch();
+    private final MicroBatch microBatch = new MicroBatch();
+    private final Journal journal = new Journal();
+    private final Clients clients = new Clients();
+    private final Bulkhead bulkhead = new Bulkhead();
+    private final RetryHint retryHint = new RetryHint();
+    private final Composite composite = new Composite();
+    private final Execution execution = new Execution();
+    private final Jfr jfr = new Jfr();
+    private final VirtualThreads virtualThreads = new VirtualThreads();
+
+    public int getDispatchers() {
+        return dispatchers;
+    }
+
+    public void setDispatchers(int dispatchers) {
+        this.dispatchers = dispatchers;
+    }
+
+    public Queue getQueue() {
+        return queue;
+    }
+
+    public Limiter getLimiter() {
+        return limiter;
+    }
+
+    public Metrics getMetrics() {
+        return metrics;
+    }
+
+    public Coalescing getCoalescing() {
+        return coalescing;
+    }
+
+    public Cache getCache() {
+        return cache;
+    }
+
+    public Results getResults() {
+        return results;
+    }
+
+    public TaskId getTaskId() {
+        return taskId;
+    }
+
+    public Stream getStream() {
+        return stream;
+    }
+
+    public Batch getBatch() {
+        return batch;
+    }
+
+    public MicroBatch getMicroBatch() {
+        return microBatch;
+    }
+
+    public Journal getJournal() {
+        return journal;
+    }
+
+    public Clients getClients() {
+        return clients;
+    }
+
+    public Bulkhead getBulkhead() {
+        return bulkhead;
+    }
+
+    public RetryHint getRetryHint() {
+        return retryHint;
+    }
+
+    public Composite getComposite() {
+        return composite;
+    }
+
+    public Execution getExecution() {
+        return execution;
+    }
+
+    public Jfr getJfr() {
+        return jfr;
+    }
+
+    public VirtualThreads getVirtualThreads() {
+        return virtualThreads;
+    }
+
+    public static class Queue {
+        private final PriorityClass interactive = new PriorityClass(2_000, Duration.ofSeconds(2), 8);
+        private final PriorityClass standard = new PriorityClass(5_000, Duration.ofSeconds(10), 4);
+        private final PriorityClass bulk = new PriorityClass(500, Duration.ofSeconds(30), 1);
+
+        public PriorityClass getInteractive() {
+            return interactive;
+        }
+
+        public PriorityClass getStandard() {
+            return standard;
+        }
+
+        public PriorityClass getBulk() {
+            return bulk;
+        }
+
+        public PriorityClass forPriority(TaskPriority priority) {
+            return switch (priority) {
+                case INTERACTIVE -> interactive;
+                case STANDARD -> standard;
+                case BULK -> bulk;
+            };
+        }
+    }
+
+    public static class Limiter {
+        public enum Algorithm { AIMD, GRADIENT }
+
+        private Algorithm algorithm = Algorithm.GRADIENT;
+
+        /**
+         * Límite de partida; del orden del pool de conexiones (hikari.maximum-pool-size)
+         */
+        private int initialLimit = 50;
+        private int minLimit = 4;
+        private int maxLimit = 1000;
+
+        /**
+         * AIMD: latencia a partir de la cual una ejecución se considera señal de sobrecarga
+         */
+        private Duration latencyThreshold = Duration.ofSeconds(1);
+
+        /**
+         * AIMD: factor multiplicativo aplicado al límite ante una señal de sobrecarga
+         */
+        private double backoffRatio = 0.9;
+
+        /**
+         * Espera máxima de la ruta síncrona por un permiso antes de responder 503
+         */
+        private Duration syncAcquireTimeout = Duration.ofMillis(500);
+
+        public Algorithm getAlgorithm() {
+            return algorithm;
+        }
+
+        public void setAlgorithm(Algorithm algorithm) {
+            this.algorithm = algorithm;
+        }
+
+        public int getInitialLimit() {
+            return initialLimit;
+        }
+
+        public void setInitialLimit(int initialLimit) {
+            this.initialLimit = initialLimit;
+        }
+
+        public int getMinLimit() {
+            return minLimit;
+        }
+
+        public void setMinLimit(int minLimit) {
+            this.minLimit = minLimit;
+        }
+
+        public int getMaxLimit() {
+            return maxLimit;
+        }
+
+        public void setMaxLimit(int maxLimit) {
+            this.maxLimit = maxLimit;
+        }
+
+        public Duration getLatencyThreshold() {
+            return latencyThreshold;
+        }
+
+        public void setLatencyThreshold(Duration latencyThreshold) {
+            this.latencyThreshold = latencyThreshold;
+        }
+
+        public double getBackoffRatio() {
+            return backoffRatio;
+        }
+
+        public void setBackoffRatio(double backoffRatio) {
+            this.backoffRatio = backoffRatio;
+        }
+
+        public Duration getSyncAcquireTimeout() {
+            return syncAcquireTimeout;
+        }
+
+        public void setSyncAcquireTimeout(Duration syncAcquireTimeout) {
+            this.syncAcquireTimeout = syncAcquireTimeout;
+        }
+    }
+
+    public static class Metrics {
+        /**
+         * Ventana deslizante sobre la que se calculan los percentiles de latencia
+         */
+        private Duration latencyWindow = Duration.ofSeconds(60);
+
+        /**
+         * Número de intervalos en que se divide la ventana (rotación cada window / intervals)
+         */
+        private int latencyIntervals = 6;
+
+        /**
+         * Cada cuánto se rehace la foto de estadísticas que sirven los endpoints de monitorización
+         */
+        private Duration snapshotInterval = Duration.ofSeconds(1);
+
+        public Duration getLatencyWindow() {
+            return latencyWindow;
+        }
+
+        public void setLatencyWindow(Duration latencyWindow) {
+            this.latencyWindow = latencyWindow;
+        }
+
+        public int getLatencyIntervals() {
+            return latencyIntervals;
+        }
+
+        public void setLatencyIntervals(int latencyIntervals) {
+            this.latencyIntervals = latencyIntervals;
+        }
+
+        public Duration getSnapshotInterval() {
+            return snapshotInterval;
+        }
+
+        public void setSnapshotInterval(Duration snapshotInterval) {
+            this.snapshotInterval = snapshotInterval;
+        }
+    }
+
+    public static class Coalescing {
+        /**
+         * Comparte una sola ejecución entre tareas idénticas (tipo + payload) en vuelo
+         */
+        private boolean enabled = true;
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+    }
+
+    public static class Cache {
+        /**
+         * Activa la caché de resultados de los procesadores que declaran una política
+         */
+        private boolean enabled = true;
+
+        /**
+         * Cada cuánto se eliminan las entradas caducadas que nadie ha vuelto a leer
+         */
+        private Duration cleanupInterval = Duration.ofSeconds(5);
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public Duration getCleanupInterval() {
+            return cleanupInterval;
+        }
+
+        public void setCleanupInterval(Duration cleanupInterval) {
+            this.cleanupInterval = cleanupInterval;
+        }
+    }
+
+    public static class Results {
+        /**
+         * OBJECT guarda el grafo de objetos del resultado; JSON lo serializa una vez al terminar
+         * la tarea y guarda solo los bytes; GZIP además guarda comprimida la respuesta de estado
+         * final para servirla tal cual a los clientes que aceptan gzip.
+         */
+        public enum Encoding { OBJECT, JSON, GZIP }
+
+        private Encoding encoding = Encoding.JSON;
+
+        /**
+         * Tiempo que se conserva el resultado de una tarea terminada para consultas y suscripciones
+         */
+        private Duration retention = Duration.ofSeconds(10);
+
+        /**
+         * Resolución de la rueda de expiración
+         */
+        private Duration expiryTick = Duration.ofMillis(100);
+
+        public Duration getRetention() {
+            return retention;
+        }
+
+        public void setRetention(Duration retention) {
+            this.retention = retention;
+        }
+
+        public Duration getExpiryTick() {
+            return expiryTick;
+        }
+
+        public void setExpiryTick(Duration expiryTick) {
+            this.expiryTick = expiryTick;
+        }
+
+        public Encoding getEncoding() {
+            return encoding;
+        }
+
+        public void setEncoding(Encoding encoding) {
+            this.encoding = encoding;
+        }
+    }
+
+    public static class TaskId {
+        public enum Mode { SECURE, TIME_ORDERED, RANDOM }
+
+        /**
+         * SECURE: UUIDv7 con bits aleatorios criptográficos (ids expuestos a clientes).
+         * TIME_ORDERED: UUIDv7 con ThreadLocalRandom, más barato pero predecible.
+         * RANDOM: UUID.randomUUID(), el esquema anterior.
+         */
+        private Mode mode = Mode.SECURE;
+
+        public Mode getMode() {
+            return mode;
+        }
+
+        public void setMode(Mode mode) {
+            this.mode = mode;
+        }
+    }
+
+    public static class Stream {
+        /**
+         * Intervalo de heartbeats en las sesiones conectadas (y de revisión de sesiones inactivas)
+         */
+        private Duration heartbeatInterval = Duration.ofSeconds(15);
+
+        /**
+         * Tiempo que una sesión desconectada conserva sus suscripciones esperando la reconexión
+         */
+        private Duration sessionIdleTimeout = Duration.ofSeconds(60);
+
+        /**
+         * Eventos pendientes por sesión; al superarlo se descartan los más antiguos
+         */
+        private int maxBufferedEvents = 1_000;
+
+        /**
+         * Duración máxima de cada conexión SSE; el cliente se reconecta a la misma sesión
+         */
+        private Duration emitterTimeout = Duration.ofMinutes(30);
+
+        private int maxSessions = 10_000;
+
+        public Duration getHeartbeatInterval() {
+            return heartbeatInterval;
+        }
+
+        public void setHeartbeatInterval(Duration heartbeatInterval) {
+            this.heartbeatInterval = heartbeatInterval;
+        }
+
+        public Duration getSessionIdleTimeout() {
+            return sessionIdleTimeout;
+        }
+
+        public void setSessionIdleTimeout(Duration sessionIdleTimeout) {
+            this.sessionIdleTimeout = sessionIdleTimeout;
+        }
+
+        public int getMaxBufferedEvents() {
+            return maxBufferedEvents;
+        }
+
+        public void setMaxBufferedEvents(int maxBufferedEvents) {
+            this.maxBufferedEvents = maxBufferedEvents;
+        }
+
+        public Duration getEmitterTimeout() {
+            return emitterTimeout;
+        }
+
+        public void setEmitterTimeout(Duration emitterTimeout) {
+            this.emitterTimeout = emitterTimeout;
+        }
+
+        public int getMaxSessions() {
+            return maxSessions;
+        }
+
+        public void setMaxSessions(int maxSessions) {
+            this.maxSessions = maxSessions;
+        }
+    }
+
+    public static class Batch {
+        /**
+         * Máximo de tareas por lote; un lote mayor se rechaza entero
+         */
+        private int maxSize = 200;
+
+        public int getMaxSize() {
+            return maxSize;
+        }
+
+        public void setMaxSize(int maxSize) {
+            this.maxSize = maxSize;
+        }
+    }
+
+    public static class MicroBatch {
+        /**
+         * Agrupa las consultas por clave que llegan juntas en una sola consulta IN (...)
+         */
+        private boolean enabled = true;
+
+        /**
+         * Tiempo que espera la primera clave de un lote a que lleguen más
+         */
+        private Duration window = Duration.ofMillis(2);
+
+        /**
+         * Claves distintas que envían el lote sin esperar a la ventana. Con
+         * in_clause_parameter_padding conviene una potencia de 2.
+         */
+        private int maxSize = 64;
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public Duration getWindow() {
+            return window;
+        }
+
+        public void setWindow(Duration window) {
+            this.window = window;
+        }
+
+        public int getMaxSize() {
+            return maxSize;
+        }
+
+        public void setMaxSize(int maxSize) {
+            this.maxSize = maxSize;
+        }
+    }
+
+    public static class Journal {
+        /**
+         * NEVER deja la escritura a disco al sistema operativo (sobrevive a la caída del proceso,
+         * no a la del equipo); INTERVAL hace fsync cada flush-interval sin esperar; ALWAYS
+         * no responde hasta que el registro está en disco, agrupando en un solo fsync los
+         * registros que llegan mientras se hace el anterior.
+         */
+        public enum FsyncPolicy { NEVER, INTERVAL, ALWAYS }
+
+        /**
+         * Registra en disco las tareas aceptadas y sus resultados para recuperarlas al reiniciar
+         */
+        private boolean enabled = false;
+
+        private String directory = "data/journal";
+
+        /**
+         * Tamaño de cada fichero de segmento (se mapea entero en memoria)
+         */
+        private DataSize segmentSize = DataSize.ofMegabytes(64);
+
+        private FsyncPolicy fsync = FsyncPolicy.INTERVAL;
+
+        private Duration flushInterval = Duration.ofMillis(10);
+
+        /**
+         * Cada cuánto se eliminan los segmentos antiguos que ya no contienen tareas pendientes
+         */
+        private Duration compactionInterval = Duration.ofSeconds(30);
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public String getDirectory() {
+            return directory;
+        }
+
+        public void setDirectory(String directory) {
+            this.directory = directory;
+        }
+
+        public DataSize getSegmentSize() {
+            return segmentSize;
+        }
+
+        public void setSegmentSize(DataSize segmentSize) {
+            this.segmentSize = segmentSize;
+        }
+
+        public FsyncPolicy getFsync() {
+            return fsync;
+        }
+
+        public void setFsync(FsyncPolicy fsync) {
+            this.fsync = fsync;
+        }
+
+        public Duration getFlushInterval() {
+            return flushInterval;
+        }
+
+        public void setFlushInterval(Duration flushInterval) {
+            this.flushInterval = flushInterval;
+        }
+
+        public Duration getCompactionInterval() {
+            return compactionInterval;
+        }
+
+        public void setCompactionInterval(Duration compactionInterval) {
+            this.compactionInterval = compactionInterval;
+        }
+    }
+
+    public static class PriorityClass {
+        /**
+         * Máximo de tareas esperando en la cola de esta clase
+         */
+        private int capacity;
+
+        /**
+         * Tiempo máximo que una tarea puede esperar en la cola antes de ser rechazada
+         */
+        private Duration maxWait;
+
+        /**
+         * Tareas que se despachan de esta clase por cada ronda (reparto ponderado entre clases)
+         */
+        private int weight;
+
+        public PriorityClass() {
+        }
+
+        public PriorityClass(int capacity, Duration maxWait, int weight) {
+            this.capacity = capacity;
+            this.maxWait = maxWait;
+            this.weight = weight;
+        }
+
+        public int getCapacity() {
+            return capacity;
+        }
+
+        public void setCapacity(int capacity) {
+            this.capacity = capacity;
+        }
+
+        public Duration getMaxWait() {
+            return maxWait;
+        }
+
+        public void setMaxWait(Duration maxWait) {
+            this.maxWait = maxWait;
+        }
+
+        public int getWeight() {
+            return weight;
+        }
+
+        public void setWeight(int weight) {
+            this.weight = weight;
+        }
+    }
+
+    public static class Clients {
+        /**
+         * Cuota por cliente (token bucket) y reparto justo de la cola entre clientes
+         */
+        private boolean enabled = false;
+
+        /**
+         * Identifica al cliente por la cabecera X-Api-Key en lugar de por su IP. La clave no se
+         * valida, así que solo debe activarse detrás de un gateway que la autentique.
+         */
+        private boolean trustClientKey = false;
+
+        /**
+         * Coste de tareas por segundo que recupera cada cliente (cada tarea cuesta {@code TaskProcessor.getCost()})
+         */
+        private double rate = 200;
+
+        /**
+         * Coste que un cliente puede gastar de golpe tras estar inactivo
+         */
+        private int burst = 400;
+
+        /**
+         * Clientes con cuota propia; por encima comparten una cuota común hasta que se liberen entradas
+         */
+        private int maxClients = 10_000;
+
+        /**
+         * Crédito que recibe cada cliente por turno en el deficit round robin de cada clase
+         */
+        private int quantum = 1;
+
+        /**
+         * Fracción de la capacidad de una clase que puede ocupar un solo cliente
+         */
+        private double maxQueueShare = 0.5;
+
+        /**
+         * Clientes con más tareas admitidas que se muestran en las estadísticas
+         */
+        private int statsTop = 20;
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public boolean isTrustClientKey() {
+            return trustClientKey;
+        }
+
+        public void setTrustClientKey(boolean trustClientKey) {
+            this.trustClientKey = trustClientKey;
+        }
+
+        public double getRate() {
+            return rate;
+        }
+
+        public void setRate(double rate) {
+            this.rate = rate;
+        }
+
+        public int getBurst() {
+            return burst;
+        }
+
+        public void setBurst(int burst) {
+            this.burst = burst;
+        }
+
+        public int getMaxClients() {
+            return maxClients;
+        }
+
+        public void setMaxClients(int maxClients) {
+            this.maxClients = maxClients;
+        }
+
+        public int getQuantum() {
+            return quantum;
+        }
+
+        public void setQuantum(int quantum) {
+            this.quantum = quantum;
+        }
+
+        public double getMaxQueueShare() {
+            return maxQueueShare;
+        }
+
+        public void setMaxQueueShare(double maxQueueShare) {
+            this.maxQueueShare = maxQueueShare;
+        }
+
+        public int getStatsTop() {
+            return statsTop;
+        }
+
+        public void setStatsTop(int statsTop) {
+            this.statsTop = statsTop;
+        }
+    }
+
+    public static class Bulkhead {
+        /**
+         * Aplica los compartimentos que declaran los procesadores ({@code TaskProcessor.getBulkheadPolicy()})
+         */
+        private boolean enabled = true;
+
+        /**
+         * Tamaño del pool de conexiones sobre el que se calcula el connectionShare de cada compartimento
+         */
+        private int connectionPoolSize = 10;
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public int getConnectionPoolSize() {
+            return connectionPoolSize;
+        }
+
+        public void setConnectionPoolSize(int connectionPoolSize) {
+            this.connectionPoolSize = connectionPoolSize;
+        }
+    }
+
+    public static class RetryHint {
+        /**
+         * Límites del Retry-After sugerido cuando se rechaza por carga
+         */
+        private Duration minimum = Duration.ofSeconds(1);
+        private Duration maximum = Duration.ofSeconds(60);
+
+        /**
+         * Fracción aleatoria que se añade a cada sugerencia para que los clientes no reintenten a la vez
+         */
+        private double jitter = 0.5;
+
+        /**
+         * Peso de la última muestra en la media del ritmo de terminación (0-1]
+         */
+        private double rateSmoothing = 0.3;
+
+        private Duration sampleInterval = Duration.ofSeconds(1);
+
+        public Duration getMinimum() {
+            return minimum;
+        }
+
+        public void setMinimum(Duration minimum) {
+            this.minimum = minimum;
+        }
+
+        public Duration getMaximum() {
+            return maximum;
+        }
+
+        public void setMaximum(Duration maximum) {
+            this.maximum = maximum;
+        }
+
+        public double getJitter() {
+            return jitter;
+        }
+
+        public void setJitter(double jitter) {
+            this.jitter = jitter;
+        }
+
+        public double getRateSmoothing() {
+            return rateSmoothing;
+        }
+
+        public void setRateSmoothing(double rateSmoothing) {
+            this.rateSmoothing = rateSmoothing;
+        }
+
+        public Duration getSampleInterval() {
+            return sampleInterval;
+        }
+
+        public void setSampleInterval(Duration sampleInterval) {
+            this.sampleInterval = sampleInterval;
+        }
+    }
+
+    public static class Composite {
+        /**
+         * Registra el tipo COMPOSITE, que ejecuta varias sub-tareas en paralelo y une sus resultados
+         */
+        private boolean enabled = true;
+
+        /**
+         * Máximo de sub-tareas por tarea compuesta
+         */
+        private int maxParts = 16;
+
+        /**
+         * Tiempo que se reserva al final del deadline, con la política PARTIAL, para cortar las
+         * sub-tareas pendientes y devolver lo que haya llegado antes de que venza la compuesta
+         */
+        private Duration partialReserve = Duration.ofMillis(50);
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public int getMaxParts() {
+            return maxParts;
+        }
+
+        public void setMaxParts(int maxParts) {
+            this.maxParts = maxParts;
+        }
+
+        public Duration getPartialReserve() {
+            return partialReserve;
+        }
+
+        public void setPartialReserve(Duration partialReserve) {
+            this.partialReserve = partialReserve;
+        }
+    }
+
+    public static class Execution {
+        /**
+         * Hilos del pool de tareas CPU_BOUND; 0 = núcleos disponibles
+         */
+        private int cpuParallelism = 0;
+
+        /**
+         * Intervalo con el que se mide la utilización de cada pool
+         */
+        private Duration sampleInterval = Duration.ofSeconds(1);
+
+        public int getCpuParallelism() {
+            return cpuParallelism;
+        }
+
+        public void setCpuParallelism(int cpuParallelism) {
+            this.cpuParallelism = cpuParallelism;
+        }
+
+        public Duration getSampleInterval() {
+            return sampleInterval;
+        }
+
+        public void setSampleInterval(Duration sampleInterval) {
+            this.sampleInterval = sampleInterval;
+        }
+    }
+
+    public static class Jfr {
+        /**
+         * Configuración JFR de las grabaciones iniciadas desde /actuator/worker-jfr (default o profile)
+         */
+        private String settings = "profile";
+
+        /**
+         * Límites de lo que conserva cada grabación en disco
+         */
+        private Duration maxAge = Duration.ofMinutes(15);
+        private DataSize maxSize = DataSize.ofMegabytes(100);
+
+        /**
+         * Grabaciones abiertas a la vez (en curso o paradas sin descartar)
+         */
+        private int maxRecordings = 3;
+
+        public String getSettings() {
+            return settings;
+        }
+
+        public void setSettings(String settings) {
+            this.settings = settings;
+        }
+
+        public Duration getMaxAge() {
+            return maxAge;
+        }
+
+        public void setMaxAge(Duration maxAge) {
+            this.maxAge = maxAge;
+        }
+
+        public DataSize getMaxSize() {
+            return maxSize;
+        }
+
+        public void setMaxSize(DataSize maxSize) {
+            this.maxSize = maxSize;
+        }
+
+        public int getMaxRecordings() {
+            return maxRecordings;
+        }
+
+        public void setMaxRecordings(int maxRecordings) {
+            this.maxRecordings = maxRecordings;
+        }
+    }
+
+    public static class VirtualThreads {
+        /**
+         * Monitor de pinning y carriers (stream JFR en el propio proceso); tiene coste continuo,
+         * así que se activa solo para diagnosticar
+         */
+        private boolean monitorEnabled = false;
+
+        /**
+         * Duración mínima de un bloqueo con el hilo fijado para registrarlo (20 ms, como el umbral por defecto de JFR)
+         */
+        private Duration pinnedThreshold = Duration.ofMillis(20);
+
+        /**
+         * Intervalo de muestreo de los carriers; cada muestra lee la pila de todos ellos
+         */
+        private Duration carrierSampleInterval = Duration.ofMillis(500);
+
+        /**
+         * Sitios de pinning distintos que se registran, y frames de la pila de muestra de cada uno
+         */
+        private int maxSites = 50;
+        private int stackDepth = 12;
+
+        public boolean isMonitorEnabled() {
+            return monitorEnabled;
+        }
+
+        public void setMonitorEnabled(boolean monitorEnabled) {
+            this.monitorEnabled = monitorEnabled;
+        }
+
+        public Duration getPinnedThreshold() {
+            return pinnedThreshold;
+        }
+
+        public void setPinnedThreshold(Duration pinnedThreshold) {
+            this.pinnedThreshold = pinnedThreshold;
+        }
+
+        public Duration getCarrierSampleInterval() {
+            return carrierSampleInterval;
+        }
+
+        public void setCarrierSampleInterval(Duration carrierSampleInterval) {
+            this.carrierSampleInterval = carrierSampleInterval;
+        }
+
+        public int getMaxSites() {
+            return maxSites;
+        }
+
+        public void setMaxSites(int maxSites) {
+            this.maxSites = maxSites;
+        }
+
+        public int getStackDepth() {
+            return stackDepth;
+        }
+
+        public void setStackDepth(int stackDepth) {
+            this.stackDepth = stackDepth;
+        }
+    }
+}
@@ -0,0 +1,236 @@
+package co.g3a.high_throughput_poc.worker.bulkhead;
+
+import co.g3a.high_throughput_poc.worker.WorkTask;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Límite de concurrencia de un tipo de tarea con su propia espera.
+ *
+ * Las tareas que llegan con el compartimento lleno no bloquean al dispatcher: se aparcan aquí
+ * y quien libera un hueco se lo pasa directamente a la primera aparcada, así un tipo lento no
+ * retiene la cola general ni los permisos que necesitan los demás. El límite se puede cambiar
+ * en caliente.
+ */
+public class Bulkhead {
+
+    public enum Admission {
+        ADMITTED,
+        // Sin hueco: la tarea queda aparcada y la despachará quien libere uno
+        PARKED,
+        // Sin hueco ni sitio para esperar
+        FULL
+    }
+
+    private final String taskType;
+    private final int connectionPoolSize;
+    private final ReentrantLock lock = new ReentrantLock();
+    private final ArrayDeque<WorkTask<?, ?>> parked = new ArrayDeque<>();
+    private BulkheadPolicy policy;
+    private int limit;
+    private int active;
+
+    private final LongAdder admitted = new LongAdder();
+    private final LongAdder parkedTotal = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+
+    public Bulkhead(String taskType, BulkheadPolicy policy, int connectionPoolSize) {
+        this.taskType = taskType;
+        this.connectionPoolSize = connectionPoolSize;
+        this.policy = policy;
+        this.limit = policy.effectiveConcurrency(connectionPoolSize);
+    }
+
+    public String getTaskType() {
+        return taskType;
+    }
+
+    /**
+     * Intenta ocupar un hueco para la tarea; si no lo hay la aparca mientras quepa
+     */
+    public Admission tryEnter(WorkTask<?, ?> task) {
+        lock.lock();
+        try {
+            if (hasRoom()) {
+                active++;
+                admitted.increment();
+                return Admission.ADMITTED;
+            }
+            if (parked.size() >= policy.maxQueued()) {
+                // Las vencidas mientras esperaban siguen en la cola hasta que alguien las saque
+                parked.removeIf(waiting -> waiting.getStatus() != WorkTask.TaskStatus.PENDING);
+            }
+            if (parked.size() >= policy.maxQueued()) {
+                rejected.increment();
+                return Admission.FULL;
+            }
+            parked.addLast(task);
+            parkedTotal.increment();
+            return Admission.PARKED;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Ocupa un hueco sin aparcar (ruta síncrona, que ya tiene su propia espera de permiso)
+     */
+    public boolean tryEnter() {
+        lock.lock();
+        try {
+            if (hasRoom() && parked.isEmpty()) {
+                active++;
+                admitted.increment();
+                return true;
+            }
+            rejected.increment();
+            return false;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Libera un hueco. Si hay tareas aparcadas pendientes, el hueco pasa a la primera
+     * @return la tarea que hereda el hueco y hay que despachar, o null
+     */
+    public WorkTask<?, ?> exit() {
+        lock.lock();
+        try {
+            if (active <= limit || limit == 0) {
+                WorkTask<?, ?> next = pollPending();
+                if (next != null) {
+                    admitted.increment();
+                    return next;
+                }
+            }
+            active--;
+            return null;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Cambia los límites en caliente
+     * @return tareas aparcadas que entran por el nuevo límite y hay que despachar
+     */
+    public List<WorkTask<?, ?>> update(BulkheadPolicy newPolicy) {
+        List<WorkTask<?, ?>> released = new ArrayList<>();
+        lock.lock();
+        try {
+            policy = newPolicy;
+            limit = newPolicy.effectiveConcurrency(connectionPoolSize);
+            while (hasRoom()) {
+                WorkTask<?, ?> next = pollPending();
+                if (next == null) {
+                    break;
+                }
+                active++;
+                admitted.increment();
+                released.add(next);
+            }
+            // Si se reduce el límite, las que ya se ejecutan terminan; exit() no deja entrar más hasta bajar de él
+        } finally {
+            lock.unlock();
+        }
+        return released;
+    }
+
+    // Llamar con el lock tomado
+    private boolean hasRoom() {
+        return limit == 0 || active < limit;
+    }
+
+    // Llamar con el lock tomado
+    private WorkTask<?, ?> pollPending() {
+        WorkTask<?, ?> next;
+        while ((next = parked.pollFirst()) != null) {
+            if (next.getStatus() == WorkTask.TaskStatus.PENDING) {
+                return next;
+            }
+        }
+        return null;
+    }
+
+    public BulkheadPolicy getPolicy() {
+        lock.lock();
+        try {
+            return policy;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public int getActive() {
+        lock.lock();
+        try {
+            return active;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public int getParked() {
+        lock.lock();
+        try {
+            return parked.size();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Límite de concurrencia efectivo, 0 si no tiene
+     */
+    public int getLimit() {
+        lock.lock();
+        try {
+            return limit;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Fracción del límite en uso (0 si no tiene límite)
+     */
+    public double getSaturation() {
+        lock.lock();
+        try {
+            return limit == 0 ? 0.0 : (double) active / limit;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public long getRejectedCount() {
+        return rejected.sum();
+    }
+
+    public Map<String, Object> getStatistics() {
+        Map<String, Object> stats = new HashMap<>();
+        lock.lock();
+        try {
+            stats.put("maxConcurrent", policy.maxConcurrent());
+            stats.put("maxQueued", policy.maxQueued());
+            stats.put("connectionShare", policy.connectionShare());
+            stats.put("effectiveLimit", limit);
+            stats.put("active", active);
+            stats.put("parked", parked.size());
+            stats.put("saturation", limit == 0 ? 0.0 : (double) active / limit);
+        } finally {
+            lock.unlock();
+        }
+        stats.put("admitted", admitted.sum());
+        stats.put("parkedTotal", parkedTotal.sum());
+        stats.put("rejected", rejected.sum());
+        return stats;
+    }
+}
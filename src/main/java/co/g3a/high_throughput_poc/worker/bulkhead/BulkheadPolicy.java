@@ -0,0 +1,47 @@
+package co.g3a.high_throughput_poc.worker.bulkhead;
+
+/**
+ * Compartimento que declara cada procesador para que sus tareas no agoten los recursos de
+ * las demás
+ * @param maxConcurrent tareas del tipo ejecutándose a la vez (0 = sin límite)
+ * @param maxQueued tareas que pueden esperar hueco en el compartimento sin bloquear la cola general
+ * @param connectionShare fracción del pool de conexiones que puede ocupar (0 = sin límite propio)
+ */
+public record BulkheadPolicy(int maxConcurrent, int maxQueued, double connectionShare) {
+    private static final BulkheadPolicy NONE = new BulkheadPolicy(0, 0, 0);
+
+    public BulkheadPolicy {
+        if (maxConcurrent < 0 || maxQueued < 0) {
+            throw new IllegalArgumentException("Bulkhead limits cannot be negative");
+        }
+        if (connectionShare < 0 || connectionShare > 1) {
+            throw new IllegalArgumentException("Connection share must be between 0 and 1");
+        }
+    }
+
+    public static BulkheadPolicy none() {
+        return NONE;
+    }
+
+    public static BulkheadPolicy of(int maxConcurrent, int maxQueued) {
+        return new BulkheadPolicy(maxConcurrent, maxQueued, 0);
+    }
+
+    public BulkheadPolicy withConnectionShare(double connectionShare) {
+        return new BulkheadPolicy(maxConcurrent, maxQueued, connectionShare);
+    }
+
+    /**
+     * Concurrencia efectiva: la menor entre maxConcurrent y la parte del pool de conexiones
+     * (cada tarea usa como mucho una conexión a la vez)
+     * @return 0 si no hay límite
+     */
+    public int effectiveConcurrency(int connectionPoolSize) {
+        int limit = maxConcurrent;
+        if (connectionShare > 0 && connectionPoolSize > 0) {
+            int connections = Math.max(1, (int) Math.ceil(connectionPoolSize * connectionShare));
+            limit = limit > 0 ? Math.min(limit, connections) : connections;
+        }
+        return limit;
+    }
+}
@@ -0,0 +1,25 @@
+package co.g3a.high_throughput_poc.worker.cache;
+
+import java.time.Duration;
+
+/**
+ * Política de caché de resultados que declara cada procesador
+ * @param ttl tiempo de vida de cada entrada
+ * @param maxEntries número máximo de entradas
+ * @param maxBytes tamaño estimado máximo del conjunto de resultados
+ */
+public record CachePolicy(Duration ttl, int maxEntries, long maxBytes) {
+    private static final CachePolicy NONE = new CachePolicy(Duration.ZERO, 0, 0);
+
+    public static CachePolicy none() {
+        return NONE;
+    }
+
+    public static CachePolicy of(Duration ttl, int maxEntries, long maxBytes) {
+        return new CachePolicy(ttl, maxEntries, maxBytes);
+    }
+
+    public boolean isEnabled() {
+        return maxEntries > 0 && maxBytes > 0 && !ttl.isZero() && !ttl.isNegative();
+    }
+}
@@ -0,0 +1,126 @@
+package co.g3a.high_throughput_poc.worker.cache;
+
+import co.g3a.high_throughput_poc.worker.encoding.EncodedResult;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Estimación aproximada del tamaño en heap de un resultado (mapas, listas, cadenas, números
+ * y entidades simples). No pretende ser exacta: sirve para acotar cachés y retención por bytes
+ * sin depender de un agente de instrumentación.
+ *
+ * Para que el coste no crezca con el resultado, de las colecciones y mapas grandes solo se
+ * miden los primeros elementos y se extrapola al resto; los resultados ya codificados se
+ * miden por la longitud de sus bytes.
+ */
+public final class ObjectSizeEstimator {
+    private static final int OBJECT_HEADER = 16;
+    private static final int REFERENCE = 4;
+    private static final int MAX_DEPTH = 8;
+    // Elementos que se miden de cada colección o mapa
+    private static final int SAMPLE = 8;
+
+    private static final ClassValue<Field[]> FIELDS = new ClassValue<>() {
+        @Override
+        protected Field[] computeValue(Class<?> type) {
+            List<Field> fields = new ArrayList<>();
+            for (Class<?> c = type; c != null && c != Object.class; c = c.getSuperclass()) {
+                for (Field field : c.getDeclaredFields()) {
+                    if (Modifier.isStatic(field.getModifiers()) || field.isSynthetic()) {
+                        continue;
+                    }
+                    try {
+                        field.setAccessible(true);
+                        fields.add(field);
+                    } catch (RuntimeException e) {
+                        // Campo no accesible (módulo cerrado): se cuenta solo la referencia
+                    }
+                }
+            }
+            return fields.toArray(new Field[0]);
+        }
+    };
+
+    private ObjectSizeEstimator() {
+    }
+
+    public static long estimate(Object value) {
+        return estimate(value, 0);
+    }
+
+    private static long estimate(Object value, int depth) {
+        if (value == null) {
+            return 0;
+        }
+        if (depth > MAX_DEPTH) {
+            return OBJECT_HEADER;
+        }
+        if (value instanceof CharSequence text) {
+            // String compacto (Latin-1) + array de bytes
+            return OBJECT_HEADER + 24 + text.length();
+        }
+        if (value instanceof Number || value instanceof Boolean || value instanceof Character
+                || value instanceof Enum<?>) {
+            return OBJECT_HEADER + 8;
+        }
+        if (value instanceof byte[] bytes) {
+            return OBJECT_HEADER + bytes.length;
+        }
+        if (value instanceof EncodedResult encoded) {
+            return encoded.retainedSize();
+        }
+        if (value instanceof Map<?, ?> map) {
+            long size = OBJECT_HEADER + 32 + (long) map.size() * 32;
+            long sampled = 0;
+            int count = 0;
+            for (Map.Entry<?, ?> entry : map.entrySet()) {
+                if (count == SAMPLE) {
+                    break;
+                }
+                sampled += estimate(entry.getKey(), depth + 1) + estimate(entry.getValue(), depth + 1);
+                count++;
+            }
+            return size + extrapolate(sampled, count, map.size());
+        }
+        if (value instanceof Collection<?> collection) {
+            long size = OBJECT_HEADER + 24 + (long) collection.size() * REFERENCE;
+            long sampled = 0;
+            int count = 0;
+            for (Object element : collection) {
+                if (count == SAMPLE) {
+                    break;
+                }
+                sampled += estimate(element, depth + 1);
+                count++;
+            }
+            return size + extrapolate(sampled, count, collection.size());
+        }
+        if (value.getClass().isArray()) {
+            return OBJECT_HEADER + 64;
+        }
+
+        long size = OBJECT_HEADER;
+        for (Field field : FIELDS.get(value.getClass())) {
+            if (field.getType().isPrimitive()) {
+                size += 8;
+                continue;
+            }
+            size += REFERENCE;
+            try {
+                size += estimate(field.get(value), depth + 1);
+            } catch (IllegalAccessException e) {
+                // Se cuenta solo la referencia
+            }
+        }
+        return size;
+    }
+
+    private static long extrapolate(long sampled, int count, int total) {
+        return count == 0 || count == total ? sampled : sampled * total / count;
+    }
+}
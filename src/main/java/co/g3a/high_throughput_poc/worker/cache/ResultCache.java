@@ -0,0 +1,295 @@
+package co.g3a.high_throughput_poc.worker.cache;
+
+import java.util.ArrayDeque;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Caché de resultados de un tipo de tarea, acotada por número de entradas y por bytes estimados.
+ *
+ * Las lecturas no toman locks. Las escrituras se serializan con un lock y desalojan con CLOCK
+ * (segunda oportunidad para las entradas leídas desde la última pasada). Antes de desalojar
+ * una víctima, el candidato tiene que ser más frecuente que ella según un {@link FrequencySketch}
+ * (admisión TinyLFU); así un barrido de claves que se piden una sola vez no vacía la caché.
+ *
+ * Las invalidaciones incrementan una generación: un resultado calculado antes de invalidar
+ * ya no se guarda, aunque termine después.
+ */
+public class ResultCache {
+
+    private static final class Entry {
+        final Object key;
+        final Object value;
+        final long weight;
+        final long expiresAtNanos;
+        volatile boolean referenced;
+
+        Entry(Object key, Object value, long weight, long expiresAtNanos) {
+            this.key = key;
+            this.value = value;
+            this.weight = weight;
+            this.expiresAtNanos = expiresAtNanos;
+        }
+
+        boolean isExpired(long now) {
+            return now - expiresAtNanos >= 0;
+        }
+    }
+
+    private final String name;
+    private final CachePolicy policy;
+    private final long ttlNanos;
+    private final ConcurrentHashMap<Object, Entry> data = new ConcurrentHashMap<>();
+    private final FrequencySketch sketch;
+
+    // Anillo de CLOCK; puede contener entradas ya eliminadas, que se descartan al pasar la manecilla
+    private final ArrayDeque<Entry> clock = new ArrayDeque<>();
+    private final ReentrantLock evictionLock = new ReentrantLock();
+    private final AtomicLong weightedSize = new AtomicLong();
+    private final AtomicLong generation = new AtomicLong();
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+    private final LongAdder expirations = new LongAdder();
+    private final LongAdder admissionRejections = new LongAdder();
+    private final LongAdder invalidations = new LongAdder();
+
+    public ResultCache(String name, CachePolicy policy) {
+        this.name = name;
+        this.policy = policy;
+        this.ttlNanos = policy.ttl().toNanos();
+        this.sketch = new FrequencySketch(policy.maxEntries());
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public CachePolicy getPolicy() {
+        return policy;
+    }
+
+    /**
+     * Generación actual; se captura antes de calcular un resultado y se pasa a {@link #put}.
+     */
+    public long generation() {
+        return generation.get();
+    }
+
+    /**
+     * @return el resultado cacheado o {@code null} si no hay uno vigente
+     */
+    public Object get(Object key) {
+        sketch.increment(key);
+        Entry entry = data.get(key);
+        if (entry == null) {
+            misses.increment();
+            return null;
+        }
+        if (entry.isExpired(System.nanoTime())) {
+            if (data.remove(key, entry)) {
+                weightedSize.addAndGet(-entry.weight);
+                expirations.increment();
+            }
+            misses.increment();
+            return null;
+        }
+        entry.referenced = true;
+        hits.increment();
+        return entry.value;
+    }
+
+    /**
+     * Guarda un resultado si la caché no se invalidó desde {@code expectedGeneration}
+     * y si pasa la admisión frente a las víctimas que habría que desalojar.
+     */
+    public void put(Object key, Object value, long expectedGeneration) {
+        if (value == null) {
+            return;
+        }
+        long weight = ObjectSizeEstimator.estimate(key) + ObjectSizeEstimator.estimate(value);
+        if (weight > policy.maxBytes()) {
+            admissionRejections.increment();
+            return;
+        }
+
+        evictionLock.lock();
+        try {
+            if (generation.get() != expectedGeneration) {
+                return;
+            }
+            Entry existing = data.get(key);
+            long freed = existing != null ? existing.weight : 0;
+            int added = existing != null ? 0 : 1;
+            long now = System.nanoTime();
+
+            while (data.size() + added > policy.maxEntries()
+                    || weightedSize.get() - freed + weight > policy.maxBytes()) {
+                Entry victim = nextVictim(now);
+                if (victim == null) {
+                    break;
+                }
+                if (victim == existing) {
+                    continue;
+                }
+                if (!victim.isExpired(now) && sketch.frequency(key) <= sketch.frequency(victim.key)) {
+                    // Devuelve la víctima a la manecilla: sigue siendo la siguiente candidata
+                    clock.addFirst(victim);
+                    admissionRejections.increment();
+                    return;
+                }
+                if (data.remove(victim.key, victim)) {
+                    weightedSize.addAndGet(-victim.weight);
+                    if (victim.isExpired(now)) {
+                        expirations.increment();
+                    } else {
+                        evictions.increment();
+                    }
+                }
+            }
+
+            Entry entry = new Entry(key, value, weight, now + ttlNanos);
+            Entry previous = data.put(key, entry);
+            if (previous != null) {
+                weightedSize.addAndGet(-previous.weight);
+            }
+            weightedSize.addAndGet(weight);
+            clock.addLast(entry);
+            if (clock.size() > 2 * Math.max(policy.maxEntries(), data.size())) {
+                purgeStale();
+            }
+        } finally {
+            evictionLock.unlock();
+        }
+    }
+
+    /**
+     * Avanza la manecilla de CLOCK hasta una entrada viva que no se haya leído desde la última pasada.
+     */
+    private Entry nextVictim(long now) {
+        int budget = 2 * clock.size() + 1;
+        while (budget-- > 0) {
+            Entry candidate = clock.pollFirst();
+            if (candidate == null) {
+                return null;
+            }
+            if (data.get(candidate.key) != candidate) {
+                continue;
+            }
+            if (candidate.referenced && !candidate.isExpired(now)) {
+                candidate.referenced = false;
+                clock.addLast(candidate);
+                continue;
+            }
+            return candidate;
+        }
+        return null;
+    }
+
+    private void purgeStale() {
+        clock.removeIf(entry -> data.get(entry.key) != entry);
+    }
+
+    public void invalidate(Object key) {
+        evictionLock.lock();
+        try {
+            generation.incrementAndGet();
+            Entry removed = data.remove(key);
+            if (removed != null) {
+                weightedSize.addAndGet(-removed.weight);
+                invalidations.increment();
+            }
+        } finally {
+            evictionLock.unlock();
+        }
+    }
+
+    public void invalidateAll() {
+        evictionLock.lock();
+        try {
+            generation.incrementAndGet();
+            invalidations.add(data.size());
+            data.clear();
+            clock.clear();
+            weightedSize.set(0);
+        } finally {
+            evictionLock.unlock();
+        }
+    }
+
+    /**
+     * Elimina las entradas caducadas que nadie ha vuelto a leer.
+     */
+    public void cleanUp() {
+        long now = System.nanoTime();
+        evictionLock.lock();
+        try {
+            Iterator<Entry> iterator = clock.iterator();
+            while (iterator.hasNext()) {
+                Entry entry = iterator.next();
+                if (data.get(entry.key) != entry) {
+                    iterator.remove();
+                } else if (entry.isExpired(now)) {
+                    iterator.remove();
+                    if (data.remove(entry.key, entry)) {
+                        weightedSize.addAndGet(-entry.weight);
+                        expirations.increment();
+                    }
+                }
+            }
+        } finally {
+            evictionLock.unlock();
+        }
+    }
+
+    public int size() {
+        return data.size();
+    }
+
+    public long weightedSize() {
+        return weightedSize.get();
+    }
+
+    public long hitCount() {
+        return hits.sum();
+    }
+
+    public long missCount() {
+        return misses.sum();
+    }
+
+    public long evictionCount() {
+        return evictions.sum();
+    }
+
+    public long expirationCount() {
+        return expirations.sum();
+    }
+
+    public Map<String, Object> getStatistics() {
+        long hitCount = hits.sum();
+        long missCount = misses.sum();
+        long requests = hitCount + missCount;
+
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("entries", data.size());
+        stats.put("estimatedBytes", weightedSize.get());
+        stats.put("maxEntries", policy.maxEntries());
+        stats.put("maxBytes", policy.maxBytes());
+        stats.put("ttlSeconds", policy.ttl().toSeconds());
+        stats.put("hits", hitCount);
+        stats.put("misses", missCount);
+        stats.put("hitRate", requests > 0 ? (double) hitCount / requests : 0.0);
+        stats.put("evictions", evictions.sum());
+        stats.put("expirations", expirations.sum());
+        stats.put("admissionRejections", admissionRejections.sum());
+        stats.put("invalidations", invalidations.sum());
+        return stats;
+    }
+}
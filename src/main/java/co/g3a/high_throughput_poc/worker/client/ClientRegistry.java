@@ -0,0 +1,197 @@
+package co.g3a.high_throughput_poc.worker.client;
+
+import co.g3a.high_throughput_poc.worker.WorkerProperties;
+import co.g3a.high_throughput_poc.worker.exception.ClientRateLimitedException;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Tabla acotada de clientes con su token bucket y contadores de uso.
+ *
+ * Cuando la tabla se llena se barren los clientes con el cubo lleno (no pierden nada al
+ * olvidarlos, salvo sus contadores). Si aun así no hay hueco, los clientes nuevos comparten
+ * la entrada {@link #OVERFLOW_CLIENT} hasta el siguiente barrido.
+ */
+public class ClientRegistry {
+
+    /**
+     * Cliente de las tareas que no llegan desde una petición HTTP (recuperadas, internas)
+     */
+    public static final String ANONYMOUS_CLIENT = "anonymous";
+
+    public static final String OVERFLOW_CLIENT = "overflow";
+
+    private static final long SWEEP_INTERVAL_NANOS = Duration.ofMillis(100).toNanos();
+
+    private final WorkerProperties.Clients config;
+    private final ConcurrentHashMap<String, ClientState> clients = new ConcurrentHashMap<>();
+    private final ClientState overflow;
+    private final AtomicLong nextSweepNanos = new AtomicLong();
+    private final LongAdder evictedClients = new LongAdder();
+    private final LongAdder overflowAssignments = new LongAdder();
+    private final LongAdder throttled = new LongAdder();
+
+    private static final class ClientState {
+        final TokenBucket bucket;
+        final LongAdder admitted = new LongAdder();
+        final LongAdder throttled = new LongAdder();
+
+        ClientState(TokenBucket bucket) {
+            this.bucket = bucket;
+        }
+    }
+
+    public ClientRegistry(WorkerProperties.Clients config) {
+        this.config = config;
+        this.overflow = newState(System.nanoTime());
+        this.nextSweepNanos.set(System.nanoTime());
+    }
+
+    public boolean isEnabled() {
+        return config.isEnabled();
+    }
+
+    /**
+     * Cobra {@code cost} de la cuota del cliente
+     * @throws ClientRateLimitedException si no le queda cuota, con el tiempo hasta que la tenga
+     */
+    public void acquire(String clientId, int cost) {
+        if (!config.isEnabled()) {
+            return;
+        }
+        long now = System.nanoTime();
+        ClientState state = stateFor(clientId, now);
+        long waitNanos = state.bucket.tryAcquire(cost, now);
+        if (waitNanos > 0) {
+            state.throttled.increment();
+            throttled.increment();
+            throw new ClientRateLimitedException(clientId, Duration.ofNanos(waitNanos));
+        }
+        state.admitted.add(cost);
+    }
+
+    /**
+     * Devuelve el coste cobrado a una petición que al final no se admitió
+     */
+    public void refund(String clientId, int cost) {
+        if (!config.isEnabled()) {
+            return;
+        }
+        ClientState state = clients.get(clientId);
+        if (state == null) {
+            state = overflow;
+        }
+        state.bucket.refund(cost);
+        state.admitted.add(-cost);
+    }
+
+    /**
+     * Cuenta una petición rechazada por otro motivo atribuible al cliente (su parte de la cola)
+     */
+    public void recordThrottled(String clientId) {
+        ClientState state = clients.getOrDefault(clientId, overflow);
+        state.throttled.increment();
+        throttled.increment();
+    }
+
+    private ClientState stateFor(String clientId, long now) {
+        ClientState state = clients.get(clientId);
+        if (state != null) {
+            return state;
+        }
+        if (clients.size() >= config.getMaxClients()) {
+            sweep(now);
+            if (clients.size() >= config.getMaxClients()) {
+                overflowAssignments.increment();
+                return overflow;
+            }
+        }
+        return clients.computeIfAbsent(clientId, id -> newState(now));
+    }
+
+    private ClientState newState(long now) {
+        return new ClientState(new TokenBucket(config.getRate(), config.getBurst(), now));
+    }
+
+    private void sweep(long now) {
+        long next = nextSweepNanos.get();
+        if (now - next < 0 || !nextSweepNanos.compareAndSet(next, now + SWEEP_INTERVAL_NANOS)) {
+            // Otro hilo barrió hace poco: con la tabla llena de clientes activos no se repite en cada petición
+            return;
+        }
+        clients.entrySet().removeIf(entry -> {
+            if (entry.getValue().bucket.isFull(now)) {
+                evictedClients.increment();
+                return true;
+            }
+            return false;
+        });
+    }
+
+    public int size() {
+        return clients.size();
+    }
+
+    public long throttledCount() {
+        return throttled.sum();
+    }
+
+    /**
+     * Estadísticas globales y de los clientes con más coste admitido
+     * @param queued tareas en cola por cliente
+     */
+    public Map<String, Object> getStatistics(Map<String, Integer> queued) {
+        long now = System.nanoTime();
+        Map<String, Object> stats = new HashMap<>();
+        stats.put("enabled", config.isEnabled());
+        stats.put("trackedClients", clients.size());
+        stats.put("maxClients", config.getMaxClients());
+        stats.put("ratePerSecond", config.getRate());
+        stats.put("burst", config.getBurst());
+        stats.put("throttled", throttled.sum());
+        stats.put("evictedClients", evictedClients.sum());
+        stats.put("overflowAssignments", overflowAssignments.sum());
+
+        List<Map.Entry<String, ClientState>> entries = new ArrayList<>(clients.entrySet());
+        entries.sort(Comparator.comparingLong(
+                (Map.Entry<String, ClientState> entry) -> entry.getValue().admitted.sum()).reversed());
+        List<Map<String, Object>> top = new ArrayList<>();
+        for (Map.Entry<String, ClientState> entry : entries.subList(0, Math.min(config.getStatsTop(), entries.size()))) {
+            top.add(clientStats(entry.getKey(), entry.getValue(), queued, now));
+        }
+        if (overflowAssignments.sum() > 0) {
+            top.add(clientStats(OVERFLOW_CLIENT, overflow, queued, now));
+        }
+        stats.put("clients", top);
+        return stats;
+    }
+
+    private static Map<String, Object> clientStats(String clientId, ClientState state,
+                                                   Map<String, Integer> queued, long now) {
+        Map<String, Object> stats = new HashMap<>();
+        stats.put("client", mask(clientId));
+        stats.put("admittedCost", state.admitted.sum());
+        stats.put("throttled", state.throttled.sum());
+        stats.put("queued", queued.getOrDefault(clientId, 0));
+        stats.put("availableTokens", Math.floor(state.bucket.available(now)));
+        return stats;
+    }
+
+    /**
+     * Las API keys no se muestran enteras en las estadísticas
+     */
+    private static String mask(String clientId) {
+        if (clientId.startsWith("key:") && clientId.length() > 8) {
+            return clientId.substring(0, 8) + "...";
+        }
+        return clientId;
+    }
+}
@@ -0,0 +1,67 @@
+package co.g3a.high_throughput_poc.worker.client;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Token bucket sin locks implementado como GCRA: en lugar de contar tokens guarda un único
+ * instante, el "theoretical arrival time" (TAT), y cada petición lo adelanta su coste por el
+ * intervalo de emisión con un CAS. La petición cabe mientras el TAT no se adelante al reloj
+ * más que la ráfaga permitida.
+ */
+public class TokenBucket {
+
+    private final long emissionIntervalNanos;
+    private final long burstNanos;
+    private final AtomicLong theoreticalArrival;
+
+    /**
+     * @param rate  coste que se recupera por segundo
+     * @param burst coste máximo acumulable
+     */
+    public TokenBucket(double rate, int burst, long nowNanos) {
+        this.emissionIntervalNanos = Math.max(1, (long) (1_000_000_000L / Math.max(rate, 1e-9)));
+        this.burstNanos = emissionIntervalNanos * Math.max(1, burst);
+        this.theoreticalArrival = new AtomicLong(nowNanos);
+    }
+
+    /**
+     * Consume {@code cost} tokens si los hay.
+     * @return 0 si se admitió; si no, nanosegundos hasta que haya tokens suficientes
+     */
+    public long tryAcquire(int cost, long nowNanos) {
+        long increment = emissionIntervalNanos * cost;
+        while (true) {
+            long tat = theoreticalArrival.get();
+            long newTat = Math.max(tat, nowNanos) + increment;
+            long ahead = newTat - nowNanos;
+            if (ahead > burstNanos) {
+                return ahead - burstNanos;
+            }
+            if (theoreticalArrival.compareAndSet(tat, newTat)) {
+                return 0;
+            }
+        }
+    }
+
+    /**
+     * Devuelve tokens de una admisión que no llegó a usarse (p.ej. la cola estaba llena)
+     */
+    public void refund(int cost) {
+        theoreticalArrival.addAndGet(-emissionIntervalNanos * cost);
+    }
+
+    /**
+     * Tokens disponibles ahora mismo
+     */
+    public double available(long nowNanos) {
+        long ahead = Math.max(0, theoreticalArrival.get() - nowNanos);
+        return (double) (burstNanos - ahead) / emissionIntervalNanos;
+    }
+
+    /**
+     * Cubo lleno: olvidar este cliente no cambia cómo se le limita
+     */
+    public boolean isFull(long nowNanos) {
+        return theoreticalArrival.get() <= nowNanos;
+    }
+}
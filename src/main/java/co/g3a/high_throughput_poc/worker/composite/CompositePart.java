@@ -0,0 +1,7 @@
+package co.g3a.high_throughput_poc.worker.composite;
+
+/**
+ * Sub-tarea de una tarea compuesta; su resultado aparece en la respuesta bajo {@code name}
+ */
+public record CompositePart(String name, String taskType, Object payload) {
+}
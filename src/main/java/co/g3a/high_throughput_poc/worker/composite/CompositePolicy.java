@@ -0,0 +1,11 @@
+package co.g3a.high_throughput_poc.worker.composite;
+
+/**
+ * Qué hacer cuando una sub-tarea de una tarea compuesta falla o no llega a tiempo
+ */
+public enum CompositePolicy {
+    // La primera sub-tarea que falla cancela las demás y hace fallar la compuesta
+    FAIL_FAST,
+    // Cada sub-tarea informa de su estado; al vencer el deadline se devuelve lo que haya terminado
+    PARTIAL
+}
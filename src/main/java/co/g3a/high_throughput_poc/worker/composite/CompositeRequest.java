@@ -0,0 +1,15 @@
+package co.g3a.high_throughput_poc.worker.composite;
+
+import java.util.List;
+
+/**
+ * Payload de una tarea COMPOSITE: las sub-tareas a ejecutar en paralelo y la política de fallo
+ * (FAIL_FAST si no se indica)
+ */
+public record CompositeRequest(List<CompositePart> parts, CompositePolicy policy) {
+
+    public CompositeRequest {
+        parts = parts != null ? List.copyOf(parts) : List.of();
+        policy = policy != null ? policy : CompositePolicy.FAIL_FAST;
+    }
+}
@@ -0,0 +1,183 @@
+package co.g3a.high_throughput_poc.worker.composite;
+
+import co.g3a.high_throughput_poc.worker.TaskPriority;
+import co.g3a.high_throughput_poc.worker.TaskProcessor;
+import co.g3a.high_throughput_poc.worker.WorkTask;
+import co.g3a.high_throughput_poc.worker.WorkerProperties;
+import co.g3a.high_throughput_poc.worker.deadline.TaskDeadline;
+import co.g3a.high_throughput_poc.worker.exception.ProcessingTimeoutException;
+import co.g3a.high_throughput_poc.worker.exception.ServerHighLoadException;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.ToIntFunction;
+
+/**
+ * Tarea compuesta: ejecuta sus sub-tareas en paralelo, cada una con el procesador de su tipo, y
+ * devuelve un solo resultado con el de cada parte. Las sub-tareas comparten el deadline de la
+ * compuesta y pasan por la misma ruta que una petición síncrona (caché, coalescing,
+ * compartimento y limitador), así que una página que antes pedía cinco tareas ahora pide una.
+ *
+ * Con FAIL_FAST la primera parte que falla cancela las demás y la compuesta falla. Con PARTIAL
+ * la compuesta siempre termina: al vencer el deadline (menos la reserva configurada) se cortan
+ * las partes pendientes y se devuelven como TIMED_OUT junto a las que sí llegaron.
+ *
+ * El worker lo registra al construirse y le da su ruta de sub-tareas con {@link #bind} al
+ * arrancar, cuando ya está construido del todo.
+ */
+public class CompositeTaskProcessor implements TaskProcessor<CompositeRequest, Map<String, Object>> {
+
+    public static final String TASK_TYPE = "COMPOSITE";
+
+    private final WorkerProperties.Composite config;
+    private volatile SubTaskRunner runner;
+    private volatile ToIntFunction<String> partCost;
+
+    public CompositeTaskProcessor(WorkerProperties.Composite config) {
+        this.config = config;
+    }
+
+    /**
+     * Conecta el procesador con el worker que ejecuta las sub-tareas y conoce el coste de cada tipo
+     */
+    public void bind(SubTaskRunner runner, ToIntFunction<String> partCost) {
+        this.runner = runner;
+        this.partCost = partCost;
+    }
+
+    @Override
+    public String getTaskType() {
+        return TASK_TYPE;
+    }
+
+    @Override
+    public TaskPriority getPriority() {
+        return TaskPriority.INTERACTIVE;
+    }
+
+    /**
+     * Lo que cuestan sus partes por separado, para que agruparlas no salte la cuota del cliente
+     */
+    @Override
+    public int getCost(CompositeRequest request) {
+        if (request == null) {
+            return getCost();
+        }
+        ToIntFunction<String> partCost = this.partCost;
+        if (partCost == null) {
+            throw new IllegalStateException("Composite processor is not bound to a worker");
+        }
+        int cost = 0;
+        for (CompositePart part : request.parts()) {
+            cost += part != null && part.taskType() != null ? partCost.applyAsInt(part.taskType()) : 1;
+        }
+        return Math.max(getCost(), cost);
+    }
+
+    @Override
+    public Map<String, Object> processTask(CompositeRequest request) {
+        List<String> names = validate(request);
+        SubTaskRunner runner = this.runner;
+        if (runner == null) {
+            throw new IllegalStateException("Composite processor is not bound to a worker");
+        }
+        Long deadline = TaskDeadline.current();
+        if (deadline == null) {
+            throw new IllegalStateException("Composite tasks must run with a deadline");
+        }
+        boolean partial = request.policy() == CompositePolicy.PARTIAL;
+        long partsDeadline = partial ? deadline - config.getPartialReserve().toNanos() : deadline;
+
+        List<FanOutScope.Part<Object>> forks = new ArrayList<>(names.size());
+        FanOutScope scope = new FanOutScope(!partial);
+        try {
+            for (int i = 0; i < names.size(); i++) {
+                CompositePart part = request.parts().get(i);
+                forks.add(scope.fork(names.get(i),
+                        () -> runner.run(part.taskType(), part.payload(), partsDeadline)));
+            }
+            scope.joinUntil(partsDeadline);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted waiting for composite parts", e);
+        } finally {
+            scope.close();
+        }
+
+        FanOutScope.Part<?> failed = scope.firstFailure();
+        if (!partial && failed != null) {
+            throw new IllegalStateException("Composite part '" + failed.name() + "' failed: "
+                    + failed.exception().getMessage(), failed.exception());
+        }
+
+        boolean complete = true;
+        Map<String, Object> parts = new LinkedHashMap<>();
+        for (FanOutScope.Part<Object> fork : forks) {
+            complete &= fork.state() == FanOutScope.State.SUCCEEDED;
+            parts.put(fork.name(), describe(fork));
+        }
+        if (!partial && !complete) {
+            throw new IllegalStateException("Composite parts did not finish before the deadline");
+        }
+
+        Map<String, Object> result = new HashMap<>();
+        result.put("policy", request.policy());
+        result.put("complete", complete);
+        result.put("parts", parts);
+        return result;
+    }
+
+    private List<String> validate(CompositeRequest request) {
+        if (request == null || request.parts().isEmpty()) {
+            throw new IllegalArgumentException("Composite task must contain at least one part");
+        }
+        if (request.parts().size() > config.getMaxParts()) {
+            throw new IllegalArgumentException("Composite task of " + request.parts().size()
+                    + " parts exceeds the maximum of " + config.getMaxParts());
+        }
+        List<String> names = new ArrayList<>(request.parts().size());
+        Set<String> seen = new HashSet<>();
+        for (int i = 0; i < request.parts().size(); i++) {
+            CompositePart part = request.parts().get(i);
+            if (part == null || part.taskType() == null) {
+                throw new IllegalArgumentException("Composite part " + i + " has no task type");
+            }
+            if (TASK_TYPE.equals(part.taskType())) {
+                throw new IllegalArgumentException("Composite part " + i + " cannot be another composite task");
+            }
+            String name = part.name() != null ? part.name() : String.valueOf(i);
+            if (!seen.add(name)) {
+                throw new IllegalArgumentException("Duplicate composite part name: " + name);
+            }
+            names.add(name);
+        }
+        return names;
+    }
+
+    private static Map<String, Object> describe(FanOutScope.Part<Object> part) {
+        Map<String, Object> description = new HashMap<>();
+        switch (part.state()) {
+            case SUCCEEDED -> {
+                description.put("status", WorkTask.TaskStatus.PROCESSED.toString());
+                description.put("result", part.result());
+            }
+            case FAILED -> {
+                Throwable error = part.exception();
+                description.put("status", error instanceof ProcessingTimeoutException
+                        ? WorkTask.TaskStatus.TIMED_OUT.toString()
+                        : WorkTask.TaskStatus.REJECTED.toString());
+                description.put("error", error.getMessage());
+                if (error instanceof ServerHighLoadException) {
+                    description.put("highLoad", true);
+                }
+            }
+            default -> description.put("status", WorkTask.TaskStatus.TIMED_OUT.toString());
+        }
+        return description;
+    }
+}
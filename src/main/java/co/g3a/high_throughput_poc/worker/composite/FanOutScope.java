@@ -0,0 +1,170 @@
+package co.g3a.high_throughput_poc.worker.composite;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Ámbito de concurrencia estructurada para las sub-tareas de una tarea compuesta, con la forma
+ * de {@code StructuredTaskScope} (que en JDK 21 sigue en preview): cada {@link #fork} corre en
+ * su propio hilo virtual, {@link #joinUntil} espera a que terminen todas (o a la primera que
+ * falle, si es fail-fast) como mucho hasta el deadline, y {@link #close()} interrumpe las que
+ * sigan en marcha. Ninguna sub-tarea sobrevive al ámbito con un resultado que alguien lea.
+ *
+ * A diferencia de {@code StructuredTaskScope}, close no espera a los hilos interrumpidos: las
+ * consultas bloqueadas en JDBC no atienden la interrupción y las corta su propio deadline.
+ */
+final class FanOutScope implements AutoCloseable {
+
+    private static final ThreadFactory PART_THREADS = Thread.ofVirtual().name("composite-part-", 0).factory();
+
+    enum State {
+        RUNNING,
+        SUCCEEDED,
+        FAILED,
+        // Seguía en marcha al cerrar el ámbito
+        CANCELLED
+    }
+
+    private final boolean failFast;
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition partDone = lock.newCondition();
+    private final List<Part<?>> parts = new ArrayList<>();
+    private int running;
+    private Part<?> firstFailure;
+    private boolean closed;
+
+    FanOutScope(boolean failFast) {
+        this.failFast = failFast;
+    }
+
+    <V> Part<V> fork(String name, Callable<V> task) {
+        Part<V> part = new Part<>(name);
+        lock.lock();
+        try {
+            if (closed) {
+                throw new IllegalStateException("Scope is closed");
+            }
+            parts.add(part);
+            running++;
+        } finally {
+            lock.unlock();
+        }
+        part.thread = PART_THREADS.newThread(() -> part.run(task));
+        part.thread.start();
+        return part;
+    }
+
+    /**
+     * Espera a que terminen todas las sub-tareas, a que falle una si el ámbito es fail-fast, o a
+     * que venza el deadline
+     *
+     * @return false si venció el deadline con sub-tareas en marcha
+     */
+    boolean joinUntil(long deadlineNanos) throws InterruptedException {
+        lock.lockInterruptibly();
+        try {
+            while (running > 0 && !(failFast && firstFailure != null)) {
+                long remaining = deadlineNanos - System.nanoTime();
+                if (remaining <= 0) {
+                    return false;
+                }
+                partDone.awaitNanos(remaining);
+            }
+            return true;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Primera sub-tarea que falló, o null
+     */
+    Part<?> firstFailure() {
+        lock.lock();
+        try {
+            return firstFailure;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public void close() {
+        List<Part<?>> cancelled = new ArrayList<>();
+        lock.lock();
+        try {
+            closed = true;
+            for (Part<?> part : parts) {
+                if (part.state == State.RUNNING) {
+                    part.state = State.CANCELLED;
+                    running--;
+                    cancelled.add(part);
+                }
+            }
+        } finally {
+            lock.unlock();
+        }
+        cancelled.forEach(part -> part.thread.interrupt());
+    }
+
+    final class Part<V> {
+        private final String name;
+        private Thread thread;
+        private volatile State state = State.RUNNING;
+        private V result;
+        private Throwable exception;
+
+        private Part(String name) {
+            this.name = name;
+        }
+
+        private void run(Callable<V> task) {
+            try {
+                V value = task.call();
+                finish(State.SUCCEEDED, value, null);
+            } catch (Throwable e) {
+                finish(State.FAILED, null, e);
+            }
+        }
+
+        private void finish(State outcome, V value, Throwable error) {
+            lock.lock();
+            try {
+                if (state != State.RUNNING) {
+                    // Cancelada: el resultado ya no interesa
+                    return;
+                }
+                result = value;
+                exception = error;
+                state = outcome;
+                running--;
+                if (outcome == State.FAILED && firstFailure == null) {
+                    firstFailure = this;
+                }
+                partDone.signalAll();
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        String name() {
+            return name;
+        }
+
+        State state() {
+            return state;
+        }
+
+        V result() {
+            return result;
+        }
+
+        Throwable exception() {
+            return exception;
+        }
+    }
+}
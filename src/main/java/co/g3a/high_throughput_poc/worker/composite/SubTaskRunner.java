@@ -0,0 +1,9 @@
+package co.g3a.high_throughput_poc.worker.composite;
+
+/**
+ * Ejecuta una sub-tarea con el procesador de su tipo dentro del deadline indicado y devuelve su resultado
+ */
+@FunctionalInterface
+public interface SubTaskRunner {
+    Object run(String taskType, Object payload, long deadlineNanos);
+}
@@ -0,0 +1,79 @@
+package co.g3a.high_throughput_poc.worker.deadline;
+
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLTimeoutException;
+import java.sql.Statement;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * DataSource que aplica el tiempo que le queda a la tarea como query timeout de cada sentencia.
+ * Si el deadline ya pasó, la sentencia no llega a ejecutarse y la conexión vuelve al pool.
+ */
+public class DeadlineAwareDataSource extends DelegatingDataSource {
+
+    public DeadlineAwareDataSource(DataSource targetDataSource) {
+        super(targetDataSource);
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        return wrap(super.getConnection());
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        return wrap(super.getConnection(username, password));
+    }
+
+    private static Connection wrap(Connection connection) {
+        return (Connection) Proxy.newProxyInstance(
+                DeadlineAwareDataSource.class.getClassLoader(),
+                new Class<?>[]{Connection.class},
+                new DeadlineConnectionHandler(connection));
+    }
+
+    private static final class DeadlineConnectionHandler implements InvocationHandler {
+        private final Connection target;
+
+        private DeadlineConnectionHandler(Connection target) {
+            this.target = target;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            Object result;
+            try {
+                result = method.invoke(target, args);
+            } catch (InvocationTargetException e) {
+                throw e.getTargetException();
+            }
+            if (result instanceof Statement statement) {
+                applyDeadline(statement);
+            }
+            return result;
+        }
+
+        private static void applyDeadline(Statement statement) throws SQLException {
+            Long deadline = TaskDeadline.current();
+            if (deadline == null) {
+                return;
+            }
+            long remaining = deadline - System.nanoTime();
+            if (remaining <= 0) {
+                statement.close();
+                throw new SQLTimeoutException("Task deadline exceeded before executing statement");
+            }
+            // JDBC solo admite segundos: se redondea hacia arriba
+            int seconds = (int) Math.max(1, (remaining + TimeUnit.SECONDS.toNanos(1) - 1) / TimeUnit.SECONDS.toNanos(1));
+            statement.setQueryTimeout(seconds);
+        }
+    }
+}
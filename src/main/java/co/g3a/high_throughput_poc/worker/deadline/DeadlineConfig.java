@@ -0,0 +1,33 @@
+package co.g3a.high_throughput_poc.worker.deadline;
+
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.task.TaskDecorator;
+
+import javax.sql.DataSource;
+
+@Configuration
+public class DeadlineConfig {
+
+    /**
+     * Spring Boot lo aplica al executor de {@code @Async} (applicationTaskExecutor)
+     */
+    @Bean
+    public TaskDecorator deadlineTaskDecorator() {
+        return new DeadlineTaskDecorator();
+    }
+
+    @Bean
+    public static BeanPostProcessor deadlineDataSourcePostProcessor() {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                if (bean instanceof DataSource dataSource && !(bean instanceof DeadlineAwareDataSource)) {
+                    return new DeadlineAwareDataSource(dataSource);
+                }
+                return bean;
+            }
+        };
+    }
+}
@@ -0,0 +1,14 @@
+package co.g3a.high_throughput_poc.worker.deadline;
+
+import org.springframework.core.task.TaskDecorator;
+
+/**
+ * Propaga el deadline de la tarea a los hilos del executor de {@code @Async}
+ */
+public class DeadlineTaskDecorator implements TaskDecorator {
+
+    @Override
+    public Runnable decorate(Runnable runnable) {
+        return TaskDeadline.propagate(runnable);
+    }
+}
@@ -0,0 +1,64 @@
+package co.g3a.high_throughput_poc.worker.deadline;
+
+import java.util.function.Supplier;
+
+/**
+ * Deadline de la tarea que se está ejecutando en el hilo actual (reloj de {@link System#nanoTime()}).
+ *
+ * Se fija al ejecutar el procesador y se propaga a los hilos de {@code @Async} con
+ * {@link DeadlineTaskDecorator}; {@link DeadlineAwareDataSource} lo lee para aplicar el
+ * tiempo restante como timeout de cada consulta.
+ */
+public final class TaskDeadline {
+    private static final ThreadLocal<Long> DEADLINE = new ThreadLocal<>();
+
+    private TaskDeadline() {
+    }
+
+    /**
+     * Ejecuta {@code action} con el deadline indicado y restaura el anterior al terminar
+     */
+    public static <V> V callWithin(long deadlineNanos, Supplier<V> action) {
+        Long previous = DEADLINE.get();
+        DEADLINE.set(deadlineNanos);
+        try {
+            return action.get();
+        } finally {
+            restore(previous);
+        }
+    }
+
+    /**
+     * Envuelve {@code task} para que se ejecute en otro hilo con el deadline del hilo actual
+     */
+    public static Runnable propagate(Runnable task) {
+        Long captured = DEADLINE.get();
+        if (captured == null) {
+            return task;
+        }
+        return () -> {
+            Long previous = DEADLINE.get();
+            DEADLINE.set(captured);
+            try {
+                task.run();
+            } finally {
+                restore(previous);
+            }
+        };
+    }
+
+    /**
+     * @return el deadline del hilo actual o {@code null} si no hay ninguno
+     */
+    public static Long current() {
+        return DEADLINE.get();
+    }
+
+    private static void restore(Long previous) {
+        if (previous == null) {
+            DEADLINE.remove();
+        } else {
+            DEADLINE.set(previous);
+        }
+    }
+}
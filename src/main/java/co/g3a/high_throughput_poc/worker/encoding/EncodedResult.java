@@ -0,0 +1,189 @@
+package co.g3a.high_throughput_poc.worker.encoding;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.SerializableString;
+import com.fasterxml.jackson.databind.JsonSerializable;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.jsontype.TypeSerializer;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Resultado ya serializado a JSON (UTF-8), y opcionalmente comprimido con gzip.
+ *
+ * Es inmutable y se comparte entre la tarea, la caché y las tareas coalescidas. Al
+ * serializarlo dentro de otro objeto (respuesta de estado, evento SSE, respuesta síncrona)
+ * Jackson copia sus bytes tal cual en lugar de recorrer el grafo de objetos otra vez.
+ */
+public final class EncodedResult implements JsonSerializable {
+
+    private final byte[] json;
+    private final byte[] gzip;
+
+    EncodedResult(byte[] json, byte[] gzip) {
+        this.json = json;
+        this.gzip = gzip;
+    }
+
+    /**
+     * Envuelve JSON ya serializado (p.ej. leído del journal) sin copiarlo
+     */
+    public static EncodedResult ofJson(byte[] json) {
+        return new EncodedResult(json, null);
+    }
+
+    public int length() {
+        return json.length;
+    }
+
+    /**
+     * Tamaño aproximado en heap (objeto y arrays de bytes), sin recorrer nada
+     */
+    public long retainedSize() {
+        return 16 + 16 + json.length + (gzip != null ? 16 + gzip.length : 0);
+    }
+
+    /**
+     * Copia del JSON; para escribirlo sin copiar usar {@link #writeTo(OutputStream)}
+     */
+    public byte[] toByteArray() {
+        return json.clone();
+    }
+
+    public void writeTo(OutputStream out) throws IOException {
+        out.write(json);
+    }
+
+    public void writeTo(ByteBuffer buffer) {
+        buffer.put(json);
+    }
+
+    public boolean hasGzip() {
+        return gzip != null;
+    }
+
+    /**
+     * Variante comprimida, o null si no se generó
+     */
+    public byte[] gzipBytes() {
+        return gzip;
+    }
+
+    @Override
+    public void serialize(JsonGenerator gen, SerializerProvider serializers) throws IOException {
+        gen.writeRawValue(new RawJson(json));
+    }
+
+    @Override
+    public void serializeWithType(JsonGenerator gen, SerializerProvider serializers, TypeSerializer typeSer)
+            throws IOException {
+        serialize(gen, serializers);
+    }
+
+    @Override
+    public String toString() {
+        return new String(json, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Adaptador para {@link JsonGenerator#writeRawValue(SerializableString)}: el generador UTF-8
+     * copia los bytes directamente a su buffer. Solo admite escritura sin comillas.
+     */
+    private static final class RawJson implements SerializableString {
+        private final byte[] utf8;
+        private String value;
+
+        RawJson(byte[] utf8) {
+            this.utf8 = utf8;
+        }
+
+        @Override
+        public String getValue() {
+            if (value == null) {
+                value = new String(utf8, StandardCharsets.UTF_8);
+            }
+            return value;
+        }
+
+        @Override
+        public int charLength() {
+            return getValue().length();
+        }
+
+        @Override
+        public byte[] asUnquotedUTF8() {
+            return utf8;
+        }
+
+        @Override
+        public int appendUnquotedUTF8(byte[] buffer, int offset) {
+            if (offset + utf8.length > buffer.length) {
+                return -1;
+            }
+            System.arraycopy(utf8, 0, buffer, offset, utf8.length);
+            return utf8.length;
+        }
+
+        @Override
+        public int appendUnquoted(char[] buffer, int offset) {
+            String text = getValue();
+            if (offset + text.length() > buffer.length) {
+                return -1;
+            }
+            text.getChars(0, text.length(), buffer, offset);
+            return text.length();
+        }
+
+        @Override
+        public int writeUnquotedUTF8(OutputStream out) throws IOException {
+            out.write(utf8);
+            return utf8.length;
+        }
+
+        @Override
+        public int putUnquotedUTF8(ByteBuffer buffer) {
+            if (buffer.remaining() < utf8.length) {
+                return -1;
+            }
+            buffer.put(utf8);
+            return utf8.length;
+        }
+
+        @Override
+        public char[] asQuotedChars() {
+            throw quotedNotSupported();
+        }
+
+        @Override
+        public byte[] asQuotedUTF8() {
+            throw quotedNotSupported();
+        }
+
+        @Override
+        public int appendQuotedUTF8(byte[] buffer, int offset) {
+            throw quotedNotSupported();
+        }
+
+        @Override
+        public int appendQuoted(char[] buffer, int offset) {
+            throw quotedNotSupported();
+        }
+
+        @Override
+        public int writeQuotedUTF8(OutputStream out) {
+            throw quotedNotSupported();
+        }
+
+        @Override
+        public int putQuotedUTF8(ByteBuffer buffer) {
+            throw quotedNotSupported();
+        }
+
+        private static UnsupportedOperationException quotedNotSupported() {
+            return new UnsupportedOperationException("Raw JSON cannot be written as a quoted string");
+        }
+    }
+}
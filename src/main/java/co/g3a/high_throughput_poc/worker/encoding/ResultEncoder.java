@@ -0,0 +1,86 @@
+package co.g3a.high_throughput_poc.worker.encoding;
+
+import co.g3a.high_throughput_poc.worker.WorkerProperties;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Serializa los resultados una sola vez, al terminar la tarea, según
+ * {@link WorkerProperties.Results.Encoding}.
+ */
+public class ResultEncoder {
+
+    private final ObjectMapper objectMapper;
+    private final WorkerProperties.Results.Encoding encoding;
+
+    public ResultEncoder(ObjectMapper objectMapper, WorkerProperties.Results.Encoding encoding) {
+        this.objectMapper = objectMapper;
+        this.encoding = encoding;
+    }
+
+    public boolean isEnabled() {
+        return encoding != WorkerProperties.Results.Encoding.OBJECT;
+    }
+
+    public boolean isGzip() {
+        return encoding == WorkerProperties.Results.Encoding.GZIP;
+    }
+
+    /**
+     * Devuelve el resultado codificado, o el propio resultado si la codificación está
+     * desactivada, ya estaba codificado o no se puede serializar (en ese caso fallará
+     * igual que antes al escribir la respuesta).
+     */
+    public Object encode(Object result) {
+        if (!isEnabled() || result == null || result instanceof EncodedResult) {
+            return result;
+        }
+        try {
+            return new EncodedResult(objectMapper.writeValueAsBytes(result), null);
+        } catch (JsonProcessingException e) {
+            return result;
+        }
+    }
+
+    /**
+     * Serializa a JSON aunque la codificación esté desactivada (p.ej. para el journal en modo
+     * OBJECT); null si no se puede serializar
+     */
+    public EncodedResult encodeJson(Object result) {
+        if (result instanceof EncodedResult encoded) {
+            return encoded;
+        }
+        try {
+            return new EncodedResult(objectMapper.writeValueAsBytes(result), null);
+        } catch (JsonProcessingException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Codifica un documento completo de respuesta; en modo GZIP incluye además su variante comprimida
+     */
+    public EncodedResult encodeDocument(Object document) {
+        try {
+            byte[] json = objectMapper.writeValueAsBytes(document);
+            return new EncodedResult(json, isGzip() ? gzip(json) : null);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Cannot encode response document", e);
+        }
+    }
+
+    private static byte[] gzip(byte[] json) {
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream(Math.max(64, json.length / 4));
+        try (GZIPOutputStream out = new GZIPOutputStream(buffer)) {
+            out.write(json);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return buffer.toByteArray();
+    }
+}
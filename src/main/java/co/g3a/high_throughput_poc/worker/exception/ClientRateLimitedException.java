@@ -0,0 +1,26 @@
+package co.g3a.high_throughput_poc.worker.exception;
+
+import java.time.Duration;
+
+// Excepción para clientes que superan su cuota de tareas o su parte de la cola
+public class ClientRateLimitedException extends WorkQueueException {
+    private final String clientId;
+    private final Duration retryAfter;
+
+    public ClientRateLimitedException(String clientId, Duration retryAfter) {
+        super("Client " + clientId + " exceeded its task rate. Retry after " + retryAfter.toMillis() + " ms.");
+        this.clientId = clientId;
+        this.retryAfter = retryAfter;
+    }
+
+    public String getClientId() {
+        return clientId;
+    }
+
+    /**
+     * Tiempo hasta que el cliente vuelva a tener cuota para la petición rechazada
+     */
+    public Duration getRetryAfter() {
+        return retryAfter;
+    }
+}
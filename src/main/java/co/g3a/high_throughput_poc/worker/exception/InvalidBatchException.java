@@ -0,0 +1,22 @@
+package co.g3a.high_throughput_poc.worker.exception;
+
+// Excepción para lotes de tareas mal formados (vacíos, demasiado grandes o con un payload inválido)
+public class InvalidBatchException extends WorkQueueException {
+    private final int entryIndex;
+
+    public InvalidBatchException(String message) {
+        this(message, -1);
+    }
+
+    public InvalidBatchException(String message, int entryIndex) {
+        super(message);
+        this.entryIndex = entryIndex;
+    }
+
+    /**
+     * Posición de la entrada que invalidó el lote, o -1 si el problema es el lote entero
+     */
+    public int getEntryIndex() {
+        return entryIndex;
+    }
+}
@@ -0,0 +1,15 @@
+package co.g3a.high_throughput_poc.worker.exception;
+
+// Excepción para un payload que no se puede convertir al tipo que espera su procesador
+public class InvalidPayloadException extends WorkQueueException {
+    private final String taskType;
+
+    public InvalidPayloadException(String taskType, Throwable cause) {
+        super("Invalid payload for " + taskType, cause);
+        this.taskType = taskType;
+    }
+
+    public String getTaskType() {
+        return taskType;
+    }
+}
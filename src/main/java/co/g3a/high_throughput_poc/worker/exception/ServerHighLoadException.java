@@ -1,15 +1,32 @@
 package co.g3a.high_throughput_poc.worker.exception;
 
+import java.time.Duration;
+
 // Excepción para alta carga del servidor
 public class ServerHighLoadException extends WorkQueueException {
+    private static final Duration DEFAULT_RETRY_AFTER = Duration.ofSeconds(5);
+
     private final int availablePermits;
+    private final Duration retryAfter;
     
     public ServerHighLoadException(int availablePermits) {
+        this(availablePermits, DEFAULT_RETRY_AFTER);
+    }
+
+    public ServerHighLoadException(int availablePermits, Duration retryAfter) {
         super("Server is currently at high load. Please try again later.");
         this.availablePermits = availablePermits;
+        this.retryAfter = retryAfter;
     }
     
     public int getAvailablePermits() {
         return availablePermits;
     }
-}
\ No newline at end of file
+
+    /**
+     * Espera sugerida antes de reintentar, estimada a partir del ritmo al que se vacía la cola
+     */
+    public Duration getRetryAfter() {
+        return retryAfter;
+    }
+}
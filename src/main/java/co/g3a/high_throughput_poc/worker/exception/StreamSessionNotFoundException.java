@@ -0,0 +1,15 @@
+package co.g3a.high_throughput_poc.worker.exception;
+
+// Excepción para sesiones de stream inexistentes o ya cerradas
+public class StreamSessionNotFoundException extends WorkQueueException {
+    private final String sessionId;
+    
+    public StreamSessionNotFoundException(String sessionId) {
+        super("Stream session not found or expired: " + sessionId);
+        this.sessionId = sessionId;
+    }
+    
+    public String getSessionId() {
+        return sessionId;
+    }
+}
@@ -0,0 +1,194 @@
+package co.g3a.high_throughput_poc.worker.execution;
+
+import co.g3a.high_throughput_poc.worker.ExecutionProfile;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Executors de las tareas según su {@link ExecutionProfile}.
+ *
+ * Las de E/S van a un hilo virtual cada una, como hasta ahora. Las de CPU van a un
+ * ForkJoinPool con tantos hilos de plataforma como núcleos: el sistema operativo los reparte
+ * con los carriers de los hilos virtuales, así una agregación larga no deja sin carrier a las
+ * tareas que solo esperan a la base de datos. El pool no crea hilos de compensación cuando uno
+ * se bloquea (p.ej. en un join), para que el número de hilos que calculan siga acotado.
+ *
+ * Por cada pool se cuentan tareas en cola (entregadas y sin empezar), en ejecución, y el
+ * tiempo ocupado, con el que {@link #sample()} calcula la media de tareas en ejecución del
+ * último intervalo y, para el pool de CPU, su utilización respecto al paralelismo.
+ */
+public class ProcessingPools implements AutoCloseable {
+
+    private final ExecutorService ioExecutor = Executors.newVirtualThreadPerTaskExecutor();
+    private final ForkJoinPool cpuPool;
+    private final Map<ExecutionProfile, PoolStats> stats = new EnumMap<>(ExecutionProfile.class);
+
+    public ProcessingPools(int cpuParallelism, MeterRegistry registry) {
+        int parallelism = cpuParallelism > 0 ? cpuParallelism : Runtime.getRuntime().availableProcessors();
+        AtomicInteger threadIndex = new AtomicInteger();
+        ForkJoinPool.ForkJoinWorkerThreadFactory factory = pool -> {
+            ForkJoinWorkerThread thread = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(pool);
+            thread.setName("worker-cpu-" + threadIndex.getAndIncrement());
+            thread.setDaemon(true);
+            return thread;
+        };
+        // asyncMode: las tareas entregadas se atienden en orden de llegada
+        this.cpuPool = new ForkJoinPool(parallelism, factory, null, true,
+                0, parallelism, 1, pool -> true, 60, TimeUnit.SECONDS);
+
+        stats.put(ExecutionProfile.IO_BOUND, new PoolStats("io", 0));
+        stats.put(ExecutionProfile.CPU_BOUND, new PoolStats("cpu", parallelism));
+        stats.values().forEach(pool -> pool.register(registry));
+    }
+
+    /**
+     * Ejecuta la tarea en el pool del perfil
+     *
+     * @throws java.util.concurrent.RejectedExecutionException si el pool está cerrado
+     */
+    public void execute(ExecutionProfile profile, Runnable task) {
+        PoolStats pool = stats.get(profile);
+        pool.queued.incrementAndGet();
+        Runnable tracked = () -> pool.track(task);
+        try {
+            executorFor(profile).execute(tracked);
+        } catch (RuntimeException e) {
+            pool.queued.decrementAndGet();
+            throw e;
+        }
+    }
+
+    /**
+     * Como {@link #execute}, para quien espera el resultado (ruta síncrona)
+     */
+    public <V> Future<V> submit(ExecutionProfile profile, Callable<V> task) {
+        FutureTask<V> future = new FutureTask<>(task);
+        execute(profile, future);
+        return future;
+    }
+
+    private ExecutorService executorFor(ExecutionProfile profile) {
+        return profile == ExecutionProfile.CPU_BOUND ? cpuPool : ioExecutor;
+    }
+
+    /**
+     * Cierra el intervalo de medida de cada pool; se llama periódicamente
+     */
+    public void sample() {
+        long now = System.nanoTime();
+        stats.values().forEach(pool -> pool.sample(now));
+    }
+
+    public Map<String, Object> getStatistics() {
+        Map<String, Object> statistics = new HashMap<>();
+        stats.values().forEach(pool -> statistics.put(pool.name, pool.describe()));
+        @SuppressWarnings("unchecked")
+        Map<String, Object> cpu = (Map<String, Object>) statistics.get("cpu");
+        cpu.put("poolSize", cpuPool.getPoolSize());
+        cpu.put("steals", cpuPool.getStealCount());
+        return statistics;
+    }
+
+    @Override
+    public void close() {
+        ioExecutor.shutdownNow();
+        cpuPool.shutdownNow();
+    }
+
+    private static final class PoolStats {
+        private final String name;
+        // 0: sin límite de hilos (hilos virtuales)
+        private final int parallelism;
+        private final AtomicInteger queued = new AtomicInteger();
+        private final AtomicInteger active = new AtomicInteger();
+        private final AtomicLong completed = new AtomicLong();
+        private final LongAdder busyNanos = new LongAdder();
+
+        private long lastSampleNanos = System.nanoTime();
+        private long lastBusyNanos;
+        private volatile double meanActive;
+
+        PoolStats(String name, int parallelism) {
+            this.name = name;
+            this.parallelism = parallelism;
+        }
+
+        void track(Runnable task) {
+            queued.decrementAndGet();
+            active.incrementAndGet();
+            long start = System.nanoTime();
+            try {
+                task.run();
+            } finally {
+                busyNanos.add(System.nanoTime() - start);
+                active.decrementAndGet();
+                completed.incrementAndGet();
+            }
+        }
+
+        synchronized void sample(long now) {
+            long busy = busyNanos.sum();
+            long elapsed = now - lastSampleNanos;
+            if (elapsed > 0) {
+                // Las tareas aún en marcha se cuentan cuando terminan; con tareas cortas frente
+                // al intervalo el error es pequeño
+                meanActive = (double) (busy - lastBusyNanos) / elapsed;
+            }
+            lastSampleNanos = now;
+            lastBusyNanos = busy;
+        }
+
+        double utilization() {
+            return parallelism > 0 ? Math.min(1.0, meanActive / parallelism) : Double.NaN;
+        }
+
+        void register(MeterRegistry registry) {
+            Gauge.builder("worker.pool.queued", queued, AtomicInteger::get)
+                    .description("Tasks handed to the pool that have not started")
+                    .tag("pool", name)
+                    .register(registry);
+            Gauge.builder("worker.pool.active", active, AtomicInteger::get)
+                    .description("Tasks running in the pool")
+                    .tag("pool", name)
+                    .register(registry);
+            Gauge.builder("worker.pool.busy", this, pool -> pool.meanActive)
+                    .description("Mean tasks running over the last sample interval")
+                    .tag("pool", name)
+                    .register(registry);
+            if (parallelism > 0) {
+                Gauge.builder("worker.pool.utilization", this, PoolStats::utilization)
+                        .description("Busy fraction of the pool threads over the last sample interval")
+                        .tag("pool", name)
+                        .register(registry);
+            }
+        }
+
+        Map<String, Object> describe() {
+            Map<String, Object> description = new HashMap<>();
+            description.put("queued", queued.get());
+            description.put("active", active.get());
+            description.put("completed", completed.get());
+            description.put("meanActive", Math.round(meanActive * 100) / 100.0);
+            if (parallelism > 0) {
+                description.put("parallelism", parallelism);
+                description.put("utilization", Math.round(utilization() * 1000) / 1000.0);
+            }
+            return description;
+        }
+    }
+}
@@ -0,0 +1,236 @@
+package co.g3a.high_throughput_poc.worker.expiry;
+
+import java.time.Duration;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+/**
+ * Rueda de temporizadores jerárquica: programar y cancelar son O(1) y cada tick solo toca
+ * el bucket que vence, en lugar de recorrer todas las claves.
+ *
+ * Cada nivel tiene 64 buckets; un bucket del nivel n cubre 64^n ticks. Cuando el nivel
+ * inferior da la vuelta, el bucket correspondiente del nivel superior se redistribuye hacia
+ * abajo. Con 3 niveles y ticks de 100 ms se cubren unas 7 horas; plazos mayores se aparcan
+ * en el último nivel y se recolocan al llegar.
+ *
+ * Cualquier hilo puede programar o cancelar: las operaciones se encolan y solo el hilo que
+ * llama a {@link #advance(long)} toca los buckets, así que no hacen falta locks.
+ *
+ * Un callback que lanza una excepción no corta el tick: se cuenta en
+ * {@link #callbackFailures()} y la rueda sigue con los demás temporizadores.
+ *
+ * @param <K> clave que se entrega al callback al vencer
+ */
+public class TimerWheel<K> {
+    private static final int BUCKET_BITS = 6;
+    private static final int BUCKETS = 1 << BUCKET_BITS;
+    private static final int BUCKET_MASK = BUCKETS - 1;
+    private static final int LEVELS = 3;
+
+    private static final int SCHEDULED = 0;
+    private static final int EXPIRED = 1;
+    private static final int CANCELLED = 2;
+
+    public static final class Timer<K> {
+        @SuppressWarnings("rawtypes")
+        private static final AtomicIntegerFieldUpdater<Timer> STATE =
+                AtomicIntegerFieldUpdater.newUpdater(Timer.class, "state");
+
+        private final K key;
+        private final long deadlineTick;
+        private volatile int state = SCHEDULED;
+
+        // Enlaces del bucket; solo los toca el hilo que avanza la rueda
+        private Timer<K> prev;
+        private Timer<K> next;
+        private boolean linked;
+
+        private Timer(K key, long deadlineTick) {
+            this.key = key;
+            this.deadlineTick = deadlineTick;
+        }
+
+        public K getKey() {
+            return key;
+        }
+
+        private boolean transition(int to) {
+            return STATE.compareAndSet(this, SCHEDULED, to);
+        }
+    }
+
+    private final long tickNanos;
+    private final long originNanos;
+    private final Consumer<K> onExpire;
+
+    // Cada bucket es una lista circular doblemente enlazada encabezada por un centinela
+    private final Timer<K>[][] wheel;
+    private long currentTick;
+
+    private final ConcurrentLinkedQueue<Timer<K>> pendingSchedules = new ConcurrentLinkedQueue<>();
+    private final ConcurrentLinkedQueue<Timer<K>> pendingCancels = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger scheduled = new AtomicInteger();
+    private final AtomicLong callbackFailures = new AtomicLong();
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    public TimerWheel(Duration tick, Consumer<K> onExpire) {
+        this.tickNanos = Math.max(1, tick.toNanos());
+        this.originNanos = System.nanoTime();
+        this.onExpire = onExpire;
+        this.wheel = new Timer[LEVELS][BUCKETS];
+        for (int level = 0; level < LEVELS; level++) {
+            for (int i = 0; i < BUCKETS; i++) {
+                Timer<K> sentinel = new Timer<>(null, Long.MAX_VALUE);
+                sentinel.prev = sentinel;
+                sentinel.next = sentinel;
+                wheel[level][i] = sentinel;
+            }
+        }
+    }
+
+    /**
+     * Programa {@code key} para que venza en {@code deadlineNanos} (reloj de {@link System#nanoTime()})
+     */
+    public Timer<K> schedule(K key, long deadlineNanos) {
+        long deadlineTick = Math.max(0, (deadlineNanos - originNanos + tickNanos - 1) / tickNanos);
+        Timer<K> timer = new Timer<>(key, deadlineTick);
+        scheduled.incrementAndGet();
+        pendingSchedules.add(timer);
+        return timer;
+    }
+
+    /**
+     * Cancela un temporizador; no tiene efecto si ya venció
+     */
+    public void cancel(Timer<K> timer) {
+        if (timer != null && timer.transition(CANCELLED)) {
+            scheduled.decrementAndGet();
+            pendingCancels.add(timer);
+        }
+    }
+
+    /**
+     * Temporizadores programados que aún no han vencido ni se han cancelado
+     */
+    public int size() {
+        return scheduled.get();
+    }
+
+    /**
+     * Callbacks de vencimiento que terminaron con una excepción
+     */
+    public long callbackFailures() {
+        return callbackFailures.get();
+    }
+
+    /**
+     * Avanza la rueda hasta {@code nowNanos} y ejecuta los callbacks vencidos.
+     * Debe llamarse siempre desde el mismo hilo.
+     */
+    public void advance(long nowNanos) {
+        long targetTick = (nowNanos - originNanos) / tickNanos;
+        drainPending();
+        while (currentTick < targetTick) {
+            currentTick++;
+            cascade(currentTick);
+            expire(wheel[0][(int) (currentTick & BUCKET_MASK)]);
+        }
+    }
+
+    private void drainPending() {
+        Timer<K> timer;
+        while ((timer = pendingCancels.poll()) != null) {
+            unlink(timer);
+        }
+        while ((timer = pendingSchedules.poll()) != null) {
+            if (timer.state == SCHEDULED) {
+                place(timer);
+            }
+        }
+    }
+
+    /**
+     * Al dar la vuelta un nivel, baja a niveles inferiores el bucket del nivel superior que empieza ahora
+     */
+    private void cascade(long tick) {
+        for (int level = 1; level < LEVELS; level++) {
+            int shift = level * BUCKET_BITS;
+            if ((tick & ((1L << shift) - 1)) != 0) {
+                return;
+            }
+            Timer<K> sentinel = wheel[level][(int) ((tick >>> shift) & BUCKET_MASK)];
+            Timer<K> timer = sentinel.next;
+            sentinel.prev = sentinel;
+            sentinel.next = sentinel;
+            while (timer != sentinel) {
+                Timer<K> next = timer.next;
+                timer.linked = false;
+                if (timer.state == SCHEDULED) {
+                    place(timer);
+                }
+                timer = next;
+            }
+        }
+    }
+
+    private void expire(Timer<K> sentinel) {
+        Timer<K> timer = sentinel.next;
+        while (timer != sentinel) {
+            Timer<K> next = timer.next;
+            if (timer.deadlineTick <= currentTick) {
+                unlink(timer);
+                if (timer.transition(EXPIRED)) {
+                    scheduled.decrementAndGet();
+                    try {
+                        onExpire.accept(timer.key);
+                    } catch (RuntimeException e) {
+                        callbackFailures.incrementAndGet();
+                    }
+                }
+            }
+            timer = next;
+        }
+    }
+
+    private void place(Timer<K> timer) {
+        long delta = timer.deadlineTick - currentTick;
+        if (delta <= 0) {
+            // Ya vencido: al bucket del tick siguiente
+            link(wheel[0][(int) ((currentTick + 1) & BUCKET_MASK)], timer);
+            return;
+        }
+        for (int level = 0; level < LEVELS; level++) {
+            int shift = level * BUCKET_BITS;
+            if (delta < (1L << (shift + BUCKET_BITS))) {
+                link(wheel[level][(int) ((timer.deadlineTick >>> shift) & BUCKET_MASK)], timer);
+                return;
+            }
+        }
+        // Fuera del rango de la rueda: se aparca en el último bucket alcanzable y se recoloca al bajar
+        int topShift = (LEVELS - 1) * BUCKET_BITS;
+        long parkedTick = currentTick + (1L << (topShift + BUCKET_BITS)) - 1;
+        link(wheel[LEVELS - 1][(int) ((parkedTick >>> topShift) & BUCKET_MASK)], timer);
+    }
+
+    private void link(Timer<K> sentinel, Timer<K> timer) {
+        timer.linked = true;
+        timer.prev = sentinel.prev;
+        timer.next = sentinel;
+        sentinel.prev.next = timer;
+        sentinel.prev = timer;
+    }
+
+    private void unlink(Timer<K> timer) {
+        if (!timer.linked) {
+            return;
+        }
+        timer.prev.next = timer.next;
+        timer.next.prev = timer.prev;
+        timer.prev = null;
+        timer.next = null;
+        timer.linked = false;
+    }
+}
@@ -0,0 +1,89 @@
+package co.g3a.high_throughput_poc.worker.id;
+
+import java.security.NoSuchAlgorithmException;
+import java.security.SecureRandom;
+import java.util.UUID;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * UUIDv7 cuyos 74 bits aleatorios salen de un generador criptográfico, para ids que se
+ * entregan a clientes y no deben poder adivinarse.
+ *
+ * {@link UUID#randomUUID()} comparte un único {@link SecureRandom} entre todos los hilos.
+ * Aquí hay varias instancias DRBG independientes (stripes) elegidas por id de hilo, y cada una
+ * rellena un buffer para muchos ids de una vez, de modo que el coste del generador se amortiza
+ * y la contención se reparte.
+ */
+public class SecureTaskIdGenerator implements TaskIdGenerator {
+    private static final int BYTES_PER_ID = 10;
+    private static final int IDS_PER_REFILL = 64;
+
+    private static final class Stripe {
+        private final ReentrantLock lock = new ReentrantLock();
+        private final SecureRandom random = newSecureRandom();
+        private final byte[] buffer = new byte[BYTES_PER_ID * IDS_PER_REFILL];
+        private int position = buffer.length;
+    }
+
+    private final Stripe[] stripes;
+    private final int mask;
+
+    public SecureTaskIdGenerator() {
+        this(Runtime.getRuntime().availableProcessors() * 2);
+    }
+
+    public SecureTaskIdGenerator(int concurrency) {
+        int size = Integer.highestOneBit(Math.max(1, concurrency) - 1) << 1;
+        this.stripes = new Stripe[Math.max(1, size)];
+        this.mask = stripes.length - 1;
+        for (int i = 0; i < stripes.length; i++) {
+            stripes[i] = new Stripe();
+        }
+    }
+
+    @Override
+    public UUID nextId() {
+        long millis = System.currentTimeMillis();
+        Stripe stripe = stripes[spread(Thread.currentThread().threadId()) & mask];
+        int randA;
+        long randB;
+
+        stripe.lock.lock();
+        try {
+            if (stripe.position + BYTES_PER_ID > stripe.buffer.length) {
+                stripe.random.nextBytes(stripe.buffer);
+                stripe.position = 0;
+            }
+            byte[] buffer = stripe.buffer;
+            int p = stripe.position;
+            randA = ((buffer[p] & 0xFF) << 8) | (buffer[p + 1] & 0xFF);
+            randB = 0;
+            for (int i = 2; i < BYTES_PER_ID; i++) {
+                randB = (randB << 8) | (buffer[p + i] & 0xFF);
+            }
+            // No dejar bytes ya entregados en memoria
+            for (int i = 0; i < BYTES_PER_ID; i++) {
+                buffer[p + i] = 0;
+            }
+            stripe.position = p + BYTES_PER_ID;
+        } finally {
+            stripe.lock.unlock();
+        }
+
+        return TimeOrderedIdGenerator.compose(millis, randA, randB);
+    }
+
+    private static int spread(long threadId) {
+        long h = threadId * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32));
+    }
+
+    private static SecureRandom newSecureRandom() {
+        try {
+            // DRBG es thread-safe por instancia; NativePRNG comparte estado global entre instancias
+            return SecureRandom.getInstance("DRBG");
+        } catch (NoSuchAlgorithmException e) {
+            return new SecureRandom();
+        }
+    }
+}
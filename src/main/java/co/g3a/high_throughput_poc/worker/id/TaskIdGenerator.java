@@ -0,0 +1,11 @@
+package co.g3a.high_throughput_poc.worker.id;
+
+import java.util.UUID;
+
+/**
+ * Genera los identificadores de las tareas
+ */
+@FunctionalInterface
+public interface TaskIdGenerator {
+    UUID nextId();
+}
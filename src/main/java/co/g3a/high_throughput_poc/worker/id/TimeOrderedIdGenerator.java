@@ -0,0 +1,29 @@
+package co.g3a.high_throughput_poc.worker.id;
+
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * UUID versión 7: 48 bits de milisegundos Unix seguidos de 74 bits aleatorios.
+ *
+ * Los bits aleatorios salen de {@link ThreadLocalRandom}, sin estado compartido entre hilos,
+ * así que generar un id no compite con otros hilos. Los ids se ordenan por creación con
+ * resolución de milisegundo. No son impredecibles: no usar donde el id actúe como credencial.
+ */
+public class TimeOrderedIdGenerator implements TaskIdGenerator {
+
+    @Override
+    public UUID nextId() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        return compose(System.currentTimeMillis(), random.nextInt(), random.nextLong());
+    }
+
+    /**
+     * Monta un UUIDv7 con el timestamp dado; de {@code randA} se usan 12 bits y de {@code randB} 62
+     */
+    static UUID compose(long epochMillis, int randA, long randB) {
+        long msb = (epochMillis << 16) | 0x7000L | (randA & 0x0FFFL);
+        long lsb = (randB & 0x3FFFFFFFFFFFFFFFL) | 0x8000000000000000L;
+        return new UUID(msb, lsb);
+    }
+}
@@ -0,0 +1,33 @@
+package co.g3a.high_throughput_poc.worker.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Timespan;
+
+/**
+ * Tarea que sale de la cola con permiso del limitador: cuánto esperó en cola y al permiso
+ */
+@Name("co.g3a.worker.TaskAdmitted")
+@Label("Task Admitted")
+@Description("Task left the queue and obtained a concurrency permit")
+@Category({"Worker", "Task"})
+@StackTrace(false)
+public final class TaskAdmittedEvent extends Event {
+    @Label("Task Id")
+    String taskId;
+
+    @Label("Task Type")
+    String taskType;
+
+    @Label("Queue Wait")
+    @Timespan
+    long queueWait;
+
+    @Label("Permit Wait")
+    @Timespan
+    long permitWait;
+}
@@ -0,0 +1,34 @@
+package co.g3a.high_throughput_poc.worker.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Timespan;
+
+/**
+ * Escritura del evento de una tarea en un SSE o respuesta en streaming
+ */
+@Name("co.g3a.worker.TaskDelivered")
+@Label("Task Delivered")
+@Description("Write of a task event to an SSE or streaming response")
+@Category({"Worker", "Task"})
+@StackTrace(false)
+public final class TaskDeliveredEvent extends Event {
+    @Label("Task Id")
+    String taskId;
+
+    @Label("Task Type")
+    String taskType;
+
+    @Label("Channel")
+    @Description("sse, session or batch")
+    String channel;
+
+    @Label("Buffered")
+    @Description("Time the event waited for the writer")
+    @Timespan
+    long buffered;
+}
@@ -0,0 +1,29 @@
+package co.g3a.high_throughput_poc.worker.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.DataAmount;
+
+/**
+ * Serialización del resultado a JSON
+ */
+@Name("co.g3a.worker.TaskEncoded")
+@Label("Task Result Encoded")
+@Description("Serialization of a task result to JSON")
+@Category({"Worker", "Task"})
+@StackTrace(false)
+public final class TaskEncodedEvent extends Event {
+    @Label("Task Id")
+    String taskId;
+
+    @Label("Task Type")
+    String taskType;
+
+    @Label("Size")
+    @DataAmount
+    long bytes;
+}
@@ -0,0 +1,33 @@
+package co.g3a.high_throughput_poc.worker.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Tarea aceptada en la cola
+ */
+@Name("co.g3a.worker.TaskEnqueued")
+@Label("Task Enqueued")
+@Description("Task accepted into the priority queue")
+@Category({"Worker", "Task"})
+@StackTrace(false)
+public final class TaskEnqueuedEvent extends Event {
+    @Label("Task Id")
+    String taskId;
+
+    @Label("Task Type")
+    String taskType;
+
+    @Label("Priority")
+    String priority;
+
+    @Label("Client")
+    String clientId;
+
+    @Label("Cost")
+    int cost;
+}
@@ -0,0 +1,133 @@
+package co.g3a.high_throughput_poc.worker.jfr;
+
+import co.g3a.high_throughput_poc.worker.WorkTask;
+import co.g3a.high_throughput_poc.worker.encoding.EncodedResult;
+
+import java.util.UUID;
+
+/**
+ * Emisión de los eventos JFR del ciclo de vida de las tareas.
+ *
+ * Sin una grabación que los active, {@code shouldCommit()} devuelve false y el JIT elimina el
+ * evento: el coste es una comprobación. Los campos (y el {@code toString} del id) solo se
+ * rellenan cuando el evento se va a grabar.
+ */
+public final class TaskEvents {
+
+    private TaskEvents() {
+    }
+
+    public static void enqueued(WorkTask<?, ?> task) {
+        TaskEnqueuedEvent event = new TaskEnqueuedEvent();
+        if (event.shouldCommit()) {
+            event.taskId = id(task.getId());
+            event.taskType = task.getType();
+            event.priority = task.getPriority().name();
+            event.clientId = task.getClientId();
+            event.cost = task.getCost();
+            event.commit();
+        }
+    }
+
+    public static void admitted(WorkTask<?, ?> task, long queueWaitNanos, long permitWaitNanos) {
+        TaskAdmittedEvent event = new TaskAdmittedEvent();
+        if (event.shouldCommit()) {
+            event.taskId = id(task.getId());
+            event.taskType = task.getType();
+            event.queueWait = queueWaitNanos;
+            event.permitWait = permitWaitNanos;
+            event.commit();
+        }
+    }
+
+    /**
+     * @param stage enqueue, dispatch o execution
+     */
+    public static void rejected(WorkTask<?, ?> task, String stage, Object reason) {
+        TaskRejectedEvent event = new TaskRejectedEvent();
+        if (event.shouldCommit()) {
+            event.taskId = id(task.getId());
+            event.taskType = task.getType();
+            event.stage = stage;
+            event.reason = String.valueOf(reason);
+            event.commit();
+        }
+    }
+
+    public static TaskExecutionEvent beginExecution() {
+        TaskExecutionEvent event = new TaskExecutionEvent();
+        event.begin();
+        return event;
+    }
+
+    /**
+     * @param taskId null en la ruta síncrona, que no registra la tarea
+     */
+    public static void endExecution(TaskExecutionEvent event, UUID taskId, String taskType, Object profile,
+                                    Object outcome, boolean synchronous) {
+        event.end();
+        if (event.shouldCommit()) {
+            event.taskId = id(taskId);
+            event.taskType = taskType;
+            event.profile = String.valueOf(profile);
+            event.outcome = String.valueOf(outcome);
+            event.synchronous = synchronous;
+            event.commit();
+        }
+    }
+
+    public static TaskEncodedEvent beginEncoding() {
+        TaskEncodedEvent event = new TaskEncodedEvent();
+        event.begin();
+        return event;
+    }
+
+    public static void endEncoding(TaskEncodedEvent event, UUID taskId, String taskType, Object encoded) {
+        event.end();
+        if (event.shouldCommit()) {
+            event.taskId = id(taskId);
+            event.taskType = taskType;
+            event.bytes = encoded instanceof EncodedResult result ? result.length() : -1;
+            event.commit();
+        }
+    }
+
+    public static TaskDeliveredEvent beginDelivery() {
+        TaskDeliveredEvent event = new TaskDeliveredEvent();
+        event.begin();
+        return event;
+    }
+
+    /**
+     * @param bufferedNanos tiempo que el evento esperó en el buffer del stream antes de escribirse
+     */
+    public static void endDelivery(TaskDeliveredEvent event, UUID taskId, String taskType, String channel,
+                                   long bufferedNanos) {
+        event.end();
+        if (event.shouldCommit()) {
+            event.taskId = id(taskId);
+            event.taskType = taskType;
+            event.channel = channel;
+            event.buffered = bufferedNanos;
+            event.commit();
+        }
+    }
+
+    /**
+     * @param reason deadline o retention
+     */
+    public static void expired(WorkTask<?, ?> task, String reason, long ageNanos) {
+        TaskExpiredEvent event = new TaskExpiredEvent();
+        if (event.shouldCommit()) {
+            event.taskId = id(task.getId());
+            event.taskType = task.getType();
+            event.reason = reason;
+            event.age = ageNanos;
+            event.commit();
+        }
+    }
+
+    private static String id(UUID taskId) {
+        return taskId != null ? taskId.toString() : null;
+    }
+}
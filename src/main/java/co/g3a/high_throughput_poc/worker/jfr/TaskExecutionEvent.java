@@ -0,0 +1,33 @@
+package co.g3a.high_throughput_poc.worker.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Llamada al procesador (incluye sus consultas); la duración del evento es la de la ejecución
+ */
+@Name("co.g3a.worker.TaskExecution")
+@Label("Task Execution")
+@Description("Processor call for a task, including its database work and result encoding")
+@Category({"Worker", "Task"})
+@StackTrace(false)
+public final class TaskExecutionEvent extends Event {
+    @Label("Task Id")
+    String taskId;
+
+    @Label("Task Type")
+    String taskType;
+
+    @Label("Execution Profile")
+    String profile;
+
+    @Label("Outcome")
+    String outcome;
+
+    @Label("Synchronous")
+    boolean synchronous;
+}
@@ -0,0 +1,33 @@
+package co.g3a.high_throughput_poc.worker.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Timespan;
+
+/**
+ * Tarea que vence su deadline pendiente o cuyo resultado se descarta tras la retención
+ */
+@Name("co.g3a.worker.TaskExpired")
+@Label("Task Expired")
+@Description("Deadline reached while pending, or result dropped after retention")
+@Category({"Worker", "Task"})
+@StackTrace(false)
+public final class TaskExpiredEvent extends Event {
+    @Label("Task Id")
+    String taskId;
+
+    @Label("Task Type")
+    String taskType;
+
+    @Label("Reason")
+    @Description("deadline or retention")
+    String reason;
+
+    @Label("Age")
+    @Timespan
+    long age;
+}
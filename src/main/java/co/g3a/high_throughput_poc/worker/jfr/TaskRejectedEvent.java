@@ -0,0 +1,31 @@
+package co.g3a.high_throughput_poc.worker.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Tarea rechazada al encolar (cola o cuota llenas) o al despacharla (compartimento, espera máxima)
+ */
+@Name("co.g3a.worker.TaskRejected")
+@Label("Task Rejected")
+@Description("Task refused at enqueue or dispatch")
+@Category({"Worker", "Task"})
+@StackTrace(false)
+public final class TaskRejectedEvent extends Event {
+    @Label("Task Id")
+    String taskId;
+
+    @Label("Task Type")
+    String taskType;
+
+    @Label("Stage")
+    @Description("enqueue, dispatch or execution")
+    String stage;
+
+    @Label("Reason")
+    String reason;
+}
@@ -0,0 +1,469 @@
+package co.g3a.high_throughput_poc.worker.jfr;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordedFrame;
+import jdk.jfr.consumer.RecordedStackTrace;
+import jdk.jfr.consumer.RecordedThread;
+import jdk.jfr.consumer.RecordingStream;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Pinning de hilos virtuales y ocupación de sus carriers.
+ *
+ * Escucha en el propio proceso los eventos JFR jdk.VirtualThreadPinned (un hilo virtual que se
+ * bloqueó sin poder soltar el carrier, p.ej. dentro de un synchronized de H2 o del driver) y
+ * jdk.VirtualThreadSubmitFailed, y atribuye cada uno al frame donde se bloqueó y al tipo de
+ * tarea del hilo. El tipo sale de {@link #enter}/{@link #exit}, que el worker llama alrededor
+ * de cada procesador; como los eventos llegan con hasta un segundo de retraso, el tipo de los
+ * hilos que ya terminaron se conserva unos segundos.
+ *
+ * Los carriers se muestrean periódicamente en un hilo propio del monitor: uno tiene un hilo
+ * virtual montado si su pila se detiene en Continuation.run, y si además está bloqueado es que
+ * el hilo montado está fijado y esperando. Leer la pila de cada carrier no es gratis, así que
+ * el monitor está desactivado por defecto y el intervalo de muestreo no debe ser muy corto.
+ *
+ * El constructor no publica el monitor; el stream JFR, los gauges y el muestreo arrancan en
+ * {@link #start()}.
+ */
+public class VirtualThreadMonitor implements AutoCloseable {
+
+    public static final VirtualThreadMonitor DISABLED = new VirtualThreadMonitor();
+
+    private static final String UNATTRIBUTED = "(none)";
+    private static final String OTHER_SITE = "(other)";
+    private static final String CARRIER_THREAD = "jdk.internal.misc.CarrierThread";
+    private static final String CONTINUATION = "jdk.internal.vm.Continuation";
+    private static final int REPORTED_SITES = 20;
+    // Margen para los eventos que llegan después de que el hilo terminara la tarea
+    private static final long ATTRIBUTION_RETENTION_NANOS = TimeUnit.SECONDS.toNanos(5);
+    private static final long CARRIER_WINDOW_NANOS = TimeUnit.SECONDS.toNanos(1);
+
+    private final Duration pinnedThreshold;
+    private final Duration carrierSampleInterval;
+    private final int maxSites;
+    private final int stackDepth;
+    private final MeterRegistry registry;
+    private volatile boolean enabled;
+    private volatile boolean started;
+    private volatile RecordingStream stream;
+    private volatile ScheduledExecutorService sampler;
+    private volatile String error;
+
+    // Tipo de tarea por id de hilo virtual: en curso y terminadas hace poco (dos generaciones)
+    private final ConcurrentMap<Long, String> running = new ConcurrentHashMap<>();
+    private volatile ConcurrentMap<Long, String> finished = new ConcurrentHashMap<>();
+    private volatile ConcurrentMap<Long, String> finishedBefore = new ConcurrentHashMap<>();
+    private long lastRotationNanos = System.nanoTime();
+
+    private final Map<String, PinStats> pinnedByType = new HashMap<>();
+    private final Map<String, Timer> pinnedTimers = new HashMap<>();
+    private final ConcurrentMap<String, Site> sites = new ConcurrentHashMap<>();
+    private final PinStats pinnedTotal = new PinStats();
+    private final AtomicLong submitFailures = new AtomicLong();
+    private final AtomicLong sampleFailures = new AtomicLong();
+    private volatile String lastSubmitFailure;
+
+    // Muestreo de carriers
+    private final int parallelism;
+    private ThreadGroup carrierGroup;
+    private long lastDiscoveryNanos;
+    private long windowStartNanos = System.nanoTime();
+    private long mountedSum;
+    private long pinnedSum;
+    private int samples;
+    private volatile int carriers;
+    private volatile int mounted;
+    private volatile double meanMounted;
+    private volatile double meanPinnedCarriers;
+
+    private VirtualThreadMonitor() {
+        this.pinnedThreshold = Duration.ZERO;
+        this.carrierSampleInterval = Duration.ZERO;
+        this.maxSites = 0;
+        this.stackDepth = 0;
+        this.registry = null;
+        this.parallelism = 0;
+    }
+
+    public VirtualThreadMonitor(Duration pinnedThreshold, Duration carrierSampleInterval, int maxSites, int stackDepth,
+                                Collection<String> taskTypes, MeterRegistry registry) {
+        this.pinnedThreshold = pinnedThreshold;
+        this.carrierSampleInterval = carrierSampleInterval;
+        this.maxSites = Math.max(1, maxSites);
+        this.stackDepth = Math.max(1, stackDepth);
+        this.registry = registry;
+        this.parallelism = Integer.getInteger("jdk.virtualThreadScheduler.parallelism",
+                Runtime.getRuntime().availableProcessors());
+
+        List<String> types = new ArrayList<>(taskTypes);
+        types.add(UNATTRIBUTED);
+        for (String type : types) {
+            pinnedByType.put(type, new PinStats());
+            pinnedTimers.put(type, Timer.builder("worker.vthreads.pinned")
+                    .description("Time virtual threads spent blocked while pinned to their carrier")
+                    .tag("type", type)
+                    .register(registry));
+        }
+    }
+
+    /**
+     * Registra los gauges, arranca el stream JFR y programa el muestreo de carriers en su propio
+     * hilo. Si JFR no está disponible el monitor queda desactivado y el motivo aparece en las
+     * estadísticas.
+     */
+    public synchronized void start() {
+        if (registry == null || started) {
+            return;
+        }
+        started = true;
+        registerGauges(registry);
+
+        RecordingStream recordingStream = null;
+        try {
+            recordingStream = new RecordingStream();
+            recordingStream.enable("jdk.VirtualThreadPinned").withThreshold(pinnedThreshold).withStackTrace();
+            recordingStream.enable("jdk.VirtualThreadSubmitFailed").withStackTrace();
+            recordingStream.onEvent("jdk.VirtualThreadPinned", this::onPinned);
+            recordingStream.onEvent("jdk.VirtualThreadSubmitFailed", this::onSubmitFailed);
+            recordingStream.setMaxAge(Duration.ofSeconds(30));
+            recordingStream.startAsync();
+        } catch (RuntimeException e) {
+            if (recordingStream != null) {
+                recordingStream.close();
+            }
+            error = e.getMessage();
+            return;
+        }
+        stream = recordingStream;
+        enabled = true;
+
+        long sampleMs = Math.max(1, carrierSampleInterval.toMillis());
+        ScheduledExecutorService executor = Executors.newSingleThreadScheduledExecutor(
+                Thread.ofPlatform().name("vthread-carrier-sampler").daemon(true).factory());
+        executor.scheduleAtFixedRate(() -> {
+            try {
+                sampleCarriers();
+            } catch (RuntimeException e) {
+                // Una excepción cancelaría el muestreo periódico
+                sampleFailures.incrementAndGet();
+            }
+        }, sampleMs, sampleMs, TimeUnit.MILLISECONDS);
+        sampler = executor;
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * El hilo actual empieza a ejecutar una tarea del tipo dado
+     */
+    public void enter(String taskType) {
+        if (enabled && Thread.currentThread().isVirtual()) {
+            running.put(Thread.currentThread().threadId(), taskType);
+        }
+    }
+
+    public void exit() {
+        if (enabled && Thread.currentThread().isVirtual()) {
+            long threadId = Thread.currentThread().threadId();
+            String taskType = running.remove(threadId);
+            if (taskType != null) {
+                finished.put(threadId, taskType);
+            }
+        }
+    }
+
+    private String taskTypeOf(RecordedThread thread) {
+        if (thread == null) {
+            return UNATTRIBUTED;
+        }
+        long threadId = thread.getJavaThreadId();
+        String taskType = running.get(threadId);
+        if (taskType == null) {
+            taskType = finished.get(threadId);
+        }
+        if (taskType == null) {
+            taskType = finishedBefore.get(threadId);
+        }
+        return taskType != null && pinnedByType.containsKey(taskType) ? taskType : UNATTRIBUTED;
+    }
+
+    // Los callbacks del stream corren en un único hilo
+    private void onPinned(RecordedEvent event) {
+        long nanos = event.getDuration().toNanos();
+        String taskType = taskTypeOf(event.getThread());
+        pinnedTotal.record(nanos);
+        pinnedByType.get(taskType).record(nanos);
+        pinnedTimers.get(taskType).record(nanos, TimeUnit.NANOSECONDS);
+        site(event.getStackTrace()).record(taskType, nanos);
+    }
+
+    private void onSubmitFailed(RecordedEvent event) {
+        submitFailures.incrementAndGet();
+        if (event.hasField("exceptionMessage")) {
+            lastSubmitFailure = event.getString("exceptionMessage");
+        }
+    }
+
+    /**
+     * Sitio del pinning: el primer frame fuera del JDK, que es el código que se bloqueó
+     * dentro de un monitor. Se guardan las primeras pilas de cada sitio como muestra.
+     */
+    private Site site(RecordedStackTrace stackTrace) {
+        List<RecordedFrame> frames = stackTrace != null ? stackTrace.getFrames() : List.of();
+        RecordedFrame siteFrame = frames.isEmpty() ? null : frames.get(0);
+        for (RecordedFrame frame : frames) {
+            if (frame.isJavaFrame() && !isJdkFrame(frame)) {
+                siteFrame = frame;
+                break;
+            }
+        }
+        String key = siteFrame != null ? format(siteFrame) : OTHER_SITE;
+        Site site = sites.get(key);
+        if (site == null) {
+            if (sites.size() >= maxSites) {
+                return sites.computeIfAbsent(OTHER_SITE, ignored -> new Site(List.of()));
+            }
+            List<String> stack = new ArrayList<>();
+            for (int i = 0; i < Math.min(stackDepth, frames.size()); i++) {
+                stack.add(format(frames.get(i)));
+            }
+            site = new Site(stack);
+            sites.put(key, site);
+        }
+        return site;
+    }
+
+    private static boolean isJdkFrame(RecordedFrame frame) {
+        String className = frame.getMethod().getType().getName();
+        return className.startsWith("java.") || className.startsWith("jdk.") || className.startsWith("sun.");
+    }
+
+    private static String format(RecordedFrame frame) {
+        return frame.getMethod().getType().getName() + "." + frame.getMethod().getName()
+                + ":" + frame.getLineNumber();
+    }
+
+    /**
+     * Muestrea los carriers; lo llama periódicamente el hilo de muestreo del monitor
+     */
+    private synchronized void sampleCarriers() {
+        long now = System.nanoTime();
+        int mountedNow = 0;
+        int pinnedNow = 0;
+        Thread[] threads = carrierThreads(now);
+        int carrierCount = 0;
+        for (Thread carrier : threads) {
+            if (carrier == null) {
+                break;
+            }
+            carrierCount++;
+            StackTraceElement[] stack = carrier.getStackTrace();
+            if (stack.length > 0 && CONTINUATION.equals(stack[0].getClassName())
+                    && "run".equals(stack[0].getMethodName())) {
+                mountedNow++;
+                Thread.State state = carrier.getState();
+                if (state == Thread.State.WAITING || state == Thread.State.TIMED_WAITING
+                        || state == Thread.State.BLOCKED) {
+                    pinnedNow++;
+                }
+            }
+        }
+        carriers = carrierCount;
+        mounted = mountedNow;
+        mountedSum += mountedNow;
+        pinnedSum += pinnedNow;
+        samples++;
+
+        if (now - windowStartNanos >= CARRIER_WINDOW_NANOS) {
+            meanMounted = (double) mountedSum / samples;
+            meanPinnedCarriers = (double) pinnedSum / samples;
+            mountedSum = 0;
+            pinnedSum = 0;
+            samples = 0;
+            windowStartNanos = now;
+        }
+        if (now - lastRotationNanos >= ATTRIBUTION_RETENTION_NANOS) {
+            finishedBefore = finished;
+            finished = new ConcurrentHashMap<>();
+            lastRotationNanos = now;
+        }
+    }
+
+    /**
+     * Carriers vivos. El grupo de los carriers se localiza una vez con un volcado de hilos; a
+     * partir de ahí basta con enumerarlo.
+     */
+    private Thread[] carrierThreads(long now) {
+        if (carrierGroup == null) {
+            if (now - lastDiscoveryNanos < CARRIER_WINDOW_NANOS && lastDiscoveryNanos != 0) {
+                return new Thread[0];
+            }
+            lastDiscoveryNanos = now;
+            for (Thread thread : Thread.getAllStackTraces().keySet()) {
+                if (CARRIER_THREAD.equals(thread.getClass().getName())) {
+                    carrierGroup = thread.getThreadGroup();
+                    break;
+                }
+            }
+            if (carrierGroup == null) {
+                return new Thread[0];
+            }
+        }
+        Thread[] threads = new Thread[carrierGroup.activeCount() + 4];
+        carrierGroup.enumerate(threads, false);
+        return threads;
+    }
+
+    private double utilization() {
+        return parallelism > 0 ? Math.min(1.0, meanMounted / parallelism) : 0;
+    }
+
+    private void registerGauges(MeterRegistry registry) {
+        Gauge.builder("worker.vthreads.carriers", this, monitor -> monitor.carriers)
+                .description("Carrier threads of the virtual thread scheduler")
+                .register(registry);
+        Gauge.builder("worker.vthreads.mounted", this, monitor -> monitor.meanMounted)
+                .description("Mean virtual threads mounted on a carrier over the last second")
+                .register(registry);
+        Gauge.builder("worker.vthreads.carrier.utilization", this, VirtualThreadMonitor::utilization)
+                .description("Mounted virtual threads relative to the scheduler parallelism")
+                .register(registry);
+        Gauge.builder("worker.vthreads.carriers.pinned", this, monitor -> monitor.meanPinnedCarriers)
+                .description("Mean carriers blocked by a pinned virtual thread over the last second")
+                .register(registry);
+        FunctionCounter.builder("worker.vthreads.submit.failed", submitFailures, AtomicLong::get)
+                .description("Virtual threads that could not be scheduled on a carrier")
+                .register(registry);
+    }
+
+    public Map<String, Object> getStatistics() {
+        Map<String, Object> statistics = new HashMap<>();
+        statistics.put("enabled", enabled);
+        if (!enabled) {
+            if (error != null) {
+                statistics.put("error", error);
+            }
+            return statistics;
+        }
+        statistics.put("pinnedThresholdMs", pinnedThreshold.toMillis());
+        statistics.put("carrierSampleIntervalMs", carrierSampleInterval.toMillis());
+
+        Map<String, Object> carrierStats = new HashMap<>();
+        carrierStats.put("parallelism", parallelism);
+        carrierStats.put("carriers", carriers);
+        carrierStats.put("mounted", mounted);
+        carrierStats.put("meanMounted", Math.round(meanMounted * 100) / 100.0);
+        carrierStats.put("utilization", Math.round(utilization() * 1000) / 1000.0);
+        carrierStats.put("meanPinned", Math.round(meanPinnedCarriers * 100) / 100.0);
+        carrierStats.put("sampleFailures", sampleFailures.get());
+        statistics.put("carriers", carrierStats);
+
+        Map<String, Object> pinned = pinnedTotal.describe();
+        Map<String, Object> byType = new HashMap<>();
+        pinnedByType.forEach((type, stats) -> {
+            if (stats.count.sum() > 0) {
+                byType.put(type, stats.describe());
+            }
+        });
+        pinned.put("byTaskType", byType);
+        List<Map.Entry<String, Site>> topSites = new ArrayList<>(sites.entrySet());
+        topSites.sort(Comparator.comparingLong((Map.Entry<String, Site> entry) -> entry.getValue().stats.nanos.sum())
+                .reversed());
+        List<Map<String, Object>> siteList = new ArrayList<>();
+        for (Map.Entry<String, Site> entry : topSites.subList(0, Math.min(REPORTED_SITES, topSites.size()))) {
+            Map<String, Object> site = entry.getValue().describe();
+            site.put("site", entry.getKey());
+            siteList.add(site);
+        }
+        pinned.put("sites", siteList);
+        statistics.put("pinned", pinned);
+
+        Map<String, Object> submitFailed = new HashMap<>();
+        submitFailed.put("count", submitFailures.get());
+        if (lastSubmitFailure != null) {
+            submitFailed.put("lastError", lastSubmitFailure);
+        }
+        statistics.put("submitFailed", submitFailed);
+        return statistics;
+    }
+
+    @Override
+    public synchronized void close() {
+        enabled = false;
+        if (sampler != null) {
+            sampler.shutdownNow();
+        }
+        if (stream != null) {
+            stream.close();
+        }
+    }
+
+    private static final class PinStats {
+        private final LongAdder count = new LongAdder();
+        private final LongAdder nanos = new LongAdder();
+        private volatile long maxNanos;
+
+        // Un solo escritor (el hilo del stream)
+        void record(long pinnedNanos) {
+            count.increment();
+            nanos.add(pinnedNanos);
+            if (pinnedNanos > maxNanos) {
+                maxNanos = pinnedNanos;
+            }
+        }
+
+        Map<String, Object> describe() {
+            Map<String, Object> description = new HashMap<>();
+            description.put("count", count.sum());
+            description.put("totalMs", nanos.sum() / 1_000_000.0);
+            description.put("maxMs", maxNanos / 1_000_000.0);
+            return description;
+        }
+    }
+
+    private static final class Site {
+        private final PinStats stats = new PinStats();
+        private final ConcurrentMap<String, LongAdder> countByType = new ConcurrentHashMap<>();
+        private final List<String> stack;
+
+        Site(List<String> stack) {
+            this.stack = stack;
+        }
+
+        void record(String taskType, long nanos) {
+            stats.record(nanos);
+            countByType.computeIfAbsent(taskType, ignored -> new LongAdder()).increment();
+        }
+
+        Map<String, Object> describe() {
+            Map<String, Object> description = stats.describe();
+            Map<String, Long> byType = new HashMap<>();
+            countByType.forEach((type, count) -> byType.put(type, count.sum()));
+            description.put("byTaskType", byType);
+            if (!stack.isEmpty()) {
+                description.put("stack", stack);
+            }
+            return description;
+        }
+    }
+}
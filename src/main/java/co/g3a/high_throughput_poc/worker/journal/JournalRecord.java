@@ -0,0 +1,28 @@
+package co.g3a.high_throughput_poc.worker.journal;
+
+import co.g3a.high_throughput_poc.worker.WorkTask;
+
+import java.util.UUID;
+
+/**
+ * Registros leídos del journal durante la recuperación
+ */
+public final class JournalRecord {
+
+    private JournalRecord() {
+    }
+
+    /**
+     * Tarea aceptada; {@code payload} es el JSON del payload o null
+     */
+    public record Accepted(UUID taskId, String taskType, long createdAtMillis, long deadlineEpochMillis,
+                           byte[] payload) {
+    }
+
+    /**
+     * Tarea terminada; {@code result} es el JSON del resultado, o null si no lo hay o no cabía en el journal
+     */
+    public record Completed(UUID taskId, String taskType, long createdAtMillis, WorkTask.TaskStatus status,
+                            long processedAtMillis, byte[] result) {
+    }
+}
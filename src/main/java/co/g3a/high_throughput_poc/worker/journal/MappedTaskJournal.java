@@ -0,0 +1,605 @@
+package co.g3a.high_throughput_poc.worker.journal;
+
+import co.g3a.high_throughput_poc.worker.WorkTask;
+import co.g3a.high_throughput_poc.worker.WorkerProperties;
+import co.g3a.high_throughput_poc.worker.encoding.EncodedResult;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+import java.util.zip.CRC32C;
+
+/**
+ * Journal de solo escritura sobre ficheros de segmento mapeados en memoria.
+ *
+ * Cada registro es {@code [longitud][crc32c][cuerpo]}. Escribir es copiar el registro ya
+ * serializado al segmento activo bajo un lock; lo escrito en el mapeo sobrevive a la caída
+ * del proceso aunque no se haya hecho fsync. La durabilidad frente a la caída del equipo la
+ * decide {@link WorkerProperties.Journal.FsyncPolicy}: un hilo hace {@code force()} del
+ * segmento activo y todos los registros escritos hasta ese momento quedan confirmados a la
+ * vez (group commit).
+ *
+ * Cuando un registro no cabe, el segmento se sella y se abre el siguiente. Un segmento
+ * sellado deja de hacer falta cuando pasó la retención de resultados: las tareas que siguen
+ * pendientes en él se copian al segmento activo y el fichero se borra.
+ *
+ * Al abrir, se leen los segmentos existentes hasta el primer registro incompleto o corrupto
+ * de cada uno (escritura a medias) y se empieza un segmento nuevo.
+ */
+public class MappedTaskJournal implements TaskJournal {
+
+    private static final int HEADER_BYTES = 8;
+    private static final byte ACCEPTED = 1;
+    private static final byte COMPLETED = 2;
+    private static final Pattern SEGMENT_NAME = Pattern.compile("journal-(\\d{10})\\.log");
+    private static final WorkTask.TaskStatus[] STATUSES = WorkTask.TaskStatus.values();
+
+    private static final class Segment {
+        final long index;
+        final Path path;
+        final FileChannel channel;
+        final MappedByteBuffer buffer;
+        int writePosition;
+        // Hasta dónde lo ha forzado el flusher; solo lo toca ese hilo
+        int flushedPosition;
+        long sealedAtNanos;
+
+        Segment(long index, Path path, FileChannel channel, MappedByteBuffer buffer) {
+            this.index = index;
+            this.path = path;
+            this.channel = channel;
+            this.buffer = buffer;
+        }
+    }
+
+    private record Location(Segment segment, int offset, int length) {
+    }
+
+    private final Path directory;
+    private final int segmentSize;
+    private final int maxRecordSize;
+    private final WorkerProperties.Journal.FsyncPolicy fsync;
+    private final long flushIntervalNanos;
+    private final long retentionNanos;
+    private final ObjectMapper objectMapper;
+
+    private final ReentrantLock appendLock = new ReentrantLock();
+    private final ArrayDeque<Segment> sealed = new ArrayDeque<>();
+    private volatile Segment active;
+    // Registro ACCEPTED vigente de cada tarea pendiente; solo se modifica con appendLock
+    private final ConcurrentHashMap<UUID, Location> pendingLocations = new ConcurrentHashMap<>();
+
+    // Posición global (índice de segmento * tamaño + offset) escrita y confirmada en disco
+    private final ReentrantLock flushLock = new ReentrantLock();
+    private final Condition flushRequested = flushLock.newCondition();
+    private final Condition flushCompleted = flushLock.newCondition();
+    private volatile long appendedPosition;
+    private volatile long durablePosition;
+    private final Thread flusher;
+    private volatile boolean closed;
+
+    private Recovery recovery;
+
+    private final LongAdder records = new LongAdder();
+    private final LongAdder bytes = new LongAdder();
+    private final LongAdder fsyncs = new LongAdder();
+    private final LongAdder oversizedRecords = new LongAdder();
+    private final LongAdder payloadSerializationFailures = new LongAdder();
+    private final LongAdder copiedRecords = new LongAdder();
+    private final LongAdder deletedSegments = new LongAdder();
+
+    public MappedTaskJournal(WorkerProperties.Journal config, Duration retention, ObjectMapper objectMapper) {
+        this.directory = Path.of(config.getDirectory());
+        this.segmentSize = (int) Math.min(Integer.MAX_VALUE, config.getSegmentSize().toBytes());
+        this.maxRecordSize = segmentSize / 4;
+        this.fsync = config.getFsync();
+        this.flushIntervalNanos = Math.max(1, config.getFlushInterval().toNanos());
+        this.retentionNanos = retention.toNanos();
+        this.objectMapper = objectMapper;
+
+        try {
+            Files.createDirectories(directory);
+            this.recovery = readExistingSegments();
+            long nextIndex = sealed.isEmpty() ? 1 : sealed.peekLast().index + 1;
+            this.active = openSegment(nextIndex);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot open task journal in " + directory, e);
+        }
+        this.appendedPosition = position(active);
+        this.durablePosition = appendedPosition;
+
+        if (fsync != WorkerProperties.Journal.FsyncPolicy.NEVER) {
+            this.flusher = Thread.ofPlatform().name("task-journal-flusher").daemon(true).start(this::flushLoop);
+        } else {
+            this.flusher = null;
+        }
+    }
+
+    @Override
+    public boolean isEnabled() {
+        return true;
+    }
+
+    @Override
+    public void appendAccepted(WorkTask<?, ?> task) {
+        byte[] payload;
+        try {
+            payload = task.getRequest() != null ? objectMapper.writeValueAsBytes(task.getRequest()) : null;
+        } catch (JsonProcessingException e) {
+            // Sin payload no se podría reencolar: la tarea sigue, pero sin registro en el journal
+            payloadSerializationFailures.increment();
+            return;
+        }
+        long deadlineEpochMillis = System.currentTimeMillis()
+                + TimeUnit.NANOSECONDS.toMillis(task.getDeadlineNanos() - System.nanoTime());
+
+        byte[] type = task.getType().getBytes(StandardCharsets.UTF_8);
+        int payloadLength = payload != null ? payload.length : 0;
+        ByteBuffer body = newRecord(ACCEPTED, task, type, 8 + 4 + payloadLength);
+        if (body == null) {
+            return;
+        }
+        body.putLong(deadlineEpochMillis);
+        body.putInt(payload != null ? payload.length : -1);
+        if (payload != null) {
+            body.put(payload);
+        }
+        append(seal(body), task.getId(), true);
+    }
+
+    @Override
+    public void appendCompleted(WorkTask<?, ?> task, EncodedResult encodedResult) {
+        Object result = task.getStatus() == WorkTask.TaskStatus.PROCESSED ? task.getResult() : null;
+        if (result != null && !(result instanceof EncodedResult) && encodedResult != null) {
+            result = encodedResult;
+        }
+        byte[] serialized = null;
+        int resultLength = -1;
+        if (result instanceof EncodedResult encoded) {
+            resultLength = encoded.length();
+        } else if (result != null) {
+            try {
+                serialized = objectMapper.writeValueAsBytes(result);
+                resultLength = serialized.length;
+            } catch (JsonProcessingException e) {
+                // Se registra la terminación sin resultado
+            }
+        }
+
+        byte[] type = task.getType().getBytes(StandardCharsets.UTF_8);
+        int fixed = 1 + 8 + 4;
+        if (resultLength > 0 && HEADER_BYTES + recordBodySize(type, fixed + resultLength) > maxRecordSize) {
+            // Un resultado demasiado grande no se re-sirve tras reiniciar, pero la tarea no se reencola
+            oversizedRecords.increment();
+            resultLength = -1;
+        }
+        ByteBuffer body = newRecord(COMPLETED, task, type, fixed + Math.max(0, resultLength));
+        if (body == null) {
+            return;
+        }
+        body.put((byte) task.getStatus().ordinal());
+        body.putLong(task.getProcessedAt() != null ? task.getProcessedAt().toEpochMilli() : System.currentTimeMillis());
+        body.putInt(resultLength);
+        if (resultLength > 0) {
+            if (serialized != null) {
+                body.put(serialized);
+            } else {
+                ((EncodedResult) result).writeTo(body);
+            }
+        }
+        append(seal(body), task.getId(), false);
+    }
+
+    private static int recordBodySize(byte[] type, int variable) {
+        return 1 + 16 + 2 + type.length + 8 + variable;
+    }
+
+    /**
+     * Reserva el registro completo (cabecera incluida) y escribe la parte común del cuerpo
+     */
+    private ByteBuffer newRecord(byte kind, WorkTask<?, ?> task, byte[] type, int variable) {
+        int bodySize = recordBodySize(type, variable);
+        if (HEADER_BYTES + bodySize > maxRecordSize) {
+            oversizedRecords.increment();
+            return null;
+        }
+        ByteBuffer record = ByteBuffer.allocate(HEADER_BYTES + bodySize);
+        record.position(HEADER_BYTES);
+        record.put(kind);
+        record.putLong(task.getId().getMostSignificantBits());
+        record.putLong(task.getId().getLeastSignificantBits());
+        record.putShort((short) type.length);
+        record.put(type);
+        record.putLong(task.getCreatedAt().toEpochMilli());
+        return record;
+    }
+
+    private static byte[] seal(ByteBuffer record) {
+        byte[] bytes = record.array();
+        CRC32C crc = new CRC32C();
+        crc.update(bytes, HEADER_BYTES, bytes.length - HEADER_BYTES);
+        record.putInt(0, bytes.length - HEADER_BYTES);
+        record.putInt(4, (int) crc.getValue());
+        return bytes;
+    }
+
+    private void append(byte[] record, UUID taskId, boolean accepted) {
+        long position;
+        appendLock.lock();
+        try {
+            if (closed) {
+                return;
+            }
+            Location location = write(record);
+            if (accepted) {
+                pendingLocations.put(taskId, location);
+            } else {
+                pendingLocations.remove(taskId);
+            }
+            position = position(active);
+            appendedPosition = position;
+        } finally {
+            appendLock.unlock();
+        }
+        records.increment();
+        bytes.add(record.length);
+
+        if (fsync == WorkerProperties.Journal.FsyncPolicy.ALWAYS) {
+            awaitDurable(position);
+        }
+    }
+
+    // Llamar con appendLock tomado
+    private Location write(byte[] record) {
+        if (active.writePosition + record.length > segmentSize) {
+            roll();
+        }
+        Segment segment = active;
+        int offset = segment.writePosition;
+        segment.buffer.put(offset, record);
+        segment.writePosition += record.length;
+        return new Location(segment, offset, record.length);
+    }
+
+    // Llamar con appendLock tomado
+    private void roll() {
+        Segment previous = active;
+        // Primero el segmento nuevo: si no se puede abrir, el activo sigue siendo el mismo y no se sella
+        Segment next;
+        try {
+            next = openSegment(previous.index + 1);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot open journal segment " + (previous.index + 1), e);
+        }
+        previous.sealedAtNanos = System.nanoTime();
+        sealed.addLast(previous);
+        active = next;
+        if (fsync != WorkerProperties.Journal.FsyncPolicy.NEVER) {
+            // El flusher solo fuerza el segmento activo: el que se sella se confirma aquí
+            previous.buffer.force();
+            fsyncs.increment();
+        }
+    }
+
+    private long position(Segment segment) {
+        return segment.index * segmentSize + segment.writePosition;
+    }
+
+    private void awaitDurable(long position) {
+        flushLock.lock();
+        try {
+            flushRequested.signal();
+            while (durablePosition < position && !closed) {
+                flushCompleted.awaitUninterruptibly();
+            }
+        } finally {
+            flushLock.unlock();
+        }
+    }
+
+    private void flushLoop() {
+        while (!closed) {
+            flushLock.lock();
+            try {
+                if (appendedPosition == durablePosition) {
+                    flushRequested.awaitNanos(flushIntervalNanos);
+                }
+            } catch (InterruptedException e) {
+                return;
+            } finally {
+                flushLock.unlock();
+            }
+
+            Segment segment = active;
+            long target = appendedPosition;
+            if (target == durablePosition) {
+                continue;
+            }
+            long end = target - segment.index * segmentSize;
+            if (end > segmentSize) {
+                // Se abrió otro segmento entre las dos lecturas: se repite con el nuevo activo
+                continue;
+            }
+            if (end > segment.flushedPosition) {
+                // Solo el rango escrito desde el último flush; si target cae en un segmento ya
+                // sellado, roll() lo forzó al sellarlo
+                segment.buffer.force(segment.flushedPosition, (int) end - segment.flushedPosition);
+                segment.flushedPosition = (int) end;
+                fsyncs.increment();
+            }
+
+            flushLock.lock();
+            try {
+                durablePosition = Math.max(durablePosition, target);
+                flushCompleted.signalAll();
+            } finally {
+                flushLock.unlock();
+            }
+
+            if (fsync == WorkerProperties.Journal.FsyncPolicy.INTERVAL) {
+                // Los escritores no esperan: se agrupa todo lo escrito durante el intervalo
+                try {
+                    Thread.sleep(Duration.ofNanos(flushIntervalNanos));
+                } catch (InterruptedException e) {
+                    return;
+                }
+            }
+        }
+    }
+
+    @Override
+    public Recovery recover() {
+        Recovery recovered = recovery;
+        recovery = new Recovery(List.of(), List.of());
+        return recovered;
+    }
+
+    @Override
+    public void compact() {
+        List<Segment> deletable = new ArrayList<>();
+        long copiedUpTo = 0;
+        long now = System.nanoTime();
+        appendLock.lock();
+        try {
+            while (!sealed.isEmpty() && !closed) {
+                Segment oldest = sealed.peekFirst();
+                if (now - oldest.sealedAtNanos < retentionNanos) {
+                    // Sus terminaciones aún pueden hacer falta para re-servir resultados
+                    break;
+                }
+                for (Map.Entry<UUID, Location> entry : pendingLocations.entrySet()) {
+                    Location location = entry.getValue();
+                    if (location.segment() != oldest) {
+                        continue;
+                    }
+                    byte[] record = new byte[location.length()];
+                    oldest.buffer.get(location.offset(), record);
+                    entry.setValue(write(record));
+                    copiedRecords.increment();
+                }
+                copiedUpTo = position(active);
+                appendedPosition = copiedUpTo;
+                sealed.pollFirst();
+                deletable.add(oldest);
+            }
+        } finally {
+            appendLock.unlock();
+        }
+
+        boolean copiesDurable = true;
+        if (!deletable.isEmpty() && fsync != WorkerProperties.Journal.FsyncPolicy.NEVER) {
+            // Las copias tienen que estar en disco antes de borrar el único registro durable de esas tareas
+            awaitDurable(copiedUpTo);
+            // Si se cerró el journal antes de confirmarlas, los segmentos se conservan y se compactan al reiniciar
+            copiesDurable = durablePosition >= copiedUpTo;
+        }
+        for (Segment segment : deletable) {
+            try {
+                segment.channel.close();
+                if (copiesDurable) {
+                    Files.deleteIfExists(segment.path);
+                    deletedSegments.increment();
+                }
+            } catch (IOException e) {
+                // Se reintentará al reiniciar: el segmento se leerá y volverá a compactarse
+            }
+        }
+    }
+
+    private Segment openSegment(long index) throws IOException {
+        Path path = directory.resolve(String.format("journal-%010d.log", index));
+        FileChannel channel = FileChannel.open(path,
+                StandardOpenOption.CREATE_NEW, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        try {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, segmentSize);
+            return new Segment(index, path, channel, buffer);
+        } catch (IOException | RuntimeException e) {
+            // Sin mapear no se usa: se borra para que el siguiente intento pueda crearlo de nuevo
+            channel.close();
+            Files.deleteIfExists(path);
+            throw e;
+        }
+    }
+
+    private Recovery readExistingSegments() throws IOException {
+        List<Path> paths;
+        try (Stream<Path> files = Files.list(directory)) {
+            paths = files.filter(path -> SEGMENT_NAME.matcher(path.getFileName().toString()).matches())
+                    .sorted()
+                    .toList();
+        }
+
+        Map<UUID, JournalRecord.Accepted> accepted = new LinkedHashMap<>();
+        Map<UUID, JournalRecord.Completed> completed = new LinkedHashMap<>();
+        for (Path path : paths) {
+            Matcher matcher = SEGMENT_NAME.matcher(path.getFileName().toString());
+            matcher.matches();
+            FileChannel channel = FileChannel.open(path, StandardOpenOption.READ);
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            Segment segment = new Segment(Long.parseLong(matcher.group(1)), path, channel, buffer);
+            segment.writePosition = readSegment(segment, accepted, completed);
+            segment.sealedAtNanos = System.nanoTime();
+            sealed.addLast(segment);
+        }
+
+        List<JournalRecord.Accepted> pending = new ArrayList<>();
+        accepted.forEach((taskId, record) -> {
+            if (!completed.containsKey(taskId)) {
+                pending.add(record);
+            }
+        });
+        pendingLocations.keySet().retainAll(accepted.keySet());
+        pendingLocations.keySet().removeAll(completed.keySet());
+        return new Recovery(pending, new ArrayList<>(completed.values()));
+    }
+
+    /**
+     * Lee los registros válidos de un segmento y devuelve dónde termina el último
+     */
+    private int readSegment(Segment segment, Map<UUID, JournalRecord.Accepted> accepted,
+                            Map<UUID, JournalRecord.Completed> completed) {
+        ByteBuffer buffer = segment.buffer;
+        int offset = 0;
+        CRC32C crc = new CRC32C();
+        while (offset + HEADER_BYTES <= buffer.limit()) {
+            int length = buffer.getInt(offset);
+            if (length <= 0 || offset + HEADER_BYTES + length > buffer.limit()) {
+                break;
+            }
+            crc.reset();
+            crc.update(buffer.slice(offset + HEADER_BYTES, length));
+            if ((int) crc.getValue() != buffer.getInt(offset + 4)) {
+                // Registro a medias: lo que sigue en este segmento no es fiable
+                break;
+            }
+
+            ByteBuffer body = buffer.slice(offset + HEADER_BYTES, length);
+            byte kind = body.get();
+            UUID taskId = new UUID(body.getLong(), body.getLong());
+            byte[] type = new byte[body.getShort()];
+            body.get(type);
+            String taskType = new String(type, StandardCharsets.UTF_8);
+            long createdAtMillis = body.getLong();
+
+            if (kind == ACCEPTED) {
+                long deadlineEpochMillis = body.getLong();
+                accepted.put(taskId, new JournalRecord.Accepted(taskId, taskType, createdAtMillis,
+                        deadlineEpochMillis, readBytes(body)));
+                pendingLocations.put(taskId, new Location(segment, offset, HEADER_BYTES + length));
+            } else if (kind == COMPLETED) {
+                WorkTask.TaskStatus status = STATUSES[body.get()];
+                long processedAtMillis = body.getLong();
+                completed.put(taskId, new JournalRecord.Completed(taskId, taskType, createdAtMillis,
+                        status, processedAtMillis, readBytes(body)));
+            }
+            offset += HEADER_BYTES + length;
+        }
+        return offset;
+    }
+
+    private static byte[] readBytes(ByteBuffer body) {
+        int length = body.getInt();
+        if (length < 0) {
+            return null;
+        }
+        byte[] bytes = new byte[length];
+        body.get(bytes);
+        return bytes;
+    }
+
+    @Override
+    public Map<String, Object> getStatistics() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("enabled", true);
+        stats.put("directory", directory.toAbsolutePath().toString());
+        stats.put("fsync", fsync);
+        stats.put("activeSegment", active.index);
+        appendLock.lock();
+        try {
+            stats.put("sealedSegments", sealed.size());
+        } finally {
+            appendLock.unlock();
+        }
+        stats.put("pendingTasks", pendingLocations.size());
+        long recordCount = records.sum();
+        long fsyncCount = fsyncs.sum();
+        stats.put("records", recordCount);
+        stats.put("bytes", bytes.sum());
+        stats.put("fsyncs", fsyncCount);
+        stats.put("recordsPerFsync", fsyncCount > 0 ? (double) recordCount / fsyncCount : 0.0);
+        stats.put("oversizedRecords", oversizedRecords.sum());
+        stats.put("payloadSerializationFailures", payloadSerializationFailures.sum());
+        stats.put("copiedRecords", copiedRecords.sum());
+        stats.put("deletedSegments", deletedSegments.sum());
+        return stats;
+    }
+
+    public int pendingCount() {
+        return pendingLocations.size();
+    }
+
+    public long fsyncCount() {
+        return fsyncs.sum();
+    }
+
+    public long bytesWritten() {
+        return bytes.sum();
+    }
+
+    @Override
+    public void close() {
+        appendLock.lock();
+        try {
+            if (closed) {
+                return;
+            }
+            closed = true;
+        } finally {
+            appendLock.unlock();
+        }
+        if (flusher != null) {
+            flusher.interrupt();
+        }
+        flushLock.lock();
+        try {
+            flushCompleted.signalAll();
+        } finally {
+            flushLock.unlock();
+        }
+
+        if (fsync != WorkerProperties.Journal.FsyncPolicy.NEVER) {
+            active.buffer.force();
+        }
+        try {
+            active.channel.close();
+            for (Segment segment : sealed) {
+                segment.channel.close();
+            }
+        } catch (IOException e) {
+            // Al cerrar solo se liberan descriptores; los datos ya están en el mapeo
+        }
+    }
+}
@@ -0,0 +1,90 @@
+package co.g3a.high_throughput_poc.worker.journal;
+
+import co.g3a.high_throughput_poc.worker.WorkTask;
+import co.g3a.high_throughput_poc.worker.encoding.EncodedResult;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Registro de aceptación y terminación de tareas para recuperarlas tras un reinicio
+ */
+public interface TaskJournal extends AutoCloseable {
+
+    /**
+     * Estado leído del journal al arrancar: tareas aceptadas sin terminar y resultados recientes
+     */
+    record Recovery(List<JournalRecord.Accepted> pending, List<JournalRecord.Completed> completed) {
+    }
+
+    /**
+     * Journal desactivado: no escribe nada y no recupera nada
+     */
+    TaskJournal DISABLED = new TaskJournal() {
+        @Override
+        public void appendAccepted(WorkTask<?, ?> task) {
+        }
+
+        @Override
+        public void appendCompleted(WorkTask<?, ?> task, EncodedResult encodedResult) {
+        }
+
+        @Override
+        public Recovery recover() {
+            return new Recovery(List.of(), List.of());
+        }
+
+        @Override
+        public void compact() {
+        }
+
+        @Override
+        public boolean isEnabled() {
+            return false;
+        }
+
+        @Override
+        public Map<String, Object> getStatistics() {
+            return Map.of("enabled", false);
+        }
+
+        @Override
+        public void close() {
+        }
+    };
+
+    /**
+     * Registra una tarea aceptada. Debe llamarse antes de que la tarea sea visible para los dispatchers.
+     */
+    void appendAccepted(WorkTask<?, ?> task);
+
+    /**
+     * Registra el estado final de una tarea y, si terminó bien, su resultado
+     */
+    default void appendCompleted(WorkTask<?, ?> task) {
+        appendCompleted(task, null);
+    }
+
+    /**
+     * Igual que {@link #appendCompleted(WorkTask)} reutilizando el JSON del resultado si quien
+     * llama ya lo tiene (resultados sin codificar en modo OBJECT); con null se serializa aquí
+     */
+    void appendCompleted(WorkTask<?, ?> task, EncodedResult encodedResult);
+
+    /**
+     * Lo que se leyó del disco al abrir el journal; solo tiene sentido llamarlo una vez al arrancar
+     */
+    Recovery recover();
+
+    /**
+     * Elimina los segmentos cuyo contenido ya no hace falta, copiando antes las tareas pendientes que queden en ellos
+     */
+    void compact();
+
+    boolean isEnabled();
+
+    Map<String, Object> getStatistics();
+
+    @Override
+    void close();
+}
@@ -0,0 +1,162 @@
+package co.g3a.high_throughput_poc.worker.limiter;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.IntUnaryOperator;
+
+/**
+ * Base común: contador de permisos sin bloqueo (CAS) y espera con Condition solo
+ * cuando no hay permisos. Las subclases deciden cómo evoluciona el límite.
+ */
+public abstract class AbstractConcurrencyLimiter implements ConcurrencyLimiter {
+    private final String name;
+    private final int minLimit;
+    private final int maxLimit;
+    private final AtomicInteger limit;
+    private final AtomicInteger inFlight = new AtomicInteger(0);
+    private final AtomicLong rejected = new AtomicLong(0);
+
+    private final ReentrantLock waitLock = new ReentrantLock();
+    private final Condition permitReleased = waitLock.newCondition();
+    private final AtomicInteger waiters = new AtomicInteger(0);
+
+    protected AbstractConcurrencyLimiter(String name, int initialLimit, int minLimit, int maxLimit) {
+        if (minLimit < 1 || maxLimit < minLimit) {
+            throw new IllegalArgumentException("Invalid limiter bounds: min=" + minLimit + ", max=" + maxLimit);
+        }
+        this.name = name;
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+        this.limit = new AtomicInteger(clamp(initialLimit));
+    }
+
+    @Override
+    public boolean tryAcquire() {
+        if (tryIncrement()) {
+            return true;
+        }
+        rejected.incrementAndGet();
+        return false;
+    }
+
+    @Override
+    public boolean acquire(long timeout, TimeUnit unit) throws InterruptedException {
+        if (tryIncrement()) {
+            return true;
+        }
+
+        long remaining = unit.toNanos(timeout);
+        waiters.incrementAndGet();
+        waitLock.lockInterruptibly();
+        try {
+            while (!tryIncrement()) {
+                if (remaining <= 0) {
+                    rejected.incrementAndGet();
+                    return false;
+                }
+                remaining = permitReleased.awaitNanos(remaining);
+            }
+            return true;
+        } finally {
+            waitLock.unlock();
+            waiters.decrementAndGet();
+        }
+    }
+
+    private boolean tryIncrement() {
+        while (true) {
+            int current = inFlight.get();
+            if (current >= limit.get()) {
+                return false;
+            }
+            if (inFlight.compareAndSet(current, current + 1)) {
+                return true;
+            }
+        }
+    }
+
+    @Override
+    public void onSuccess(long latencyNanos) {
+        int inFlightAtSample = release();
+        onSample(latencyNanos, inFlightAtSample, false);
+    }
+
+    @Override
+    public void onDropped(long latencyNanos) {
+        int inFlightAtSample = release();
+        onSample(latencyNanos, inFlightAtSample, true);
+    }
+
+    @Override
+    public void onIgnore() {
+        release();
+    }
+
+    private int release() {
+        int inFlightAtSample = inFlight.getAndDecrement();
+        signalWaiters(false);
+        return inFlightAtSample;
+    }
+
+    private void signalWaiters(boolean all) {
+        if (waiters.get() == 0) {
+            return;
+        }
+        waitLock.lock();
+        try {
+            if (all) {
+                permitReleased.signalAll();
+            } else {
+                permitReleased.signal();
+            }
+        } finally {
+            waitLock.unlock();
+        }
+    }
+
+    /**
+     * Ajusta el límite con la muestra de una ejecución terminada
+     * @param inFlightAtSample tareas en ejecución justo antes de liberar este permiso
+     */
+    protected abstract void onSample(long latencyNanos, int inFlightAtSample, boolean dropped);
+
+    protected void updateLimit(IntUnaryOperator update) {
+        int previous;
+        int next;
+        do {
+            previous = limit.get();
+            next = clamp(update.applyAsInt(previous));
+        } while (previous != next && !limit.compareAndSet(previous, next));
+
+        if (next > previous) {
+            signalWaiters(true);
+        }
+    }
+
+    private int clamp(int value) {
+        return Math.max(minLimit, Math.min(maxLimit, value));
+    }
+
+    @Override
+    public String getName() {
+        return name;
+    }
+
+    @Override
+    public int getLimit() {
+        return limit.get();
+    }
+
+    @Override
+    public int getInFlight() {
+        return inFlight.get();
+    }
+
+    @Override
+    public long getRejected() {
+        return rejected.get();
+    }
+}
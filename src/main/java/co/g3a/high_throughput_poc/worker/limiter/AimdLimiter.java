@@ -0,0 +1,36 @@
+package co.g3a.high_throughput_poc.worker.limiter;
+
+/**
+ * Additive increase / multiplicative decrease: sube el límite en 1 mientras las tareas
+ * terminan por debajo del umbral de latencia y lo multiplica por backoffRatio cuando
+ * una tarea falla o lo supera.
+ */
+public class AimdLimiter extends AbstractConcurrencyLimiter {
+    private final long latencyThresholdNanos;
+    private final double backoffRatio;
+
+    public AimdLimiter(String name, int initialLimit, int minLimit, int maxLimit,
+                       long latencyThresholdNanos, double backoffRatio) {
+        super(name, initialLimit, minLimit, maxLimit);
+        if (backoffRatio <= 0 || backoffRatio >= 1) {
+            throw new IllegalArgumentException("backoffRatio must be in (0, 1): " + backoffRatio);
+        }
+        this.latencyThresholdNanos = latencyThresholdNanos;
+        this.backoffRatio = backoffRatio;
+    }
+
+    @Override
+    protected void onSample(long latencyNanos, int inFlightAtSample, boolean dropped) {
+        if (dropped || latencyNanos > latencyThresholdNanos) {
+            updateLimit(current -> (int) (current * backoffRatio));
+        } else if (inFlightAtSample * 2 >= getLimit()) {
+            // Solo crece si el límite se está usando; con poca carga no aprende nada
+            updateLimit(current -> current + 1);
+        }
+    }
+
+    @Override
+    public String getAlgorithm() {
+        return "aimd";
+    }
+}
@@ -0,0 +1,49 @@
+package co.g3a.high_throughput_poc.worker.limiter;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Limitador de concurrencia: controla cuántas tareas pueden ejecutarse a la vez
+ * y ajusta ese límite a partir de la latencia observada.
+ *
+ * Cada adquisición exitosa debe cerrarse con exactamente una llamada a
+ * {@link #onSuccess}, {@link #onDropped} o {@link #onIgnore}.
+ */
+public interface ConcurrencyLimiter {
+
+    /**
+     * Intenta adquirir un permiso sin esperar
+     */
+    boolean tryAcquire();
+
+    /**
+     * Espera hasta el timeout a que haya un permiso disponible
+     * @return false si se agotó el tiempo (cuenta como rechazo)
+     */
+    boolean acquire(long timeout, TimeUnit unit) throws InterruptedException;
+
+    /**
+     * Libera el permiso registrando una ejecución correcta con su latencia
+     */
+    void onSuccess(long latencyNanos);
+
+    /**
+     * Libera el permiso registrando una ejecución fallida o fuera de tiempo (señal de sobrecarga)
+     */
+    void onDropped(long latencyNanos);
+
+    /**
+     * Libera el permiso sin alimentar el algoritmo
+     */
+    void onIgnore();
+
+    String getName();
+
+    String getAlgorithm();
+
+    int getLimit();
+
+    int getInFlight();
+
+    long getRejected();
+}
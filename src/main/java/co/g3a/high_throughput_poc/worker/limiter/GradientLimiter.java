@@ -0,0 +1,70 @@
+package co.g3a.high_throughput_poc.worker.limiter;
+
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Limitador por gradiente (estilo Vegas / Gradient2): compara la latencia reciente con
+ * la latencia de referencia a largo plazo. Si la reciente crece, hay cola en algún recurso
+ * compartido (pool de conexiones, CPU) y el límite baja proporcionalmente; si se mantiene,
+ * el límite sube en un margen de sqrt(limite).
+ *
+ * Las muestras se aplican con tryLock: si otra tarea está actualizando, la muestra se descarta
+ * en lugar de serializar las finalizaciones.
+ */
+public class GradientLimiter extends AbstractConcurrencyLimiter {
+    private static final double SHORT_WINDOW_ALPHA = 0.1;
+    private static final double LONG_WINDOW_ALPHA = 1.0 / 600;
+    private static final double RTT_TOLERANCE = 1.5;
+    private static final double SMOOTHING = 0.2;
+    private static final double DROP_BACKOFF = 0.9;
+
+    private final ReentrantLock sampleLock = new ReentrantLock();
+    private double shortRttNanos;
+    private double longRttNanos;
+
+    public GradientLimiter(String name, int initialLimit, int minLimit, int maxLimit) {
+        super(name, initialLimit, minLimit, maxLimit);
+    }
+
+    @Override
+    protected void onSample(long latencyNanos, int inFlightAtSample, boolean dropped) {
+        if (dropped) {
+            updateLimit(current -> (int) (current * DROP_BACKOFF));
+            return;
+        }
+        if (!sampleLock.tryLock()) {
+            return;
+        }
+        try {
+            if (longRttNanos == 0) {
+                shortRttNanos = latencyNanos;
+                longRttNanos = latencyNanos;
+                return;
+            }
+            shortRttNanos += SHORT_WINDOW_ALPHA * (latencyNanos - shortRttNanos);
+            longRttNanos += LONG_WINDOW_ALPHA * (latencyNanos - longRttNanos);
+
+            // Si la latencia de referencia quedó muy por encima de la actual, se deja que converja más rápido
+            if (longRttNanos / shortRttNanos > 2) {
+                longRttNanos *= 0.95;
+            }
+
+            int current = getLimit();
+            if (inFlightAtSample < current / 2) {
+                return;
+            }
+
+            double gradient = Math.max(0.5, Math.min(1.0, RTT_TOLERANCE * longRttNanos / shortRttNanos));
+            double target = current * gradient + Math.sqrt(current);
+            int next = (int) Math.round(current * (1 - SMOOTHING) + target * SMOOTHING);
+            updateLimit(ignored -> next);
+        } finally {
+            sampleLock.unlock();
+        }
+    }
+
+    @Override
+    public String getAlgorithm() {
+        return "gradient";
+    }
+}
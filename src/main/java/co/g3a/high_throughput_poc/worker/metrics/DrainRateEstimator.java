@@ -0,0 +1,80 @@
+package co.g3a.high_throughput_poc.worker.metrics;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Ritmo al que el worker termina tareas de cada tipo (tareas/s), suavizado con una media
+ * móvil exponencial. Las tareas que terminan solo suman un contador; el muestreo periódico
+ * ({@link #sample()}) convierte el incremento en tasa y actualiza la media.
+ */
+public class DrainRateEstimator {
+
+    private static final class TypeRate {
+        final LongAdder completions = new LongAdder();
+        long lastCount;
+        volatile double ewma;
+        boolean seeded;
+    }
+
+    private final Map<String, TypeRate> rates = new HashMap<>();
+    private final double alpha;
+    private long lastSampleNanos;
+
+    /**
+     * @param alpha peso de la última muestra (0-1]; más alto reacciona antes a cambios de ritmo
+     */
+    public DrainRateEstimator(Collection<String> taskTypes, double alpha) {
+        this.alpha = Math.min(1.0, Math.max(0.01, alpha));
+        for (String type : taskTypes) {
+            rates.put(type, new TypeRate());
+        }
+        this.lastSampleNanos = System.nanoTime();
+    }
+
+    public void recordCompletion(String taskType) {
+        TypeRate rate = rates.get(taskType);
+        if (rate != null) {
+            rate.completions.increment();
+        }
+    }
+
+    /**
+     * Cierra el periodo de muestreo; se llama desde un único hilo programado
+     */
+    public synchronized void sample() {
+        long now = System.nanoTime();
+        double seconds = (now - lastSampleNanos) / 1e9;
+        lastSampleNanos = now;
+        if (seconds <= 0) {
+            return;
+        }
+        for (TypeRate rate : rates.values()) {
+            long count = rate.completions.sum();
+            double current = (count - rate.lastCount) / seconds;
+            rate.lastCount = count;
+            if (!rate.seeded) {
+                rate.ewma = current;
+                rate.seeded = true;
+            } else {
+                rate.ewma = alpha * current + (1 - alpha) * rate.ewma;
+            }
+        }
+    }
+
+    /**
+     * Tareas por segundo que se están terminando del tipo, 0 si no se ha medido ninguna
+     */
+    public double rate(String taskType) {
+        TypeRate rate = rates.get(taskType);
+        return rate != null ? rate.ewma : 0.0;
+    }
+
+    public Map<String, Object> getStatistics() {
+        Map<String, Object> stats = new HashMap<>();
+        rates.forEach((type, rate) -> stats.put(type, Math.round(rate.ewma * 100) / 100.0));
+        return stats;
+    }
+}
@@ -0,0 +1,26 @@
+package co.g3a.high_throughput_poc.worker.metrics;
+
+/**
+ * Fases en las que se descompone la latencia de una tarea
+ */
+public enum LatencyPhase {
+    /** Desde que se encola hasta que un dispatcher la saca de la cola */
+    QUEUE_WAIT("queueWait"),
+    /** Desde que sale de la cola hasta que obtiene permiso del limitador */
+    PERMIT_WAIT("permitWait"),
+    /** Ejecución del procesador */
+    EXECUTION("execution");
+
+    private final String key;
+
+    LatencyPhase(String key) {
+        this.key = key;
+    }
+
+    /**
+     * Nombre con el que la fase aparece en las estadísticas
+     */
+    public String getKey() {
+        return key;
+    }
+}
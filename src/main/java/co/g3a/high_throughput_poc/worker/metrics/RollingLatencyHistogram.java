@@ -0,0 +1,88 @@
+package co.g3a.high_throughput_poc.worker.metrics;
+
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.Recorder;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Histograma HDR de latencias en microsegundos con ventana deslizante.
+ *
+ * La grabación va a un {@link Recorder}, cuyos escritores no toman locks (WriterReaderPhaser),
+ * así que las tareas que terminan en paralelo no se serializan. El lado lector ({@link #rotate()}
+ * y {@link #snapshot()}) mueve periódicamente el intervalo grabado a un anillo de N intervalos;
+ * la ventana es la suma de ese anillo.
+ */
+public class RollingLatencyHistogram {
+    private static final long HIGHEST_TRACKABLE_MICROS = TimeUnit.HOURS.toMicros(1);
+    private static final int SIGNIFICANT_DIGITS = 3;
+
+    private final Recorder recorder = new Recorder(HIGHEST_TRACKABLE_MICROS, SIGNIFICANT_DIGITS);
+    private final Histogram[] intervals;
+    private final Histogram window = new Histogram(HIGHEST_TRACKABLE_MICROS, SIGNIFICANT_DIGITS);
+    private Histogram recycled;
+    private int nextInterval;
+
+    public RollingLatencyHistogram(int intervalCount) {
+        // Los huecos empiezan vacíos: el Recorder solo acepta reciclar histogramas que él mismo entregó
+        this.intervals = new Histogram[intervalCount];
+    }
+
+    public void recordNanos(long nanos) {
+        long micros = TimeUnit.NANOSECONDS.toMicros(nanos);
+        recorder.recordValue(Math.max(0, Math.min(micros, HIGHEST_TRACKABLE_MICROS)));
+    }
+
+    /**
+     * Cierra el intervalo actual y descarta el más antiguo de la ventana
+     */
+    public synchronized void rotate() {
+        Histogram interval = recorder.getIntervalHistogram(recycled);
+        recycled = intervals[nextInterval];
+        intervals[nextInterval] = interval;
+        nextInterval = (nextInterval + 1) % intervals.length;
+
+        window.reset();
+        for (Histogram h : intervals) {
+            if (h != null) {
+                window.add(h);
+            }
+        }
+    }
+
+    /**
+     * Suma la ventana de este histograma en el acumulador recibido
+     */
+    public synchronized void addWindowTo(Histogram target) {
+        target.add(window);
+    }
+
+    /**
+     * Percentil de la ventana en microsegundos (0 si está vacía)
+     */
+    public synchronized long valueAtPercentile(double percentile) {
+        return window.getValueAtPercentile(percentile);
+    }
+
+    public synchronized Map<String, Object> snapshot() {
+        return describe(window);
+    }
+
+    public static Histogram newAccumulator() {
+        return new Histogram(HIGHEST_TRACKABLE_MICROS, SIGNIFICANT_DIGITS);
+    }
+
+    public static Map<String, Object> describe(Histogram histogram) {
+        Map<String, Object> stats = new HashMap<>();
+        stats.put("count", histogram.getTotalCount());
+        stats.put("meanUs", histogram.getTotalCount() == 0 ? 0.0 : histogram.getMean());
+        stats.put("p50Us", histogram.getValueAtPercentile(50));
+        stats.put("p90Us", histogram.getValueAtPercentile(90));
+        stats.put("p99Us", histogram.getValueAtPercentile(99));
+        stats.put("p999Us", histogram.getValueAtPercentile(99.9));
+        stats.put("maxUs", histogram.getMaxValue());
+        return stats;
+    }
+}
@@ -0,0 +1,38 @@
+package co.g3a.high_throughput_poc.worker.metrics;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Copia inmutable (en profundidad) de un mapa de estadísticas, para publicarlo y leerlo desde
+ * varios hilos sin copiarlo en cada lectura. Admite valores nulos, a diferencia de Map.copyOf.
+ */
+public final class StatisticsSnapshot {
+
+    private StatisticsSnapshot() {
+    }
+
+    public static Map<String, Object> freeze(Map<String, ?> statistics) {
+        Map<String, Object> copy = new LinkedHashMap<>();
+        statistics.forEach((key, value) -> copy.put(key, freezeValue(value)));
+        return Collections.unmodifiableMap(copy);
+    }
+
+    private static Object freezeValue(Object value) {
+        if (value instanceof Map<?, ?> map) {
+            Map<Object, Object> copy = new LinkedHashMap<>();
+            map.forEach((key, nested) -> copy.put(key, freezeValue(nested)));
+            return Collections.unmodifiableMap(copy);
+        }
+        if (value instanceof Collection<?> collection) {
+            List<Object> copy = new ArrayList<>(collection.size());
+            collection.forEach(nested -> copy.add(freezeValue(nested)));
+            return Collections.unmodifiableList(copy);
+        }
+        return value;
+    }
+}
@@ -0,0 +1,83 @@
+package co.g3a.high_throughput_poc.worker.metrics;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Contadores de tareas del worker por tipo y resultado.
+ *
+ * Cada tipo de tarea recibe un id denso (0..n-1) al arrancar y cada par (tipo, contador) es
+ * un LongAdder propio: los hilos que terminan tareas suman en celdas distintas en vez de
+ * competir por el mismo AtomicLong. Los totales se calculan al leer, que solo ocurre al
+ * refrescar las estadísticas o en el scrape de métricas.
+ */
+public class TaskCounters {
+
+    public enum Kind {
+        PROCESSED, SUCCESSFUL, REJECTED, TIMED_OUT
+    }
+
+    private static final int KINDS = Kind.values().length;
+
+    private final List<String> types;
+    private final Map<String, Integer> typeIds;
+    // Una fila por tipo más una para tipos desconocidos (p.ej. tareas recuperadas del journal)
+    private final LongAdder[] adders;
+
+    public TaskCounters(Collection<String> taskTypes) {
+        this.types = List.copyOf(taskTypes);
+        Map<String, Integer> ids = new HashMap<>();
+        for (int i = 0; i < types.size(); i++) {
+            ids.put(types.get(i), i);
+        }
+        this.typeIds = Collections.unmodifiableMap(ids);
+        this.adders = new LongAdder[(types.size() + 1) * KINDS];
+        for (int i = 0; i < adders.length; i++) {
+            adders[i] = new LongAdder();
+        }
+    }
+
+    /**
+     * Id denso del tipo; los tipos desconocidos comparten la última fila
+     */
+    public int typeId(String type) {
+        Integer id = type != null ? typeIds.get(type) : null;
+        return id != null ? id : types.size();
+    }
+
+    public void increment(int typeId, Kind kind) {
+        adders[typeId * KINDS + kind.ordinal()].increment();
+    }
+
+    public void increment(String type, Kind kind) {
+        increment(typeId(type), kind);
+    }
+
+    public long count(int typeId, Kind kind) {
+        return adders[typeId * KINDS + kind.ordinal()].sum();
+    }
+
+    public long total(Kind kind) {
+        long total = 0;
+        for (int row = kind.ordinal(); row < adders.length; row += KINDS) {
+            total += adders[row].sum();
+        }
+        return total;
+    }
+
+    /**
+     * Contador de cada tipo conocido, en el orden en que se registraron
+     */
+    public Map<String, Long> byType(Kind kind) {
+        Map<String, Long> counts = new LinkedHashMap<>();
+        for (int i = 0; i < types.size(); i++) {
+            counts.put(types.get(i), count(i, kind));
+        }
+        return counts;
+    }
+}
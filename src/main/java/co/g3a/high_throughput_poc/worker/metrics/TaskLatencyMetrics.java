@@ -0,0 +1,91 @@
+package co.g3a.high_throughput_poc.worker.metrics;
+
+import org.HdrHistogram.Histogram;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Histogramas de latencia por tipo de tarea y por fase.
+ * El mapa de tipos se construye una vez al arrancar y no cambia, así que la grabación
+ * solo hace una búsqueda de lectura y un registro en el histograma.
+ */
+public class TaskLatencyMetrics {
+    private final Map<String, RollingLatencyHistogram[]> histogramsByType = new HashMap<>();
+    private final Duration window;
+    private final Duration rotationInterval;
+
+    public TaskLatencyMetrics(Collection<String> taskTypes, Duration window, int intervals) {
+        this.window = window;
+        this.rotationInterval = window.dividedBy(intervals);
+        for (String type : taskTypes) {
+            RollingLatencyHistogram[] phases = new RollingLatencyHistogram[LatencyPhase.values().length];
+            for (LatencyPhase phase : LatencyPhase.values()) {
+                phases[phase.ordinal()] = new RollingLatencyHistogram(intervals);
+            }
+            histogramsByType.put(type, phases);
+        }
+    }
+
+    public void record(String taskType, LatencyPhase phase, long nanos) {
+        RollingLatencyHistogram[] phases = histogramsByType.get(taskType);
+        if (phases != null) {
+            phases[phase.ordinal()].recordNanos(nanos);
+        }
+    }
+
+    /**
+     * Percentil de una fase de un tipo en la ventana actual
+     */
+    public Duration percentile(String taskType, LatencyPhase phase, double percentile) {
+        RollingLatencyHistogram[] phases = histogramsByType.get(taskType);
+        if (phases == null) {
+            return Duration.ZERO;
+        }
+        return Duration.ofNanos(phases[phase.ordinal()].valueAtPercentile(percentile) * 1_000);
+    }
+
+    public Duration getRotationInterval() {
+        return rotationInterval;
+    }
+
+    public void rotate() {
+        for (RollingLatencyHistogram[] phases : histogramsByType.values()) {
+            for (RollingLatencyHistogram histogram : phases) {
+                histogram.rotate();
+            }
+        }
+    }
+
+    /**
+     * Percentiles de la ventana actual: tipo -> fase -> estadísticas
+     */
+    public Map<String, Object> snapshot() {
+        Map<String, Object> byType = new HashMap<>();
+        histogramsByType.forEach((type, phases) -> {
+            Map<String, Object> byPhase = new HashMap<>();
+            for (LatencyPhase phase : LatencyPhase.values()) {
+                byPhase.put(phase.getKey(), phases[phase.ordinal()].snapshot());
+            }
+            byType.put(type, byPhase);
+        });
+
+        Map<String, Object> latency = new HashMap<>();
+        latency.put("windowSeconds", window.toSeconds());
+        latency.put("byType", byType);
+        return latency;
+    }
+
+    /**
+     * Suma de una fase para todos los tipos de tarea
+     */
+    public Histogram aggregate(LatencyPhase phase) {
+        Histogram total = RollingLatencyHistogram.newAccumulator();
+        for (RollingLatencyHistogram[] phases : histogramsByType.values()) {
+            phases[phase.ordinal()].addWindowTo(total);
+        }
+        return total;
+    }
+}
@@ -0,0 +1,15 @@
+package co.g3a.high_throughput_poc.worker.metrics;
+
+/**
+ * Resultado final de una tarea, usado como tag "outcome" en las métricas
+ */
+public enum TaskOutcome {
+    /** Procesada correctamente */
+    PROCESSED,
+    /** Falló durante el procesamiento */
+    REJECTED,
+    /** Terminó pero superó su tiempo máximo de procesamiento */
+    TIMEOUT,
+    /** Rechazada por carga: cola llena, espera máxima agotada o sin permiso */
+    HIGH_LOAD
+}
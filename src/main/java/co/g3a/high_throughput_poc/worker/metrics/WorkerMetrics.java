@@ -0,0 +1,76 @@
+package co.g3a.high_throughput_poc.worker.metrics;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Contadores y timers de Micrometer por tipo de tarea y resultado.
+ *
+ * Todos los meters se registran al arrancar; grabar es una búsqueda en un mapa que no cambia
+ * y un acceso a array, sin construir Tags ni buscar en el registro en cada tarea.
+ */
+public class WorkerMetrics {
+    private static final TaskOutcome[] OUTCOMES = TaskOutcome.values();
+
+    private final Map<String, Counter[]> outcomeCounters = new HashMap<>();
+    private final Map<String, Timer[]> executionTimers = new HashMap<>();
+
+    public WorkerMetrics(MeterRegistry registry, Collection<String> taskTypes) {
+        for (String type : taskTypes) {
+            Counter[] counters = new Counter[OUTCOMES.length];
+            Timer[] timers = new Timer[OUTCOMES.length];
+            for (TaskOutcome outcome : OUTCOMES) {
+                counters[outcome.ordinal()] = Counter.builder("worker.tasks")
+                        .description("Tasks finished by type and outcome")
+                        .tag("type", type)
+                        .tag("outcome", outcome.name())
+                        .register(registry);
+                if (outcome != TaskOutcome.HIGH_LOAD) {
+                    // Las tareas rechazadas por carga no llegan a ejecutarse: no tienen duración
+                    timers[outcome.ordinal()] = Timer.builder("worker.task.execution")
+                            .description("Processor execution time by type and outcome")
+                            .tag("type", type)
+                            .tag("outcome", outcome.name())
+                            .register(registry);
+                }
+            }
+            outcomeCounters.put(type, counters);
+            executionTimers.put(type, timers);
+        }
+    }
+
+    /**
+     * Registra una tarea que llegó a ejecutarse
+     */
+    public void recordExecution(String taskType, TaskOutcome outcome, long nanos) {
+        recordExecutionTime(taskType, outcome, nanos);
+        recordOutcome(taskType, outcome);
+    }
+
+    /**
+     * Registra solo la duración de la ejecución, para las rutas que ya contaron el resultado
+     * al terminar la tarea (p.ej. el deadline de una tarea asíncrona)
+     */
+    public void recordExecutionTime(String taskType, TaskOutcome outcome, long nanos) {
+        Timer[] timers = executionTimers.get(taskType);
+        if (timers != null && timers[outcome.ordinal()] != null) {
+            timers[outcome.ordinal()].record(nanos, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    /**
+     * Registra el resultado de una tarea sin duración de ejecución (p.ej. rechazo por carga)
+     */
+    public void recordOutcome(String taskType, TaskOutcome outcome) {
+        Counter[] counters = outcomeCounters.get(taskType);
+        if (counters != null) {
+            counters[outcome.ordinal()].increment();
+        }
+    }
+}
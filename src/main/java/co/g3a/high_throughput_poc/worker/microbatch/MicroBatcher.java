@@ -0,0 +1,198 @@
+package co.g3a.high_throughput_poc.worker.microbatch;
+
+import co.g3a.high_throughput_poc.worker.deadline.TaskDeadline;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Function;
+
+/**
+ * Agrupa cargas individuales por clave en una sola carga por lotes, al estilo DataLoader.
+ *
+ * La primera clave que llega abre una ventana; el lote se envía cuando vence la ventana o
+ * cuando se juntan {@code maxBatchSize} claves distintas, lo que ocurra antes. Las claves
+ * repetidas dentro de una ventana comparten el mismo futuro. Cada lote se ejecuta en un hilo
+ * virtual, así que los lotes pueden solaparse mientras se abre la siguiente ventana.
+ *
+ * La carga corre con el deadline más tardío de quienes esperan el lote ({@link TaskDeadline}):
+ * ninguno se queda sin su valor antes de tiempo por el deadline de otro. Si alguno no tiene
+ * deadline, el lote tampoco.
+ *
+ * @param <K> clave de carga
+ * @param <V> valor cargado; las claves que la función de lote no devuelve se completan con null
+ */
+public class MicroBatcher<K, V> implements AutoCloseable {
+
+    private final long windowNanos;
+    private final int maxBatchSize;
+    private final Function<Collection<K>, Map<K, V>> batchLoader;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private Batch pending = new Batch();
+    private ScheduledFuture<?> windowFlush;
+
+    private final ScheduledExecutorService windowTimer;
+    private final ExecutorService loadExecutor = Executors.newVirtualThreadPerTaskExecutor();
+
+    private final DistributionSummary batchSizes;
+    private final Counter sizeFlushes;
+    private final Counter windowFlushes;
+    private final Timer loadTimer;
+
+    public MicroBatcher(String name, Duration window, int maxBatchSize,
+                        Function<Collection<K>, Map<K, V>> batchLoader, MeterRegistry registry) {
+        this.windowNanos = Math.max(1, window.toNanos());
+        this.maxBatchSize = Math.max(1, maxBatchSize);
+        this.batchLoader = batchLoader;
+        this.windowTimer = Executors.newSingleThreadScheduledExecutor(
+                Thread.ofPlatform().name("microbatch-" + name).daemon(true).factory());
+
+        this.batchSizes = DistributionSummary.builder("worker.microbatch.size")
+                .description("Distinct keys per batched load")
+                .tag("name", name)
+                .publishPercentiles(0.5, 0.95, 0.99)
+                .register(registry);
+        this.sizeFlushes = Counter.builder("worker.microbatch.flushes")
+                .tag("name", name)
+                .tag("trigger", "size")
+                .register(registry);
+        this.windowFlushes = Counter.builder("worker.microbatch.flushes")
+                .tag("name", name)
+                .tag("trigger", "window")
+                .register(registry);
+        this.loadTimer = Timer.builder("worker.microbatch.load")
+                .description("Duration of each batched load")
+                .tag("name", name)
+                .register(registry);
+    }
+
+    /**
+     * Pide el valor de una clave; se completará cuando se cargue el lote en el que entre
+     */
+    public CompletableFuture<V> load(K key) {
+        Long deadline = TaskDeadline.current();
+        Batch full = null;
+        CompletableFuture<V> future;
+        lock.lock();
+        try {
+            pending.addWaiter(deadline);
+            future = pending.futures.get(key);
+            if (future != null) {
+                return future;
+            }
+            future = new CompletableFuture<>();
+            pending.futures.put(key, future);
+            if (pending.futures.size() >= maxBatchSize) {
+                full = takePending();
+            } else if (pending.futures.size() == 1) {
+                windowFlush = windowTimer.schedule(this::flushWindow, windowNanos, TimeUnit.NANOSECONDS);
+            }
+        } finally {
+            lock.unlock();
+        }
+
+        if (full != null) {
+            sizeFlushes.increment();
+            dispatch(full);
+        }
+        return future;
+    }
+
+    private void flushWindow() {
+        Batch batch;
+        lock.lock();
+        try {
+            if (pending.futures.isEmpty()) {
+                return;
+            }
+            batch = takePending();
+        } finally {
+            lock.unlock();
+        }
+        windowFlushes.increment();
+        dispatch(batch);
+    }
+
+    // Llamar con el lock tomado
+    private Batch takePending() {
+        Batch batch = pending;
+        pending = new Batch();
+        if (windowFlush != null) {
+            windowFlush.cancel(false);
+            windowFlush = null;
+        }
+        return batch;
+    }
+
+    private void dispatch(Batch batch) {
+        batchSizes.record(batch.futures.size());
+        try {
+            loadExecutor.execute(() -> runBatch(batch));
+        } catch (RuntimeException e) {
+            batch.failAll(e);
+        }
+    }
+
+    private void runBatch(Batch batch) {
+        Set<K> keys = Collections.unmodifiableSet(batch.futures.keySet());
+        Map<K, V> values;
+        long start = System.nanoTime();
+        try {
+            values = batch.unbounded
+                    ? batchLoader.apply(keys)
+                    : TaskDeadline.callWithin(batch.latestDeadline, () -> batchLoader.apply(keys));
+        } catch (Throwable e) {
+            // También errores: un futuro sin completar dejaría colgados a todos los que esperan el lote
+            batch.failAll(e);
+            return;
+        } finally {
+            loadTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+        batch.futures.forEach((key, future) -> future.complete(values != null ? values.get(key) : null));
+    }
+
+    /**
+     * Claves de una ventana con sus futuros y el deadline más tardío de quienes las esperan
+     */
+    private final class Batch {
+        private final Map<K, CompletableFuture<V>> futures = new HashMap<>();
+        private boolean unbounded;
+        private long latestDeadline;
+        private boolean hasDeadline;
+
+        // Llamar con el lock tomado
+        private void addWaiter(Long deadline) {
+            if (deadline == null) {
+                unbounded = true;
+            } else if (!hasDeadline || deadline - latestDeadline > 0) {
+                latestDeadline = deadline;
+                hasDeadline = true;
+            }
+        }
+
+        private void failAll(Throwable error) {
+            futures.values().forEach(future -> future.completeExceptionally(error));
+        }
+    }
+
+    @Override
+    public void close() {
+        windowTimer.shutdownNow();
+        loadExecutor.shutdownNow();
+    }
+}
@@ -0,0 +1,69 @@
+package co.g3a.high_throughput_poc.worker.monitoring;
+
+import co.g3a.high_throughput_poc.worker.WorkQueueService;
+import co.g3a.high_throughput_poc.worker.bulkhead.BulkheadPolicy;
+import co.g3a.high_throughput_poc.worker.exception.ProcessorNotFoundException;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.actuate.endpoint.InvalidEndpointRequestException;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.boot.actuate.endpoint.annotation.Selector;
+import org.springframework.boot.actuate.endpoint.annotation.WriteOperation;
+import org.springframework.boot.actuate.endpoint.web.WebEndpointResponse;
+import org.springframework.boot.actuate.endpoint.web.annotation.WebEndpoint;
+import org.springframework.lang.Nullable;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+
+/**
+ * Compartimentos por tipo de tarea. Un POST a /actuator/worker-bulkheads/{tipo} con
+ * {"maxConcurrent": n, "maxQueued": n, "connectionShare": f} cambia los límites en caliente;
+ * los campos que no se envían conservan su valor.
+ *
+ * No está en la exposición por defecto: cualquiera que llegue al actuator podría cambiar los
+ * límites. Se habilita con management.endpoints.web.exposure.include.
+ */
+@Component
+@WebEndpoint(id = "worker-bulkheads")
+public class WorkerBulkheadEndpoint {
+
+    private final WorkQueueService workQueueService;
+
+    @Autowired
+    public WorkerBulkheadEndpoint(WorkQueueService workQueueService) {
+        this.workQueueService = workQueueService;
+    }
+
+    @ReadOperation
+    public Map<String, Object> getBulkheads() {
+        return workQueueService.getBulkheadStatistics();
+    }
+
+    @ReadOperation
+    public Map<String, Object> getBulkhead(@Selector String taskType) {
+        try {
+            return workQueueService.getBulkheadStatistics(taskType);
+        } catch (ProcessorNotFoundException e) {
+            return null;
+        }
+    }
+
+    @WriteOperation
+    public WebEndpointResponse<Map<String, Object>> updateBulkhead(@Selector String taskType,
+                                                               @Nullable Integer maxConcurrent,
+                                                               @Nullable Integer maxQueued,
+                                                               @Nullable Double connectionShare) {
+        try {
+            BulkheadPolicy current = workQueueService.getBulkheadPolicy(taskType);
+            BulkheadPolicy updated = new BulkheadPolicy(
+                    maxConcurrent != null ? maxConcurrent : current.maxConcurrent(),
+                    maxQueued != null ? maxQueued : current.maxQueued(),
+                    connectionShare != null ? connectionShare : current.connectionShare());
+            return new WebEndpointResponse<>(workQueueService.updateBulkhead(taskType, updated));
+        } catch (ProcessorNotFoundException e) {
+            return new WebEndpointResponse<>(WebEndpointResponse.STATUS_NOT_FOUND);
+        } catch (IllegalArgumentException e) {
+            throw new InvalidEndpointRequestException(e.getMessage(), e.getMessage());
+        }
+    }
+}
@@ -3,8 +3,10 @@ package co.g3a.high_throughput_poc.worker.monitoring;
 import co.g3a.high_throughput_poc.worker.WorkQueueService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
 import java.util.Map;
@@ -24,4 +26,14 @@ public class WorkerMonitoringController {
     public ResponseEntity<Map<String, Object>> getWorkerStatistics() {
         return ResponseEntity.ok(workQueueService.getStatistics());
     }
-}
\ No newline at end of file
+
+    @DeleteMapping("/cache")
+    public ResponseEntity<Void> invalidateCache(@RequestParam(required = false) String type) {
+        if (type == null) {
+            workQueueService.invalidateCachedResults();
+        } else {
+            workQueueService.invalidateCachedResults(type);
+        }
+        return ResponseEntity.noContent().build();
+    }
+}
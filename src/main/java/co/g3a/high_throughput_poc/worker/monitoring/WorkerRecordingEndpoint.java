@@ -0,0 +1,205 @@
+package co.g3a.high_throughput_poc.worker.monitoring;
+
+import co.g3a.high_throughput_poc.worker.WorkerProperties;
+import jdk.jfr.Configuration;
+import jdk.jfr.Recording;
+import jdk.jfr.RecordingState;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.actuate.endpoint.InvalidEndpointRequestException;
+import org.springframework.boot.actuate.endpoint.annotation.DeleteOperation;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.boot.actuate.endpoint.annotation.Selector;
+import org.springframework.boot.actuate.endpoint.annotation.WriteOperation;
+import org.springframework.boot.actuate.endpoint.web.WebEndpointResponse;
+import org.springframework.boot.actuate.endpoint.web.annotation.WebEndpoint;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.core.io.Resource;
+import org.springframework.lang.Nullable;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.text.ParseException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Grabaciones JFR bajo demanda, para perfilar el servicio en producción sin reiniciarlo.
+ *
+ * POST /actuator/worker-jfr inicia una grabación ({"settings": "default|profile",
+ * "duration": "5m", "maxAge": "15m", "maxSize": "100MB"}, todos opcionales);
+ * POST /actuator/worker-jfr/{id} la para; GET /actuator/worker-jfr/{id} descarga el .jfr
+ * (de una grabación en curso, lo grabado hasta ahora); DELETE /actuator/worker-jfr/{id} la
+ * descarta. Los eventos co.g3a.worker.* van en todas las grabaciones.
+ *
+ * No está en la exposición por defecto y las grabaciones nunca incluyen variables de entorno,
+ * propiedades de sistema ni argumentos de la JVM, donde suelen ir credenciales.
+ */
+@Component
+@WebEndpoint(id = "worker-jfr")
+public class WorkerRecordingEndpoint {
+
+    private static final int STATUS_CONFLICT = 409;
+
+    // Eventos de las configuraciones default/profile que pueden llevar secretos (-D, env, línea de comandos)
+    private static final List<String> SENSITIVE_EVENTS = List.of(
+            "jdk.InitialEnvironmentVariable",
+            "jdk.InitialSystemProperty",
+            "jdk.JVMInformation",
+            "jdk.SystemProcess");
+
+    private final WorkerProperties.Jfr config;
+    private final Map<Long, Recording> recordings = new ConcurrentHashMap<>();
+
+    @Autowired
+    public WorkerRecordingEndpoint(WorkerProperties workerProperties) {
+        this.config = workerProperties.getJfr();
+    }
+
+    @ReadOperation
+    public Map<String, Object> getRecordings() {
+        // Las que terminaron por duración o se cerraron fuera de aquí se quedan en la lista hasta el DELETE
+        List<Map<String, Object>> list = new ArrayList<>();
+        recordings.values().forEach(recording -> list.add(describe(recording)));
+        Map<String, Object> response = new HashMap<>();
+        response.put("recordings", list);
+        response.put("maxRecordings", config.getMaxRecordings());
+        return response;
+    }
+
+    @WriteOperation
+    public synchronized WebEndpointResponse<Map<String, Object>> startRecording(@Nullable String settings,
+                                                                            @Nullable Duration duration,
+                                                                            @Nullable Duration maxAge,
+                                                                            @Nullable String maxSize) {
+        recordings.values().removeIf(recording -> recording.getState() == RecordingState.CLOSED);
+        if (recordings.size() >= config.getMaxRecordings()) {
+            Map<String, Object> error = new HashMap<>();
+            error.put("error", "Too many open recordings, stop and delete one first");
+            error.put("maxRecordings", config.getMaxRecordings());
+            return new WebEndpointResponse<>(error, STATUS_CONFLICT);
+        }
+
+        String settingsName = settings != null ? settings : config.getSettings();
+        Configuration configuration;
+        try {
+            configuration = Configuration.getConfiguration(settingsName);
+        } catch (IOException | ParseException e) {
+            throw new InvalidEndpointRequestException("Unknown JFR settings: " + settingsName,
+                    "Unknown JFR settings");
+        }
+
+        Recording recording = new Recording(configuration);
+        recording.setName("worker-" + settingsName + "-" + recording.getId());
+        SENSITIVE_EVENTS.forEach(recording::disable);
+        recording.setToDisk(true);
+        recording.setMaxAge(maxAge != null ? maxAge : config.getMaxAge());
+        recording.setMaxSize(maxSize != null ? parseSize(maxSize) : config.getMaxSize().toBytes());
+        if (duration != null) {
+            recording.setDuration(duration);
+        }
+        recording.start();
+        recordings.put(recording.getId(), recording);
+        return new WebEndpointResponse<>(describe(recording));
+    }
+
+    @WriteOperation
+    public WebEndpointResponse<Map<String, Object>> stopRecording(@Selector long id) {
+        Recording recording = recordings.get(id);
+        if (recording == null) {
+            return new WebEndpointResponse<>(WebEndpointResponse.STATUS_NOT_FOUND);
+        }
+        if (recording.getState() == RecordingState.RUNNING || recording.getState() == RecordingState.DELAYED) {
+            recording.stop();
+        }
+        return new WebEndpointResponse<>(describe(recording));
+    }
+
+    @ReadOperation(produces = "application/octet-stream")
+    public WebEndpointResponse<Resource> downloadRecording(@Selector long id) {
+        Recording recording = recordings.get(id);
+        if (recording == null || recording.getState() == RecordingState.CLOSED) {
+            return new WebEndpointResponse<>(WebEndpointResponse.STATUS_NOT_FOUND);
+        }
+        try {
+            Path file = Files.createTempFile("worker-jfr-" + id + "-", ".jfr");
+            try {
+                recording.dump(file);
+            } catch (IOException | RuntimeException e) {
+                Files.deleteIfExists(file);
+                throw e;
+            }
+            return new WebEndpointResponse<>(new TemporaryFileResource(file));
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not dump JFR recording " + id, e);
+        }
+    }
+
+    @DeleteOperation
+    public WebEndpointResponse<Void> deleteRecording(@Selector long id) {
+        Recording recording = recordings.remove(id);
+        if (recording == null) {
+            return new WebEndpointResponse<>(WebEndpointResponse.STATUS_NOT_FOUND);
+        }
+        recording.close();
+        return new WebEndpointResponse<>(WebEndpointResponse.STATUS_NO_CONTENT);
+    }
+
+    private static long parseSize(String size) {
+        try {
+            return DataSize.parse(size).toBytes();
+        } catch (IllegalArgumentException e) {
+            throw new InvalidEndpointRequestException("Invalid maxSize: " + size, "Invalid maxSize");
+        }
+    }
+
+    private static Map<String, Object> describe(Recording recording) {
+        Map<String, Object> description = new HashMap<>();
+        description.put("id", recording.getId());
+        description.put("name", recording.getName());
+        description.put("state", recording.getState().name());
+        description.put("startTime", recording.getStartTime());
+        description.put("stopTime", recording.getStopTime());
+        description.put("duration", recording.getDuration());
+        description.put("maxAge", recording.getMaxAge());
+        description.put("maxSize", recording.getMaxSize());
+        description.put("size", recording.getSize());
+        return description;
+    }
+
+    /**
+     * Volcado temporal que se borra al cerrar el stream de la descarga
+     */
+    private static final class TemporaryFileResource extends FileSystemResource {
+
+        private final Path file;
+
+        TemporaryFileResource(Path file) {
+            super(file);
+            this.file = file;
+        }
+
+        @Override
+        public InputStream getInputStream() throws IOException {
+            return new FilterInputStream(super.getInputStream()) {
+                @Override
+                public void close() throws IOException {
+                    try {
+                        super.close();
+                    } finally {
+                        Files.deleteIfExists(file);
+                    }
+                }
+            };
+        }
+    }
+}
@@ -0,0 +1,140 @@
+package co.g3a.high_throughput_poc.worker.stream;
+
+import co.g3a.high_throughput_poc.worker.jfr.TaskDeliveredEvent;
+import co.g3a.high_throughput_poc.worker.jfr.TaskEvents;
+import org.springframework.http.MediaType;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.Executor;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Respuesta en streaming de un lote: un evento por tarea en orden de llegada y cierre de la
+ * respuesta cuando han llegado todos. Se escribe como NDJSON (una línea JSON por tarea) o
+ * como SSE con eventos {@code task}.
+ *
+ * Igual que en {@link TaskStreamSession}, los eventos se encolan y los escribe un hilo
+ * virtual, así quien termina la tarea no se bloquea en el socket. El buffer no necesita
+ * límite: nunca tiene más eventos que tareas el lote.
+ */
+class BatchResultStream {
+
+    private record PendingEvent(UUID taskId, String taskType, Map<String, Object> payload, long bufferedAtNanos) {
+    }
+
+    private final ResponseBodyEmitter emitter;
+    private final boolean sse;
+    private final Map<UUID, Integer> indexes;
+    private final Executor writer;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final ArrayDeque<PendingEvent> buffer = new ArrayDeque<>();
+    private int pending;
+    private boolean draining;
+    private boolean closed;
+
+    BatchResultStream(ResponseBodyEmitter emitter, List<UUID> taskIds, Executor writer) {
+        this.emitter = emitter;
+        this.sse = emitter instanceof SseEmitter;
+        this.writer = writer;
+        this.pending = taskIds.size();
+        this.indexes = new HashMap<>(taskIds.size() * 2);
+        for (int i = 0; i < taskIds.size(); i++) {
+            indexes.put(taskIds.get(i), i);
+        }
+    }
+
+    ResponseBodyEmitter getEmitter() {
+        return emitter;
+    }
+
+    Set<UUID> getTasks() {
+        return indexes.keySet();
+    }
+
+    /**
+     * Añade el evento de una tarea del lote; el payload se completa con su posición en el lote
+     */
+    void send(UUID taskId, String taskType, Map<String, Object> event) {
+        event.put("index", indexes.get(taskId));
+        lock.lock();
+        try {
+            if (closed) {
+                return;
+            }
+            buffer.addLast(new PendingEvent(taskId, taskType, event, System.nanoTime()));
+            if (!draining) {
+                draining = true;
+                writer.execute(this::drain);
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Marca el stream como cerrado (cliente desconectado o timeout); los eventos posteriores se ignoran
+     */
+    void close() {
+        lock.lock();
+        try {
+            closed = true;
+            buffer.clear();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void drain() {
+        while (true) {
+            PendingEvent event;
+            boolean last;
+            lock.lock();
+            try {
+                if (closed || buffer.isEmpty()) {
+                    draining = false;
+                    return;
+                }
+                event = buffer.pollFirst();
+                last = --pending == 0;
+            } finally {
+                lock.unlock();
+            }
+
+            long buffered = System.nanoTime() - event.bufferedAtNanos();
+            TaskDeliveredEvent deliveredEvent = TaskEvents.beginDelivery();
+            try {
+                write(event.payload());
+                if (last) {
+                    emitter.complete();
+                }
+            } catch (IOException | IllegalStateException e) {
+                close();
+                emitter.completeWithError(e);
+                return;
+            } finally {
+                TaskEvents.endDelivery(deliveredEvent, event.taskId(), event.taskType(), "batch", buffered);
+            }
+        }
+    }
+
+    private void write(Map<String, Object> event) throws IOException {
+        if (sse) {
+            ((SseEmitter) emitter).send(SseEmitter.event().name(TaskStreamRegistry.TASK_EVENT).data(event));
+            return;
+        }
+        Set<ResponseBodyEmitter.DataWithMediaType> line = new LinkedHashSet<>();
+        line.add(new ResponseBodyEmitter.DataWithMediaType(event, MediaType.APPLICATION_JSON));
+        line.add(new ResponseBodyEmitter.DataWithMediaType("\n", MediaType.TEXT_PLAIN));
+        emitter.send(line);
+    }
+}
@@ -0,0 +1,56 @@
+package co.g3a.high_throughput_poc.worker.stream;
+
+import co.g3a.high_throughput_poc.worker.WorkQueueService;
+import co.g3a.high_throughput_poc.worker.WorkerEnabledController;
+import co.g3a.high_throughput_poc.worker.exception.StreamSessionNotFoundException;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Stream SSE de sesión: una conexión por cliente para los resultados de todas sus tareas.
+ *
+ * 1. GET /api/tasks/stream abre la sesión; el primer evento ({@code session}) trae su id.
+ * 2. Las tareas se registran enviando la cabecera X-Stream-Session al encolarlas, o con
+ *    POST /api/tasks/stream/{sessionId}/tasks.
+ * 3. Cada tarea terminada llega como un evento {@code task}. Para reconectar sin perder
+ *    eventos se abre GET /api/tasks/stream?sessionId=...
+ */
+@RestController
+@RequestMapping("/api/tasks/stream")
+public class TaskStreamController extends WorkerEnabledController {
+
+    public TaskStreamController(WorkQueueService workQueueService) {
+        super(workQueueService);
+    }
+
+    @GetMapping(produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter openStream(@RequestParam(required = false) String sessionId) {
+        return workQueueService.openTaskStream(sessionId);
+    }
+
+    @PostMapping("/{sessionId}/tasks")
+    public ResponseEntity<?> subscribe(@PathVariable String sessionId, @RequestBody List<UUID> taskIds) {
+        try {
+            return ResponseEntity.ok(workQueueService.subscribeToTaskStream(sessionId, taskIds));
+        } catch (StreamSessionNotFoundException e) {
+            return buildErrorResponse(
+                    HttpStatus.NOT_FOUND,
+                    "UNKNOWN",
+                    "Stream session not found or expired: " + e.getSessionId(),
+                    e
+            );
+        }
+    }
+}
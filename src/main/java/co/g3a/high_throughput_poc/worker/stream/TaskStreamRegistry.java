@@ -0,0 +1,214 @@
+package co.g3a.high_throughput_poc.worker.stream;
+
+import co.g3a.high_throughput_poc.worker.WorkerProperties;
+import co.g3a.high_throughput_poc.worker.exception.StreamSessionNotFoundException;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * Sesiones SSE multiplexadas: cada cliente abre un stream y registra en él tantas tareas
+ * como quiera; al terminar cada una se envía un evento {@code task} por ese stream.
+ * También sirve las respuestas en streaming de los lotes, que se cierran al llegar la última tarea.
+ */
+public class TaskStreamRegistry {
+    public static final String SESSION_EVENT = "session";
+    public static final String TASK_EVENT = "task";
+
+    private final WorkerProperties.Stream config;
+    private final Supplier<UUID> sessionIds;
+    private final ConcurrentMap<String, TaskStreamSession> sessions = new ConcurrentHashMap<>();
+    private final ConcurrentMap<UUID, TaskStreamSession> subscriptions = new ConcurrentHashMap<>();
+    private final ConcurrentMap<UUID, BatchResultStream> batchSubscriptions = new ConcurrentHashMap<>();
+    private final ExecutorService writer = Executors.newVirtualThreadPerTaskExecutor();
+    private final LongAdder droppedEvents = new LongAdder();
+    private final LongAdder deliveredEvents = new LongAdder();
+    private final LongAdder reapedSessions = new LongAdder();
+
+    public TaskStreamRegistry(WorkerProperties.Stream config, Supplier<UUID> sessionIds) {
+        this.config = config;
+        this.sessionIds = sessionIds;
+    }
+
+    /**
+     * Abre una sesión nueva o reconecta a {@code sessionId} si todavía existe
+     */
+    public SseEmitter connect(String sessionId) {
+        TaskStreamSession session = sessionId != null ? sessions.get(sessionId) : null;
+        if (session == null) {
+            if (sessions.size() >= config.getMaxSessions()) {
+                return rejectedStream();
+            }
+            session = new TaskStreamSession(sessionIds.get().toString(), config.getMaxBufferedEvents(),
+                    writer, droppedEvents);
+            sessions.put(session.getId(), session);
+        }
+
+        SseEmitter emitter = new SseEmitter(config.getEmitterTimeout().toMillis());
+        TaskStreamSession attached = session;
+        emitter.onCompletion(() -> attached.detach(emitter));
+        emitter.onTimeout(() -> attached.detach(emitter));
+        emitter.onError(e -> attached.detach(emitter));
+        attached.attach(emitter, SESSION_EVENT, Map.of("sessionId", attached.getId()));
+        return emitter;
+    }
+
+    private static SseEmitter rejectedStream() {
+        SseEmitter emitter = new SseEmitter(0L);
+        try {
+            Map<String, Object> response = new HashMap<>();
+            response.put("status", "REJECTED");
+            response.put("message", "Too many open stream sessions");
+            emitter.send(SseEmitter.event().name(SESSION_EVENT).data(response));
+            emitter.complete();
+        } catch (IOException e) {
+            emitter.completeWithError(e);
+        }
+        return emitter;
+    }
+
+    /**
+     * Registra una tarea en la sesión; su evento se enviará al llamar a {@link #publish}
+     */
+    public void subscribe(String sessionId, UUID taskId) {
+        TaskStreamSession session = sessions.get(sessionId);
+        if (session == null) {
+            throw new StreamSessionNotFoundException(sessionId);
+        }
+        TaskStreamSession previous = subscriptions.put(taskId, session);
+        if (previous != null && previous != session) {
+            previous.getTasks().remove(taskId);
+        }
+        session.getTasks().add(taskId);
+    }
+
+    /**
+     * Abre la respuesta en streaming de un lote en SSE. Las tareas que ya terminaron
+     * deben publicarse después de abrirla.
+     */
+    public SseEmitter openBatchEvents(List<UUID> taskIds) {
+        SseEmitter emitter = new SseEmitter(config.getEmitterTimeout().toMillis());
+        openBatch(emitter, taskIds);
+        return emitter;
+    }
+
+    /**
+     * Abre la respuesta en streaming de un lote en NDJSON (una línea JSON por tarea)
+     */
+    public ResponseBodyEmitter openBatchNdjson(List<UUID> taskIds) {
+        ResponseBodyEmitter emitter = new ResponseBodyEmitter(config.getEmitterTimeout().toMillis());
+        openBatch(emitter, taskIds);
+        return emitter;
+    }
+
+    private void openBatch(ResponseBodyEmitter emitter, List<UUID> taskIds) {
+        BatchResultStream stream = new BatchResultStream(emitter, taskIds, writer);
+        Runnable release = () -> {
+            stream.close();
+            stream.getTasks().forEach(taskId -> batchSubscriptions.remove(taskId, stream));
+        };
+        emitter.onCompletion(release);
+        emitter.onTimeout(release);
+        emitter.onError(e -> release.run());
+        taskIds.forEach(taskId -> batchSubscriptions.put(taskId, stream));
+    }
+
+    public boolean hasSession(String sessionId) {
+        return sessions.containsKey(sessionId);
+    }
+
+    /**
+     * Envía el evento de una tarea terminada a la sesión que la registró, si hay alguna.
+     * Solo el primero que retira la suscripción lo envía, así que es seguro llamarlo
+     * tanto al terminar la tarea como al registrar una tarea que ya había terminado.
+     */
+    public void publish(UUID taskId, String taskType, Supplier<Map<String, Object>> payload) {
+        BatchResultStream batch = batchSubscriptions.remove(taskId);
+        if (batch != null) {
+            batch.send(taskId, taskType, payload.get());
+            deliveredEvents.increment();
+        }
+        TaskStreamSession session = subscriptions.remove(taskId);
+        if (session == null) {
+            return;
+        }
+        session.getTasks().remove(taskId);
+        session.send(taskId, taskType, TASK_EVENT, payload.get());
+        deliveredEvents.increment();
+    }
+
+    /**
+     * Heartbeat de las sesiones conectadas y cierre de las que llevan desconectadas más del tiempo de gracia
+     */
+    public void maintain() {
+        long now = System.nanoTime();
+        long idleTimeout = config.getSessionIdleTimeout().toNanos();
+        sessions.values().forEach(session -> {
+            if (session.isConnected()) {
+                session.heartbeat();
+            } else if (now - session.getDisconnectedAtNanos() > idleTimeout) {
+                close(session);
+                reapedSessions.increment();
+            }
+        });
+    }
+
+    private void close(TaskStreamSession session) {
+        if (sessions.remove(session.getId(), session)) {
+            session.getTasks().forEach(taskId -> subscriptions.remove(taskId, session));
+            session.close();
+        }
+    }
+
+    public void shutdown() {
+        sessions.values().forEach(this::close);
+        batchSubscriptions.values().forEach(stream -> stream.getEmitter().complete());
+        writer.shutdownNow();
+    }
+
+    public int sessionCount() {
+        return sessions.size();
+    }
+
+    public int subscriptionCount() {
+        return subscriptions.size();
+    }
+
+    public long droppedEventCount() {
+        return droppedEvents.sum();
+    }
+
+    public Map<String, Object> getStatistics() {
+        int connected = 0;
+        int buffered = 0;
+        for (TaskStreamSession session : sessions.values()) {
+            if (session.isConnected()) {
+                connected++;
+            }
+            buffered += session.bufferedEvents();
+        }
+
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("sessions", sessions.size());
+        stats.put("connected", connected);
+        stats.put("subscriptions", subscriptions.size());
+        stats.put("batchSubscriptions", batchSubscriptions.size());
+        stats.put("bufferedEvents", buffered);
+        stats.put("deliveredEvents", deliveredEvents.sum());
+        stats.put("droppedEvents", droppedEvents.sum());
+        stats.put("reapedSessions", reapedSessions.sum());
+        return stats;
+    }
+}
@@ -0,0 +1,227 @@
+package co.g3a.high_throughput_poc.worker.stream;
+
+import co.g3a.high_throughput_poc.worker.jfr.TaskDeliveredEvent;
+import co.g3a.high_throughput_poc.worker.jfr.TaskEvents;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Sesión de un cliente: un único SseEmitter por el que se envían los eventos de todas las
+ * tareas que registra.
+ *
+ * Los eventos se encolan en un buffer acotado y los escribe un hilo virtual por sesión, así
+ * quien termina una tarea (dispatcher, rueda de expiración, executor) nunca se bloquea en el
+ * socket de un cliente lento. Si el buffer se llena se descartan los eventos más antiguos.
+ * Mientras la sesión está desconectada los eventos se siguen acumulando hasta que el cliente
+ * se reconecta o la sesión se cierra por inactividad.
+ */
+class TaskStreamSession {
+
+    // taskId y taskType solo en eventos de tarea, para los eventos JFR de entrega
+    private record StreamEvent(long id, String name, Object data, UUID taskId, String taskType, long bufferedAtNanos) {
+
+        StreamEvent(long id, String name, Object data) {
+            this(id, name, data, null, null, System.nanoTime());
+        }
+    }
+
+    private final String id;
+    private final int maxBufferedEvents;
+    private final Executor writer;
+    private final LongAdder droppedEvents;
+    private final Set<UUID> tasks = ConcurrentHashMap.newKeySet();
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final ArrayDeque<StreamEvent> buffer = new ArrayDeque<>();
+    private SseEmitter emitter;
+    private boolean draining;
+    private long sequence;
+    private long disconnectedAtNanos = System.nanoTime();
+
+    TaskStreamSession(String id, int maxBufferedEvents, Executor writer, LongAdder droppedEvents) {
+        this.id = id;
+        this.maxBufferedEvents = maxBufferedEvents;
+        this.writer = writer;
+        this.droppedEvents = droppedEvents;
+    }
+
+    String getId() {
+        return id;
+    }
+
+    Set<UUID> getTasks() {
+        return tasks;
+    }
+
+    /**
+     * Conecta un nuevo emitter (primera conexión o reconexión). El primer evento enviado
+     * es {@code firstEvent}, seguido de lo que se acumuló mientras estaba desconectada.
+     */
+    void attach(SseEmitter newEmitter, String firstEventName, Object firstEventData) {
+        SseEmitter previous;
+        lock.lock();
+        try {
+            previous = emitter;
+            emitter = newEmitter;
+            buffer.addFirst(new StreamEvent(++sequence, firstEventName, firstEventData));
+            scheduleDrain();
+        } finally {
+            lock.unlock();
+        }
+        if (previous != null) {
+            previous.complete();
+        }
+    }
+
+    void detach(SseEmitter closed) {
+        lock.lock();
+        try {
+            if (emitter == closed) {
+                emitter = null;
+                disconnectedAtNanos = System.nanoTime();
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    void send(UUID taskId, String taskType, String name, Object data) {
+        lock.lock();
+        try {
+            if (buffer.size() >= maxBufferedEvents) {
+                buffer.pollFirst();
+                droppedEvents.increment();
+            }
+            buffer.addLast(new StreamEvent(++sequence, name, data, taskId, taskType, System.nanoTime()));
+            scheduleDrain();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Envía un comentario si la sesión está conectada y sin eventos pendientes.
+     * Además de mantener viva la conexión, detecta clientes que se fueron sin cerrar.
+     */
+    void heartbeat() {
+        lock.lock();
+        try {
+            if (emitter != null && buffer.isEmpty() && !draining) {
+                buffer.addLast(new StreamEvent(0, null, null));
+                scheduleDrain();
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    boolean isConnected() {
+        lock.lock();
+        try {
+            return emitter != null;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    long getDisconnectedAtNanos() {
+        lock.lock();
+        try {
+            return disconnectedAtNanos;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    int bufferedEvents() {
+        lock.lock();
+        try {
+            return buffer.size();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    void close() {
+        SseEmitter current;
+        lock.lock();
+        try {
+            current = emitter;
+            emitter = null;
+            buffer.clear();
+        } finally {
+            lock.unlock();
+        }
+        if (current != null) {
+            current.complete();
+        }
+    }
+
+    // Llamar con el lock tomado
+    private void scheduleDrain() {
+        if (emitter != null && !draining) {
+            draining = true;
+            writer.execute(this::drain);
+        }
+    }
+
+    private void drain() {
+        while (true) {
+            StreamEvent event;
+            SseEmitter target;
+            lock.lock();
+            try {
+                if (emitter == null || buffer.isEmpty()) {
+                    draining = false;
+                    return;
+                }
+                event = buffer.pollFirst();
+                target = emitter;
+            } finally {
+                lock.unlock();
+            }
+
+            long buffered = System.nanoTime() - event.bufferedAtNanos();
+            TaskDeliveredEvent deliveredEvent = TaskEvents.beginDelivery();
+            try {
+                if (event.name() == null) {
+                    target.send(SseEmitter.event().comment("heartbeat"));
+                } else {
+                    target.send(SseEmitter.event()
+                            .id(Long.toString(event.id()))
+                            .name(event.name())
+                            .data(event.data()));
+                }
+            } catch (IOException | IllegalStateException e) {
+                // Conexión caída: el evento vuelve al buffer para la reconexión
+                lock.lock();
+                try {
+                    if (event.name() != null) {
+                        buffer.addFirst(event);
+                    }
+                    if (emitter == target) {
+                        emitter = null;
+                        disconnectedAtNanos = System.nanoTime();
+                    }
+                    draining = false;
+                } finally {
+                    lock.unlock();
+                }
+                target.completeWithError(e);
+                return;
+            } finally {
+                if (event.taskId() != null) {
+                    TaskEvents.endDelivery(deliveredEvent, event.taskId(), event.taskType(), "session", buffered);
+                }
+            }
+        }
+    }
+}
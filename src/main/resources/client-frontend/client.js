@@ -5,9 +5,62 @@ class ProductClient {
             apiBaseUrl: 'http://localhost:8080/api/products/async',
             syncApiBaseUrl: 'http://localhost:8080/api/products',
             adminApiUrl: 'http://localhost:8080/api/admin/worker',
+            streamUrl: 'http://localhost:8080/api/tasks/stream',
             pollingInterval: 1000, // Intervalo para consultar estado de tareas (1 segundo)
             ...options
         };
+
+        // Un único stream SSE para todas las tareas de este cliente
+        this.stream = null;
+        this.streamSessionId = null;
+        this.streamReady = null;
+        this.taskHandlers = new Map();
+        this.unclaimedEvents = new Map();
+    }
+
+    // Abre (o reabre en la misma sesión) el stream SSE compartido y resuelve con el id de sesión
+    openStream() {
+        if (this.streamReady) {
+            return this.streamReady;
+        }
+
+        this.streamReady = new Promise((resolve, reject) => {
+            const url = new URL(this.config.streamUrl);
+            if (this.streamSessionId) {
+                url.searchParams.append('sessionId', this.streamSessionId);
+            }
+            const stream = new EventSource(url);
+            this.stream = stream;
+
+            stream.addEventListener('session', (event) => {
+                this.streamSessionId = JSON.parse(event.data).sessionId;
+                resolve(this.streamSessionId);
+            });
+
+            stream.addEventListener('task', (event) => {
+                const data = JSON.parse(event.data);
+                const handler = this.taskHandlers.get(data.idTask);
+                if (handler) {
+                    this.taskHandlers.delete(data.idTask);
+                    handler(data);
+                } else {
+                    // El evento llegó antes de que se registrara el handler
+                    this.unclaimedEvents.set(data.idTask, data);
+                }
+            });
+
+            stream.onerror = () => {
+                // Se reconecta a la misma sesión para recibir los eventos acumulados
+                stream.close();
+                this.stream = null;
+                this.streamReady = null;
+                if (this.taskHandlers.size > 0) {
+                    setTimeout(() => this.openStream().catch(() => {}), this.config.pollingInterval);
+                }
+                reject(new Error('SSE stream closed'));
+            };
+        });
+        return this.streamReady;
     }
 
     async fetchWithWorker(endpoint, params = {}) {
@@ -17,11 +70,15 @@ class ProductClient {
             url.searchParams.append(key, params[key]));
 
         try {
+            // La tarea se registra en el stream de sesión al encolarla
+            const sessionId = await this.openStream();
+
             // 1. Enviar la solicitud inicial para encolar la tarea
             const response = await fetch(url, {
                 method: 'GET',
                 headers: {
-                    'Accept': 'application/json'
+                    'Accept': 'application/json',
+                    'X-Stream-Session': sessionId
                 },
                 // Incluir credenciales si se necesitan cookies
                 // credentials: 'include'
@@ -69,33 +126,30 @@ class ProductClient {
         }
     }
 
-    // Configurar un EventSource para suscribirse a actualizaciones SSE
+    // Registrar los callbacks de una tarea en el stream SSE compartido
     setupSSEListener(taskId, onProcessed, onRejected, onError) {
-        try {
-            const eventSource = new EventSource(`${this.config.apiBaseUrl}/subscribe/${taskId}`);
-
-            eventSource.onmessage = (event) => {
-                const data = JSON.parse(event.data);
-
-                if (data.status === 'PROCESSED') {
-                    onProcessed(data.result);
-                    eventSource.close();
-                } else if (data.status === 'REJECTED') {
-                    onRejected();
-                    eventSource.close();
-                }
-            };
-
-            eventSource.onerror = (error) => {
-                onError(error);
-                eventSource.close();
-            };
+        const handler = (data) => {
+            if (data.status === 'PROCESSED') {
+                onProcessed(data.result);
+            } else if (data.status === 'REJECTED' || data.status === 'TIMED_OUT') {
+                onRejected();
+            } else {
+                onError(new Error(`Unexpected task status: ${data.status}`));
+            }
+        };
 
-            return eventSource;
-        } catch (error) {
-            onError(error);
-            return null;
+        const early = this.unclaimedEvents.get(taskId);
+        if (early) {
+            this.unclaimedEvents.delete(taskId);
+            handler(early);
+        } else {
+            this.taskHandlers.set(taskId, handler);
         }
+
+        // Mismo contrato que antes: close() deja de escuchar esta tarea
+        return {
+            close: () => this.taskHandlers.delete(taskId)
+        };
     }
 
     // Métodos específicos para cada endpoint
@@ -5,6 +5,7 @@ const DEV_CONFIG = {
     apiBaseUrl: 'http://localhost:8080/api/products/async',
     syncApiBaseUrl: 'http://localhost:8080/api/products',
     adminApiUrl: 'http://localhost:8080/api/admin/worker',
+    streamUrl: 'http://localhost:8080/api/tasks/stream',
     pollingInterval: 1000, // 1 segundo
 };
 
@@ -13,6 +14,7 @@ const TEST_CONFIG = {
     apiBaseUrl: 'http://test-server/api/products/async',
     syncApiBaseUrl: 'http://test-server/api/products',
     adminApiUrl: 'http://test-server/api/admin/worker',
+    streamUrl: 'http://test-server/api/tasks/stream',
     pollingInterval: 2000, // 2 segundos
 };
 
@@ -21,6 +23,7 @@ const PROD_CONFIG = {
     apiBaseUrl: 'https://api.example.com/api/products/async',
     syncApiBaseUrl: 'https://api.example.com/api/products',
     adminApiUrl: 'https://api.example.com/api/admin/worker',
+    streamUrl: 'https://api.example.com/api/tasks/stream',
     pollingInterval: 3000, // 3 segundos
 };
 
@@ -0,0 +1,159 @@
+package co.g3a.high_throughput_poc.worker.cache;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ResultCacheTest {
+
+    private static final long MAX_BYTES = 1024 * 1024;
+
+    private static ResultCache cache(int maxEntries) {
+        return new ResultCache("TEST", CachePolicy.of(Duration.ofMinutes(1), maxEntries, MAX_BYTES));
+    }
+
+    private static void request(ResultCache cache, String key, int times) {
+        for (int i = 0; i < times; i++) {
+            cache.get(key);
+        }
+    }
+
+    @Test
+    void returnsStoredResultAndCountsHitsAndMisses() {
+        ResultCache cache = cache(10);
+
+        assertThat(cache.get("a")).isNull();
+        cache.put("a", "result-a", cache.generation());
+
+        assertThat(cache.get("a")).isEqualTo("result-a");
+        assertThat(cache.size()).isEqualTo(1);
+        assertThat(cache.hitCount()).isEqualTo(1);
+        assertThat(cache.missCount()).isEqualTo(1);
+        assertThat(cache.weightedSize()).isPositive();
+    }
+
+    @Test
+    void rejectsCandidateLessFrequentThanVictim() {
+        ResultCache cache = cache(2);
+        request(cache, "a", 3);
+        cache.put("a", "result-a", cache.generation());
+        request(cache, "b", 3);
+        cache.put("b", "result-b", cache.generation());
+
+        // Clave pedida una sola vez: no desplaza a las que se piden más
+        request(cache, "c", 1);
+        cache.put("c", "result-c", cache.generation());
+
+        assertThat(cache.size()).isEqualTo(2);
+        assertThat(cache.get("c")).isNull();
+        assertThat(cache.get("a")).isEqualTo("result-a");
+        assertThat(cache.get("b")).isEqualTo("result-b");
+        assertThat(cache.evictionCount()).isZero();
+        assertThat(cache.getStatistics().get("admissionRejections")).isEqualTo(1L);
+    }
+
+    @Test
+    void evictsVictimWhenCandidateIsMoreFrequent() {
+        ResultCache cache = cache(2);
+        request(cache, "a", 2);
+        cache.put("a", "result-a", cache.generation());
+        request(cache, "b", 2);
+        cache.put("b", "result-b", cache.generation());
+
+        request(cache, "d", 6);
+        cache.put("d", "result-d", cache.generation());
+
+        assertThat(cache.size()).isEqualTo(2);
+        assertThat(cache.evictionCount()).isEqualTo(1);
+        assertThat(cache.get("d")).isEqualTo("result-d");
+    }
+
+    @Test
+    void clockSparesEntriesReadSinceLastPass() {
+        ResultCache cache = cache(2);
+        request(cache, "a", 2);
+        cache.put("a", "result-a", cache.generation());
+        request(cache, "b", 2);
+        cache.put("b", "result-b", cache.generation());
+        // "a" se lee después de guardarse: tiene segunda oportunidad y la víctima es "b"
+        cache.get("a");
+
+        request(cache, "d", 8);
+        cache.put("d", "result-d", cache.generation());
+
+        assertThat(cache.get("a")).isEqualTo("result-a");
+        assertThat(cache.get("b")).isNull();
+        assertThat(cache.get("d")).isEqualTo("result-d");
+    }
+
+    @Test
+    void rejectsResultLargerThanByteBound() {
+        ResultCache cache = new ResultCache("TEST", CachePolicy.of(Duration.ofMinutes(1), 10, 64));
+
+        cache.put("a", "x".repeat(1000), cache.generation());
+
+        assertThat(cache.size()).isZero();
+        assertThat(cache.weightedSize()).isZero();
+    }
+
+    @Test
+    void skipsResultComputedBeforeInvalidation() {
+        ResultCache cache = cache(10);
+        long generation = cache.generation();
+
+        // El producto cambió mientras se calculaba el resultado
+        cache.invalidate("a");
+        cache.put("a", "stale", generation);
+
+        assertThat(cache.get("a")).isNull();
+        assertThat(cache.size()).isZero();
+
+        cache.put("a", "fresh", cache.generation());
+        assertThat(cache.get("a")).isEqualTo("fresh");
+    }
+
+    @Test
+    void invalidateRemovesEntry() {
+        ResultCache cache = cache(10);
+        cache.put("a", "result-a", cache.generation());
+        cache.put("b", "result-b", cache.generation());
+
+        cache.invalidate("a");
+
+        assertThat(cache.get("a")).isNull();
+        assertThat(cache.get("b")).isEqualTo("result-b");
+        assertThat(cache.getStatistics().get("invalidations")).isEqualTo(1L);
+    }
+
+    @Test
+    void invalidateAllClearsEntriesAndPendingPuts() {
+        ResultCache cache = cache(10);
+        cache.put("a", "result-a", cache.generation());
+        long generation = cache.generation();
+
+        cache.invalidateAll();
+        cache.put("b", "stale", generation);
+
+        assertThat(cache.size()).isZero();
+        assertThat(cache.weightedSize()).isZero();
+        assertThat(cache.get("a")).isNull();
+        assertThat(cache.get("b")).isNull();
+    }
+
+    @Test
+    void expiredEntriesAreNotServedAndCleanedUp() throws InterruptedException {
+        ResultCache cache = new ResultCache("TEST", CachePolicy.of(Duration.ofMillis(1), 10, MAX_BYTES));
+        cache.put("a", "result-a", cache.generation());
+        cache.put("b", "result-b", cache.generation());
+        Thread.sleep(5);
+
+        assertThat(cache.get("a")).isNull();
+        cache.cleanUp();
+
+        assertThat(cache.size()).isZero();
+        assertThat(cache.weightedSize()).isZero();
+        assertThat(cache.expirationCount()).isEqualTo(2);
+    }
+}